@@ -0,0 +1,97 @@
+package no.spk.tidsserie.tjenesteregister.benchmark;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import no.spk.tidsserie.tjenesteregister.ServiceRegistration;
+import no.spk.tidsserie.tjenesteregister.ServiceRegistry;
+import no.spk.tidsserie.tjenesteregister.support.ServiceEventDispatcher;
+import no.spk.tidsserie.tjenesteregister.support.SimpleServiceRegistry;
+import no.spk.tidsserie.tjenesteregister.support.TypeSlotStorage;
+import no.spk.tidsserie.tjenesteregister.support.WriteConcurrency;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Måler registrering og avregistrering frå fleire trådar samtidig, med éin felles skrivelås og med
+ * {@link WriteConcurrency#STRIPED stripa} skrivelåsar.
+ * <br>
+ * Med {@code distinkte} skriv kvar tråd til si eiga tenestetype, med {@code felles} skriv alle trådane til samme
+ * tenestetype. Antall trådar kan skalerast med JMH sitt {@code -t}-argument, for eksempel {@code -t 1}, {@code -t 4}
+ * og {@code -t 16}, for å sjå kor godt skrivinga skalerer med antall kjerner.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ChurnBenchmark {
+    /**
+     * Éi teneste per tenestetype, kvar skrivetråd registrerer tenesta under {@link Object#getClass()}.
+     */
+    private static final Object[] TENESTER = {
+            "a", 1, 2L, 3d, 4f, (short) 5, (byte) 6, 'c', true, BigInteger.ONE, BigDecimal.ONE,
+            new StringBuilder(), new StringBuffer(), new AtomicInteger(), new AtomicLong(), new Object()
+    };
+
+    @Param({"SINGLE_LOCK", "STRIPED"})
+    WriteConcurrency skriving;
+
+    @Param({"distinkte", "felles"})
+    String typar;
+
+    private ServiceRegistry registry;
+
+    private final AtomicInteger traadar = new AtomicInteger();
+
+    @Setup
+    public void setup() {
+        registry = new SimpleServiceRegistry(
+                ServiceEventDispatcher.synchronous(),
+                SimpleServiceRegistry.DEFAULT_LOOKUP_CACHE_SIZE,
+                TypeSlotStorage.MAP,
+                skriving
+        );
+    }
+
+    @Benchmark
+    public void registrer_og_avregistrer(final Skrivar skrivar) {
+        skrivar.registrer(registry).unregister();
+    }
+
+    @State(Scope.Thread)
+    public static class Skrivar {
+        private Object teneste;
+
+        @Setup
+        public void setup(final ChurnBenchmark benchmark) {
+            teneste = "felles".equals(benchmark.typar)
+                    ? new Object()
+                    : TENESTER[benchmark.traadar.getAndIncrement() % TENESTER.length];
+        }
+
+        ServiceRegistration<?> registrer(final ServiceRegistry registry) {
+            return registrer(registry, teneste.getClass());
+        }
+
+        private <T> ServiceRegistration<T> registrer(final ServiceRegistry registry, final Class<T> type) {
+            return registry.registerService(type, type.cast(teneste));
+        }
+    }
+}
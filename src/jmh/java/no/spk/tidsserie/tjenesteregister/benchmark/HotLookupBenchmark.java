@@ -0,0 +1,86 @@
+package no.spk.tidsserie.tjenesteregister.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import no.spk.tidsserie.tjenesteregister.ServiceFilter;
+import no.spk.tidsserie.tjenesteregister.ServiceRegistry;
+import no.spk.tidsserie.tjenesteregister.benchmark.Tjenester.Tjeneste;
+import no.spk.tidsserie.tjenesteregister.support.SimpleServiceRegistry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Måler oppslags-APIet for varme kodestiar, som skal halde {@code gc.alloc.rate.norm} på 0 bytes per operasjon når
+ * benchmarken blir køyrt med {@code -prof gc}.
+ * <br>
+ * {@link #getService_optional()} og {@link #getServiceReferences_filter()} måler dei tilsvarande oppslaga via
+ * {@link java.util.Optional} og lister, til samanlikning.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HotLookupBenchmark {
+    @Param({"10", "1000"})
+    int antall;
+
+    @Param({"simple", "frozen"})
+    String variant;
+
+    private ServiceRegistry registry;
+
+    private ServiceFilter gruppefilter;
+
+    private Consumer<Tjeneste> forbrukar;
+
+    @Setup
+    public void setup(final Blackhole blackhole) {
+        final SimpleServiceRegistry simple = new SimpleServiceRegistry();
+        for (int i = 0; i < antall; i++) {
+            Tjenester.registrer(simple, i);
+        }
+        registry = "frozen".equals(variant) ? simple.freeze() : simple;
+        gruppefilter = registry.compileFilter("gruppe=" + Tjenester.GRUPPER / 2);
+        forbrukar = blackhole::consume;
+    }
+
+    @Benchmark
+    public Tjeneste getServiceOrNull() {
+        return registry.getServiceOrNull(Tjeneste.class);
+    }
+
+    @Benchmark
+    public Tjeneste getService_optional() {
+        return registry.getServiceReference(Tjeneste.class).flatMap(registry::getService).orElse(null);
+    }
+
+    @Benchmark
+    public void forEachService() {
+        registry.forEachService(Tjeneste.class, gruppefilter, forbrukar);
+    }
+
+    @Benchmark
+    public void getServiceReferences_filter(final Blackhole blackhole) {
+        registry.getServiceReferences(Tjeneste.class, gruppefilter)
+                .forEach(r -> blackhole.consume(registry.getService(r).orElse(null)));
+    }
+
+    @Benchmark
+    public int countServices() {
+        return registry.countServices(Tjeneste.class);
+    }
+}
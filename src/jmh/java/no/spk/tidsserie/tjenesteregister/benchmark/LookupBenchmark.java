@@ -0,0 +1,108 @@
+package no.spk.tidsserie.tjenesteregister.benchmark;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import no.spk.tidsserie.tjenesteregister.ServiceFilter;
+import no.spk.tidsserie.tjenesteregister.ServiceReference;
+import no.spk.tidsserie.tjenesteregister.ServiceRegistry;
+import no.spk.tidsserie.tjenesteregister.benchmark.Tjenester.Tjeneste;
+import no.spk.tidsserie.tjenesteregister.support.ServiceEventDispatcher;
+import no.spk.tidsserie.tjenesteregister.support.SimpleServiceRegistry;
+import no.spk.tidsserie.tjenesteregister.support.TypeSlotStorage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Måler oppslag av tenester med og utan filter, for tenestetypar med frå 1 til 10 000 registrerte tenester.
+ * <br>
+ * Kvar måling blir gjort mot eit vanleg {@link SimpleServiceRegistry}, eit som finn tenestene via
+ * {@link TypeSlotStorage#CLASS_VALUE} og eit {@link SimpleServiceRegistry#freeze() fryst} register med det samme
+ * innhaldet.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LookupBenchmark {
+    @Param({"1", "10", "100", "1000", "10000"})
+    int antall;
+
+    @Param({"simple", "classvalue", "frozen"})
+    String variant;
+
+    private ServiceRegistry registry;
+
+    private String[] filter;
+
+    private ServiceFilter kompilert;
+
+    private String[] gruppefilter;
+
+    private ServiceFilter kompilertGruppefilter;
+
+    @Setup
+    public void setup() {
+        final SimpleServiceRegistry simple = new SimpleServiceRegistry(
+                ServiceEventDispatcher.synchronous(),
+                SimpleServiceRegistry.DEFAULT_LOOKUP_CACHE_SIZE,
+                "classvalue".equals(variant) ? TypeSlotStorage.CLASS_VALUE : TypeSlotStorage.MAP
+        );
+        for (int i = 0; i < antall; i++) {
+            Tjenester.registrer(simple, i);
+        }
+        registry = "frozen".equals(variant) ? simple.freeze() : simple;
+        filter = new String[]{"id=" + antall / 2};
+        kompilert = registry.compileFilter(filter);
+        gruppefilter = new String[]{"gruppe=" + Tjenester.GRUPPER / 2};
+        kompilertGruppefilter = registry.compileFilter(gruppefilter);
+    }
+
+    @Benchmark
+    public Optional<ServiceReference<Tjeneste>> getServiceReference() {
+        return registry.getServiceReference(Tjeneste.class);
+    }
+
+    @Benchmark
+    public Optional<ServiceReference<Tjeneste>> getServiceReference_filter() {
+        return registry.getServiceReference(Tjeneste.class, filter);
+    }
+
+    @Benchmark
+    public Optional<ServiceReference<Tjeneste>> getServiceReference_kompilert_filter() {
+        return registry.getServiceReference(Tjeneste.class, kompilert);
+    }
+
+    @Benchmark
+    public List<ServiceReference<Tjeneste>> getServiceReferences() {
+        return registry.getServiceReferences(Tjeneste.class);
+    }
+
+    @Benchmark
+    public List<ServiceReference<Tjeneste>> getServiceReferences_filter() {
+        return registry.getServiceReferences(Tjeneste.class, gruppefilter);
+    }
+
+    @Benchmark
+    public List<ServiceReference<Tjeneste>> getServiceReferences_kompilert_filter() {
+        return registry.getServiceReferences(Tjeneste.class, kompilertGruppefilter);
+    }
+
+    @Benchmark
+    public Optional<Tjeneste> getService() {
+        return registry.getServiceReference(Tjeneste.class).flatMap(registry::getService);
+    }
+}
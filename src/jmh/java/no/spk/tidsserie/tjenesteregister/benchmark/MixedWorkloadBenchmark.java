@@ -0,0 +1,81 @@
+package no.spk.tidsserie.tjenesteregister.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import no.spk.tidsserie.tjenesteregister.ServiceFilter;
+import no.spk.tidsserie.tjenesteregister.ServiceReference;
+import no.spk.tidsserie.tjenesteregister.ServiceRegistry;
+import no.spk.tidsserie.tjenesteregister.benchmark.Tjenester.Tjeneste;
+import no.spk.tidsserie.tjenesteregister.support.SimpleServiceRegistry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Måler oppslag som køyrer samtidig med registreringar og avregistreringar under samme tenestetype.
+ * <br>
+ * {@code lesing_og_skriving} køyrer tre lesetrådar per skrivetråd, antall trådar totalt kan skalerast med
+ * JMH sitt {@code -tg}-argument, for eksempel {@code -tg 7,1}. {@code kun_lesing} køyrer rein lesing på fire
+ * trådar, og kan skalerast frå 1 til N trådar på samme måte.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class MixedWorkloadBenchmark {
+    @Param({"10", "1000"})
+    int antall;
+
+    private ServiceRegistry registry;
+
+    private ServiceFilter filter;
+
+    @Setup
+    public void setup() {
+        registry = new SimpleServiceRegistry();
+        for (int i = 0; i < antall; i++) {
+            Tjenester.registrer(registry, i);
+        }
+        filter = registry.compileFilter("gruppe=" + Tjenester.GRUPPER / 2);
+    }
+
+    @Benchmark
+    @Group("lesing_og_skriving")
+    @GroupThreads(3)
+    public List<ServiceReference<Tjeneste>> lesing() {
+        return registry.getServiceReferences(Tjeneste.class, filter);
+    }
+
+    @Benchmark
+    @Group("lesing_og_skriving")
+    @GroupThreads(1)
+    public void skriving(final Skrivar skrivar) {
+        Tjenester.registrer(registry, skrivar.neste++).unregister();
+    }
+
+    @Benchmark
+    @Group("kun_lesing")
+    @GroupThreads(4)
+    public List<ServiceReference<Tjeneste>> kun_lesing() {
+        return registry.getServiceReferences(Tjeneste.class, filter);
+    }
+
+    @State(Scope.Thread)
+    public static class Skrivar {
+        int neste = 1_000_000;
+    }
+}
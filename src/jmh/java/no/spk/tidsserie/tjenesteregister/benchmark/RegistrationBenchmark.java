@@ -0,0 +1,51 @@
+package no.spk.tidsserie.tjenesteregister.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import no.spk.tidsserie.tjenesteregister.ServiceRegistry;
+import no.spk.tidsserie.tjenesteregister.support.SimpleServiceRegistry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Måler kostnaden ved å registrere og avregistrere ei teneste under ei tenestetype som frå før har frå 1 til
+ * 10 000 registrerte tenester.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RegistrationBenchmark {
+    @Param({"1", "10", "100", "1000", "10000"})
+    int antall;
+
+    private ServiceRegistry registry;
+
+    private int neste;
+
+    @Setup
+    public void setup() {
+        registry = new SimpleServiceRegistry();
+        for (int i = 0; i < antall; i++) {
+            Tjenester.registrer(registry, i);
+        }
+        neste = antall;
+    }
+
+    @Benchmark
+    public void registerService_unregister() {
+        Tjenester.registrer(registry, neste++).unregister();
+    }
+}
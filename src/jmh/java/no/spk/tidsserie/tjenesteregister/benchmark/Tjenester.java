@@ -0,0 +1,42 @@
+package no.spk.tidsserie.tjenesteregister.benchmark;
+
+import no.spk.tidsserie.tjenesteregister.Constants;
+import no.spk.tidsserie.tjenesteregister.ServiceRegistration;
+import no.spk.tidsserie.tjenesteregister.ServiceRegistry;
+
+/**
+ * Felles oppsett av tenester for benchmarkane.
+ * <br>
+ * Kvar teneste blir registrert med ein unik {@code id}, ein {@code gruppe} som deler tenestene inn i ti like store
+ * grupper og ein ranking som varierer mellom tenestene slik at sorteringa faktisk blir utfordra.
+ */
+final class Tjenester {
+    static final int GRUPPER = 10;
+
+    private Tjenester() {
+    }
+
+    static ServiceRegistration<Tjeneste> registrer(final ServiceRegistry registry, final int i) {
+        return registry.registerService(Tjeneste.class, new Tjeneste(i), egenskapar(i));
+    }
+
+    static String[] egenskapar(final int i) {
+        return new String[]{
+                "id=" + i,
+                "gruppe=" + i % GRUPPER,
+                Constants.SERVICE_RANKING + "=" + i % 17
+        };
+    }
+
+    static final class Tjeneste {
+        private final int verdi;
+
+        Tjeneste(final int verdi) {
+            this.verdi = verdi;
+        }
+
+        int verdi() {
+            return verdi;
+        }
+    }
+}
@@ -27,4 +27,24 @@ public class Constants {
      * usannsynlig at vil bli returnert som standardtenesta.
      */
     public static final String SERVICE_RANKING = "service.ranking";
+
+    /**
+     * Tjenesteegenskap som identifiserer {@link ServiceScope scopet} til ei tjeneste registrert via
+     * {@link ServiceRegistry#registerFactory(Class, ServiceScope, java.util.function.Supplier, String...)}.
+     * <br>
+     * Egenskapen blir satt av tenesteregisteret og har verdien frå {@link ServiceScope#propertyValue()}.
+     *
+     * @since 3.1.0
+     */
+    public static final String SERVICE_SCOPE = "service.scope";
+
+    /**
+     * Tjenesteegenskap som identifiserer noden som eig ei tjeneste importert frå eit anna tenesteregister via
+     * {@link no.spk.tidsserie.tjenesteregister.support.RegistryFederation}.
+     * <br>
+     * Egenskapen blir satt av føderasjonen og manglar på tjenester som er registrert lokalt.
+     *
+     * @since 3.1.0
+     */
+    public static final String SERVICE_NODE = "service.node";
 }
@@ -0,0 +1,65 @@
+package no.spk.tidsserie.tjenesteregister;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Standardimplementasjonen av {@link ServiceRegistry#compileFilter(String...)}.
+ * <br>
+ * Held på dei validerte <code>navn=verdi</code>-filtera slik at oppslag via dei ferdig kompilerte
+ * standardmetodane i {@link ServiceRegistry} kan delegere vidare til {@link ServiceRegistry#getServiceReferences(Class,
+ * String...)}, og matchar elles referansar via {@link ServiceReference#getProperty(String)}. Filtera blir validert
+ * via {@link Filtersyntaks} og splitta i navn og verdi ein gong ved kompilering.
+ */
+final class Egenskapskrav implements ServiceFilter {
+    private final String[] filter;
+    private final String[] navn;
+    private final String[] verdiar;
+    private final List<String> sortert;
+
+    private Egenskapskrav(final String[] filter) {
+        this.filter = filter;
+        this.navn = Arrays.stream(filter).map(Filtersyntaks::navn).toArray(String[]::new);
+        this.verdiar = Arrays.stream(filter).map(Filtersyntaks::verdi).toArray(String[]::new);
+        this.sortert = Arrays.stream(filter).distinct().sorted().toList();
+    }
+
+    static Egenskapskrav kompiler(final String... filter) {
+        if (Arrays.stream(filter).anyMatch(f -> f.startsWith("("))) {
+            throw new UnsupportedOperationException(
+                    "Standardimplementasjonen av compileFilter støttar ikkje uttrykk: " + Arrays.toString(filter)
+            );
+        }
+        Filtersyntaks.valider(filter);
+        return new Egenskapskrav(filter.clone());
+    }
+
+    String[] filter() {
+        return filter.clone();
+    }
+
+    @Override
+    public boolean matches(final ServiceReference<?> reference) {
+        for (int i = 0; i < navn.length; i++) {
+            if (!verdiar[i].equals(reference.getProperty(navn[i]).orElse(null))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        return o instanceof Egenskapskrav other && sortert.equals(other.sortert);
+    }
+
+    @Override
+    public int hashCode() {
+        return sortert.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return sortert.toString();
+    }
+}
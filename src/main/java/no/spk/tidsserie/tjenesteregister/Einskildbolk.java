@@ -0,0 +1,63 @@
+package no.spk.tidsserie.tjenesteregister;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Standardimplementasjonen av {@link ServiceRegistry#batch(Consumer)}.
+ * <br>
+ * Bolken registrerer kvar teneste for seg via {@link ServiceRegistry#registerService(Class, Object, String...)}
+ * etter kvart som dei blir lagt til. Tenestene blir dermed synlege éi og éi, og lyttarar og trackerar blir oppdatert
+ * per teneste. Dersom fyllinga feilar blir tenestene som allereie er registrert avregistrert igjen.
+ */
+final class Einskildbolk implements RegistrationBatch {
+    private final ServiceRegistry registry;
+    private final List<ServiceRegistration<?>> registreringar = new ArrayList<>();
+
+    private boolean publisert;
+
+    private Einskildbolk(final ServiceRegistry registry) {
+        this.registry = registry;
+    }
+
+    static RegistrationGroup registrer(final ServiceRegistry registry, final Consumer<RegistrationBatch> fylling) {
+        final Einskildbolk bolk = new Einskildbolk(registry);
+        try {
+            fylling.accept(bolk);
+        } catch (final RuntimeException e) {
+            bolk.registreringar.forEach(ServiceRegistration::unregister);
+            throw e;
+        } finally {
+            bolk.publisert = true;
+        }
+        return new Gruppe(List.copyOf(bolk.registreringar));
+    }
+
+    @Override
+    public <T> ServiceRegistration<T> register(final Class<T> tjenestetype, final T tjeneste, final String... egenskapar) {
+        if (publisert) {
+            throw new IllegalStateException("bolken er allereie publisert, nye tenester må registrerast i ein ny bolk");
+        }
+        final ServiceRegistration<T> registrering = registry.registerService(tjenestetype, tjeneste, egenskapar);
+        registreringar.add(registrering);
+        return registrering;
+    }
+
+    private record Gruppe(List<ServiceRegistration<?>> registreringar) implements RegistrationGroup {
+        @Override
+        public List<ServiceRegistration<?>> getRegistrations() {
+            return registreringar;
+        }
+
+        @Override
+        public void unregisterAll() {
+            registreringar.forEach(ServiceRegistration::unregister);
+        }
+
+        @Override
+        public String toString() {
+            return "registreringsgruppe med " + registreringar.size() + " tenester";
+        }
+    }
+}
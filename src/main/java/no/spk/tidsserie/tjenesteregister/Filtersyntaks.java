@@ -0,0 +1,81 @@
+package no.spk.tidsserie.tjenesteregister;
+
+import static java.util.stream.Collectors.joining;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Validerer og splittar <code>navn=verdi</code>-filter slik {@link ServiceRegistry#compileFilter(String...)} og
+ * {@link ServiceRegistry#getServiceReferences(Class, String...)} tolkar dei.
+ * <br>
+ * Eit filter er gyldig dersom det har eit navn som ikkje er tomt, etterfølgt av <code>=</code> og ein verdi som ikkje
+ * er tom. Navnet går fram til første <code>=</code>, resten av filteret er verdien.
+ * <br>
+ * Implementasjonar av {@link ServiceRegistry} bør validere filtera sine via denne klassa slik at alle
+ * implementasjonane godtek dei samme filtera og feilar med samme melding.
+ *
+ * @since 3.1.0
+ */
+public final class Filtersyntaks {
+    private static final Pattern GYLDIG = Pattern.compile("^[^=]+=.+$");
+
+    private Filtersyntaks() {
+    }
+
+    /**
+     * Sjekkar om filteret er på formatet <code>navn=verdi</code>.
+     *
+     * @param filter filteret som skal sjekkast
+     * @return {@code true} dersom filteret er syntaktisk gyldig, {@code false} ellers
+     */
+    public static boolean erGyldig(final String filter) {
+        return GYLDIG.matcher(filter).matches();
+    }
+
+    /**
+     * Validerer at alle filtera er på formatet <code>navn=verdi</code>.
+     *
+     * @param filter filtera som skal validerast
+     * @throws UgyldigSyntaxException dersom eitt eller fleire av filtera er syntaktisk ugyldige, meldinga listar
+     * opp alle dei ugyldige filtera
+     */
+    public static void valider(final String... filter) {
+        final List<String> ugyldig = Arrays.stream(filter)
+                .filter(f -> !erGyldig(f))
+                .toList();
+        if (!ugyldig.isEmpty()) {
+            throw new UgyldigSyntaxException(
+                    ugyldig
+                            + " filter er ikkje syntaktisk gyldige, "
+                            + "kvart filter må vere på formatet egenskap=verdi.\n"
+                            + "Ugyldige filter:\n"
+                            + ugyldig
+                            .stream()
+                            .map(f -> "\t- " + f)
+                            .collect(joining("\n"))
+            );
+        }
+    }
+
+    /**
+     * Returnerer navnet på egenskapen filteret stiller krav til.
+     *
+     * @param filter eit filter som er {@link #erGyldig(String) syntaktisk gyldig}
+     * @return alt fram til første <code>=</code> i filteret
+     */
+    public static String navn(final String filter) {
+        return filter.substring(0, filter.indexOf('='));
+    }
+
+    /**
+     * Returnerer verdien filteret krev at egenskapen har.
+     *
+     * @param filter eit filter som er {@link #erGyldig(String) syntaktisk gyldig}
+     * @return alt etter første <code>=</code> i filteret
+     */
+    public static String verdi(final String filter) {
+        return filter.substring(filter.indexOf('=') + 1);
+    }
+}
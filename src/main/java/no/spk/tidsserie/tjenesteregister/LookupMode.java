@@ -0,0 +1,22 @@
+package no.spk.tidsserie.tjenesteregister;
+
+/**
+ * Styrer kva tenester eit oppslag på ein tjenestetype finn.
+ *
+ * @see ServiceRegistry#getServiceReferences(Class, LookupMode, ServiceFilter)
+ * @since 3.1.0
+ */
+public enum LookupMode {
+    /**
+     * Finn berre tenester registrert under akkurat den angitte tjenestetypen, slik som dei andre oppslaga i
+     * {@link ServiceRegistry}.
+     */
+    EXACT,
+    /**
+     * Finn alle tenester registrert under den angitte tjenestetypen eller ein av subtypane dens, sortert etter
+     * {@link Constants#SERVICE_RANKING} på tvers av tjenestetypane.
+     * <br>
+     * Ei teneste som er registrert under fleire subtypar blir returnert éin gong per registrering.
+     */
+    ASSIGNABLE
+}
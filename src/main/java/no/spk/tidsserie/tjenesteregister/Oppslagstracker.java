@@ -0,0 +1,64 @@
+package no.spk.tidsserie.tjenesteregister;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Standardimplementasjonen av {@link ServiceRegistry#track(Class, ServiceFilter)}.
+ * <br>
+ * Trackeren held ikkje på noko eige utval av tenester, men slår opp på nytt i tenesteregisteret via
+ * {@link ServiceRegistry#getServiceReferences(Class, ServiceFilter)} ved kvart kall. Den er dermed alltid oppdatert,
+ * men kvart kall kostar like mykje som eit vanleg oppslag.
+ *
+ * @param <T> tjenestetypen som trackeren følgjer med på
+ */
+final class Oppslagstracker<T> implements ServiceTracker<T> {
+    private final ServiceRegistry registry;
+    private final Class<T> tjenestetype;
+    private final ServiceFilter filter;
+
+    private volatile boolean lukka;
+
+    Oppslagstracker(final ServiceRegistry registry, final Class<T> tjenestetype, final ServiceFilter filter) {
+        this.registry = registry;
+        this.tjenestetype = tjenestetype;
+        this.filter = filter;
+    }
+
+    @Override
+    public Optional<T> getService() {
+        for (final ServiceReference<T> referanse : getServiceReferences()) {
+            final Optional<T> teneste = registry.getService(referanse);
+            if (teneste.isPresent()) {
+                return teneste;
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public List<T> getServices() {
+        return getServiceReferences()
+                .stream()
+                .flatMap(referanse -> registry.getService(referanse).stream())
+                .toList();
+    }
+
+    @Override
+    public List<ServiceReference<T>> getServiceReferences() {
+        if (lukka) {
+            return List.of();
+        }
+        return List.copyOf(registry.getServiceReferences(tjenestetype, filter));
+    }
+
+    @Override
+    public void close() {
+        lukka = true;
+    }
+
+    @Override
+    public String toString() {
+        return "oppslagstracker for " + tjenestetype.getName() + " " + filter;
+    }
+}
@@ -0,0 +1,30 @@
+package no.spk.tidsserie.tjenesteregister;
+
+/**
+ * Samlar opp registreringar av tjenester som skal publiserast samla i tjenesteregisteret.
+ * <br>
+ * Ein bolk er kun gyldig medan {@link ServiceRegistry#batch(java.util.function.Consumer)} held på å fylle den.
+ * Ingen av tjenestene blir synlige for andre før heile bolken er ferdig fylt, og dersom fyllinga feilar blir ingen
+ * av tjenestene registrert.
+ *
+ * @see ServiceRegistry#batch(java.util.function.Consumer)
+ * @since 3.1.0
+ */
+public interface RegistrationBatch {
+    /**
+     * Legg tjenesta til i bolken under den angitte tjenestetypen.
+     * <br>
+     * Egenskapane har samme format og blir validert på samme måte som ved
+     * {@link ServiceRegistry#registerService(Class, Object, String...)}.
+     *
+     * @param <T> tjenestetypen
+     * @param tjenestetype grensesnittet so tjenesta skal registrerast under
+     * @param tjeneste tjenesta som skal leggast inn i tjenesteregisteret
+     * @param egenskapar inneheld metadata om tjenesta og dens egenskapar
+     * @return ei registrering for tjenesta, som blir gyldig når bolken er publisert
+     * @throws UgyldigSyntaxException dersom ein eller fleire av egenskapane ikkje er på formatet <code>navn=verdi</code>,
+     * eller dersom {@link Constants#SERVICE_RANKING rankinga} ikkje er eit heiltall
+     * @throws IllegalStateException dersom bolken allereie er publisert
+     */
+    <T> ServiceRegistration<T> register(Class<T> tjenestetype, T tjeneste, String... egenskapar);
+}
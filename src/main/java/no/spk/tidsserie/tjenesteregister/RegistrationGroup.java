@@ -0,0 +1,32 @@
+package no.spk.tidsserie.tjenesteregister;
+
+import java.util.List;
+
+/**
+ * Alle tjenester som vart registrert i ein og samme bolk via {@link ServiceRegistry#batch(java.util.function.Consumer)}.
+ * <br>
+ * Gruppa gjer det mulig å avregistrere alle tjenestene i bolken samla, for eksempel når ein partisjon blir flytta til
+ * ein annan node. Kvar enkelt tjeneste kan framleis avregistrerast kvar for seg via
+ * {@link ServiceRegistration#unregister()}.
+ * <br>
+ * Som for {@link ServiceRegistration} er gruppa privat for tjenestetilbydaren som registrerte tjenestene.
+ *
+ * @since 3.1.0
+ */
+public interface RegistrationGroup {
+    /**
+     * Returnerer registreringane for alle tjenestene i gruppa, i den rekkefølga dei vart lagt til i bolken.
+     *
+     * @return ei uforanderleg liste med registreringane i gruppa
+     */
+    List<ServiceRegistration<?>> getRegistrations();
+
+    /**
+     * Avregistrerer alle tjenestene i gruppa som framleis er registrert.
+     * <br>
+     * Endringa blir publisert samla, tilsvarande som for bolken som registrerte tjenestene.
+     *
+     * @see ServiceRegistration#unregister()
+     */
+    void unregisterAll();
+}
@@ -0,0 +1,70 @@
+package no.spk.tidsserie.tjenesteregister;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Ei hending som skildrar ei endring av ei teneste i tjenesteregisteret.
+ * <br>
+ * Hendingane blir levert til {@link ServiceListener lyttarar} som er lagt til via
+ * {@link ServiceRegistry#addServiceListener(Class, ServiceFilter, ServiceListener)}.
+ *
+ * @param <T> tjenestetypen som tjenesta er registrert under
+ * @see ServiceListener
+ * @since 3.1.0
+ */
+public final class ServiceEvent<T> {
+    /**
+     * Dei ulike typane endringar ei hending kan skildre.
+     */
+    public enum Type {
+        /**
+         * Tjenesta har blitt registrert i tjenesteregisteret.
+         */
+        REGISTERED,
+        /**
+         * Tjenesta har blitt avregistrert frå tjenesteregisteret, referansen er ikkje lenger gyldig.
+         */
+        UNREGISTERED,
+        /**
+         * Egenskapane til tjenesta har blitt endra.
+         */
+        MODIFIED
+    }
+
+    private final Type type;
+    private final ServiceReference<T> reference;
+
+    /**
+     * Opprettar ei ny hending.
+     *
+     * @param type kva slags endring hendinga skildrar
+     * @param reference ein referanse til tjenesta som har blitt endra
+     */
+    public ServiceEvent(final Type type, final ServiceReference<T> reference) {
+        this.type = requireNonNull(type, "type er påkrevd, men manglar");
+        this.reference = requireNonNull(reference, "reference er påkrevd, men manglar");
+    }
+
+    /**
+     * Returnerer kva slags endring hendinga skildrar.
+     *
+     * @return typen endring
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Returnerer ein referanse til tjenesta som har blitt endra.
+     *
+     * @return ein referanse til tjenesta
+     */
+    public ServiceReference<T> getReference() {
+        return reference;
+    }
+
+    @Override
+    public String toString() {
+        return type + ": " + reference;
+    }
+}
@@ -0,0 +1,25 @@
+package no.spk.tidsserie.tjenesteregister;
+
+/**
+ * Eit ferdig kompilert filter for oppslag av tjenester basert på egenskapane dei er registrert med.
+ * <br>
+ * Filteret blir oppretta via {@link ServiceRegistry#compileFilter(String...)} og kan deretter gjenbrukast på tvers
+ * av eit vilkårlig antall oppslag via {@link ServiceRegistry#getServiceReference(Class, ServiceFilter)} og
+ * {@link ServiceRegistry#getServiceReferences(Class, ServiceFilter)}. Validering og parsing av filtera skjer ein gong
+ * ved kompilering, klientar som gjer oppslag i tette løkker bør derfor kompilere filtera sine ein gong ved oppstart
+ * og gjenbruke dei.
+ * <br>
+ * Filteret er uforanderleg og kan trygt delast mellom fleire trådar. To filter kompilert frå dei samme krava er like
+ * uavhengig av rekkefølga krava vart angitt i.
+ *
+ * @since 3.1.0
+ */
+public interface ServiceFilter {
+    /**
+     * Sjekkar om tjenesta som referansen peikar til har egenskapar som oppfyller alle krava i filteret.
+     *
+     * @param reference ein referanse til tjenesta som skal sjekkast
+     * @return {@code true} dersom tjenesta matchar filteret, ellers {@code false}
+     */
+    boolean matches(ServiceReference<?> reference);
+}
@@ -0,0 +1,19 @@
+package no.spk.tidsserie.tjenesteregister;
+
+/**
+ * Ei samling tenester som kan registrerast i tjenesteregisteret utan klassestiskanning eller refleksjon.
+ * <br>
+ * Indeksar blir normalt generert ved kompilering for klasser annotert med {@link TjenesteProvider}, men kan også
+ * skrivast for hand.
+ *
+ * @see ServiceRegistry#registerAllFrom(ServiceIndex)
+ * @since 3.1.0
+ */
+public interface ServiceIndex {
+    /**
+     * Opprettar tenestene i indeksen og legg dei til i {@code bolk}.
+     *
+     * @param bolk bolken tenestene skal registrerast i
+     */
+    void registerAll(RegistrationBatch bolk);
+}
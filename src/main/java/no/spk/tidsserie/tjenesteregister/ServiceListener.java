@@ -0,0 +1,37 @@
+package no.spk.tidsserie.tjenesteregister;
+
+import java.util.List;
+
+/**
+ * Lyttar som blir varsla når tjenester blir registrert, endra eller avregistrert i tjenesteregisteret.
+ * <br>
+ * Lyttaren blir lagt til via {@link ServiceRegistry#addServiceListener(Class, ServiceFilter, ServiceListener)} og
+ * blir kun varsla om endringar av tjenester under tjenestetypen og som matchar filteret den vart lagt til med.
+ * <br>
+ * Avhengig av korleis tjenesteregisteret er konfigurert kan hendingane bli levert synkront på tråden som gjorde
+ * endringa, eller samla opp og levert i bolkar på ein annan tråd via {@link #servicesChanged(List)}.
+ *
+ * @param <T> tjenestetypen som lyttaren følgjer med på
+ * @since 3.1.0
+ */
+@FunctionalInterface
+public interface ServiceListener<T> {
+    /**
+     * Blir kalla for kvar endring av ei teneste som lyttaren følgjer med på.
+     *
+     * @param event hendinga som skildrar endringa
+     */
+    void serviceChanged(ServiceEvent<T> event);
+
+    /**
+     * Blir kalla med ein bolk av hendingar i den rekkefølga dei oppstod.
+     * <br>
+     * Standardimplementasjonen kallar {@link #serviceChanged(ServiceEvent)} for kvar hending, lyttarar som kan
+     * handtere heile bolken samla, kan overstyre denne.
+     *
+     * @param events hendingane som skildrar endringane
+     */
+    default void servicesChanged(final List<ServiceEvent<T>> events) {
+        events.forEach(this::serviceChanged);
+    }
+}
@@ -34,4 +34,30 @@ public interface ServiceRegistration<T> {
      * og dei bør derfor slutte å bruke tenesta.
      */
     void unregister();
+
+    /**
+     * Erstattar alle egenskapane til tjenesta, inkludert {@link Constants#SERVICE_RANKING rankinga}, utan at
+     * tjenesta blir avregistrert.
+     * <br>
+     * Endringa blir synleg for alle klientar samtidig: eit oppslag ser enten berre dei gamle eller berre dei nye
+     * egenskapane, og tjenesta er synleg for oppslag heile tida. {@link ServiceTracker Trackerar} blir oppdatert med
+     * dei nye egenskapane, og {@link ServiceListener lyttarar} med filter som matchar dei gamle eller dei nye
+     * egenskapane får ei {@link ServiceEvent.Type#MODIFIED}-hending.
+     * <br>
+     * Referansar som vart henta ut før endringa kan framleis brukast til å slå opp tjenesta, men viser dei gamle
+     * egenskapane. {@link #getReference()} returnerer ein referanse med dei nye egenskapane.
+     * <br>
+     * Standardimplementasjonen støttar ikkje endring av egenskapar.
+     *
+     * @param egenskapar dei nye egenskapane til tjenesta, på samme format som ved
+     * {@link ServiceRegistry#registerService(Class, Object, String...)}
+     * @throws UgyldigSyntaxException dersom ein eller fleire av egenskapane ikkje er på formatet <code>navn=verdi</code>,
+     * eller dersom {@link Constants#SERVICE_RANKING rankinga} ikkje er eit heiltall
+     * @throws IllegalStateException dersom tjenesta allereie er avregistrert
+     * @throws UnsupportedOperationException dersom tjenesteregisteret ikkje støttar endring av egenskapar
+     * @since 3.1.0
+     */
+    default void setProperties(final String... egenskapar) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " støttar ikkje endring av egenskapar");
+    }
 }
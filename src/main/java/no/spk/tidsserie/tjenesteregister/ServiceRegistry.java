@@ -1,7 +1,12 @@
 package no.spk.tidsserie.tjenesteregister;
 
+import static java.util.Objects.requireNonNull;
+
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * {@link ServiceRegistry} er eit tjenesteregister for in-JVM tjenester.
@@ -118,6 +123,241 @@ public interface ServiceRegistry {
      */
     <T> List<ServiceReference<T>> getServiceReferences(Class<T> tjenestetype, String... filter);
 
+    /**
+     * Returnerer ein referanse til den høgast ranka tjenesta som er registrert under {@code tjenestetype} og som
+     * matchar det ferdig kompilerte filteret.
+     * <br>
+     * Oppførselen er den samme som for {@link #getServiceReference(Class, String...)}, men sidan filteret allereie er
+     * validert og parsa blir det ikkje gjort noko slikt arbeid ved oppslaget.
+     *
+     * @param <T> tjenestetypen
+     * @param tjenestetype grensesnittet for tjenesta som det skal hentast ut referanse til
+     * @param filter eit filter frå {@link #compileFilter(String...)} som standardtenesta må matche
+     * @return ein referanse til den høgast ranka tjenesta som matchar filteret, eller {@link Optional#empty()}
+     * dersom det ikkje eksisterer noko slik tjeneste i tjenesteregisteret
+     * @see #compileFilter(String...)
+     * @since 3.1.0
+     */
+    default <T> Optional<ServiceReference<T>> getServiceReference(final Class<T> tjenestetype, final ServiceFilter filter) {
+        if (filter instanceof Egenskapskrav krav) {
+            return getServiceReference(tjenestetype, krav.filter());
+        }
+        return getServiceReferences(tjenestetype)
+                .stream()
+                .filter(filter::matches)
+                .findFirst();
+    }
+
+    /**
+     * Hentar ut alle tjenester registrert under den angitte tjenestetypen som matchar det ferdig kompilerte filteret.
+     * <br>
+     * Oppførselen er den samme som for {@link #getServiceReferences(Class, String...)}, men sidan filteret allereie
+     * er validert og parsa blir det ikkje gjort noko slikt arbeid ved oppslaget.
+     *
+     * @param <T> tjenestetypen
+     * @param tjenestetype tjenestetypen som dei returnerte tjenestereferansane skal vere tilknytta
+     * @param filter eit filter frå {@link #compileFilter(String...)} som tjenestene må matche
+     * @return alle tjenester som matchar filteret og som er registrert for tjenestetypen, sortert etter ranking
+     * @see #compileFilter(String...)
+     * @since 3.1.0
+     */
+    default <T> List<ServiceReference<T>> getServiceReferences(final Class<T> tjenestetype, final ServiceFilter filter) {
+        if (filter instanceof Egenskapskrav krav) {
+            return getServiceReferences(tjenestetype, krav.filter());
+        }
+        return getServiceReferences(tjenestetype)
+                .stream()
+                .filter(filter::matches)
+                .toList();
+    }
+
+    /**
+     * Slår opp den høgast ranka tenesta som matchar filteret, med {@code modus} som styrer om tenester registrert
+     * under subtypar av tjenestetypen også blir tatt med.
+     * <br>
+     * Standardimplementasjonen brukar {@link #getServiceReferences(Class, LookupMode, ServiceFilter)}.
+     *
+     * @param <T> tjenestetypen
+     * @param tjenestetype tjenestetypen det skal slåast opp tenester for
+     * @param modus styrer kva tenester oppslaget finn
+     * @param filter eit filter frå {@link #compileFilter(String...)} som tjenestene må matche
+     * @return ein referanse til den høgast ranka tenesta, eller {@link Optional#empty()} dersom ingen tenester
+     * matchar
+     * @throws UnsupportedOperationException dersom tenesteregisteret ikkje {@link #supports(LookupMode) støttar}
+     *                                       {@code modus}
+     * @since 3.1.0
+     */
+    default <T> Optional<ServiceReference<T>> getServiceReference(final Class<T> tjenestetype, final LookupMode modus,
+                                                                  final ServiceFilter filter) {
+        if (modus == LookupMode.EXACT) {
+            return getServiceReference(tjenestetype, filter);
+        }
+        return getServiceReferences(tjenestetype, modus, filter).stream().findFirst();
+    }
+
+    /**
+     * Kompilerer filtera via {@link #compileFilter(String...)} og slår opp via
+     * {@link #getServiceReferences(Class, LookupMode, ServiceFilter)}.
+     *
+     * @param <T> tjenestetypen
+     * @param tjenestetype tjenestetypen det skal slåast opp tenester for
+     * @param modus styrer kva tenester oppslaget finn
+     * @param filter eit variabelt antall filter som indikerer kva egenskapar tjenestene må vere registrert med
+     * @return alle tjenester som matchar filtera, sortert etter ranking
+     * @throws UgyldigSyntaxException dersom eit eller fleire av filtra ikkje er på formatet <code>navn=verdi</code>
+     * @throws UnsupportedOperationException dersom tenesteregisteret ikkje {@link #supports(LookupMode) støttar}
+     *                                       {@code modus}
+     * @since 3.1.0
+     */
+    default <T> List<ServiceReference<T>> getServiceReferences(final Class<T> tjenestetype, final LookupMode modus,
+                                                               final String... filter) {
+        return getServiceReferences(tjenestetype, modus, compileFilter(filter));
+    }
+
+    /**
+     * Slår opp alle tenester som matchar filteret, med {@code modus} som styrer om tenester registrert under
+     * subtypar av tjenestetypen også blir tatt med.
+     * <br>
+     * Med {@link LookupMode#ASSIGNABLE} blir tenester registrert under tjenestetypen og alle subtypane dens slått
+     * saman og sortert etter ranking. Standardimplementasjonen støttar berre {@link LookupMode#EXACT}, klientar kan
+     * sjekke via {@link #supports(LookupMode)} om tenesteregisteret støttar andre modusar før dei slår opp.
+     *
+     * @param <T> tjenestetypen
+     * @param tjenestetype tjenestetypen det skal slåast opp tenester for
+     * @param modus styrer kva tenester oppslaget finn
+     * @param filter eit filter frå {@link #compileFilter(String...)} som tjenestene må matche
+     * @return alle tjenester som matchar filteret, sortert etter ranking
+     * @throws UnsupportedOperationException dersom tenesteregisteret ikkje {@link #supports(LookupMode) støttar}
+     *                                       {@code modus}
+     * @since 3.1.0
+     */
+    default <T> List<ServiceReference<T>> getServiceReferences(final Class<T> tjenestetype, final LookupMode modus,
+                                                               final ServiceFilter filter) {
+        if (modus != LookupMode.EXACT) {
+            throw new UnsupportedOperationException(getClass().getSimpleName() + " støttar ikkje oppslagsmodusen " + modus);
+        }
+        return getServiceReferences(tjenestetype, filter);
+    }
+
+    /**
+     * Sjekkar om tenesteregisteret støttar oppslag med {@code modus}.
+     * <br>
+     * Oppslag med ein modus som ikkje er støtta, feilar med {@link UnsupportedOperationException}. Alle
+     * tenesteregister støttar {@link LookupMode#EXACT}. Standardimplementasjonen støttar ikkje andre modusar.
+     *
+     * @param modus oppslagsmodusen som skal sjekkast
+     * @return {@code true} dersom oppslag med {@code modus} er støtta, ellers {@code false}
+     * @since 3.1.0
+     */
+    default boolean supports(final LookupMode modus) {
+        return requireNonNull(modus, "modus er påkrevd, men manglar") == LookupMode.EXACT;
+    }
+
+    /**
+     * Validerer og kompilerer filtera til eit uforanderleg {@link ServiceFilter} som kan gjenbrukast ved seinare
+     * oppslag.
+     * <br>
+     * Kvart filter består av fritekst som må vere på formatet <code>navn=verdi</code>. Ei teneste matchar det
+     * kompilerte filteret dersom den matchar alle filtra, ikkje berre eit av dei. Eit tomt sett med filter matchar
+     * alle tenester.
+     * <br>
+     * Filter som startar med <code>(</code> blir tolka som uttrykk i LDAP-stil, for eksempel
+     * <code>(&amp;(type=premie)(|(aar&gt;=2020)(region=*)))</code>. Uttrykka støttar og, eller og ikkje,
+     * likskap, krav om at ein egenskap finst, mønster med <code>*</code> og numeriske eller alfabetiske
+     * samanlikningar med <code>&gt;=</code> og <code>&lt;=</code>. Støtte for uttrykk er valfritt for
+     * implementasjonar av tenesteregisteret.
+     * <br>
+     * Standardimplementasjonen validerer filtera og lar oppslag med det kompilerte filteret gå via
+     * {@link #getServiceReferences(Class, String...)} og {@link #getServiceReference(Class, String...)}. Den støttar
+     * ikkje uttrykk.
+     *
+     * @param filter eit variabelt antall filter som indikerer kva egenskapar tjenestene må vere registrert med
+     * @return eit kompilert filter som krev at tjenestene matchar alle filtra
+     * @throws UgyldigSyntaxException dersom eit eller fleire av filtra ikkje er på formatet <code>navn=verdi</code>,
+     *                                eller ikkje er eit syntaktisk gyldig uttrykk
+     * @throws UnsupportedOperationException dersom eit av filtra er eit uttrykk og tenesteregisteret ikkje støttar
+     *                                       uttrykk
+     * @since 3.1.0
+     */
+    default ServiceFilter compileFilter(final String... filter) {
+        return Egenskapskrav.kompiler(filter);
+    }
+
+    /**
+     * Opprettar ein {@link ServiceTracker} som kontinuerleg følgjer med på alle tjenester registrert under
+     * {@code tjenestetype} som matchar filteret.
+     * <br>
+     * Trackeren blir halde oppdatert av tjenesteregisteret ved kvar registrering og avregistrering av tjenester under
+     * tjenestetypen, slik at klientar kan lese ut gjeldande tjenester utan å gjere nye oppslag.
+     * <br>
+     * Standardimplementasjonen returnerer ein tracker som slår opp på nytt via
+     * {@link #getServiceReferences(Class, ServiceFilter)} ved kvart kall. Den er alltid oppdatert, men sparer ikkje
+     * klientane for kostnaden ved oppslaget.
+     *
+     * @param <T> tjenestetypen
+     * @param tjenestetype tjenestetypen som trackeren skal følgje med på
+     * @param filter eit filter frå {@link #compileFilter(String...)} som tjenestene må matche
+     * @return ein ny tracker som inneheld alle tjenester som matchar filteret
+     * @since 3.1.0
+     */
+    default <T> ServiceTracker<T> track(final Class<T> tjenestetype, final ServiceFilter filter) {
+        requireNonNull(tjenestetype, "tjenestetype er påkrevd, men manglar");
+        requireNonNull(filter, "filter er påkrevd, men manglar");
+        return new Oppslagstracker<>(this, tjenestetype, filter);
+    }
+
+    /**
+     * Kompilerer filtera via {@link #compileFilter(String...)} og opprettar ein tracker via
+     * {@link #track(Class, ServiceFilter)}.
+     *
+     * @param <T> tjenestetypen
+     * @param tjenestetype tjenestetypen som trackeren skal følgje med på
+     * @param filter eit variabelt antall filter som indikerer kva egenskapar tjenestene må vere registrert med
+     * @return ein ny tracker som inneheld alle tjenester som matchar alle filtra
+     * @throws UgyldigSyntaxException dersom eit eller fleire av filtra ikkje er på formatet <code>navn=verdi</code>
+     * @see #track(Class, ServiceFilter)
+     * @since 3.1.0
+     */
+    default <T> ServiceTracker<T> track(final Class<T> tjenestetype, final String... filter) {
+        return track(tjenestetype, compileFilter(filter));
+    }
+
+    /**
+     * Legg til ein lyttar som blir varsla når tjenester under {@code tjenestetype} som matchar filteret blir
+     * registrert, endra eller avregistrert.
+     * <br>
+     * Lyttaren blir kun varsla om endringar som skjer etter at den vart lagt til.
+     * <br>
+     * Standardimplementasjonen støttar ikkje lyttarar.
+     *
+     * @param <T> tjenestetypen
+     * @param tjenestetype tjenestetypen som lyttaren skal følgje med på
+     * @param filter eit filter frå {@link #compileFilter(String...)} som tjenestene må matche
+     * @param listener lyttaren som skal varslast
+     * @throws UnsupportedOperationException dersom tenesteregisteret ikkje støttar lyttarar
+     * @see #removeServiceListener(ServiceListener)
+     * @since 3.1.0
+     */
+    default <T> void addServiceListener(final Class<T> tjenestetype, final ServiceFilter filter,
+                                        final ServiceListener<T> listener) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " støttar ikkje lyttarar");
+    }
+
+    /**
+     * Fjernar lyttaren slik at den ikkje lenger blir varsla om endringar i tjenesteregisteret.
+     * <br>
+     * Dersom lyttaren er lagt til fleire gongar blir alle registreringane av den fjerna.
+     * <br>
+     * Standardimplementasjonen støttar ikkje lyttarar.
+     *
+     * @param listener lyttaren som skal fjernast
+     * @throws UnsupportedOperationException dersom tenesteregisteret ikkje støttar lyttarar
+     * @since 3.1.0
+     */
+    default void removeServiceListener(final ServiceListener<?> listener) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " støttar ikkje lyttarar");
+    }
+
     /**
      * Registrerer tjenesta under den angitte tjenestetypen i tjenesteregisteret.
      * <br>
@@ -136,7 +376,8 @@ public interface ServiceRegistry {
      * @param egenskapar inneheld metadata om tjenestas og dens egenskapar, egen
      * @return ei registrering som lar tjenestetilbydaren endre på egenskapane, referere til eller avregistrere tjenesta
      * på eit seinare tidspunkt
-     * @throws UgyldigSyntaxException dersom ein eller fleire av egenskapane ikkje er på formatet <code>navn=verdi</code>
+     * @throws UgyldigSyntaxException dersom ein eller fleire av egenskapane ikkje er på formatet <code>navn=verdi</code>,
+     * eller dersom {@link Constants#SERVICE_RANKING rankinga} ikkje er eit heiltall
      */
     <T> ServiceRegistration<T> registerService(Class<T> tjenestetype, T tjeneste, String... egenskapar);
 
@@ -154,6 +395,106 @@ public interface ServiceRegistry {
         return registerService(tjenestetype, tjeneste, new String[0]);
     }
 
+    /**
+     * Registrerer ei teneste som blir oppretta av {@code fabrikk} første gang nokon hentar ut tenesteinstansen.
+     * <br>
+     * Egenskapane og rankinga til tenesta blir synlege for oppslag, trackerar og lyttarar med ein gong, men sjølve
+     * instansen blir først oppretta ved første kall til {@link #getService(ServiceReference)}, eller tilsvarande via
+     * ein {@link ServiceTracker}. Fabrikken blir kalla maksimalt éin gong, også ved samtidige kall frå fleire trådar.
+     * <br>
+     * Standardimplementasjonen opprettar tenesta med ein gong og registrerer ho via
+     * {@link #registerService(Class, Object, String...)}, for tenesteregister som ikkje støttar lat oppretting.
+     *
+     * @param <T> tjenestetypen
+     * @param tjenestetype grensesnittet so tjenesta skal registrerast under
+     * @param fabrikk opprettar tjenesta, må ikkje returnere {@code null}
+     * @param egenskapar inneheld metadata om tjenestas og dens egenskapar
+     * @return ei registrering som lar tjenestetilbydaren referere til eller avregistrere tjenesta på eit seinare
+     * tidspunkt
+     * @throws UgyldigSyntaxException dersom ein eller fleire av egenskapane ikkje er på formatet <code>navn=verdi</code>,
+     * eller dersom {@link Constants#SERVICE_RANKING rankinga} ikkje er eit heiltall
+     * @since 3.1.0
+     */
+    default <T> ServiceRegistration<T> registerFactory(final Class<T> tjenestetype, final Supplier<? extends T> fabrikk,
+                                                       final String... egenskapar) {
+        return registerService(tjenestetype, fabrikk.get(), egenskapar);
+    }
+
+    /**
+     * Registrerer ei teneste som blir oppretta av {@code fabrikk} etter reglane for {@code scope}.
+     * <br>
+     * Tenesta blir registrert med egenskapen {@link Constants#SERVICE_SCOPE} i tillegg til {@code egenskapar}.
+     * {@link #getService(ServiceReference)} returnerer instansen som høyrer til scopet, det vil seie ein delt
+     * instans for {@link ServiceScope#SINGLETON}, tråden sin eigen instans for {@link ServiceScope#PER_THREAD} og
+     * ein ny instans for kvart kall for {@link ServiceScope#PROTOTYPE}.
+     * <br>
+     * Standardimplementasjonen registrerer {@link ServiceScope#SINGLETON} via
+     * {@link #registerFactory(Class, Supplier, String...)}. For dei andre scopa blir tenesta registrert via
+     * {@link #registerService(Class, Object, String...)} som ein dynamisk proxy som sender kvart kall vidare til
+     * tråden sin eigen instans frå {@code fabrikk}. Det gir {@link ServiceScope#PER_THREAD}-semantikk for begge
+     * scopa, {@link ServiceScope#PROTOTYPE} blir altså ikkje oppfylt heilt, men ingen instans blir delt mellom
+     * trådar. Proxyen krev at {@code tjenestetype} er eit grensesnitt.
+     *
+     * @param <T> tjenestetypen
+     * @param tjenestetype grensesnittet so tjenesta skal registrerast under
+     * @param scope styrer kor mange instansar av tjenesta som blir oppretta og kven som deler dei
+     * @param fabrikk opprettar instansar av tjenesta, må ikkje returnere {@code null}
+     * @param egenskapar inneheld metadata om tjenestas og dens egenskapar
+     * @return ei registrering som lar tjenestetilbydaren referere til eller avregistrere tjenesta på eit seinare
+     * tidspunkt
+     * @throws UgyldigSyntaxException dersom ein eller fleire av egenskapane ikkje er på formatet <code>navn=verdi</code>,
+     * eller dersom {@link Constants#SERVICE_RANKING rankinga} ikkje er eit heiltall
+     * @throws UnsupportedOperationException dersom tenesteregisteret ikkje støttar scopet for tjenestetypen
+     * @since 3.1.0
+     */
+    default <T> ServiceRegistration<T> registerFactory(final Class<T> tjenestetype, final ServiceScope scope,
+                                                       final Supplier<? extends T> fabrikk, final String... egenskapar) {
+        requireNonNull(scope, "scope er påkrevd, men manglar");
+        final String[] medScope = Arrays.copyOf(egenskapar, egenskapar.length + 1);
+        medScope[egenskapar.length] = Constants.SERVICE_SCOPE + "=" + scope.propertyValue();
+        if (scope == ServiceScope.SINGLETON) {
+            return registerFactory(tjenestetype, fabrikk, medScope);
+        }
+        return registerService(tjenestetype, Traadproxy.opprett(tjenestetype, fabrikk), medScope);
+    }
+
+    /**
+     * Registrerer alle tjenestene som {@code registreringar} legg til i bolken, og publiserer dei samla.
+     * <br>
+     * Ingen av tjenestene blir synlige for klientar av tjenesteregisteret før heile bolken er publisert. Alle
+     * tjenester under same tjenestetype blir publisert med éi oppdatering av tjenestetypen, og lyttarar og trackerar
+     * blir oppdatert éin gong per tjenestetype i staden for éin gong per teneste.
+     * <br>
+     * Dersom {@code registreringar} feilar blir ingen av tjenestene i bolken registrert.
+     * <br>
+     * Standardimplementasjonen registrerer tjenestene éi og éi via
+     * {@link #registerService(Class, Object, String...)} etter kvart som dei blir lagt til i bolken, og avregistrerer
+     * dei igjen dersom {@code registreringar} feilar. Tjenestene blir dermed synlege for klientar éi og éi medan
+     * bolken blir fylt.
+     *
+     * @param registreringar fyller bolken med tjenestene som skal registrerast
+     * @return ei gruppe som held på registreringane og som kan avregistrere alle tjenestene i bolken samla
+     * @since 3.1.0
+     */
+    default RegistrationGroup batch(final Consumer<RegistrationBatch> registreringar) {
+        requireNonNull(registreringar, "registreringar er påkrevd, men manglar");
+        return Einskildbolk.registrer(this, registreringar);
+    }
+
+    /**
+     * Registrerer alle tenestene i {@code indeks} i éin {@link #batch(Consumer) bolk}.
+     *
+     * @param indeks tenestene som skal registrerast, typisk ein {@code TjenesteIndeks} generert for klasser
+     * annotert med {@link TjenesteProvider}
+     * @return ei gruppe som held på registreringane og som kan avregistrere alle tjenestene i indeksen samla
+     * @see #batch(Consumer)
+     * @since 3.1.0
+     */
+    default RegistrationGroup registerAllFrom(final ServiceIndex indeks) {
+        requireNonNull(indeks, "indeks er påkrevd, men manglar");
+        return batch(indeks::registerAll);
+    }
+
     /**
      * Returnerer tenesteinstansen for tenesta som {@code reference} er tilknytta.
      *
@@ -164,4 +505,49 @@ public interface ServiceRegistry {
      * @see ServiceRegistration#unregister()
      */
     <T> Optional<T> getService(ServiceReference<T> reference);
+
+    /**
+     * Returnerer tenesteinstansen for den høgast ranka tenesta under tjenestetypen, eller {@code null} dersom ingen
+     * tenester er registrert under tjenestetypen.
+     * <br>
+     * Meint for varme kodestiar. I motsetning til {@link #getServiceReference(Class)} og
+     * {@link #getService(ServiceReference)} treng ikkje implementasjonar å allokere {@link Optional}-ar for kvart
+     * oppslag.
+     *
+     * @param <T> tjenestetypen
+     * @param tjenestetype tjenestetypen det skal slåast opp tenester for
+     * @return den høgast ranka tenesta, eller {@code null} dersom ingen tenester er registrert under tjenestetypen
+     * @since 3.1.0
+     */
+    default <T> T getServiceOrNull(final Class<T> tjenestetype) {
+        return getServiceReference(tjenestetype).flatMap(this::getService).orElse(null);
+    }
+
+    /**
+     * Kallar {@code handling} for kvar teneste under tjenestetypen som matchar {@code filter}, sortert etter
+     * {@link Constants#SERVICE_RANKING}.
+     * <br>
+     * Meint for varme kodestiar. I motsetning til {@link #getServiceReferences(Class, ServiceFilter)} treng ikkje
+     * implementasjonar å bygge opp ei liste med treff for kvart oppslag.
+     *
+     * @param <T> tjenestetypen
+     * @param tjenestetype tjenestetypen det skal slåast opp tenester for
+     * @param filter eit kompilert filter som tenestene må matche, sjå {@link #compileFilter(String...)}
+     * @param handling blir kalla med kvar teneste som matchar filteret
+     * @since 3.1.0
+     */
+    default <T> void forEachService(final Class<T> tjenestetype, final ServiceFilter filter, final Consumer<? super T> handling) {
+        getServiceReferences(tjenestetype, filter).forEach(r -> getService(r).ifPresent(handling));
+    }
+
+    /**
+     * Tel tenestene som er registrert under tjenestetypen.
+     *
+     * @param tjenestetype tjenestetypen det skal teljast tenester for
+     * @return antall tenester registrert under tjenestetypen
+     * @since 3.1.0
+     */
+    default int countServices(final Class<?> tjenestetype) {
+        return getServiceReferences(tjenestetype).size();
+    }
 }
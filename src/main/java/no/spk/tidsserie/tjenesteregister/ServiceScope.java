@@ -0,0 +1,43 @@
+package no.spk.tidsserie.tjenesteregister;
+
+/**
+ * Styrer kor mange instansar av ei teneste som blir oppretta og kven som deler dei.
+ *
+ * @see ServiceRegistry#registerFactory(Class, ServiceScope, java.util.function.Supplier, String...)
+ * @since 3.1.0
+ */
+public enum ServiceScope {
+    /**
+     * Éin instans som blir delt av alle, oppretta første gang nokon ber om den.
+     */
+    SINGLETON("singleton"),
+    /**
+     * Éin instans per tråd, inkludert virtuelle trådar, oppretta første gang tråden ber om den. Instansen blir
+     * frigjort når tråden avsluttar.
+     * <br>
+     * Eigna for tenester som ikkje er trådsikre, men som er dyre nok til at dei bør gjenbrukast innanfor ein tråd.
+     * For mange kortlevde virtuelle trådar blir dette i praksis det samme som {@link #PROTOTYPE}.
+     */
+    PER_THREAD("thread"),
+    /**
+     * Ein ny instans for kvart kall til {@link ServiceRegistry#getService(ServiceReference)}.
+     * <br>
+     * Instansane blir ikkje poola eller gjenbrukt. Registeret får ikkje vite når klienten er ferdig med ein
+     * instans, så kvar instans lever berre så lenge klienten held på den. Tenester som er dyre å opprette bør
+     * heller bruke {@link #PER_THREAD}.
+     */
+    PROTOTYPE("prototype");
+
+    private final String verdi;
+
+    ServiceScope(final String verdi) {
+        this.verdi = verdi;
+    }
+
+    /**
+     * @return verdien tenester med dette scopet blir registrert med under {@link Constants#SERVICE_SCOPE}
+     */
+    public String propertyValue() {
+        return verdi;
+    }
+}
@@ -0,0 +1,54 @@
+package no.spk.tidsserie.tjenesteregister;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Ein levande, kontinuerleg oppdatert visning av alle tjenester av ei bestemt tjenestetype som matchar eit filter.
+ * <br>
+ * Trackeren blir oppretta via {@link ServiceRegistry#track(Class, ServiceFilter)} og blir deretter halde oppdatert
+ * av tjenesteregisteret ved kvar {@link ServiceRegistry#registerService(Class, Object, String...) registrering} og
+ * {@link ServiceRegistration#unregister() avregistrering} av tjenester under tjenestetypen. Klientar som treng
+ * tilgang til tjenestene i tette løkker kan dermed halde på trackeren i staden for å gjere nye oppslag i
+ * tjenesteregisteret for kvart kall.
+ * <br>
+ * Kvar metode på trackeren les det gjeldande utvalet av tjenester via ei enkelt volatile lesing, utan låsing og utan
+ * allokering. Dei returnerte listene er uforanderlege øyeblikksbilde som ikkje blir endra ved seinare registreringar.
+ * <br>
+ * Trackeren bør {@link #close() lukkast} når den ikkje lenger er i bruk slik at tjenesteregisteret kan slutte å
+ * oppdatere den.
+ *
+ * @param <T> tjenestetypen som trackeren følgjer med på
+ * @since 3.1.0
+ */
+public interface ServiceTracker<T> extends AutoCloseable {
+    /**
+     * Returnerer den høgast ranka tjenesta som matchar trackeren sitt filter.
+     *
+     * @return den høgast ranka tjenesta, eller {@link Optional#empty()} dersom ingen tjenester matchar filteret
+     * @see Constants#SERVICE_RANKING
+     */
+    Optional<T> getService();
+
+    /**
+     * Returnerer alle tjenester som matchar trackeren sitt filter, sortert etter ranking.
+     *
+     * @return ei uforanderleg liste med alle tjenester som matchar filteret
+     */
+    List<T> getServices();
+
+    /**
+     * Returnerer referansar til alle tjenester som matchar trackeren sitt filter, sortert etter ranking.
+     *
+     * @return ei uforanderleg liste med referansar til alle tjenester som matchar filteret
+     */
+    List<ServiceReference<T>> getServiceReferences();
+
+    /**
+     * Sluttar å følgje med på endringar i tjenesteregisteret.
+     * <br>
+     * Etter at trackeren er lukka vil den ikkje lenger inneholde nokon tjenester.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,44 @@
+package no.spk.tidsserie.tjenesteregister;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Markerer ein klasse som tilbydar av ei teneste som skal registrerast i tjenesteregisteret.
+ * <br>
+ * Annotasjonsprosessoren {@code no.spk.tidsserie.tjenesteregister.processor.TjenesteProviderProcessor} genererer
+ * ein {@link ServiceIndex} per pakke, kalla {@code TjenesteIndeks}, som opprettar og registrerer alle tilbydarane i
+ * pakka med vanlege konstruktørkall. Indeksane blir i tillegg lista i
+ * {@code META-INF/services/no.spk.tidsserie.tjenesteregister.ServiceIndex}, slik at dei kan lastast via
+ * {@link java.util.ServiceLoader}. Prosessoren blir plukka opp automatisk når biblioteket ligg på
+ * klassestien ved kompilering.
+ * <br>
+ * Klassa må vere ein konkret, ikkje-privat klasse med ein ikkje-privat konstruktør utan parameter, og må kunne
+ * tilordnast til {@link #type()}. Feil blir rapportert som kompileringsfeil.
+ *
+ * @see ServiceRegistry#registerAllFrom(ServiceIndex)
+ * @since 3.1.0
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface TjenesteProvider {
+    /**
+     * @return tjenestetypen som tilbydaren skal registrerast under
+     */
+    Class<?> type();
+
+    /**
+     * @return {@link Constants#SERVICE_RANKING rankinga} til tenesta, utelaten frå egenskapane dersom den er
+     * {@code 0}
+     */
+    int ranking() default 0;
+
+    /**
+     * @return egenskapane til tenesta, på formatet <code>navn=verdi</code>
+     */
+    String[] egenskapar() default {};
+}
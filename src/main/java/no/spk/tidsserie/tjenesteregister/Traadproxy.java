@@ -0,0 +1,70 @@
+package no.spk.tidsserie.tjenesteregister;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.function.Supplier;
+
+/**
+ * Standardimplementasjonen av {@link ServiceScope#PER_THREAD} og {@link ServiceScope#PROTOTYPE} i
+ * {@link ServiceRegistry#registerFactory(Class, ServiceScope, Supplier, String...)}, for tenesteregister som ikkje
+ * sjølv støttar scope.
+ * <br>
+ * Tenesta blir registrert som ein {@link Proxy dynamisk proxy} som sender kvart kall vidare til tråden sin eigen
+ * instans, oppretta av fabrikken første gang tråden kallar tenesta og halde i ein {@link ThreadLocal} slik at den
+ * blir frigjort saman med tråden.
+ */
+final class Traadproxy implements InvocationHandler {
+    private final Class<?> tjenestetype;
+    private final ThreadLocal<Object> pertraad;
+
+    private Traadproxy(final Class<?> tjenestetype, final Supplier<?> fabrikk) {
+        this.tjenestetype = tjenestetype;
+        this.pertraad = ThreadLocal.withInitial(() -> {
+            final Object ny = fabrikk.get();
+            if (ny == null) {
+                throw new IllegalStateException("fabrikken for " + tjenestetype.getName() + " returnerte null");
+            }
+            return ny;
+        });
+    }
+
+    /**
+     * @throws UnsupportedOperationException dersom {@code tjenestetype} ikkje er eit grensesnitt
+     */
+    static <T> T opprett(final Class<T> tjenestetype, final Supplier<? extends T> fabrikk) {
+        if (!tjenestetype.isInterface()) {
+            throw new UnsupportedOperationException(
+                    tjenestetype.getName() + " er ikkje eit grensesnitt og kan derfor ikkje registrerast med eit "
+                            + "anna scope enn " + ServiceScope.SINGLETON + " i dette tenesteregisteret"
+            );
+        }
+        return tjenestetype.cast(Proxy.newProxyInstance(
+                tjenestetype.getClassLoader(),
+                new Class<?>[]{tjenestetype},
+                new Traadproxy(tjenestetype, fabrikk)
+        ));
+    }
+
+    @Override
+    public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            return switch (method.getName()) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                default -> toString();
+            };
+        }
+        try {
+            return method.invoke(pertraad.get(), args);
+        } catch (final InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "trådproxy for " + tjenestetype.getName();
+    }
+}
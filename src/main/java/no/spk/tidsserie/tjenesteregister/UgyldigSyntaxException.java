@@ -1,9 +1,9 @@
 package no.spk.tidsserie.tjenesteregister;
 
 /**
- * Blir kasta dersom {@link ServiceRegistry#getServiceReferences(Class, String...)} eller
- * {@link ServiceRegistry#getServiceReference(Class, String...)} blir kalla med eit eller fleire filter
- * som er syntaktisk ugyldige.
+ * Blir kasta dersom {@link ServiceRegistry#getServiceReferences(Class, String...)},
+ * {@link ServiceRegistry#getServiceReference(Class, String...)} eller {@link ServiceRegistry#compileFilter(String...)}
+ * blir kalla med eit eller fleire filter som er syntaktisk ugyldige.
  *
  * @author Tarjei Skorgenes
  */
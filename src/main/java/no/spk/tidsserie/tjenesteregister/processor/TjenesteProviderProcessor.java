@@ -0,0 +1,266 @@
+package no.spk.tidsserie.tjenesteregister.processor;
+
+import static javax.tools.StandardLocation.CLASS_OUTPUT;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+
+/**
+ * Genererer ein {@code TjenesteIndeks} per pakke for klasser annotert med
+ * {@link no.spk.tidsserie.tjenesteregister.TjenesteProvider}.
+ * <br>
+ * Indeksen registrerer tilbydarane med vanlege konstruktørkall, slik at oppstart ikkje treng klassestiskanning eller
+ * refleksjon. Alle indeksane som blir generert blir i tillegg lista i
+ * {@code META-INF/services/no.spk.tidsserie.tjenesteregister.ServiceIndex}.
+ * <br>
+ * Ugyldige tilbydarar, for eksempel abstrakte klasser, klasser utan konstruktør utan parameter eller klasser som
+ * ikkje kan tilordnast til tjenestetypen, blir rapportert som kompileringsfeil på den annoterte klassa.
+ *
+ * @since 3.1.0
+ */
+@SupportedAnnotationTypes(TjenesteProviderProcessor.ANNOTASJON)
+public final class TjenesteProviderProcessor extends AbstractProcessor {
+    static final String ANNOTASJON = "no.spk.tidsserie.tjenesteregister.TjenesteProvider";
+
+    static final String INDEKS = "TjenesteIndeks";
+
+    static final String TENESTEFIL = "META-INF/services/no.spk.tidsserie.tjenesteregister.ServiceIndex";
+
+    private static final String RANKING = "service.ranking";
+
+    private static final Pattern GYLDIG = Pattern.compile("^[^=]+=.+$");
+
+    private final Set<String> indeksar = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotasjonar, final RoundEnvironment runde) {
+        if (runde.processingOver()) {
+            if (!indeksar.isEmpty()) {
+                skrivTenestefil();
+            }
+            return false;
+        }
+        final Map<String, List<Tilbydar>> perPakke = new TreeMap<>();
+        for (final TypeElement annotasjon : annotasjonar) {
+            for (final Element element : runde.getElementsAnnotatedWith(annotasjon)) {
+                final Tilbydar tilbydar = tilbydar(element);
+                if (tilbydar != null) {
+                    perPakke.computeIfAbsent(pakke(tilbydar.klasse()), p -> new ArrayList<>()).add(tilbydar);
+                }
+            }
+        }
+        perPakke.forEach(this::skrivIndeks);
+        return true;
+    }
+
+    private Tilbydar tilbydar(final Element element) {
+        if (element.getKind() != ElementKind.CLASS) {
+            feil(element, "@TjenesteProvider kan berre brukast på klasser");
+            return null;
+        }
+        final TypeElement klasse = (TypeElement) element;
+        final AnnotationMirror annotasjon = annotasjon(klasse);
+        if (klasse.getModifiers().contains(Modifier.ABSTRACT)) {
+            feil(klasse, "@TjenesteProvider kan ikkje brukast på abstrakte klasser");
+            return null;
+        }
+        if (klasse.getModifiers().contains(Modifier.PRIVATE)) {
+            feil(klasse, "@TjenesteProvider kan ikkje brukast på private klasser");
+            return null;
+        }
+        if (klasse.getNestingKind() == NestingKind.LOCAL
+                || klasse.getNestingKind() == NestingKind.MEMBER && !klasse.getModifiers().contains(Modifier.STATIC)) {
+            feil(klasse, "@TjenesteProvider kan berre brukast på toppnivåklasser og statiske nøsta klasser");
+            return null;
+        }
+        final boolean harKonstruktoer = ElementFilter.constructorsIn(klasse.getEnclosedElements())
+                .stream()
+                .anyMatch(k -> k.getParameters().isEmpty() && !k.getModifiers().contains(Modifier.PRIVATE));
+        if (!harKonstruktoer) {
+            feil(klasse, klasse.getSimpleName() + " manglar ein ikkje-privat konstruktør utan parameter");
+            return null;
+        }
+
+        TypeMirror type = null;
+        int ranking = 0;
+        final List<String> egenskapar = new ArrayList<>();
+        for (final Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> verdi : processingEnv
+                .getElementUtils()
+                .getElementValuesWithDefaults(annotasjon)
+                .entrySet()) {
+            switch (verdi.getKey().getSimpleName().toString()) {
+                case "type" -> type = (TypeMirror) verdi.getValue().getValue();
+                case "ranking" -> ranking = (Integer) verdi.getValue().getValue();
+                case "egenskapar" -> {
+                    for (final Object egenskap : (List<?>) verdi.getValue().getValue()) {
+                        egenskapar.add((String) ((AnnotationValue) egenskap).getValue());
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        if (!(type instanceof DeclaredType tjenestetype)) {
+            feil(klasse, annotasjon, "tjenestetypen " + type + " må vere ein klasse eller eit grensesnitt");
+            return null;
+        }
+        final TypeMirror tilbydartype = processingEnv.getTypeUtils().erasure(klasse.asType());
+        if (!processingEnv.getTypeUtils().isAssignable(tilbydartype, processingEnv.getTypeUtils().erasure(tjenestetype))) {
+            feil(klasse, annotasjon, klasse.getSimpleName() + " kan ikkje tilordnast til tjenestetypen " + tjenestetype);
+            return null;
+        }
+        final List<String> ugyldige = egenskapar.stream().filter(e -> !GYLDIG.matcher(e).matches()).toList();
+        if (!ugyldige.isEmpty()) {
+            feil(klasse, annotasjon, ugyldige + " er ikkje på formatet egenskap=verdi");
+            return null;
+        }
+        if (ranking != 0) {
+            if (egenskapar.stream().anyMatch(e -> e.startsWith(RANKING + "="))) {
+                feil(klasse, annotasjon, RANKING + " kan ikkje angis både via ranking og egenskapar");
+                return null;
+            }
+            egenskapar.add(RANKING + "=" + ranking);
+        }
+        return new Tilbydar(klasse, (TypeElement) tjenestetype.asElement(), egenskapar);
+    }
+
+    private void skrivIndeks(final String pakke, final List<Tilbydar> tilbydarar) {
+        final String namn = pakke.isEmpty() ? INDEKS : pakke + "." + INDEKS;
+        if (!indeksar.add(namn)) {
+            feil(tilbydarar.get(0).klasse(), namn + " er allereie generert i ein tidlegare runde");
+            return;
+        }
+        final Element[] opphav = tilbydarar.stream().map(Tilbydar::klasse).toArray(Element[]::new);
+        try (final Writer skrivar = processingEnv.getFiler().createSourceFile(namn, opphav).openWriter()) {
+            skrivar.write(kjeldekode(pakke, tilbydarar));
+        } catch (final IOException e) {
+            feil(tilbydarar.get(0).klasse(), "klarte ikkje å generere " + namn + ": " + e.getMessage());
+        }
+    }
+
+    static String kjeldekode(final String pakke, final List<Tilbydar> tilbydarar) {
+        final StringBuilder kode = new StringBuilder();
+        if (!pakke.isEmpty()) {
+            kode.append("package ").append(pakke).append(";\n\n");
+        }
+        kode.append("/**\n")
+                .append(" * Generert av ").append(TjenesteProviderProcessor.class.getName())
+                .append(" for tilbydarane annotert med {@link ").append(ANNOTASJON).append("} i pakka.\n")
+                .append(" */\n")
+                .append("public final class ").append(INDEKS)
+                .append(" implements no.spk.tidsserie.tjenesteregister.ServiceIndex {\n")
+                .append("    @Override\n")
+                .append("    public void registerAll(final no.spk.tidsserie.tjenesteregister.RegistrationBatch bolk) {\n");
+        for (final Tilbydar tilbydar : tilbydarar) {
+            kode.append("        bolk.register(")
+                    .append(tilbydar.tjenestetype().getQualifiedName()).append(".class, new ")
+                    .append(tilbydar.klasse().getQualifiedName())
+                    .append(tilbydar.klasse().getTypeParameters().isEmpty() ? "()" : "<>()");
+            for (final String egenskap : tilbydar.egenskapar()) {
+                kode.append(", ").append(literal(egenskap));
+            }
+            kode.append(");\n");
+        }
+        return kode.append("    }\n")
+                .append("}\n")
+                .toString();
+    }
+
+    private void skrivTenestefil() {
+        final Set<String> alle = new TreeSet<>(indeksar);
+        try {
+            final FileObject eksisterande = processingEnv.getFiler().getResource(CLASS_OUTPUT, "", TENESTEFIL);
+            try (final BufferedReader lesar = new BufferedReader(eksisterande.openReader(true))) {
+                lesar.lines().map(String::trim).filter(l -> !l.isEmpty() && !l.startsWith("#")).forEach(alle::add);
+            }
+        } catch (final IOException e) {
+            // Ingen indeksar frå tidlegare kompileringar
+        }
+        try (final Writer skrivar = processingEnv.getFiler().createResource(CLASS_OUTPUT, "", TENESTEFIL).openWriter()) {
+            for (final String indeks : alle) {
+                skrivar.write(indeks);
+                skrivar.write('\n');
+            }
+        } catch (final IOException e) {
+            processingEnv.getMessager().printMessage(
+                    Diagnostic.Kind.ERROR,
+                    "klarte ikkje å skrive " + TENESTEFIL + ": " + e.getMessage()
+            );
+        }
+    }
+
+    private String pakke(final TypeElement klasse) {
+        return processingEnv.getElementUtils().getPackageOf(klasse).getQualifiedName().toString();
+    }
+
+    private static AnnotationMirror annotasjon(final TypeElement klasse) {
+        return klasse.getAnnotationMirrors()
+                .stream()
+                .filter(m -> ((TypeElement) m.getAnnotationType().asElement()).getQualifiedName().contentEquals(ANNOTASJON))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    static String literal(final String verdi) {
+        final StringBuilder literal = new StringBuilder("\"");
+        for (final char c : verdi.toCharArray()) {
+            switch (c) {
+                case '"' -> literal.append("\\\"");
+                case '\\' -> literal.append("\\\\");
+                case '\n' -> literal.append("\\n");
+                case '\r' -> literal.append("\\r");
+                case '\t' -> literal.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        literal.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        literal.append(c);
+                    }
+                }
+            }
+        }
+        return literal.append('"').toString();
+    }
+
+    private void feil(final Element element, final String melding) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, melding, element);
+    }
+
+    private void feil(final Element element, final AnnotationMirror annotasjon, final String melding) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, melding, element, annotasjon);
+    }
+
+    record Tilbydar(TypeElement klasse, TypeElement tjenestetype, List<String> egenskapar) {
+    }
+}
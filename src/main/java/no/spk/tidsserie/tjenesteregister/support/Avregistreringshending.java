@@ -0,0 +1,11 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("no.spk.tidsserie.tjenesteregister.Unregister")
+@Label("Service Unregistration")
+@Description("Tenester vart avregistrert frå ei tenestetype, éin gong per tenestetype i kvar avregistrering eller gruppe")
+final class Avregistreringshending extends Tjenesteregisterhending {
+}
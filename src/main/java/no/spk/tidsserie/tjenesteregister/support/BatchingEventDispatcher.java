@@ -0,0 +1,74 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import no.spk.tidsserie.tjenesteregister.ServiceEvent;
+import no.spk.tidsserie.tjenesteregister.ServiceListener;
+
+final class BatchingEventDispatcher implements ServiceEventDispatcher {
+    private final Queue<Levering<?>> koe = new ConcurrentLinkedQueue<>();
+
+    private final AtomicBoolean planlagt = new AtomicBoolean();
+
+    private final Executor executor;
+
+    BatchingEventDispatcher(final Executor executor) {
+        this.executor = requireNonNull(executor, "executor er påkrevd, men manglar");
+    }
+
+    @Override
+    public <T> void dispatch(final ServiceListener<T> listener, final List<ServiceEvent<T>> events) {
+        koe.add(new Levering<>(listener, events));
+        planlegg();
+    }
+
+    private void planlegg() {
+        if (!koe.isEmpty() && planlagt.compareAndSet(false, true)) {
+            executor.execute(this::lever);
+        }
+    }
+
+    private void lever() {
+        try {
+            final Map<ServiceListener<?>, Levering<?>> bolkar = new LinkedHashMap<>();
+            Levering<?> levering;
+            while ((levering = koe.poll()) != null) {
+                final Levering<?> neste = levering;
+                bolkar.merge(levering.listener, levering, (a, b) -> a.slaaSaman(neste));
+            }
+            Leveringar.leverAlle(bolkar.values(), Levering::lever);
+        } finally {
+            planlagt.set(false);
+            planlegg();
+        }
+    }
+
+    private static final class Levering<T> {
+        private final ServiceListener<T> listener;
+        private final List<ServiceEvent<T>> events;
+
+        Levering(final ServiceListener<T> listener, final List<ServiceEvent<T>> events) {
+            this.listener = listener;
+            this.events = new ArrayList<>(events);
+        }
+
+        @SuppressWarnings("unchecked")
+        Levering<?> slaaSaman(final Levering<?> other) {
+            events.addAll(((Levering<T>) other).events);
+            return this;
+        }
+
+        void lever() {
+            listener.servicesChanged(events);
+        }
+    }
+}
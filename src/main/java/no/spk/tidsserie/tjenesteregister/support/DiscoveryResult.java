@@ -0,0 +1,57 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import java.time.Duration;
+import java.util.Map;
+
+import no.spk.tidsserie.tjenesteregister.RegistrationGroup;
+
+/**
+ * Resultatet av {@link SimpleServiceRegistry#discover(Class[])}, med registreringane og tidsbruken for kvar
+ * tenestetilbydar, for bruk i diagnostikk av oppstartstid.
+ *
+ * @since 3.1.0
+ */
+public final class DiscoveryResult {
+    private final RegistrationGroup registrations;
+    private final Map<Class<?>, Duration> providerTimings;
+    private final Duration elapsed;
+
+    DiscoveryResult(final RegistrationGroup registrations, final Map<Class<?>, Duration> providerTimings,
+                    final Duration elapsed) {
+        this.registrations = registrations;
+        this.providerTimings = providerTimings;
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * @return registreringane for alle tenestene som vart oppdaga, publisert i éin bolk
+     */
+    public RegistrationGroup registrations() {
+        return registrations;
+    }
+
+    /**
+     * Returnerer tida det tok å opprette kvar tenestetilbydar, i den rekkefølga {@link java.util.ServiceLoader}
+     * fann dei.
+     * <br>
+     * Sidan tilbydarane blir oppretta parallelt kan summen av tidene vere større enn {@link #elapsed()}. Ein
+     * tilbydar som blir oppdaga under fleire tenestetypar får summen av tidene.
+     *
+     * @return ei uforanderleg oversikt over tidsbruken per tilbydarklasse
+     */
+    public Map<Class<?>, Duration> providerTimings() {
+        return providerTimings;
+    }
+
+    /**
+     * @return den totale tida oppdaginga tok, inkludert oppslag i {@link java.util.ServiceLoader} og publisering
+     */
+    public Duration elapsed() {
+        return elapsed;
+    }
+
+    @Override
+    public String toString() {
+        return registrations.getRegistrations().size() + " tenester oppdaga på " + elapsed + ": " + providerTimings;
+    }
+}
@@ -1,9 +1,9 @@
 package no.spk.tidsserie.tjenesteregister.support;
 
-import java.util.Properties;
+import java.util.Map;
 
+import no.spk.tidsserie.tjenesteregister.Filtersyntaks;
 import no.spk.tidsserie.tjenesteregister.ServiceReference;
-import no.spk.tidsserie.tjenesteregister.UgyldigSyntaxException;
 
 class Egenskap {
     private final String name;
@@ -15,30 +15,45 @@ class Egenskap {
     }
 
     static Egenskap parse(final String text) {
-        if (!erGyldig(text)) {
-            throw new UgyldigSyntaxException(
-                    text
-                            + " filter er ikkje syntaktisk gyldige, "
-                            + "kvart filter må vere på formatet egenskap=verdi.\n"
-                            + "Ugyldige filter:\n\t- " + text
-            );
-        }
-        final int firstIndex = text.indexOf("=");
-        return new Egenskap(
-                text.substring(0, firstIndex),
-                text.substring(firstIndex + 1)
-        );
+        Filtersyntaks.valider(text);
+        return new Egenskap(Filtersyntaks.navn(text), Filtersyntaks.verdi(text));
+    }
+
+    String name() {
+        return name;
     }
 
-    static boolean erGyldig(final String filter) {
-        return filter.matches("^[^=]+=.+$");
+    String value() {
+        return value;
     }
 
     boolean match(final ServiceReference<?> reference) {
+        if (reference instanceof ServiceEntry<?> entry) {
+            return match(entry);
+        }
         return reference.getProperty(name).filter(value::equals).isPresent();
     }
 
-    void put(final Properties egenskapar) {
-        egenskapar.setProperty(name, value);
+    boolean match(final ServiceEntry<?> entry) {
+        return value.equals(entry.property(name));
+    }
+
+    void put(final Map<String, String> egenskapar) {
+        egenskapar.put(name, value);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        return o instanceof Egenskap other && name.equals(other.name) && value.equals(other.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * name.hashCode() + value.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return name + "=" + value;
     }
 }
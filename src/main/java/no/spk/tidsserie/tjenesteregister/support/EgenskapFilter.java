@@ -0,0 +1,94 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import no.spk.tidsserie.tjenesteregister.Filtersyntaks;
+import no.spk.tidsserie.tjenesteregister.ServiceReference;
+
+/**
+ * Eit kompilert filter som krev at tenestene har egenskapar som matchar alle dei angitte
+ * <code>navn=verdi</code>-para.
+ * <br>
+ * Filtera blir validert og parsa ein gong ved kompilering. Para blir i tillegg normalisert, sortert og med
+ * duplikat fjerna, slik at to filter som stiller dei samme krava alltid er like uavhengig av rekkefølga dei vart
+ * angitt i.
+ */
+final class EgenskapFilter implements IndeksertFilter {
+    static final EgenskapFilter ALLE = new EgenskapFilter(new Egenskap[0]);
+
+    private static final Comparator<Egenskap> REKKEFOELGE = Comparator
+            .comparing(Egenskap::name)
+            .thenComparing(Egenskap::value);
+
+    private final Egenskap[] egenskapar;
+
+    private EgenskapFilter(final Egenskap[] egenskapar) {
+        this.egenskapar = egenskapar;
+    }
+
+    static EgenskapFilter kompiler(final String... filters) {
+        if (filters.length == 0) {
+            return ALLE;
+        }
+        Filtersyntaks.valider(filters);
+        return new EgenskapFilter(
+                Arrays.stream(filters)
+                        .map(Egenskap::parse)
+                        .distinct()
+                        .sorted(REKKEFOELGE)
+                        .toArray(Egenskap[]::new)
+        );
+    }
+
+    Egenskap[] egenskapar() {
+        return egenskapar;
+    }
+
+    @Override
+    public int[] kandidatar(final Egenskapsindeks indeks) {
+        return indeks.mestSelektive(egenskapar);
+    }
+
+    @Override
+    public int antallKrav() {
+        return egenskapar.length;
+    }
+
+    @Override
+    public boolean matches(final ServiceReference<?> reference) {
+        if (reference instanceof ServiceEntry<?> entry) {
+            return match(entry);
+        }
+        for (final Egenskap egenskap : egenskapar) {
+            if (!egenskap.match(reference)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    boolean match(final ServiceEntry<?> entry) {
+        for (final Egenskap egenskap : egenskapar) {
+            if (!egenskap.match(entry)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        return o instanceof EgenskapFilter other && Arrays.equals(egenskapar, other.egenskapar);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(egenskapar);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(egenskapar);
+    }
+}
@@ -1,8 +1,9 @@
 package no.spk.tidsserie.tjenesteregister.support;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Properties;
+import java.util.Map;
 import java.util.stream.Stream;
 
 class Egenskapar {
@@ -32,8 +33,8 @@ class Egenskapar {
         );
     }
 
-    Properties toProperties() {
-        final Properties tmp = new Properties();
+    Map<String, String> toMap() {
+        final Map<String, String> tmp = new HashMap<>();
         this.egenskapar.forEach(e -> e.put(tmp));
         return tmp;
     }
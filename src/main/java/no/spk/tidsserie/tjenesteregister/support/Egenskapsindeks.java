@@ -0,0 +1,134 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ein invertert indeks frå egenskap, det vil seie kombinasjonen av navn og verdi, til posisjonane i eit
+ * {@link ServiceEntries øyeblikksbilde} for tenestene som er registrert med egenskapen.
+ * <br>
+ * Posisjonane i kvar postering ligg sortert stigande, det vil seie i rankingrekkefølge. Ved å iterere over
+ * posteringa for det mest selektive kravet i eit filter får ein dermed treffa ut ferdig sortert, og kostnaden blir
+ * avhengig av antall kandidatar for dette kravet i staden for det totale antallet tenester.
+ */
+final class Egenskapsindeks {
+    static final int[] INGEN = new int[0];
+
+    private final Map<String, Map<String, int[]>> posteringar;
+
+    private Egenskapsindeks(final Map<String, Map<String, int[]>> posteringar) {
+        this.posteringar = posteringar;
+    }
+
+    static Egenskapsindeks bygg(final ServiceEntry<?>[] entries) {
+        final Map<String, Map<String, List<Integer>>> tmp = new HashMap<>();
+        for (int i = 0; i < entries.length; i++) {
+            final int posisjon = i;
+            entries[i].egenskapar().forEach(
+                    (navn, verdi) -> tmp
+                            .computeIfAbsent(navn, n -> new HashMap<>())
+                            .computeIfAbsent(verdi, v -> new ArrayList<>())
+                            .add(posisjon)
+            );
+        }
+        final Map<String, Map<String, int[]>> posteringar = new HashMap<>();
+        tmp.forEach((navn, verdiar) -> {
+            final Map<String, int[]> perVerdi = new HashMap<>();
+            verdiar.forEach((verdi, posisjonar) -> perVerdi.put(
+                    verdi,
+                    posisjonar.stream().mapToInt(Integer::intValue).toArray()
+            ));
+            posteringar.put(navn, perVerdi);
+        });
+        return new Egenskapsindeks(posteringar);
+    }
+
+    /**
+     * Returnerer posisjonane til alle tenester som er registrert med den angitte egenskapen, i rankingrekkefølge.
+     */
+    int[] postering(final Egenskap egenskap) {
+        return postering(egenskap.name(), egenskap.value());
+    }
+
+    /**
+     * Returnerer posisjonane til alle tenester som er registrert med egenskapen {@code navn} lik {@code verdi}, i
+     * rankingrekkefølge.
+     */
+    int[] postering(final String navn, final String verdi) {
+        final Map<String, int[]> perVerdi = posteringar.get(navn);
+        if (perVerdi == null) {
+            return INGEN;
+        }
+        final int[] posisjonar = perVerdi.get(verdi);
+        return posisjonar != null ? posisjonar : INGEN;
+    }
+
+    /**
+     * Returnerer posisjonane til alle tenester som er registrert med egenskapen {@code navn}, uavhengig av verdi, i
+     * rankingrekkefølge.
+     */
+    int[] alle(final String navn) {
+        final Map<String, int[]> perVerdi = posteringar.get(navn);
+        if (perVerdi == null) {
+            return INGEN;
+        }
+        int[] union = INGEN;
+        for (final int[] posisjonar : perVerdi.values()) {
+            union = union(union, posisjonar);
+        }
+        return union;
+    }
+
+    /**
+     * Flettar saman to sorterte posteringar til ei sortert postering utan duplikat.
+     */
+    static int[] union(final int[] a, final int[] b) {
+        if (a.length == 0) {
+            return b;
+        }
+        if (b.length == 0) {
+            return a;
+        }
+        final int[] union = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                union[k++] = a[i++];
+            } else if (a[i] > b[j]) {
+                union[k++] = b[j++];
+            } else {
+                union[k++] = a[i++];
+                j++;
+            }
+        }
+        while (i < a.length) {
+            union[k++] = a[i++];
+        }
+        while (j < b.length) {
+            union[k++] = b[j++];
+        }
+        return k == union.length ? union : Arrays.copyOf(union, k);
+    }
+
+    /**
+     * Returnerer den kortaste posteringa blant krava, det vil seie kandidatane for det mest selektive kravet.
+     */
+    int[] mestSelektive(final Egenskap[] krav) {
+        int[] kortaste = null;
+        for (final Egenskap egenskap : krav) {
+            final int[] postering = postering(egenskap);
+            if (kortaste == null || postering.length < kortaste.length) {
+                kortaste = postering;
+            }
+            if (kortaste.length == 0) {
+                break;
+            }
+        }
+        return kortaste;
+    }
+}
@@ -0,0 +1,11 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("no.spk.tidsserie.tjenesteregister.Modify")
+@Label("Service Modification")
+@Description("Egenskapane til ei registrert teneste vart endra")
+final class Endringshending extends Tjenesteregisterhending {
+}
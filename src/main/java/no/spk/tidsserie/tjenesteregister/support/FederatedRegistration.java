@@ -0,0 +1,83 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import static java.util.Objects.requireNonNull;
+import static no.spk.tidsserie.tjenesteregister.Constants.SERVICE_RANKING;
+
+import java.util.Map;
+
+/**
+ * Metadata om ei teneste som er registrert i tenesteregisteret til ein annan node, slik dei blir replikert via ein
+ * {@link FederationTransport}.
+ * <br>
+ * Sjølve tenesta blir aldri replikert. Nodane som importerer tenestetypen registrerer i staden ein lokal proxy for
+ * tenesta, oppretta frå metadataa.
+ *
+ * @see RegistryFederation#importType(Class, java.util.function.Function)
+ * @since 3.1.0
+ */
+public final class FederatedRegistration {
+    private final String id;
+    private final String node;
+    private final String serviceType;
+    private final Map<String, String> properties;
+
+    /**
+     * Opprettar metadata for ei føderert teneste.
+     *
+     * @param id          identifiserer registreringa, unik innanfor noden
+     * @param node        noden som eig tenesta
+     * @param serviceType det fulle klassenavnet til tenestetypen tenesta er registrert under
+     * @param properties  egenskapane til tenesta, inkludert {@link no.spk.tidsserie.tjenesteregister.Constants#SERVICE_RANKING}
+     */
+    public FederatedRegistration(final String id, final String node, final String serviceType,
+                                 final Map<String, String> properties) {
+        this.id = requireNonNull(id, "id er påkrevd, men manglar");
+        this.node = requireNonNull(node, "node er påkrevd, men manglar");
+        this.serviceType = requireNonNull(serviceType, "serviceType er påkrevd, men manglar");
+        this.properties = Map.copyOf(requireNonNull(properties, "properties er påkrevd, men manglar"));
+    }
+
+    /**
+     * @return identifiserer registreringa, unik innanfor {@link #node()}
+     */
+    public String id() {
+        return id;
+    }
+
+    /**
+     * @return noden som eig tenesta
+     */
+    public String node() {
+        return node;
+    }
+
+    /**
+     * @return det fulle klassenavnet til tenestetypen tenesta er registrert under
+     */
+    public String serviceType() {
+        return serviceType;
+    }
+
+    /**
+     * @return ei uforanderleg oversikt over egenskapane til tenesta
+     */
+    public Map<String, String> properties() {
+        return properties;
+    }
+
+    /**
+     * @return rankinga til tenesta, eller 0 dersom tenesta ikkje har nokon gyldig ranking
+     */
+    public int ranking() {
+        try {
+            return Integer.parseInt(properties.getOrDefault(SERVICE_RANKING, "0"));
+        } catch (final NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return serviceType + " " + id + " frå " + node + ", egenskapar: " + properties;
+    }
+}
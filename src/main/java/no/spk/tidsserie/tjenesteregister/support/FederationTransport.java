@@ -0,0 +1,45 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import java.util.function.Consumer;
+
+/**
+ * Teneste-SPI for transporten som {@link RegistryFederation} sender og tek imot {@link FederationUpdate oppdateringar}
+ * via.
+ * <br>
+ * Transporten er ansvarleg for å serialisere oppdateringane og levere dei til alle andre nodar som abonnerer, for
+ * eksempel via eit topic i eit Hazelcast-kluster. Oppdateringar frå samme node bør leverast i den rekkefølga dei vart
+ * publisert. Dersom oppdateringar går tapt eller kjem i feil rekkefølge, som avdekt via
+ * {@link FederationUpdate#sequence()}, ber mottakaren om eit nytt {@link FederationUpdate.Type#SNAPSHOT snapshot}
+ * frå noden i staden for å bruke deltaene. Transporten kan gjerne levere oppdateringane tilbake til avsendaren, dei
+ * blir ignorert.
+ *
+ * @see LoopbackTransport
+ * @since 3.1.0
+ */
+public interface FederationTransport {
+    /**
+     * Sender oppdateringa til alle nodane som abonnerer på transporten.
+     *
+     * @param update oppdateringa som skal sendast
+     */
+    void publish(FederationUpdate update);
+
+    /**
+     * Startar leveringa av oppdateringar frå andre nodar til {@code receiver}.
+     *
+     * @param receiver tek imot oppdateringane, må ikkje kallast samtidig frå fleire trådar
+     * @return eit abonnement som stoppar leveringa når det blir lukka
+     */
+    Subscription subscribe(Consumer<FederationUpdate> receiver);
+
+    /**
+     * Eit abonnement på oppdateringar frå transporten.
+     */
+    interface Subscription extends AutoCloseable {
+        /**
+         * Stoppar leveringa av oppdateringar.
+         */
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,100 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.List;
+
+/**
+ * Ei samla endring av tenestene ein node eksporterer, sendt via ein {@link FederationTransport}.
+ *
+ * @see RegistryFederation
+ * @since 3.1.0
+ */
+public final class FederationUpdate {
+    /**
+     * Dei ulike typane oppdateringar.
+     */
+    public enum Type {
+        /**
+         * Inneheld berre tenestene som er registrert og avregistrert sidan førre oppdatering frå noden.
+         */
+        DELTA,
+        /**
+         * Inneheld alle tenestene noden eksporterer. Tenester frå noden som ikkje er med blir fjerna.
+         */
+        SNAPSHOT,
+        /**
+         * Noden har forlate føderasjonen, alle tenestene frå noden blir fjerna.
+         */
+        LEAVE,
+        /**
+         * Noden har teke imot oppdateringar i feil rekkefølge og ber alle dei andre nodane sende eit nytt
+         * {@link #SNAPSHOT}.
+         */
+        RESYNC
+    }
+
+    private final Type type;
+    private final String node;
+    private final long sequence;
+    private final List<FederatedRegistration> registered;
+    private final List<String> unregistered;
+
+    /**
+     * Opprettar ei ny oppdatering.
+     *
+     * @param type         kva slags oppdatering det er
+     * @param node         noden som sender oppdateringa
+     * @param sequence     løpenummeret til oppdateringa, aukande med éin for kvar oppdatering frå noden
+     * @param registered   tenestene som er registrert
+     * @param unregistered id-ane til tenestene som er avregistrert
+     */
+    public FederationUpdate(final Type type, final String node, final long sequence,
+                            final List<FederatedRegistration> registered, final List<String> unregistered) {
+        this.type = requireNonNull(type, "type er påkrevd, men manglar");
+        this.node = requireNonNull(node, "node er påkrevd, men manglar");
+        this.sequence = sequence;
+        this.registered = List.copyOf(requireNonNull(registered, "registered er påkrevd, men manglar"));
+        this.unregistered = List.copyOf(requireNonNull(unregistered, "unregistered er påkrevd, men manglar"));
+    }
+
+    /**
+     * @return kva slags oppdatering det er
+     */
+    public Type type() {
+        return type;
+    }
+
+    /**
+     * @return noden som sender oppdateringa
+     */
+    public String node() {
+        return node;
+    }
+
+    /**
+     * @return løpenummeret til oppdateringa, aukande med éin for kvar oppdatering frå {@link #node()}
+     */
+    public long sequence() {
+        return sequence;
+    }
+
+    /**
+     * @return tenestene som er registrert, eller alle tenestene noden eksporterer for {@link Type#SNAPSHOT}
+     */
+    public List<FederatedRegistration> registered() {
+        return registered;
+    }
+
+    /**
+     * @return {@link FederatedRegistration#id() id-ane} til tenestene som er avregistrert, kun for {@link Type#DELTA}
+     */
+    public List<String> unregistered() {
+        return unregistered;
+    }
+
+    @Override
+    public String toString() {
+        return type + " #" + sequence + " frå " + node + ": +" + registered.size() + " -" + unregistered.size();
+    }
+}
@@ -0,0 +1,27 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("no.spk.tidsserie.tjenesteregister.FilteredLookup")
+@Label("Filtered Service Lookup")
+@Description("Oppslag av tenester under ei tenestetype som matchar eit filter")
+final class FiltrertOppslagshending extends Tjenesteregisterhending {
+    private static final FiltrertOppslagshending TYPE = new FiltrertOppslagshending();
+
+    /**
+     * Opprettar og startar ei ny hending dersom hendinga er slått på, slik at oppslag ikkje allokerer noko når
+     * hendinga er slått av.
+     *
+     * @return den starta hendinga, eller {@code null} dersom hendinga er slått av
+     */
+    static FiltrertOppslagshending start() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+        final FiltrertOppslagshending hending = new FiltrertOppslagshending();
+        hending.begin();
+        return hending;
+    }
+}
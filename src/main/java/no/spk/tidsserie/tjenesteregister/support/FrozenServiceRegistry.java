@@ -0,0 +1,358 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import no.spk.tidsserie.tjenesteregister.LookupMode;
+import no.spk.tidsserie.tjenesteregister.RegistrationBatch;
+import no.spk.tidsserie.tjenesteregister.RegistrationGroup;
+import no.spk.tidsserie.tjenesteregister.ServiceFilter;
+import no.spk.tidsserie.tjenesteregister.ServiceListener;
+import no.spk.tidsserie.tjenesteregister.ServiceReference;
+import no.spk.tidsserie.tjenesteregister.ServiceRegistration;
+import no.spk.tidsserie.tjenesteregister.ServiceRegistry;
+import no.spk.tidsserie.tjenesteregister.ServiceScope;
+import no.spk.tidsserie.tjenesteregister.ServiceTracker;
+
+/**
+ * Eit uforanderleg, leseoptimalisert tenesteregister kompilert frå innhaldet i eit {@link SimpleServiceRegistry}.
+ * <br>
+ * Tenestetypane ligg i ein flat tabell med open adressering, og for kvar tenestetype er lista over referansar og
+ * den høgast ranka tenesta rekna ut på førehand. Indeksane over egenskapane til tenestene blir og bygd ved
+ * frysing i staden for ved første filtrerte oppslag. Oppslag utan filter tar dermed ingen lås og allokerer ingenting,
+ * og filtrerte oppslag betalar berre for sjølve resultatlista.
+ * <br>
+ * Kva som skjer ved registrering av nye tenester blir styrt av {@link WriteMode}. Trackerar og lyttarar ser innhaldet
+ * på frysetidspunktet i tillegg til eventuelle tenester registrert i overlegget.
+ * <br>
+ * Det fryste registeret er eit øyeblikksbilde, seinare endringar i registeret det vart frose frå blir ikkje synlege
+ * her. Det gjeld og avregistreringar via {@link ServiceRegistration}-ar frå det opphavlege registeret.
+ *
+ * @see SimpleServiceRegistry#freeze(WriteMode)
+ * @since 3.1.0
+ */
+public final class FrozenServiceRegistry implements ServiceRegistry {
+    /**
+     * Styrer korleis eit fryst register handterer registrering av nye tenester.
+     *
+     * @since 3.1.0
+     */
+    public enum WriteMode {
+        /**
+         * Registrering av nye tenester feilar med {@link UnsupportedOperationException}.
+         */
+        REJECT,
+        /**
+         * Nye tenester blir registrert i eit overlegg som blir slått saman med det fryste innhaldet ved oppslag,
+         * etter samme reglar som for {@link SimpleServiceRegistry#createChild() underregister}. Oppslag held fram
+         * med å bruke dei fryste strukturane heilt til den første tenesta blir registrert i overlegget.
+         */
+        OVERLAY
+    }
+
+    private final Typetabell tabell;
+    private final WriteMode writeMode;
+    private final SimpleServiceRegistry overlegg;
+
+    private volatile boolean overleggBrukt;
+
+    FrozenServiceRegistry(final SimpleServiceRegistry grunnlag, final Map<Class<?>, ServiceEntries> tenester,
+                          final WriteMode writeMode) {
+        this.tabell = new Typetabell(tenester);
+        this.writeMode = requireNonNull(writeMode, "writeMode er påkrevd, men manglar");
+        this.overlegg = grunnlag.createChild();
+    }
+
+    /**
+     * @return korleis registeret handterer registrering av nye tenester
+     */
+    public WriteMode writeMode() {
+        return writeMode;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Optional<ServiceReference<T>> getServiceReference(final Class<T> tjenestetype) {
+        if (overleggBrukt) {
+            return overlegg.getServiceReference(tjenestetype);
+        }
+        final Frosen frosen = tabell.get(tjenestetype);
+        if (frosen == null) {
+            return Optional.empty();
+        }
+        final Optional<?> beste = frosen.beste;
+        return (Optional<ServiceReference<T>>) beste;
+    }
+
+    @Override
+    public <T> Optional<ServiceReference<T>> getServiceReference(final Class<T> tjenestetype, final String... filter) {
+        return getServiceReference(tjenestetype, compileFilter(filter));
+    }
+
+    @Override
+    public <T> Optional<ServiceReference<T>> getServiceReference(final Class<T> tjenestetype, final ServiceFilter filter) {
+        if (overleggBrukt) {
+            return overlegg.getServiceReference(tjenestetype, filter);
+        }
+        if (EgenskapFilter.ALLE.equals(filter)) {
+            return getServiceReference(tjenestetype);
+        }
+        final Frosen frosen = tabell.get(tjenestetype);
+        if (frosen == null) {
+            return Optional.empty();
+        }
+        final ServiceEntry<T> entry = frosen.entries.finnFoerste(filter, null);
+        return entry != null ? Optional.of(entry.getReference()) : Optional.empty();
+    }
+
+    @Override
+    public <T> List<ServiceReference<T>> getServiceReferences(final Class<T> tjenestetype) {
+        if (overleggBrukt) {
+            return overlegg.getServiceReferences(tjenestetype);
+        }
+        final Frosen frosen = tabell.get(tjenestetype);
+        return frosen != null ? frosen.referansar() : List.of();
+    }
+
+    @Override
+    public <T> List<ServiceReference<T>> getServiceReferences(final Class<T> tjenestetype, final String... filter) {
+        return getServiceReferences(tjenestetype, compileFilter(filter));
+    }
+
+    @Override
+    public <T> List<ServiceReference<T>> getServiceReferences(final Class<T> tjenestetype, final ServiceFilter filter) {
+        if (overleggBrukt) {
+            return overlegg.getServiceReferences(tjenestetype, filter);
+        }
+        if (EgenskapFilter.ALLE.equals(filter)) {
+            return getServiceReferences(tjenestetype);
+        }
+        final Frosen frosen = tabell.get(tjenestetype);
+        return frosen != null ? frosen.entries.finn(filter, null) : List.of();
+    }
+
+    @Override
+    public <T> T getServiceOrNull(final Class<T> tjenestetype) {
+        if (overleggBrukt) {
+            return overlegg.getServiceOrNull(tjenestetype);
+        }
+        final Frosen frosen = tabell.get(tjenestetype);
+        return frosen != null ? frosen.entries.<T>get(0).service() : null;
+    }
+
+    @Override
+    public <T> void forEachService(final Class<T> tjenestetype, final ServiceFilter filter, final Consumer<? super T> handling) {
+        if (overleggBrukt) {
+            overlegg.forEachService(tjenestetype, filter, handling);
+            return;
+        }
+        requireNonNull(handling, "handling er påkrevd, men manglar");
+        final Frosen frosen = tabell.get(tjenestetype);
+        if (frosen != null) {
+            frosen.entries.forEach(filter, handling);
+        }
+    }
+
+    @Override
+    public int countServices(final Class<?> tjenestetype) {
+        if (overleggBrukt) {
+            return overlegg.countServices(tjenestetype);
+        }
+        final Frosen frosen = tabell.get(tjenestetype);
+        return frosen != null ? frosen.entries.size() : 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br>
+     * Støttar alle oppslagsmodusar.
+     */
+    @Override
+    public boolean supports(final LookupMode modus) {
+        requireNonNull(modus, "modus er påkrevd, men manglar");
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br>
+     * Oppslag med {@link LookupMode#ASSIGNABLE} går alltid via overlegget.
+     */
+    @Override
+    public <T> Optional<ServiceReference<T>> getServiceReference(final Class<T> tjenestetype, final LookupMode modus,
+                                                                 final ServiceFilter filter) {
+        if (modus == LookupMode.EXACT) {
+            return getServiceReference(tjenestetype, filter);
+        }
+        return overlegg.getServiceReference(tjenestetype, modus, filter);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br>
+     * Oppslag med {@link LookupMode#ASSIGNABLE} går alltid via overlegget.
+     */
+    @Override
+    public <T> List<ServiceReference<T>> getServiceReferences(final Class<T> tjenestetype, final LookupMode modus,
+                                                              final ServiceFilter filter) {
+        if (modus == LookupMode.EXACT) {
+            return getServiceReferences(tjenestetype, filter);
+        }
+        return overlegg.getServiceReferences(tjenestetype, modus, filter);
+    }
+
+    @Override
+    public ServiceFilter compileFilter(final String... filter) {
+        return overlegg.compileFilter(filter);
+    }
+
+    @Override
+    public <T> ServiceTracker<T> track(final Class<T> tjenestetype, final ServiceFilter filter) {
+        return overlegg.track(tjenestetype, filter);
+    }
+
+    @Override
+    public <T> void addServiceListener(final Class<T> tjenestetype, final ServiceFilter filter, final ServiceListener<T> listener) {
+        overlegg.addServiceListener(tjenestetype, filter, listener);
+    }
+
+    @Override
+    public void removeServiceListener(final ServiceListener<?> listener) {
+        overlegg.removeServiceListener(listener);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UnsupportedOperationException dersom registeret er frose med {@link WriteMode#REJECT}
+     */
+    @Override
+    public <T> ServiceRegistration<T> registerService(final Class<T> tjenestetype, final T tjeneste, final String... egenskapar) {
+        skrivOverlegg();
+        return overlegg.registerService(tjenestetype, tjeneste, egenskapar);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UnsupportedOperationException dersom registeret er frose med {@link WriteMode#REJECT}
+     */
+    @Override
+    public <T> ServiceRegistration<T> registerFactory(final Class<T> tjenestetype, final Supplier<? extends T> fabrikk,
+                                                      final String... egenskapar) {
+        skrivOverlegg();
+        return overlegg.registerFactory(tjenestetype, fabrikk, egenskapar);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UnsupportedOperationException dersom registeret er frose med {@link WriteMode#REJECT}
+     */
+    @Override
+    public <T> ServiceRegistration<T> registerFactory(final Class<T> tjenestetype, final ServiceScope scope,
+                                                      final Supplier<? extends T> fabrikk, final String... egenskapar) {
+        skrivOverlegg();
+        return overlegg.registerFactory(tjenestetype, scope, fabrikk, egenskapar);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UnsupportedOperationException dersom registeret er frose med {@link WriteMode#REJECT}
+     */
+    @Override
+    public RegistrationGroup batch(final Consumer<RegistrationBatch> registreringar) {
+        skrivOverlegg();
+        return overlegg.batch(registreringar);
+    }
+
+    @Override
+    public <T> Optional<T> getService(final ServiceReference<T> reference) {
+        return overlegg.getService(reference);
+    }
+
+    private void skrivOverlegg() {
+        if (writeMode == WriteMode.REJECT) {
+            throw new UnsupportedOperationException(
+                    "tenesteregisteret er frose, nye tenester kan ikkje registrerast"
+            );
+        }
+        overleggBrukt = true;
+    }
+
+    @Override
+    public String toString() {
+        return "frose tenesteregister med " + tabell.size() + " tenestetyper";
+    }
+
+    /**
+     * Alt som trengst for oppslag under ei tenestetype, rekna ut ved frysing.
+     */
+    private static final class Frosen {
+        private final ServiceEntries entries;
+        private final List<ServiceReference<Object>> referansar;
+        private final Optional<ServiceReference<Object>> beste;
+
+        private Frosen(final ServiceEntries entries) {
+            this.entries = entries.forberedIndeks();
+            this.referansar = entries.references();
+            this.beste = entries.isEmpty() ? Optional.empty() : Optional.of(entries.get(0));
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T> List<ServiceReference<T>> referansar() {
+            final List<?> r = referansar;
+            return (List<ServiceReference<T>>) r;
+        }
+    }
+
+    /**
+     * Ein flat hashtabell med open adressering frå tenestetype til {@link Frosen}.
+     * <br>
+     * Sidan {@link Class} brukar identitetsbasert hashkode holder det å samanlikne nøklane med {@code ==}.
+     */
+    private static final class Typetabell {
+        private final Class<?>[] typar;
+        private final Frosen[] verdiar;
+        private final int maske;
+        private final int size;
+
+        private Typetabell(final Map<Class<?>, ServiceEntries> tenester) {
+            final int kapasitet = Integer.highestOneBit(Math.max(2, tenester.size() * 2 - 1)) << 1;
+            this.typar = new Class<?>[kapasitet];
+            this.verdiar = new Frosen[kapasitet];
+            this.maske = kapasitet - 1;
+            this.size = tenester.size();
+            tenester.forEach((type, entries) -> {
+                int i = type.hashCode() & maske;
+                while (typar[i] != null) {
+                    i = (i + 1) & maske;
+                }
+                typar[i] = type;
+                verdiar[i] = new Frosen(entries);
+            });
+        }
+
+        private Frosen get(final Class<?> type) {
+            int i = type.hashCode() & maske;
+            Class<?> kandidat;
+            while ((kandidat = typar[i]) != null) {
+                if (kandidat == type) {
+                    return verdiar[i];
+                }
+                i = (i + 1) & maske;
+            }
+            return null;
+        }
+
+        private int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import no.spk.tidsserie.tjenesteregister.ServiceFilter;
+
+/**
+ * Eit {@link ServiceFilter} som kan avgrense kva tenester som må sjekkast ved hjelp av ein {@link Egenskapsindeks}.
+ */
+interface IndeksertFilter extends ServiceFilter {
+    /**
+     * Slår opp posisjonane til tenestene som kan matche filteret via indeksen, i rankingrekkefølge.
+     *
+     * @return posisjonane til kandidatane, eller {@code null} dersom filteret ikkje kan avgrensast via indeksen og
+     * alle tenestene må sjekkast
+     */
+    int[] kandidatar(Egenskapsindeks indeks);
+
+    /**
+     * @return antall enkeltkrav i filteret
+     */
+    int antallKrav();
+}
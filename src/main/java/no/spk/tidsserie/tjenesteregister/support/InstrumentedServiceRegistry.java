@@ -0,0 +1,309 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import no.spk.tidsserie.tjenesteregister.LookupMode;
+import no.spk.tidsserie.tjenesteregister.RegistrationBatch;
+import no.spk.tidsserie.tjenesteregister.RegistrationGroup;
+import no.spk.tidsserie.tjenesteregister.ServiceFilter;
+import no.spk.tidsserie.tjenesteregister.ServiceListener;
+import no.spk.tidsserie.tjenesteregister.ServiceReference;
+import no.spk.tidsserie.tjenesteregister.ServiceRegistration;
+import no.spk.tidsserie.tjenesteregister.ServiceRegistry;
+import no.spk.tidsserie.tjenesteregister.ServiceScope;
+import no.spk.tidsserie.tjenesteregister.ServiceTracker;
+
+/**
+ * Eit {@link ServiceRegistry} som delegerer alle kall vidare til eit anna tenesteregister og samtidig held oversikt
+ * over oppslag og registreringar per tenestetype.
+ * <br>
+ * For kvar tenestetype blir det talt opp antall oppslag, treff, bom, filtrerte oppslag, registreringar og
+ * avregistreringar, i tillegg til latenshistogram for oppslaga. Teljarane er tilgjengelege via {@link #metrics()} og
+ * kan eksporterast som MBeans via {@link ServiceMetrics#exportTo(javax.management.MBeanServer, String)}.
+ * <br>
+ * Instrumenteringa er heilt valfri: eit tenesteregister som ikkje blir pakka inn i denne klassa betaler ingenting
+ * for den.
+ * <br>
+ * Tenester som blir registrert direkte mot det underliggande tenesteregisteret, utanom denne klassa, blir ikkje
+ * talt med i registreringsteljarane.
+ *
+ * @since 3.1.0
+ */
+public final class InstrumentedServiceRegistry implements ServiceRegistry {
+    private final ServiceRegistry delegate;
+    private final ServiceMetrics metrics = new ServiceMetrics();
+
+    /**
+     * Konstruerer eit nytt instrumentert tenesteregister som delegerer til {@code delegate}.
+     *
+     * @param delegate tenesteregisteret som alle kall blir delegert til
+     * @throws NullPointerException dersom {@code delegate} er {@code null}
+     */
+    public InstrumentedServiceRegistry(final ServiceRegistry delegate) {
+        this.delegate = requireNonNull(delegate, "delegate er påkrevd, men manglar");
+    }
+
+    /**
+     * @return teljarane for tenesteregisteret
+     */
+    public ServiceMetrics metrics() {
+        return metrics;
+    }
+
+    @Override
+    public <T> Optional<ServiceReference<T>> getServiceReference(final Class<T> tjenestetype) {
+        final long start = System.nanoTime();
+        final Optional<ServiceReference<T>> resultat = delegate.getServiceReference(tjenestetype);
+        metrics.metrics(tjenestetype).lookup(false, resultat.isPresent(), System.nanoTime() - start);
+        return resultat;
+    }
+
+    @Override
+    public <T> Optional<ServiceReference<T>> getServiceReference(final Class<T> tjenestetype, final String... filter) {
+        final long start = System.nanoTime();
+        final Optional<ServiceReference<T>> resultat = delegate.getServiceReference(tjenestetype, filter);
+        metrics.metrics(tjenestetype).lookup(filter.length > 0, resultat.isPresent(), System.nanoTime() - start);
+        return resultat;
+    }
+
+    @Override
+    public <T> Optional<ServiceReference<T>> getServiceReference(final Class<T> tjenestetype, final ServiceFilter filter) {
+        final long start = System.nanoTime();
+        final Optional<ServiceReference<T>> resultat = delegate.getServiceReference(tjenestetype, filter);
+        metrics.metrics(tjenestetype).lookup(filtrert(filter), resultat.isPresent(), System.nanoTime() - start);
+        return resultat;
+    }
+
+    @Override
+    public <T> List<ServiceReference<T>> getServiceReferences(final Class<T> tjenestetype) {
+        final long start = System.nanoTime();
+        final List<ServiceReference<T>> resultat = delegate.getServiceReferences(tjenestetype);
+        metrics.metrics(tjenestetype).lookup(false, !resultat.isEmpty(), System.nanoTime() - start);
+        return resultat;
+    }
+
+    @Override
+    public <T> List<ServiceReference<T>> getServiceReferences(final Class<T> tjenestetype, final String... filter) {
+        final long start = System.nanoTime();
+        final List<ServiceReference<T>> resultat = delegate.getServiceReferences(tjenestetype, filter);
+        metrics.metrics(tjenestetype).lookup(filter.length > 0, !resultat.isEmpty(), System.nanoTime() - start);
+        return resultat;
+    }
+
+    @Override
+    public <T> List<ServiceReference<T>> getServiceReferences(final Class<T> tjenestetype, final ServiceFilter filter) {
+        final long start = System.nanoTime();
+        final List<ServiceReference<T>> resultat = delegate.getServiceReferences(tjenestetype, filter);
+        metrics.metrics(tjenestetype).lookup(filtrert(filter), !resultat.isEmpty(), System.nanoTime() - start);
+        return resultat;
+    }
+
+    @Override
+    public boolean supports(final LookupMode modus) {
+        return delegate.supports(modus);
+    }
+
+    @Override
+    public <T> Optional<ServiceReference<T>> getServiceReference(final Class<T> tjenestetype, final LookupMode modus,
+                                                                 final ServiceFilter filter) {
+        final long start = System.nanoTime();
+        final Optional<ServiceReference<T>> resultat = delegate.getServiceReference(tjenestetype, modus, filter);
+        metrics.metrics(tjenestetype).lookup(filtrert(filter), resultat.isPresent(), System.nanoTime() - start);
+        return resultat;
+    }
+
+    @Override
+    public <T> List<ServiceReference<T>> getServiceReferences(final Class<T> tjenestetype, final LookupMode modus,
+                                                              final ServiceFilter filter) {
+        final long start = System.nanoTime();
+        final List<ServiceReference<T>> resultat = delegate.getServiceReferences(tjenestetype, modus, filter);
+        metrics.metrics(tjenestetype).lookup(filtrert(filter), !resultat.isEmpty(), System.nanoTime() - start);
+        return resultat;
+    }
+
+    /**
+     * Filter utan krav, som {@link #compileFilter(String...) kompilerte} utan argument, blir talt som ufiltrerte
+     * oppslag sidan dei ikkje filtrerer bort nokon tenester.
+     */
+    private static boolean filtrert(final ServiceFilter filter) {
+        return !(filter instanceof EgenskapFilter egenskapFilter && egenskapFilter.antallKrav() == 0);
+    }
+
+    @Override
+    public ServiceFilter compileFilter(final String... filter) {
+        return delegate.compileFilter(filter);
+    }
+
+    @Override
+    public <T> ServiceTracker<T> track(final Class<T> tjenestetype, final ServiceFilter filter) {
+        return delegate.track(tjenestetype, filter);
+    }
+
+    @Override
+    public <T> void addServiceListener(final Class<T> tjenestetype, final ServiceFilter filter, final ServiceListener<T> listener) {
+        delegate.addServiceListener(tjenestetype, filter, listener);
+    }
+
+    @Override
+    public void removeServiceListener(final ServiceListener<?> listener) {
+        delegate.removeServiceListener(listener);
+    }
+
+    @Override
+    public <T> ServiceRegistration<T> registerService(final Class<T> tjenestetype, final T tjeneste, final String... egenskapar) {
+        final ServiceRegistration<T> registrering = delegate.registerService(tjenestetype, tjeneste, egenskapar);
+        final ServiceTypeMetrics teljarar = metrics.metrics(tjenestetype);
+        teljarar.registrert(1);
+        return new TeljandeRegistrering<>(registrering, teljarar);
+    }
+
+    @Override
+    public <T> ServiceRegistration<T> registerFactory(final Class<T> tjenestetype, final Supplier<? extends T> fabrikk,
+                                                      final String... egenskapar) {
+        final ServiceRegistration<T> registrering = delegate.registerFactory(tjenestetype, fabrikk, egenskapar);
+        final ServiceTypeMetrics teljarar = metrics.metrics(tjenestetype);
+        teljarar.registrert(1);
+        return new TeljandeRegistrering<>(registrering, teljarar);
+    }
+
+    @Override
+    public <T> ServiceRegistration<T> registerFactory(final Class<T> tjenestetype, final ServiceScope scope,
+                                                      final Supplier<? extends T> fabrikk, final String... egenskapar) {
+        final ServiceRegistration<T> registrering = delegate.registerFactory(tjenestetype, scope, fabrikk, egenskapar);
+        final ServiceTypeMetrics teljarar = metrics.metrics(tjenestetype);
+        teljarar.registrert(1);
+        return new TeljandeRegistrering<>(registrering, teljarar);
+    }
+
+    @Override
+    public RegistrationGroup batch(final Consumer<RegistrationBatch> registreringar) {
+        requireNonNull(registreringar, "registreringar er påkrevd, men manglar");
+        final List<TeljandeRegistrering<?>> teljande = new ArrayList<>();
+        final RegistrationGroup gruppe = delegate.batch(bolk -> registreringar.accept(new RegistrationBatch() {
+            @Override
+            public <T> ServiceRegistration<T> register(final Class<T> tjenestetype, final T tjeneste, final String... egenskapar) {
+                final TeljandeRegistrering<T> registrering = new TeljandeRegistrering<>(
+                        bolk.register(tjenestetype, tjeneste, egenskapar),
+                        metrics.metrics(tjenestetype)
+                );
+                teljande.add(registrering);
+                return registrering;
+            }
+        }));
+        teljande.forEach(registrering -> registrering.teljarar.registrert(1));
+        return new TeljandeGruppe(gruppe, List.copyOf(teljande));
+    }
+
+    @Override
+    public <T> Optional<T> getService(final ServiceReference<T> reference) {
+        return delegate.getService(reference);
+    }
+
+    @Override
+    public <T> T getServiceOrNull(final Class<T> tjenestetype) {
+        final long start = System.nanoTime();
+        final T resultat = delegate.getServiceOrNull(tjenestetype);
+        metrics.metrics(tjenestetype).lookup(false, resultat != null, System.nanoTime() - start);
+        return resultat;
+    }
+
+    /**
+     * Latensen som blir registrert for oppslaget inkluderer tida {@code handling} brukar på tenestene, sidan
+     * tenesteregisteret det blir delegert til står fritt til å køyre handlinga medan det slår opp tenestene.
+     */
+    @Override
+    public <T> void forEachService(final Class<T> tjenestetype, final ServiceFilter filter, final Consumer<? super T> handling) {
+        requireNonNull(handling, "handling er påkrevd, men manglar");
+        final long start = System.nanoTime();
+        final boolean[] treff = new boolean[1];
+        delegate.forEachService(tjenestetype, filter, teneste -> {
+            treff[0] = true;
+            handling.accept(teneste);
+        });
+        metrics.metrics(tjenestetype).lookup(filtrert(filter), treff[0], System.nanoTime() - start);
+    }
+
+    @Override
+    public int countServices(final Class<?> tjenestetype) {
+        final long start = System.nanoTime();
+        final int antall = delegate.countServices(tjenestetype);
+        metrics.metrics(tjenestetype).lookup(false, antall > 0, System.nanoTime() - start);
+        return antall;
+    }
+
+    @Override
+    public String toString() {
+        return "instrumentert " + delegate;
+    }
+
+    private static final class TeljandeRegistrering<T> implements ServiceRegistration<T> {
+        private final ServiceRegistration<T> delegate;
+        private final ServiceTypeMetrics teljarar;
+        private final AtomicBoolean avregistrert = new AtomicBoolean();
+
+        private TeljandeRegistrering(final ServiceRegistration<T> delegate, final ServiceTypeMetrics teljarar) {
+            this.delegate = delegate;
+            this.teljarar = teljarar;
+        }
+
+        @Override
+        public ServiceReference<T> getReference() {
+            return delegate.getReference();
+        }
+
+        @Override
+        public void unregister() {
+            delegate.unregister();
+            tel();
+        }
+
+        @Override
+        public void setProperties(final String... egenskapar) {
+            delegate.setProperties(egenskapar);
+        }
+
+        private void tel() {
+            if (avregistrert.compareAndSet(false, true)) {
+                teljarar.avregistrert(1);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return delegate.toString();
+        }
+    }
+
+    private static final class TeljandeGruppe implements RegistrationGroup {
+        private final RegistrationGroup delegate;
+        private final List<TeljandeRegistrering<?>> registreringar;
+
+        private TeljandeGruppe(final RegistrationGroup delegate, final List<TeljandeRegistrering<?>> registreringar) {
+            this.delegate = delegate;
+            this.registreringar = registreringar;
+        }
+
+        @Override
+        public List<ServiceRegistration<?>> getRegistrations() {
+            return List.copyOf(registreringar);
+        }
+
+        @Override
+        public void unregisterAll() {
+            delegate.unregisterAll();
+            registreringar.forEach(TeljandeRegistrering::tel);
+        }
+
+        @Override
+        public String toString() {
+            return delegate.toString();
+        }
+    }
+}
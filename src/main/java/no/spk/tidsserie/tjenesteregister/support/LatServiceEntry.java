@@ -0,0 +1,54 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Ei teneste som blir oppretta første gang nokon ber om sjølve tenesteinstansen.
+ * <br>
+ * Egenskapane og rankinga er kjent og synleg for oppslag frå registreringstidspunktet, det er berre instansen som
+ * blir oppretta seinare. Fabrikken blir kalla maksimalt éin gong, også når fleire trådar ber om instansen samtidig.
+ * Dersom fabrikken feilar blir feilen kasta vidare til den som bad om instansen, og neste førespurnad prøver på nytt.
+ */
+final class LatServiceEntry<T> extends ServiceEntry<T> {
+    private Supplier<? extends T> fabrikk;
+
+    private volatile T instans;
+
+    LatServiceEntry(final SimpleServiceRegistry parent, final Class<T> tjenestetype, final Supplier<? extends T> fabrikk,
+                    final Map<String, String> egenskapar, final long sekvens) {
+        super(parent, tjenestetype, null, egenskapar, sekvens);
+        this.fabrikk = fabrikk;
+    }
+
+    @Override
+    T service() {
+        final T eksisterande = instans;
+        if (eksisterande != null) {
+            return eksisterande;
+        }
+        synchronized (this) {
+            if (instans == null) {
+                final T ny = fabrikk.get();
+                if (ny == null) {
+                    throw new IllegalStateException(
+                            "fabrikken for " + tjenestetype().getName() + " returnerte null, " + egenskapar()
+                    );
+                }
+                instans = ny;
+                fabrikk = null;
+            }
+            return instans;
+        }
+    }
+
+    boolean oppretta() {
+        return instans != null;
+    }
+
+    @Override
+    String beskrivTeneste() {
+        final T eksisterande = instans;
+        return eksisterande != null ? eksisterande.toString() : "(ikkje oppretta)";
+    }
+}
@@ -0,0 +1,103 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Eit låsfritt histogram over varigheiter i nanosekund.
+ * <br>
+ * Målingane blir fordelt på bøtter med eksponentielt aukande storleik, éi bøtte per toarpotens. Kvar bøtte er ein
+ * {@link LongAdder}, slik at samtidige målingar frå mange trådar ikkje konkurrerer om dei samme minnelokasjonane.
+ * Persentilar blir estimert til øvre grense for bøtta dei fell i, det vil seie med ein feilmargin på inntil ein
+ * faktor to.
+ *
+ * @since 3.1.0
+ */
+public final class LatencyHistogram {
+    private static final int BOETTER = 64;
+
+    private final LongAdder[] boetter = new LongAdder[BOETTER];
+
+    private final LongAdder sum = new LongAdder();
+
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    LatencyHistogram() {
+        for (int i = 0; i < BOETTER; i++) {
+            boetter[i] = new LongAdder();
+        }
+    }
+
+    void record(final long nanos) {
+        final long verdi = Math.max(0, nanos);
+        boetter[BOETTER - Long.numberOfLeadingZeros(verdi)].increment();
+        sum.add(verdi);
+        max.accumulate(verdi);
+    }
+
+    /**
+     * Returnerer antall målingar i histogrammet.
+     *
+     * @return antall målingar
+     */
+    public long count() {
+        long antall = 0;
+        for (final LongAdder boette : boetter) {
+            antall += boette.sum();
+        }
+        return antall;
+    }
+
+    /**
+     * Returnerer gjennomsnittleg varigheit for alle målingane.
+     *
+     * @return gjennomsnittleg varigheit i nanosekund, eller 0 dersom histogrammet er tomt
+     */
+    public double meanNanos() {
+        final long antall = count();
+        return antall == 0 ? 0 : (double) sum.sum() / antall;
+    }
+
+    /**
+     * Returnerer den lengste målte varigheita.
+     *
+     * @return lengste varigheit i nanosekund
+     */
+    public long maxNanos() {
+        return max.get();
+    }
+
+    /**
+     * Estimerer varigheita som den angitte andelen av målingane er kortare enn eller lik.
+     *
+     * @param persentil andelen av målingane, mellom 0 og 1
+     * @return eit estimat for persentilen i nanosekund, eller 0 dersom histogrammet er tomt
+     */
+    public long percentileNanos(final double persentil) {
+        if (persentil < 0 || persentil > 1) {
+            throw new IllegalArgumentException("persentilen må vere mellom 0 og 1, var " + persentil);
+        }
+        final long[] antall = new long[BOETTER];
+        long totalt = 0;
+        for (int i = 0; i < BOETTER; i++) {
+            antall[i] = boetter[i].sum();
+            totalt += antall[i];
+        }
+        if (totalt == 0) {
+            return 0;
+        }
+        final long maal = Math.max(1, (long) Math.ceil(persentil * totalt));
+        long akkumulert = 0;
+        for (int i = 0; i < BOETTER; i++) {
+            akkumulert += antall[i];
+            if (akkumulert >= maal) {
+                return Math.min(oevreGrense(i), maxNanos());
+            }
+        }
+        return maxNanos();
+    }
+
+    private static long oevreGrense(final int boette) {
+        return boette == 0 ? 0 : boette >= 63 ? Long.MAX_VALUE : (1L << boette) - 1;
+    }
+}
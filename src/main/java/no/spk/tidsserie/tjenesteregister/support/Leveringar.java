@@ -0,0 +1,32 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import java.util.function.Consumer;
+
+final class Leveringar {
+    private Leveringar() {
+    }
+
+    /**
+     * Leverer alle leveringane, sjølv om ei eller fleire av dei feilar.
+     * <br>
+     * Den første feilen blir kasta vidare etter at alle leveringane er forsøkt, med eventuelle seinare feil lagt til
+     * som {@link Throwable#getSuppressed() undertrykte} feil.
+     */
+    static <T> void leverAlle(final Iterable<T> leveringar, final Consumer<T> lever) {
+        RuntimeException feil = null;
+        for (final T levering : leveringar) {
+            try {
+                lever.accept(levering);
+            } catch (final RuntimeException e) {
+                if (feil == null) {
+                    feil = e;
+                } else {
+                    feil.addSuppressed(e);
+                }
+            }
+        }
+        if (feil != null) {
+            throw feil;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+/**
+ * Eit øyeblikksbilde av statistikken for oppslagsbufferet til eit {@link SimpleServiceRegistry}.
+ *
+ * @see SimpleServiceRegistry#lookupCacheStats()
+ * @since 3.1.0
+ */
+public final class LookupCacheStats {
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final int size;
+    private final int maximumSize;
+
+    LookupCacheStats(final long hitCount, final long missCount, final long evictionCount, final int size,
+                     final int maximumSize) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.size = size;
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * @return antall oppslag som vart besvart frå bufferet
+     */
+    public long hitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return antall oppslag som ikkje kunne besvarast frå bufferet
+     */
+    public long missCount() {
+        return missCount;
+    }
+
+    /**
+     * @return andelen av oppslaga som vart besvart frå bufferet, eller 0 dersom det ikkje har vore nokon oppslag
+     */
+    public double hitRate() {
+        final long oppslag = hitCount + missCount;
+        return oppslag == 0 ? 0 : (double) hitCount / oppslag;
+    }
+
+    /**
+     * @return antall resultat som har blitt kasta ut av bufferet for å halde det innanfor maksimal storleik
+     */
+    public long evictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * @return omtrentleg antall resultat i bufferet no
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return maksimalt antall resultat i bufferet, 0 dersom bufferet er slått av
+     */
+    public int maximumSize() {
+        return maximumSize;
+    }
+
+    @Override
+    public String toString() {
+        return "oppslagsbuffer: treff=" + hitCount
+                + ", bom=" + missCount
+                + ", treffrate=" + String.format("%.3f", hitRate())
+                + ", utkastingar=" + evictionCount
+                + ", storleik=" + size + "/" + maximumSize;
+    }
+}
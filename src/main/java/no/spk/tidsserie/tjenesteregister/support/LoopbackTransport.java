@@ -0,0 +1,28 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Ein {@link FederationTransport} som leverer oppdateringane synkront til alle abonnentane i samme JVM.
+ * <br>
+ * Meint for testar og for å køyre fleire {@link RegistryFederation føderte} register i samme prosess utan eit
+ * kluster.
+ *
+ * @since 3.1.0
+ */
+public final class LoopbackTransport implements FederationTransport {
+    private final List<Consumer<FederationUpdate>> abonnentar = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(final FederationUpdate update) {
+        abonnentar.forEach(abonnent -> abonnent.accept(update));
+    }
+
+    @Override
+    public Subscription subscribe(final Consumer<FederationUpdate> receiver) {
+        abonnentar.add(receiver);
+        return () -> abonnentar.remove(receiver);
+    }
+}
@@ -0,0 +1,129 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import no.spk.tidsserie.tjenesteregister.ServiceEvent;
+import no.spk.tidsserie.tjenesteregister.ServiceFilter;
+import no.spk.tidsserie.tjenesteregister.ServiceListener;
+
+/**
+ * Alle lyttarar for ei bestemt tenestetype, gruppert etter filteret dei vart lagt til med.
+ * <br>
+ * Ved kvar hending blir kvart unike filter matcha maksimalt ein gong mot tenesta som hendinga gjeld, uavhengig av kor
+ * mange lyttarar som deler filteret. Sidan {@link EgenskapFilter kompilerte filter} med samme krav er like, vil
+ * lyttarar som kompilerer sine eigne filter framleis dele matchinga.
+ * <br>
+ * {@link EgenskapFilter Filter} med minst eitt <code>navn=verdi</code>-krav blir i tillegg indeksert på det første
+ * kravet sitt. Ved kvar hending blir berre filtera som er indeksert på ein av egenskapane til tenesta matcha, i
+ * tillegg til filtera som ikkje kan indekserast, slik at kostnaden ikkje veks med antall lyttarar som filtrerer på
+ * andre verdiar.
+ * <br>
+ * Instansar er ikkje trådsikre og blir kun brukt medan tenesteregisteret held skrivelåsen for tenestetypen.
+ */
+final class Lyttarar {
+    private final Map<ServiceFilter, List<ServiceListener<?>>> perFilter = new LinkedHashMap<>();
+
+    private final Map<String, Map<String, List<ServiceFilter>>> indeks = new HashMap<>();
+
+    private final List<ServiceFilter> uindekserte = new ArrayList<>();
+
+    void leggTil(final ServiceFilter filter, final ServiceListener<?> listener) {
+        perFilter.computeIfAbsent(filter, f -> {
+            final Egenskap krav = indekskrav(f);
+            if (krav == null) {
+                uindekserte.add(f);
+            } else {
+                indeks.computeIfAbsent(krav.name(), n -> new HashMap<>())
+                        .computeIfAbsent(krav.value(), v -> new ArrayList<>())
+                        .add(f);
+            }
+            return new ArrayList<>();
+        }).add(listener);
+    }
+
+    void fjern(final ServiceListener<?> listener) {
+        perFilter.values().forEach(lyttarar -> lyttarar.removeIf(l -> l == listener));
+        perFilter.entrySet().removeIf(e -> {
+            if (!e.getValue().isEmpty()) {
+                return false;
+            }
+            fjernFraIndeks(e.getKey());
+            return true;
+        });
+    }
+
+    boolean isEmpty() {
+        return perFilter.isEmpty();
+    }
+
+    /**
+     * Legg hendinga til i utboksen til alle lyttarar med filter som matchar tenesta hendinga gjeld.
+     */
+    void varsle(final ServiceEvent<?> event, final ServiceEntry<?> entry, final Utboks utboks) {
+        indeks.forEach((navn, perVerdi) -> {
+            final List<ServiceFilter> kandidatar = perVerdi.get(entry.property(navn));
+            if (kandidatar != null) {
+                kandidatar.forEach(filter -> varsleDersom(filter.matches(entry), filter, event, utboks));
+            }
+        });
+        uindekserte.forEach(filter -> varsleDersom(filter.matches(entry), filter, event, utboks));
+    }
+
+    /**
+     * Legg hendinga til i utboksen til alle lyttarar med filter som matchar anten dei gamle eller dei nye
+     * egenskapane til tenesta.
+     */
+    void varsleEndring(final ServiceEvent<?> event, final ServiceEntry<?> gammal, final ServiceEntry<?> ny,
+                       final Utboks utboks) {
+        indeks.forEach((navn, perVerdi) -> {
+            final List<ServiceFilter> nye = perVerdi.get(ny.property(navn));
+            if (nye != null) {
+                nye.forEach(filter -> varsleDersom(filter.matches(ny), filter, event, utboks));
+            }
+            // Filter som matchar dei nye egenskapane er allereie varsla over
+            final List<ServiceFilter> gamle = perVerdi.get(gammal.property(navn));
+            if (gamle != null) {
+                gamle.forEach(filter -> varsleDersom(!filter.matches(ny) && filter.matches(gammal), filter, event, utboks));
+            }
+        });
+        uindekserte.forEach(filter -> varsleDersom(filter.matches(ny) || filter.matches(gammal), filter, event, utboks));
+    }
+
+    private void varsleDersom(final boolean match, final ServiceFilter filter, final ServiceEvent<?> event,
+                              final Utboks utboks) {
+        if (match) {
+            perFilter.get(filter).forEach(listener -> utboks.leggTil(listener, event));
+        }
+    }
+
+    private void fjernFraIndeks(final ServiceFilter filter) {
+        final Egenskap krav = indekskrav(filter);
+        if (krav == null) {
+            uindekserte.remove(filter);
+            return;
+        }
+        final Map<String, List<ServiceFilter>> perVerdi = indeks.get(krav.name());
+        final List<ServiceFilter> filtera = perVerdi.get(krav.value());
+        filtera.remove(filter);
+        if (filtera.isEmpty()) {
+            perVerdi.remove(krav.value());
+        }
+        if (perVerdi.isEmpty()) {
+            indeks.remove(krav.name());
+        }
+    }
+
+    /**
+     * Returnerer kravet filteret blir indeksert på, eller {@code null} dersom filteret må matchast ved kvar hending.
+     */
+    private static Egenskap indekskrav(final ServiceFilter filter) {
+        if (filter instanceof EgenskapFilter egenskapFilter && egenskapFilter.antallKrav() > 0) {
+            return egenskapFilter.egenskapar()[0];
+        }
+        return null;
+    }
+}
@@ -0,0 +1,99 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import no.spk.tidsserie.tjenesteregister.Constants;
+import no.spk.tidsserie.tjenesteregister.RegistrationBatch;
+import no.spk.tidsserie.tjenesteregister.RegistrationGroup;
+import no.spk.tidsserie.tjenesteregister.ServiceRegistry;
+import no.spk.tidsserie.tjenesteregister.TjenesteProvider;
+
+/**
+ * Finn tenestetilbydarar via {@link ServiceLoader}, opprettar dei parallelt på virtuelle trådar og registrerer dei
+ * i éin bolk.
+ * <br>
+ * Rekkefølga tilbydarane blir registrert i følgjer rekkefølga {@link ServiceLoader} fann dei i, uavhengig av kva
+ * rekkefølge dei vart ferdig oppretta i.
+ */
+final class Oppdaging {
+    private Oppdaging() {
+    }
+
+    static DiscoveryResult oppdag(final ServiceRegistry registry, final ClassLoader lastar, final Class<?>... tjenestetypar) {
+        final long start = System.nanoTime();
+        final List<Oppretting<?>> opprettingar = new ArrayList<>();
+        try (final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (final Class<?> tjenestetype : tjenestetypar) {
+                finn(tjenestetype, lastar, executor, opprettingar);
+            }
+        }
+
+        final List<Throwable> feil = opprettingar.stream()
+                .filter(o -> o.resultat().state() == Future.State.FAILED)
+                .map(o -> o.resultat().exceptionNow())
+                .toList();
+        if (!feil.isEmpty()) {
+            final ServiceConfigurationError error = new ServiceConfigurationError(
+                    "klarte ikkje å opprette " + feil.size() + " av " + opprettingar.size() + " tenestetilbydarar",
+                    feil.get(0)
+            );
+            feil.stream().skip(1).forEach(error::addSuppressed);
+            throw error;
+        }
+
+        final Map<Class<?>, Duration> tider = new LinkedHashMap<>();
+        final RegistrationGroup gruppe = registry.batch(bolk -> opprettingar.forEach(o -> o.registrer(bolk, tider)));
+        return new DiscoveryResult(gruppe, Collections.unmodifiableMap(tider), Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private static <T> void finn(final Class<T> tjenestetype, final ClassLoader lastar, final ExecutorService executor,
+                                 final List<Oppretting<?>> opprettingar) {
+        ServiceLoader.load(tjenestetype, lastar)
+                .stream()
+                .forEach(tilbydar -> opprettingar.add(new Oppretting<>(
+                        tjenestetype,
+                        tilbydar,
+                        executor.submit(() -> {
+                            final long start = System.nanoTime();
+                            final T tjeneste = tilbydar.get();
+                            return new Oppretta<>(tjeneste, System.nanoTime() - start);
+                        })
+                )));
+    }
+
+    /**
+     * Les egenskapane og rankinga frå {@link TjenesteProvider} dersom tilbydarklassa er annotert.
+     */
+    static String[] egenskapar(final Class<?> tilbydar) {
+        final TjenesteProvider annotasjon = tilbydar.getAnnotation(TjenesteProvider.class);
+        if (annotasjon == null) {
+            return new String[0];
+        }
+        final List<String> egenskapar = new ArrayList<>(List.of(annotasjon.egenskapar()));
+        if (annotasjon.ranking() != 0) {
+            egenskapar.add(Constants.SERVICE_RANKING + "=" + annotasjon.ranking());
+        }
+        return egenskapar.toArray(String[]::new);
+    }
+
+    private record Oppretting<T>(Class<T> tjenestetype, ServiceLoader.Provider<T> tilbydar, Future<Oppretta<T>> resultat) {
+        void registrer(final RegistrationBatch bolk, final Map<Class<?>, Duration> tider) {
+            final Oppretta<T> oppretta = resultat.resultNow();
+            bolk.register(tjenestetype, oppretta.tjeneste(), egenskapar(tilbydar.type()));
+            tider.merge(tilbydar.type(), Duration.ofNanos(oppretta.nanos()), Duration::plus);
+        }
+    }
+
+    private record Oppretta<T>(T tjeneste, long nanos) {
+    }
+}
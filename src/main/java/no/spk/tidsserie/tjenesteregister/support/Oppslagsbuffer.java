@@ -0,0 +1,302 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import no.spk.tidsserie.tjenesteregister.ServiceFilter;
+import no.spk.tidsserie.tjenesteregister.ServiceReference;
+
+/**
+ * Eit avgrensa buffer for resultata av filtrerte oppslag, nøkla på tenestetype og kompilert filter.
+ * <br>
+ * Resultata for kvar tenestetype er stempla med {@link ServiceEntries øyeblikksbildet} dei vart rekna ut frå. Sidan
+ * kvar registrering og avregistrering erstattar øyeblikksbildet for tenestetypen, fungerer identiteten til
+ * øyeblikksbildet som ein generasjonsteljar per tenestetype: eit resultat blir berre gjenbrukt så lenge
+ * øyeblikksbildet er det samme. Registeret fjernar i tillegg resultata for ei tenestetype så snart den blir endra,
+ * slik at bufferet ikkje held avregistrerte tenester i live. Oppslag mot tenestetypar utan tenester blir aldri
+ * bufra, slik at oppslag etter at ein plugin er avregistrert ikkje held tenestetypane til pluginen i live.
+ * <br>
+ * Når bufferet blir fullt blir ein tidel av resultata kasta ut, dei som har vore ubrukt lengst først. Kor nyleg eit
+ * resultat har vore brukt blir målt med ein logisk klokke som berre går ved bom, slik at treff sjeldan treng å skrive
+ * til delt minne. Mange resultat kan dermed ha samme tidsstempel, mellom dei blir det kasta ut vilkårlege resultat
+ * til nøyaktig ein tidel er kasta ut.
+ * <br>
+ * I tillegg blir kompilerte filter bufra på teksten dei vart kompilert frå, slik at gjentekne oppslag med filter som
+ * tekst slepp å validere og parse filtera på nytt. Når dette bufferet er fullt blir eitt vilkårleg filter kasta ut
+ * for kvart nye filter.
+ */
+final class Oppslagsbuffer {
+    /**
+     * Antall kompilerte filter som filteret som blir kasta ut blir trekt blant.
+     */
+    private static final int UTVAL = 16;
+
+    private final int maksimum;
+
+    private final ConcurrentMap<Class<?>, Typebuffer> pertype = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<List<String>, ServiceFilter> kompilerte = new ConcurrentHashMap<>();
+
+    private final AtomicInteger storleik = new AtomicInteger();
+
+    private final AtomicLong klokke = new AtomicLong();
+
+    private final AtomicBoolean rydding = new AtomicBoolean();
+
+    private final LongAdder treff = new LongAdder();
+    private final LongAdder bom = new LongAdder();
+    private final LongAdder utkastingar = new LongAdder();
+
+    Oppslagsbuffer(final int maksimum) {
+        if (maksimum < 0) {
+            throw new IllegalArgumentException("storleiken på oppslagsbufferet kan ikkje vere negativ, var " + maksimum);
+        }
+        this.maksimum = maksimum;
+    }
+
+    int maksimum() {
+        return maksimum;
+    }
+
+    ServiceFilter kompiler(final String[] filter, final Supplier<ServiceFilter> kompilator) {
+        if (maksimum == 0) {
+            return kompilator.get();
+        }
+        final List<String> noekkel = List.of(filter);
+        final ServiceFilter kompilert = kompilerte.get(noekkel);
+        if (kompilert != null) {
+            return kompilert;
+        }
+        if (kompilerte.size() >= maksimum) {
+            kastUtEitt();
+        }
+        final ServiceFilter ny = kompilator.get();
+        kompilerte.put(noekkel, ny);
+        return ny;
+    }
+
+    /**
+     * Kastar ut eitt av dei kompilerte filtera, trekt blant dei første filtera i tabellen slik at det ikkje alltid er
+     * det samme filteret som blir kasta ut.
+     */
+    private void kastUtEitt() {
+        final Iterator<List<String>> filtera = kompilerte.keySet().iterator();
+        for (int hopp = ThreadLocalRandom.current().nextInt(UTVAL); hopp > 0 && filtera.hasNext(); hopp--) {
+            filtera.next();
+        }
+        if (filtera.hasNext()) {
+            filtera.next();
+            filtera.remove();
+        }
+    }
+
+    <T> List<ServiceReference<T>> finn(final Class<?> tjenestetype, final ServiceEntries entries, final ServiceFilter filter,
+                                       final Tjenesteregisterhending hending) {
+        if (maksimum == 0 || entries.isEmpty()) {
+            return entries.finn(filter, hending);
+        }
+        final Resultat resultat = resultat(tjenestetype, entries, filter);
+        List<?> alle = resultat.alle;
+        if (alle != null) {
+            treff.increment();
+        } else {
+            bom.increment();
+            alle = entries.finn(filter, hending);
+            resultat.alle = alle;
+        }
+        return cast(alle);
+    }
+
+    <T> ServiceEntry<T> finnFoerste(final Class<?> tjenestetype, final ServiceEntries entries, final ServiceFilter filter,
+                                    final Tjenesteregisterhending hending) {
+        if (maksimum == 0 || entries.isEmpty()) {
+            return entries.finnFoerste(filter, hending);
+        }
+        final Resultat resultat = resultat(tjenestetype, entries, filter);
+        if (resultat.foersteKjent) {
+            treff.increment();
+            return cast(resultat.foerste);
+        }
+        final List<?> alle = resultat.alle;
+        final ServiceEntry<?> foerste;
+        if (alle != null) {
+            treff.increment();
+            foerste = alle.isEmpty() ? null : (ServiceEntry<?>) alle.get(0);
+        } else {
+            bom.increment();
+            foerste = entries.finnFoerste(filter, hending);
+        }
+        resultat.foerste = foerste;
+        resultat.foersteKjent = true;
+        return cast(foerste);
+    }
+
+    /**
+     * Fjernar alle bufra resultat for tenestetypen.
+     */
+    void invalider(final Class<?> tjenestetype) {
+        if (maksimum == 0) {
+            return;
+        }
+        final Typebuffer fjerna = pertype.remove(tjenestetype);
+        if (fjerna != null) {
+            storleik.addAndGet(-fjerna.avlegg());
+        }
+    }
+
+    LookupCacheStats stats() {
+        return new LookupCacheStats(treff.sum(), bom.sum(), utkastingar.sum(), Math.max(0, storleik.get()), maksimum);
+    }
+
+    private Resultat resultat(final Class<?> tjenestetype, final ServiceEntries entries, final ServiceFilter filter) {
+        Typebuffer buffer = pertype.get(tjenestetype);
+        if (buffer == null || buffer.stempel != entries) {
+            buffer = new Typebuffer(entries);
+            final Typebuffer gammal = pertype.put(tjenestetype, buffer);
+            if (gammal != null) {
+                storleik.addAndGet(-gammal.avlegg());
+            }
+        }
+        final Resultat eksisterande = buffer.resultat.get(filter);
+        if (eksisterande != null) {
+            eksisterande.brukt(klokke);
+            return eksisterande;
+        }
+        final Resultat ny = new Resultat(klokke.incrementAndGet());
+        final Resultat samtidig = buffer.resultat.putIfAbsent(filter, ny);
+        if (samtidig != null) {
+            return samtidig;
+        }
+        if (buffer.tel() && storleik.incrementAndGet() > maksimum) {
+            rydd();
+        }
+        return ny;
+    }
+
+    /**
+     * Kastar ut ein tidel av resultata, dei som har vore ubrukt lengst først.
+     */
+    private void rydd() {
+        if (!rydding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            final List<Kandidat> alle = new ArrayList<>();
+            pertype.values().forEach(b -> b.resultat.forEach((filter, r) -> alle.add(new Kandidat(b, filter, r, r.sistBrukt))));
+            final int fjern = Math.min(alle.size() - maksimum + Math.max(1, maksimum / 10), alle.size());
+            if (fjern <= 0) {
+                return;
+            }
+            alle.sort(Comparator.comparingLong(Kandidat::sistBrukt));
+            alle.subList(0, fjern).forEach(k -> {
+                if (k.buffer().resultat.remove(k.filter(), k.resultat())) {
+                    utkastingar.increment();
+                    if (k.buffer().telBort()) {
+                        storleik.decrementAndGet();
+                    }
+                }
+            });
+        } finally {
+            rydding.set(false);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <R> R cast(final Object verdi) {
+        return (R) verdi;
+    }
+
+    /**
+     * Eit resultat som kan kastast ut, med tidsstempelet frå då ryddinga starta slik at sorteringa er stabil sjølv om
+     * resultatet blir brukt undervegs.
+     */
+    private record Kandidat(Typebuffer buffer, ServiceFilter filter, Resultat resultat, long sistBrukt) {
+    }
+
+    /**
+     * Resultata for ei tenestetype, stempla med øyeblikksbildet dei vart rekna ut frå.
+     * <br>
+     * {@link #talt} held oversikt over kor mange av resultata som er talt med i {@link #storleik}, og blir negativ når
+     * bufferet blir fjerna eller erstatta. Resultat som blir lagt til i eit buffer som allereie er fjerna, av ein
+     * lesar som henta bufferet før det vart fjerna, blir dermed aldri talt med, slik at storleiken ikkje driv.
+     */
+    private static final class Typebuffer {
+        private final ServiceEntries stempel;
+        private final ConcurrentMap<ServiceFilter, Resultat> resultat = new ConcurrentHashMap<>();
+        private final AtomicInteger talt = new AtomicInteger();
+
+        private Typebuffer(final ServiceEntries stempel) {
+            this.stempel = stempel;
+        }
+
+        /**
+         * Tel med eit nytt resultat, med mindre bufferet er fjerna.
+         */
+        private boolean tel() {
+            for (; ; ) {
+                final int no = talt.get();
+                if (no < 0) {
+                    return false;
+                }
+                if (talt.compareAndSet(no, no + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Tel bort eit resultat som er kasta ut, med mindre bufferet er fjerna.
+         */
+        private boolean telBort() {
+            for (; ; ) {
+                final int no = talt.get();
+                if (no <= 0) {
+                    return false;
+                }
+                if (talt.compareAndSet(no, no - 1)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Markerer bufferet som fjerna og returnerer kor mange resultat som var talt med.
+         */
+        private int avlegg() {
+            return Math.max(0, talt.getAndSet(-1));
+        }
+    }
+
+    /**
+     * Det bufra resultatet for eit filter. Alle tenestene som matchar og den høgast ranka av dei blir rekna ut
+     * kvar for seg ved behov, eit kappløp mellom to trådar fører i verste fall til at samme resultat blir rekna ut to
+     * gongar.
+     */
+    private static final class Resultat {
+        private volatile List<?> alle;
+        private volatile ServiceEntry<?> foerste;
+        private volatile boolean foersteKjent;
+        private volatile long sistBrukt;
+
+        private Resultat(final long sistBrukt) {
+            this.sistBrukt = sistBrukt;
+        }
+
+        private void brukt(final AtomicLong klokke) {
+            final long no = klokke.get();
+            if (sistBrukt != no) {
+                sistBrukt = no;
+            }
+        }
+    }
+}
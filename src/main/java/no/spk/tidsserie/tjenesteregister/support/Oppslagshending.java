@@ -0,0 +1,27 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("no.spk.tidsserie.tjenesteregister.Lookup")
+@Label("Service Lookup")
+@Description("Oppslag av tenester under ei tenestetype utan filter")
+final class Oppslagshending extends Tjenesteregisterhending {
+    private static final Oppslagshending TYPE = new Oppslagshending();
+
+    /**
+     * Opprettar og startar ei ny hending dersom hendinga er slått på, slik at oppslag ikkje allokerer noko når
+     * hendinga er slått av.
+     *
+     * @return den starta hendinga, eller {@code null} dersom hendinga er slått av
+     */
+    static Oppslagshending start() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+        final Oppslagshending hending = new Oppslagshending();
+        hending.begin();
+        return hending;
+    }
+}
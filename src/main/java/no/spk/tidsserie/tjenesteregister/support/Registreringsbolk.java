@@ -0,0 +1,34 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import no.spk.tidsserie.tjenesteregister.RegistrationBatch;
+import no.spk.tidsserie.tjenesteregister.ServiceRegistration;
+
+final class Registreringsbolk implements RegistrationBatch {
+    private final List<ServiceEntry<?>> entries = new ArrayList<>();
+
+    private final SimpleServiceRegistry parent;
+
+    private boolean avslutta;
+
+    Registreringsbolk(final SimpleServiceRegistry parent) {
+        this.parent = parent;
+    }
+
+    @Override
+    public <T> ServiceRegistration<T> register(final Class<T> tjenestetype, final T tjeneste, final String... egenskapar) {
+        if (avslutta) {
+            throw new IllegalStateException("bolken er allereie publisert, nye tenester må registrerast i ein ny bolk");
+        }
+        final ServiceEntry<T> entry = parent.newEntry(tjenestetype, tjeneste, egenskapar);
+        entries.add(entry);
+        return entry;
+    }
+
+    List<ServiceEntry<?>> avslutt() {
+        avslutta = true;
+        return List.copyOf(entries);
+    }
+}
@@ -0,0 +1,31 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import java.util.List;
+
+import no.spk.tidsserie.tjenesteregister.RegistrationGroup;
+import no.spk.tidsserie.tjenesteregister.ServiceRegistration;
+
+final class Registreringsgruppe implements RegistrationGroup {
+    private final SimpleServiceRegistry parent;
+    private final List<ServiceEntry<?>> entries;
+
+    Registreringsgruppe(final SimpleServiceRegistry parent, final List<ServiceEntry<?>> entries) {
+        this.parent = parent;
+        this.entries = entries;
+    }
+
+    @Override
+    public List<ServiceRegistration<?>> getRegistrations() {
+        return List.copyOf(entries);
+    }
+
+    @Override
+    public void unregisterAll() {
+        parent.remove(entries);
+    }
+
+    @Override
+    public String toString() {
+        return "registreringsgruppe med " + entries.size() + " tenester";
+    }
+}
@@ -0,0 +1,11 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("no.spk.tidsserie.tjenesteregister.Register")
+@Label("Service Registration")
+@Description("Tenester vart registrert under ei tenestetype, éin gong per tenestetype i kvar registrering eller bolk")
+final class Registreringshending extends Tjenesteregisterhending {
+}
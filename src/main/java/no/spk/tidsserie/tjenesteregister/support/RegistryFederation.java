@@ -0,0 +1,455 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toSet;
+import static no.spk.tidsserie.tjenesteregister.Constants.SERVICE_NODE;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import no.spk.tidsserie.tjenesteregister.RegistrationBatch;
+import no.spk.tidsserie.tjenesteregister.ServiceFilter;
+import no.spk.tidsserie.tjenesteregister.ServiceListener;
+
+/**
+ * Replikerer metadata om tenester mellom tenesteregistera til fleire nodar via ein {@link FederationTransport}.
+ * <br>
+ * Tenester under tenestetypar som blir {@link #exportType(Class, String...) eksportert} blir sendt til dei andre
+ * nodane som {@link FederatedRegistration metadata}, med tenestetype, egenskapar, ranking og noden som eig tenesta.
+ * Nodar som {@link #importType(Class, Function) importerer} tenestetypen registrerer ein lokal proxy for kvar av dei
+ * i sitt eige register, med egenskapen {@link no.spk.tidsserie.tjenesteregister.Constants#SERVICE_NODE} i tillegg.
+ * Oppslag går dermed alltid mot det lokale registeret og involverer aldri transporten.
+ * <br>
+ * Endringar blir sendt som deltaer. Registreringar og avregistreringar blir samla opp og sendt i éi oppdatering ved
+ * neste {@link #flush()}, og ei teneste som blir registrert og avregistrert mellom to flushar blir aldri sendt. Når
+ * føderasjonen startar, og når ein ny node dukkar opp, blir i staden alle tenestene noden eksporterer sendt samla.
+ * Alle importerte tenester frå ein node blir registrert og avregistrert i bolkar, slik at lyttarar og trackerar
+ * blir oppdatert éin gong per oppdatering.
+ * <br>
+ * Deltaer frå ein node blir berre brukt dersom løpenummeret følgjer direkte etter den førre oppdateringa frå noden.
+ * Ved hol i løpenummera, eller lågare løpenummer enn sist, blir deltaene frå noden forkasta fram til eit nytt
+ * {@link FederationUpdate.Type#SNAPSHOT snapshot} kjem, og noden ber om nye snapshot via ei
+ * {@link FederationUpdate.Type#RESYNC oppdatering} ved neste flush. Eit lågare løpenummer tyder på at noden har
+ * starta på nytt under samme id utan å forlate føderasjonen, og tenestene frå den førre instansen blir då fjerna med
+ * ein gong. Snapshot blir alltid brukt, uavhengig av løpenummeret.
+ * <br>
+ * Føderasjonen må konfigurerast før den blir {@link #start() starta}, og bør {@link #close() lukkast} når noden
+ * stoppar slik at dei andre nodane fjernar tenestene frå den.
+ *
+ * @see LoopbackTransport
+ * @since 3.1.0
+ */
+public final class RegistryFederation implements AutoCloseable {
+    private final SimpleServiceRegistry registry;
+
+    private final FederationTransport transport;
+
+    private final String node;
+
+    private final Map<Class<?>, ServiceFilter> eksportar = new LinkedHashMap<>();
+
+    private final Map<String, Import<?>> importar = new HashMap<>();
+
+    private final List<ServiceListener<?>> lyttarar = new ArrayList<>();
+
+    private final AtomicLong idar = new AtomicLong();
+
+    /**
+     * Vernar all tilstand under, blir aldri halden medan oppdateringar blir sendt.
+     */
+    private final Object tilstand = new Object();
+
+    /**
+     * Held medan oppdateringar blir sendt, slik at dei blir sendt i samme rekkefølge som løpenummera.
+     */
+    private final Object utsending = new Object();
+
+    private final Map<ServiceEntry<?>, FederatedRegistration> eksporterte = new LinkedHashMap<>();
+
+    private final Map<String, FederatedRegistration> nye = new LinkedHashMap<>();
+
+    private final Set<String> fjerna = new LinkedHashSet<>();
+
+    private final Map<String, Map<String, ServiceEntry<?>>> importerte = new HashMap<>();
+
+    private final Set<ServiceEntry<?>> importerteEntries = new HashSet<>();
+
+    private final Map<String, Long> sistMottekne = new HashMap<>();
+
+    /**
+     * Nodar som har sendt deltaer i feil rekkefølge, deltaer frå dei blir forkasta fram til neste snapshot.
+     */
+    private final Set<String> ventarPaaSnapshot = new HashSet<>();
+
+    private boolean fullSynkronisering;
+
+    private boolean beOmSnapshot;
+
+    private long sekvens;
+
+    private FederationTransport.Subscription abonnement;
+
+    private boolean lukka;
+
+    /**
+     * Opprettar ein føderasjon for {@code registry}, som identifiserer seg som {@code node} overfor dei andre nodane.
+     *
+     * @param registry  registeret som tenester blir eksportert frå og importert til
+     * @param transport transporten oppdateringane blir sendt og teke imot via
+     * @param node      identifiserer denne noden, må vere unik i føderasjonen
+     */
+    public RegistryFederation(final SimpleServiceRegistry registry, final FederationTransport transport,
+                              final String node) {
+        this.registry = requireNonNull(registry, "registry er påkrevd, men manglar");
+        this.transport = requireNonNull(transport, "transport er påkrevd, men manglar");
+        this.node = requireNonNull(node, "node er påkrevd, men manglar");
+    }
+
+    /**
+     * @return identifiserer denne noden i føderasjonen
+     */
+    public String node() {
+        return node;
+    }
+
+    /**
+     * Eksporterer alle lokale tenester under tenestetypen som matchar {@code filter} til dei andre nodane.
+     * <br>
+     * Tenester som sjølv er importert frå andre nodar blir aldri eksportert vidare.
+     *
+     * @param <T>          tenestetypen
+     * @param tjenestetype tenestetypen som skal eksporterast
+     * @param filter       egenskapar tenestene må ha for å bli eksportert
+     * @return denne føderasjonen
+     * @throws no.spk.tidsserie.tjenesteregister.UgyldigSyntaxException dersom filteret ikkje er gyldig
+     * @throws IllegalStateException                                    dersom føderasjonen allereie er starta
+     */
+    public <T> RegistryFederation exportType(final Class<T> tjenestetype, final String... filter) {
+        requireNonNull(tjenestetype, "tjenestetype er påkrevd, men manglar");
+        synchronized (tilstand) {
+            ikkjeStarta();
+            eksportar.put(tjenestetype, registry.compileFilter(filter));
+        }
+        return this;
+    }
+
+    /**
+     * Importerer tenester under tenestetypen frå dei andre nodane.
+     * <br>
+     * Kvar importerte teneste blir registrert i det lokale registeret med proxyen {@code proxies} opprettar frå
+     * metadataa til tenesta, typisk ein klient som kallar tenesta på noden som eig den, eller ein lokal fabrikk.
+     * Proxyen blir oppretta når oppdateringa blir teken imot og bør derfor vere billig å opprette.
+     *
+     * @param <T>          tenestetypen
+     * @param tjenestetype tenestetypen som skal importerast, identifisert via det fulle klassenavnet
+     * @param proxies      opprettar den lokale proxyen for ei importert teneste
+     * @return denne føderasjonen
+     * @throws IllegalStateException dersom føderasjonen allereie er starta
+     */
+    public <T> RegistryFederation importType(final Class<T> tjenestetype,
+                                             final Function<? super FederatedRegistration, ? extends T> proxies) {
+        requireNonNull(tjenestetype, "tjenestetype er påkrevd, men manglar");
+        requireNonNull(proxies, "proxies er påkrevd, men manglar");
+        synchronized (tilstand) {
+            ikkjeStarta();
+            importar.put(tjenestetype.getName(), new Import<>(tjenestetype, proxies));
+        }
+        return this;
+    }
+
+    /**
+     * Startar føderasjonen og sender alle tenestene noden eksporterer til dei andre nodane.
+     *
+     * @throws IllegalStateException dersom føderasjonen allereie er starta
+     */
+    public void start() {
+        synchronized (tilstand) {
+            ikkjeStarta();
+            eksportar.forEach(this::lytt);
+            eksportar.forEach((type, filter) -> registry
+                    .getServiceReferences(type, filter)
+                    .forEach(reference -> eksporter((ServiceEntry<?>) reference))
+            );
+            fullSynkronisering = true;
+            abonnement = transport.subscribe(this::motta);
+        }
+        flush();
+    }
+
+    /**
+     * Sender alle endringar sidan førre flush til dei andre nodane, samla i éi oppdatering.
+     * <br>
+     * Dersom ein ny node har dukka opp, eller ein annan node har bede om det, sidan førre flush blir alle tenestene
+     * noden eksporterer sendt. Dersom noden har teke imot deltaer i feil rekkefølge blir dei andre nodane i tillegg
+     * bedne om å sende nye snapshot. Det blir ikkje sendt noko dersom det ikkje har vore nokon endringar.
+     * <br>
+     * Endringar blir fanga opp via lyttarar på registeret, med ein asynkron {@link ServiceEventDispatcher} blir
+     * endringane dermed først med i flushen etter at hendingane er levert.
+     */
+    public void flush() {
+        synchronized (utsending) {
+            final List<FederationUpdate> updates = new ArrayList<>(2);
+            synchronized (tilstand) {
+                if (abonnement == null || lukka) {
+                    return;
+                }
+                if (beOmSnapshot) {
+                    updates.add(oppdatering(FederationUpdate.Type.RESYNC, List.of(), List.of()));
+                    beOmSnapshot = false;
+                }
+                if (fullSynkronisering) {
+                    updates.add(oppdatering(FederationUpdate.Type.SNAPSHOT, List.copyOf(eksporterte.values()), List.of()));
+                } else if (!nye.isEmpty() || !fjerna.isEmpty()) {
+                    updates.add(oppdatering(FederationUpdate.Type.DELTA, List.copyOf(nye.values()), List.copyOf(fjerna)));
+                }
+                fullSynkronisering = false;
+                nye.clear();
+                fjerna.clear();
+            }
+            updates.forEach(transport::publish);
+        }
+    }
+
+    /**
+     * Stoppar føderasjonen, avregistrerer alle importerte tenester og ber dei andre nodane fjerne alle tenestene frå
+     * denne noden.
+     */
+    @Override
+    public void close() {
+        synchronized (utsending) {
+            final FederationUpdate update;
+            synchronized (tilstand) {
+                if (abonnement == null || lukka) {
+                    lukka = true;
+                    return;
+                }
+                lukka = true;
+                abonnement.close();
+                lyttarar.forEach(registry::removeServiceListener);
+                final List<ServiceEntry<?>> alle = new ArrayList<>(importerteEntries);
+                importerte.clear();
+                importerteEntries.clear();
+                registry.remove(alle);
+                update = oppdatering(FederationUpdate.Type.LEAVE, List.of(), List.of());
+            }
+            transport.publish(update);
+        }
+    }
+
+    private FederationUpdate oppdatering(final FederationUpdate.Type type, final List<FederatedRegistration> registered,
+                                         final List<String> unregistered) {
+        return new FederationUpdate(type, node, ++sekvens, registered, unregistered);
+    }
+
+    /**
+     * Hendingar blir levert etter at registeret har sleppt skrivelåsen, slik at hendingar frå samtidige skrivingar kan
+     * kome i ei anna rekkefølge enn skrivingane. Lyttaren ser derfor berre på hendinga som eit teikn på at tenesta er
+     * endra, og eksporterer tilstanden tenesta har i registeret når hendinga blir handtert.
+     */
+    private <T> void lytt(final Class<T> tjenestetype, final ServiceFilter filter) {
+        final ServiceListener<T> lyttar = event -> {
+            final ServiceEntry<?> gjeldande = ((ServiceEntry<?>) event.getReference()).gjeldande();
+            synchronized (tilstand) {
+                if (lukka) {
+                    return;
+                }
+                if (!registry.erGjeldande(gjeldande) || !filter.matches(gjeldande)) {
+                    avregistrer(gjeldande);
+                } else {
+                    eksporter(gjeldande);
+                }
+            }
+        };
+        registry.addServiceListener(tjenestetype, filter, lyttar);
+        lyttarar.add(lyttar);
+    }
+
+    /**
+     * Eksporterer tenesta, eller dei nye egenskapane til tenesta dersom den allereie er eksportert. Nye egenskapar
+     * blir sendt som ei ny registrering med samme id.
+     */
+    private void eksporter(final ServiceEntry<?> entry) {
+        final ServiceEntry<?> registrering = entry.registrering();
+        if (importerteEntries.contains(registrering)) {
+            return;
+        }
+        final FederatedRegistration eksportert = eksporterte.get(registrering);
+        if (eksportert != null && eksportert.properties().equals(entry.egenskapar())) {
+            return;
+        }
+        final FederatedRegistration ny = new FederatedRegistration(
+                eksportert != null ? eksportert.id() : node + "/" + idar.incrementAndGet(),
+                node,
+                entry.tjenestetype().getName(),
+                entry.egenskapar()
+        );
+        eksporterte.put(registrering, ny);
+        nye.put(ny.id(), ny);
+    }
+
+    private void avregistrer(final ServiceEntry<?> entry) {
+        final FederatedRegistration registrering = eksporterte.remove(entry.registrering());
+        if (registrering != null && nye.remove(registrering.id()) == null) {
+            fjerna.add(registrering.id());
+        }
+    }
+
+    private void motta(final FederationUpdate update) {
+        if (update.node().equals(node)) {
+            return;
+        }
+        synchronized (tilstand) {
+            if (lukka) {
+                return;
+            }
+            final String fra = update.node();
+            final Long sist = sistMottekne.get(fra);
+            switch (update.type()) {
+                case SNAPSHOT -> {
+                    if (sist == null || update.sequence() <= sist) {
+                        // Ny node, eller noden har starta på nytt utan å forlate føderasjonen, og kjenner ikkje
+                        // tenestene våre
+                        fullSynkronisering = true;
+                    }
+                    ventarPaaSnapshot.remove(fra);
+                    sistMottekne.put(fra, update.sequence());
+                    oppdater(update, importerte.computeIfAbsent(fra, n -> new HashMap<>()));
+                }
+                case LEAVE -> {
+                    ventarPaaSnapshot.remove(fra);
+                    sistMottekne.remove(fra);
+                    oppdater(update, importerte.computeIfAbsent(fra, n -> new HashMap<>()));
+                }
+                case DELTA, RESYNC -> {
+                    if (update.type() == FederationUpdate.Type.RESYNC) {
+                        fullSynkronisering = true;
+                    }
+                    if (ventarPaaSnapshot.contains(fra)) {
+                        return;
+                    }
+                    if (sist == null || update.sequence() != sist + 1) {
+                        utAvRekkefoelge(fra, sist != null && update.sequence() <= sist);
+                        return;
+                    }
+                    sistMottekne.put(fra, update.sequence());
+                    if (update.type() == FederationUpdate.Type.DELTA) {
+                        oppdater(update, importerte.computeIfAbsent(fra, n -> new HashMap<>()));
+                    }
+                }
+            }
+            importerte.values().removeIf(Map::isEmpty);
+        }
+    }
+
+    /**
+     * Forkastar deltaene frå noden fram til neste snapshot, og ber om nye snapshot ved neste flush. Dersom noden har
+     * starta på nytt blir tenestene frå den førre instansen av noden fjerna med ein gong.
+     */
+    private void utAvRekkefoelge(final String fra, final boolean omstart) {
+        ventarPaaSnapshot.add(fra);
+        beOmSnapshot = true;
+        if (omstart) {
+            // Den nye instansen av noden kjenner ikkje tenestene våre, snapshotet den sender skal derfor besvarast
+            sistMottekne.remove(fra);
+            final Map<String, ServiceEntry<?>> fraNode = importerte.remove(fra);
+            if (fraNode != null && !fraNode.isEmpty()) {
+                final List<ServiceEntry<?>> gamle = new ArrayList<>(fraNode.values());
+                gamle.forEach(importerteEntries::remove);
+                registry.remove(gamle);
+            }
+        }
+    }
+
+    private void oppdater(final FederationUpdate update, final Map<String, ServiceEntry<?>> fraNode) {
+        final List<ServiceEntry<?>> gamle = new ArrayList<>();
+        if (update.type() == FederationUpdate.Type.DELTA) {
+            update.unregistered().forEach(id -> {
+                final ServiceEntry<?> entry = fraNode.remove(id);
+                if (entry != null) {
+                    gamle.add(entry);
+                }
+            });
+        } else {
+            final Set<String> gjeldande = update.registered().stream().map(FederatedRegistration::id).collect(toSet());
+            fraNode.entrySet().removeIf(e -> !gjeldande.contains(e.getKey()) && gamle.add(e.getValue()));
+        }
+
+        update.registered().forEach(r -> {
+            final ServiceEntry<?> importert = fraNode.get(r.id());
+            if (importert != null) {
+                Import.endre(importert, r);
+            }
+        });
+        final List<FederatedRegistration> tilImport = update
+                .registered()
+                .stream()
+                .filter(r -> !fraNode.containsKey(r.id()))
+                .filter(r -> importar.containsKey(r.serviceType()))
+                .toList();
+        if (!tilImport.isEmpty()) {
+            final Map<String, ServiceEntry<?>> importert = new LinkedHashMap<>();
+            try {
+                registry.batch(bolk -> tilImport.forEach(r -> {
+                    final ServiceEntry<?> entry = importar.get(r.serviceType()).registrer(bolk, r);
+                    importerteEntries.add(entry);
+                    importert.put(r.id(), entry);
+                }));
+            } catch (final RuntimeException e) {
+                importert.values().forEach(importerteEntries::remove);
+                throw e;
+            }
+            fraNode.putAll(importert);
+        }
+        if (!gamle.isEmpty()) {
+            gamle.forEach(importerteEntries::remove);
+            registry.remove(gamle);
+        }
+    }
+
+    private void ikkjeStarta() {
+        if (abonnement != null || lukka) {
+            throw new IllegalStateException("føderasjonen for node " + node + " er allereie starta");
+        }
+    }
+
+    private record Import<T>(Class<T> tjenestetype, Function<? super FederatedRegistration, ? extends T> proxies) {
+        ServiceEntry<T> registrer(final RegistrationBatch bolk, final FederatedRegistration registrering) {
+            return (ServiceEntry<T>) bolk.register(
+                    tjenestetype,
+                    proxies.apply(registrering),
+                    egenskapar(registrering)
+            );
+        }
+
+        /**
+         * Oppdaterer egenskapane til ei importert teneste dersom dei har endra seg på noden som eig tenesta.
+         */
+        static void endre(final ServiceEntry<?> importert, final FederatedRegistration registrering) {
+            if (!medNode(registrering).equals(importert.gjeldande().egenskapar())) {
+                importert.setProperties(egenskapar(registrering));
+            }
+        }
+
+        private static String[] egenskapar(final FederatedRegistration registrering) {
+            return medNode(registrering)
+                    .entrySet()
+                    .stream()
+                    .map(e -> e.getKey() + "=" + e.getValue())
+                    .toArray(String[]::new);
+        }
+
+        private static Map<String, String> medNode(final FederatedRegistration registrering) {
+            final Map<String, String> egenskapar = new LinkedHashMap<>(registrering.properties());
+            egenskapar.put(SERVICE_NODE, registrering.node());
+            return egenskapar;
+        }
+    }
+}
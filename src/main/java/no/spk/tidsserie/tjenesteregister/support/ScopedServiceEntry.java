@@ -0,0 +1,54 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+import no.spk.tidsserie.tjenesteregister.ServiceScope;
+
+/**
+ * Ei teneste der kvar tråd eller kvart oppslag får sin eigen instans, avhengig av {@link ServiceScope scopet}.
+ * <br>
+ * For {@link ServiceScope#PER_THREAD} blir instansane halde i ein {@link ThreadLocal} som høyrer til registreringa,
+ * slik at oppslag aldri treng å synkronisere mot andre trådar og slik at instansen blir frigjort saman med tråden.
+ * For {@link ServiceScope#PROTOTYPE} blir fabrikken kalla for kvart oppslag.
+ */
+final class ScopedServiceEntry<T> extends ServiceEntry<T> {
+    private final Supplier<? extends T> fabrikk;
+
+    private final ServiceScope scope;
+
+    private final ThreadLocal<T> pertraad;
+
+    ScopedServiceEntry(final SimpleServiceRegistry parent, final Class<T> tjenestetype, final ServiceScope scope,
+                       final Supplier<? extends T> fabrikk, final Map<String, String> egenskapar, final long sekvens) {
+        super(parent, tjenestetype, null, egenskapar, sekvens);
+        this.fabrikk = fabrikk;
+        this.scope = scope;
+        this.pertraad = scope == ServiceScope.PER_THREAD ? ThreadLocal.withInitial(this::opprett) : null;
+    }
+
+    @Override
+    T service() {
+        return pertraad != null ? pertraad.get() : opprett();
+    }
+
+    @Override
+    boolean delbar() {
+        return false;
+    }
+
+    private T opprett() {
+        final T ny = fabrikk.get();
+        if (ny == null) {
+            throw new IllegalStateException(
+                    "fabrikken for " + tjenestetype().getName() + " returnerte null, " + egenskapar()
+            );
+        }
+        return ny;
+    }
+
+    @Override
+    String beskrivTeneste() {
+        return "(" + scope + ")";
+    }
+}
@@ -0,0 +1,349 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import static java.util.Collections.newSetFromMap;
+import static java.util.Collections.unmodifiableList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import no.spk.tidsserie.tjenesteregister.ServiceFilter;
+import no.spk.tidsserie.tjenesteregister.ServiceReference;
+
+/**
+ * Eit uforanderleg øyeblikksbilde av alle tenester registrert under ei bestemt tenestetype.
+ * <br>
+ * Tenestene ligg lagra i ein tabell sortert etter ranking, høgast ranka teneste først. Tenester med lik ranking
+ * ligg i den rekkefølga dei vart registrert. Sidan rankinga blir parsa ein gong ved registrering kostar innsetting og
+ * fjerning eit binærsøk i tillegg til sjølve kopieringa av tabellen.
+ * <br>
+ * Tabellen blir aldri endra etter at øyeblikksbildet er oppretta, endringar resulterer i staden for i eit nytt
+ * øyeblikksbilde. Lesarar kan dermed trygt bruke eit øyeblikksbilde frå fleire trådar samtidig utan nokon form for
+ * låsing.
+ * <br>
+ * Filtrerte oppslag på <code>navn=verdi</code>-filter kan gå via ein {@link Egenskapsindeks invertert indeks} over
+ * egenskapane til tenestene i øyeblikksbildet. Indeksen høyrer til øyeblikksbildet og blir ikkje ført vidare til
+ * øyeblikksbildet ei registrering, endring eller avregistrering resulterer i, sidan posisjonane i posteringane
+ * forskyv seg ved kvar endring. Å byggje indeksen kostar dermed like mykje som å sjekke alle egenskapane til alle
+ * tenestene, og lønner seg berre for øyeblikksbilde som blir slått opp i fleire gongar mellom to endringar.
+ * Indeksen blir derfor først bygd etter {@value #OPPSLAG_FOER_INDEKSERING} filtrerte oppslag mot samme
+ * øyeblikksbilde, fram til då blir alle tenestene sjekka direkte. Under hyppige endringar blir filtrerte oppslag
+ * dermed aldri dyrare enn ein lineær gjennomgang. For små øyeblikksbilde er det alltid billigare å sjekke alle
+ * tenestene direkte, der blir indeksen aldri bygd.
+ */
+final class ServiceEntries {
+    static final ServiceEntries TOM = new ServiceEntries(new ServiceEntry<?>[0]);
+
+    private static final int INDEKSERINGSTERSKEL = 8;
+
+    private static final int OPPSLAG_FOER_INDEKSERING = 4;
+
+    private final ServiceEntry<?>[] entries;
+
+    private volatile Egenskapsindeks indeks;
+
+    /**
+     * Antall filtrerte oppslag som har sjekka alle tenestene direkte. Blir oppdatert utan synkronisering, tapte
+     * oppdateringar gjer berre at indeksen blir bygd nokre oppslag seinare.
+     */
+    private int uindekserteOppslag;
+
+    private volatile List<?> referansar;
+
+    private ServiceEntries(final ServiceEntry<?>[] entries) {
+        this.entries = entries;
+    }
+
+    ServiceEntries plus(final ServiceEntry<?> entry) {
+        final int posisjon = -(binarySearch(entry) + 1);
+        if (posisjon < 0) {
+            return this;
+        }
+        final ServiceEntry<?>[] kopi = new ServiceEntry<?>[entries.length + 1];
+        System.arraycopy(entries, 0, kopi, 0, posisjon);
+        kopi[posisjon] = entry;
+        System.arraycopy(entries, posisjon, kopi, posisjon + 1, entries.length - posisjon);
+        return new ServiceEntries(kopi);
+    }
+
+    ServiceEntries minus(final ServiceEntry<?> entry) {
+        final int posisjon = binarySearch(entry);
+        if (posisjon < 0 || entries[posisjon] != entry) {
+            return this;
+        }
+        if (entries.length == 1) {
+            return TOM;
+        }
+        final ServiceEntry<?>[] kopi = new ServiceEntry<?>[entries.length - 1];
+        System.arraycopy(entries, 0, kopi, 0, posisjon);
+        System.arraycopy(entries, posisjon + 1, kopi, posisjon, entries.length - posisjon - 1);
+        return new ServiceEntries(kopi);
+    }
+
+    /**
+     * Returnerer eit nytt øyeblikksbilde med alle dei nye tenestene lagt til, bygd med éi samanfletting uavhengig av
+     * kor mange tenester som blir lagt til.
+     */
+    ServiceEntries plusAlle(final Collection<? extends ServiceEntry<?>> nye) {
+        if (nye.isEmpty()) {
+            return this;
+        }
+        if (nye.size() == 1) {
+            return plus(nye.iterator().next());
+        }
+        final ServiceEntry<?>[] sorterte = nye.toArray(new ServiceEntry<?>[0]);
+        Arrays.sort(sorterte, ServiceEntry::rangering);
+
+        final ServiceEntry<?>[] kopi = new ServiceEntry<?>[entries.length + sorterte.length];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < entries.length || j < sorterte.length) {
+            if (i < entries.length && j < sorterte.length && entries[i] == sorterte[j]) {
+                j++;
+            } else if (j == sorterte.length || i < entries.length && ServiceEntry.rangering(entries[i], sorterte[j]) < 0) {
+                kopi[k++] = entries[i++];
+            } else {
+                kopi[k++] = sorterte[j++];
+            }
+        }
+        return new ServiceEntries(k == kopi.length ? kopi : Arrays.copyOf(kopi, k));
+    }
+
+    /**
+     * Flettar saman to øyeblikksbilde til eitt, sortert etter ranking.
+     * <br>
+     * Brukt for å slå saman tenestene til eit underregister med tenestene det arvar frå registera over. Sidan
+     * tenestene i dei to øyeblikksbilda aldri er dei samme, blir ingen tenester filtrert bort.
+     */
+    static ServiceEntries flett(final ServiceEntries a, final ServiceEntries b) {
+        if (a.isEmpty()) {
+            return b;
+        }
+        if (b.isEmpty()) {
+            return a;
+        }
+        final ServiceEntry<?>[] kopi = new ServiceEntry<?>[a.entries.length + b.entries.length];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < a.entries.length && j < b.entries.length) {
+            kopi[k++] = ServiceEntry.rangering(a.entries[i], b.entries[j]) < 0 ? a.entries[i++] : b.entries[j++];
+        }
+        System.arraycopy(a.entries, i, kopi, k, a.entries.length - i);
+        System.arraycopy(b.entries, j, kopi, k + a.entries.length - i, b.entries.length - j);
+        return new ServiceEntries(kopi);
+    }
+
+    /**
+     * Returnerer eit nytt øyeblikksbilde utan nokon av dei angitte tenestene, bygd med éin gjennomgang uavhengig av
+     * kor mange tenester som blir fjerna.
+     */
+    ServiceEntries minusAlle(final Collection<? extends ServiceEntry<?>> fjerna) {
+        if (fjerna.size() == 1) {
+            return minus(fjerna.iterator().next());
+        }
+        final Set<ServiceEntry<?>> fjern = newSetFromMap(new IdentityHashMap<>());
+        fjern.addAll(fjerna);
+        final ServiceEntry<?>[] kopi = Arrays.stream(entries)
+                .filter(e -> !fjern.contains(e))
+                .toArray(ServiceEntry<?>[]::new);
+        if (kopi.length == entries.length) {
+            return this;
+        }
+        return kopi.length == 0 ? TOM : new ServiceEntries(kopi);
+    }
+
+    /**
+     * Returnerer eit nytt øyeblikksbilde der {@code gammal} er erstatta med {@code ny} på plassen rankinga til
+     * {@code ny} tilseier. Begge plassane blir funne via binærsøk, og tabellen blir kopiert éin gong der berre
+     * tenestene mellom den gamle og den nye plassen blir forskyvd.
+     */
+    ServiceEntries erstatt(final ServiceEntry<?> gammal, final ServiceEntry<?> ny) {
+        final int fraa = binarySearch(gammal);
+        if (fraa < 0 || entries[fraa] != gammal) {
+            return plus(ny);
+        }
+        final int treff = binarySearch(ny);
+        final int innsetting = -(treff + 1);
+        // Plassen til ny i tabellen utan gammal, ny kan berre samanliknast lik gammal sidan dei deler løpenummer
+        final int til = treff >= 0 ? fraa : innsetting > fraa ? innsetting - 1 : innsetting;
+        final ServiceEntry<?>[] kopi = new ServiceEntry<?>[entries.length];
+        final int foerste = Math.min(fraa, til);
+        final int siste = Math.max(fraa, til);
+        System.arraycopy(entries, 0, kopi, 0, foerste);
+        if (til < fraa) {
+            System.arraycopy(entries, til, kopi, til + 1, fraa - til);
+        } else {
+            System.arraycopy(entries, fraa + 1, kopi, fraa, til - fraa);
+        }
+        kopi[til] = ny;
+        System.arraycopy(entries, siste + 1, kopi, siste + 1, entries.length - siste - 1);
+        return new ServiceEntries(kopi);
+    }
+
+    boolean inneheld(final ServiceEntry<?> entry) {
+        final int posisjon = binarySearch(entry);
+        return posisjon >= 0 && entries[posisjon] == entry;
+    }
+
+    boolean isEmpty() {
+        return entries.length == 0;
+    }
+
+    int size() {
+        return entries.length;
+    }
+
+    /**
+     * Returnerer tenesta på den angitte posisjonen i rankingrekkefølge, posisjon 0 er den høgast ranka tenesta.
+     */
+    @SuppressWarnings("unchecked")
+    <T> ServiceEntry<T> get(final int posisjon) {
+        return (ServiceEntry<T>) entries[posisjon];
+    }
+
+    /**
+     * Returnerer ei uforanderleg liste over referansar til alle tenestene, sortert etter ranking.
+     * <br>
+     * Lista er ein tynn visning over den underliggande tabellen og kostar ingen kopiering. Den blir oppretta ved
+     * første kall og deretter gjenbrukt så lenge øyeblikksbildet lever.
+     */
+    @SuppressWarnings("unchecked")
+    <T> List<ServiceReference<T>> references() {
+        List<?> referansar = this.referansar;
+        if (referansar == null) {
+            referansar = unmodifiableList(Arrays.asList(entries));
+            this.referansar = referansar;
+        }
+        return (List<ServiceReference<T>>) referansar;
+    }
+
+    /**
+     * Returnerer den høgast ranka tenesta som matchar filteret, eller {@code null} dersom ingen tenester matchar.
+     * <br>
+     * Dersom {@code hending} er angitt blir antall tenester som vart sjekka registrert på den.
+     */
+    <T> ServiceEntry<T> finnFoerste(final ServiceFilter filter, final Tjenesteregisterhending hending) {
+        final int[] kandidatar = kandidatar(filter);
+        final int antall = kandidatar != null ? kandidatar.length : entries.length;
+        for (int i = 0; i < antall; i++) {
+            final ServiceEntry<T> entry = get(kandidatar != null ? kandidatar[i] : i);
+            if (filter.matches(entry)) {
+                skanna(hending, i + 1);
+                return entry;
+            }
+        }
+        skanna(hending, antall);
+        return null;
+    }
+
+    /**
+     * Returnerer referansar til alle tenestene som matchar filteret, sortert etter ranking.
+     * <br>
+     * Dersom {@code hending} er angitt blir antall tenester som vart sjekka registrert på den.
+     */
+    <T> List<ServiceReference<T>> finn(final ServiceFilter filter, final Tjenesteregisterhending hending) {
+        final int[] kandidatar = kandidatar(filter);
+        final int antall = kandidatar != null ? kandidatar.length : entries.length;
+        final List<ServiceReference<T>> treff = new ArrayList<>();
+        for (int i = 0; i < antall; i++) {
+            final ServiceEntry<T> entry = get(kandidatar != null ? kandidatar[i] : i);
+            if (filter.matches(entry)) {
+                treff.add(entry.getReference());
+            }
+        }
+        skanna(hending, antall);
+        return unmodifiableList(treff);
+    }
+
+    /**
+     * Kallar {@code handling} med tenesteinstansen til kvar teneste som matchar filteret, sortert etter ranking.
+     * <br>
+     * Allokerer ingenting så lenge indeksen er bygd og filteret berre stiller <code>navn=verdi</code>-krav, eller
+     * ikkje brukar indeksen i det heile.
+     */
+    <T> void forEach(final ServiceFilter filter, final Consumer<? super T> handling) {
+        final int[] kandidatar = kandidatar(filter);
+        final int antall = kandidatar != null ? kandidatar.length : entries.length;
+        for (int i = 0; i < antall; i++) {
+            final ServiceEntry<T> entry = get(kandidatar != null ? kandidatar[i] : i);
+            if (filter.matches(entry)) {
+                handling.accept(entry.service());
+            }
+        }
+    }
+
+    /**
+     * Returnerer eit nytt øyeblikksbilde som berre inneheld tenestene som matchar filteret.
+     */
+    ServiceEntries utval(final ServiceFilter filter) {
+        if (EgenskapFilter.ALLE.equals(filter)) {
+            return this;
+        }
+        return new ServiceEntries(
+                this.<Object>finn(filter, null)
+                        .stream()
+                        .map(r -> (ServiceEntry<?>) r)
+                        .toArray(ServiceEntry<?>[]::new)
+        );
+    }
+
+    /**
+     * Byggjer indeksen over egenskapane til tenestene med ein gong, i staden for ved første filtrerte oppslag.
+     */
+    ServiceEntries forberedIndeks() {
+        if (entries.length >= INDEKSERINGSTERSKEL) {
+            indeks();
+        }
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> Stream<ServiceEntry<T>> stream() {
+        return Arrays.stream(entries).map(e -> (ServiceEntry<T>) e);
+    }
+
+    /**
+     * Slår opp posisjonane til tenestene som kan matche filteret via indeksen, eller {@code null} dersom alle
+     * tenestene må sjekkast.
+     */
+    private int[] kandidatar(final ServiceFilter filter) {
+        if (entries.length < INDEKSERINGSTERSKEL || !(filter instanceof IndeksertFilter indeksert)) {
+            return null;
+        }
+        final Egenskapsindeks indeks = this.indeks;
+        if (indeks != null) {
+            return indeksert.kandidatar(indeks);
+        }
+        if (uindekserteOppslag < OPPSLAG_FOER_INDEKSERING) {
+            uindekserteOppslag++;
+            return null;
+        }
+        return indeksert.kandidatar(indeks());
+    }
+
+    private static void skanna(final Tjenesteregisterhending hending, final int antall) {
+        if (hending != null) {
+            hending.candidatesScanned = antall;
+        }
+    }
+
+    private Egenskapsindeks indeks() {
+        Egenskapsindeks indeks = this.indeks;
+        if (indeks == null) {
+            indeks = Egenskapsindeks.bygg(entries);
+            this.indeks = indeks;
+        }
+        return indeks;
+    }
+
+    private int binarySearch(final ServiceEntry<?> entry) {
+        return Arrays.binarySearch(entries, entry, ServiceEntry::rangering);
+    }
+}
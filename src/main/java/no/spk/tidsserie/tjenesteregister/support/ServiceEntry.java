@@ -0,0 +1,221 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import static java.util.Optional.ofNullable;
+import static no.spk.tidsserie.tjenesteregister.Constants.SERVICE_RANKING;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import no.spk.tidsserie.tjenesteregister.ServiceReference;
+import no.spk.tidsserie.tjenesteregister.ServiceRegistration;
+import no.spk.tidsserie.tjenesteregister.UgyldigSyntaxException;
+
+/**
+ * Ei registrert teneste, som både er registreringa til tenestetilbydaren og referansen klientane slår opp.
+ * <br>
+ * Egenskapane og rankinga blir aldri endra etter at tenesta er oppretta, slik at øyeblikksbilda av tenestene kan
+ * delast mellom trådar utan låsing. Når tenestetilbydaren {@link #setProperties(String...) endrar egenskapane} blir
+ * det i staden oppretta ein ny versjon av tenesta som erstattar den gamle i øyeblikksbildet. Alle versjonane deler
+ * registreringa og tenesteinstansen med den første versjonen, som held på den gjeldande versjonen.
+ */
+class ServiceEntry<T> implements ServiceRegistration<T>, ServiceReference<T> {
+    private static final int DEFAULT_RANKING = 0;
+
+    private final Map<String, String> egenskapar;
+    private final SimpleServiceRegistry parent;
+    private final Class<T> tjenestetype;
+    private final T tjeneste;
+    private final int ranking;
+    private final int nivaa;
+    private final long sekvens;
+
+    /**
+     * Den første versjonen av tenesta, som tenestetilbydaren fekk som registrering.
+     */
+    private final ServiceEntry<T> registrering;
+
+    /**
+     * Den gjeldande versjonen av tenesta, kun i bruk på {@link #registrering}.
+     */
+    private volatile ServiceEntry<T> gjeldande;
+
+    /**
+     * Denne versjonen pakka inn i ein {@link Optional}, oppretta ved første oppslag.
+     */
+    private Optional<ServiceReference<T>> somOptional;
+
+    ServiceEntry(final SimpleServiceRegistry parent, final Class<T> tjenestetype, final T tjeneste, final Map<String, String> egenskapar,
+                 final long sekvens) {
+        this.parent = parent;
+        this.tjenestetype = tjenestetype;
+        this.tjeneste = tjeneste;
+        this.sekvens = sekvens;
+        this.nivaa = parent.nivaa();
+
+        this.egenskapar = normaliser(egenskapar);
+        this.ranking = parseRanking(this.egenskapar.get(SERVICE_RANKING));
+        this.registrering = this;
+        this.gjeldande = this;
+    }
+
+    /**
+     * Opprettar ein ny versjon av tenesta med nye egenskapar. Registreringstidspunktet blir behalde, slik at
+     * versjonen held på plassen sin blant tenester med lik ranking.
+     */
+    private ServiceEntry(final ServiceEntry<T> forrige, final Map<String, String> egenskapar) {
+        this.parent = forrige.parent;
+        this.tjenestetype = forrige.tjenestetype;
+        this.tjeneste = forrige.tjeneste;
+        this.sekvens = forrige.sekvens;
+        this.nivaa = forrige.nivaa;
+        this.egenskapar = normaliser(egenskapar);
+        this.ranking = parseRanking(this.egenskapar.get(SERVICE_RANKING));
+        this.registrering = forrige.registrering;
+    }
+
+    private static Map<String, String> normaliser(final Map<String, String> egenskapar) {
+        final Map<String, String> kopi = new HashMap<>(egenskapar);
+        kopi.putIfAbsent(SERVICE_RANKING, Integer.toString(DEFAULT_RANKING));
+        return Map.copyOf(kopi);
+    }
+
+    /**
+     * Samanliknar rankinga til dei to tenestene slik at den høgast ranka tenesta kjem først.
+     * <br>
+     * Tenester med lik ranking blir sortert slik at tenester registrert i eit {@link SimpleServiceRegistry#createChild()
+     * underregister} kjem før tenester arva frå registera over, og deretter etter registreringsrekkefølge, den først
+     * registrerte tenesta kjem først. Med {@link WriteConcurrency#STRIPED} gjeld registreringsrekkefølga berre innanfor
+     * kvar tenestetype.
+     */
+    static int rangering(final ServiceEntry<?> a, final ServiceEntry<?> b) {
+        final int rangering = Integer.compare(b.ranking, a.ranking);
+        if (rangering != 0) {
+            return rangering;
+        }
+        final int nivaa = Integer.compare(b.nivaa, a.nivaa);
+        return nivaa != 0 ? nivaa : Long.compare(a.sekvens, b.sekvens);
+    }
+
+    Class<T> tjenestetype() {
+        return tjenestetype;
+    }
+
+    /**
+     * Returnerer tenesteinstansen. Underklasser kan vente med å opprette instansen til den blir bedt om.
+     * <br>
+     * Nye versjonar av tenesta hentar instansen frå registreringa, slik at alle versjonane deler samme instans.
+     */
+    T service() {
+        return registrering == this ? tjeneste : registrering.service();
+    }
+
+    /**
+     * Returnerer om instansen frå {@link #service()} kan delast mellom trådar og gjenbrukast på tvers av oppslag.
+     */
+    boolean delbar() {
+        return registrering == this || registrering.delbar();
+    }
+
+    /**
+     * Returnerer den første versjonen av tenesta, som identifiserer registreringa på tvers av alle versjonane.
+     */
+    ServiceEntry<T> registrering() {
+        return registrering;
+    }
+
+    /**
+     * Returnerer den gjeldande versjonen av tenesta.
+     */
+    ServiceEntry<T> gjeldande() {
+        return registrering.gjeldande;
+    }
+
+    /**
+     * Opprettar ein ny versjon av tenesta med egenskapane.
+     *
+     * @throws UgyldigSyntaxException dersom {@link no.spk.tidsserie.tjenesteregister.Constants#SERVICE_RANKING
+     * rankinga} ikkje er eit heiltall
+     */
+    ServiceEntry<T> medEgenskapar(final Map<String, String> egenskapar) {
+        return new ServiceEntry<>(this, egenskapar);
+    }
+
+    /**
+     * Gjer {@code ny} til den gjeldande versjonen av tenesta. Må kallast med skrivelåsen for tenestetypen.
+     */
+    void erstatt(final ServiceEntry<T> ny) {
+        registrering.gjeldande = ny;
+    }
+
+    /**
+     * Beskriv tenesteinstansen for {@link #toString()}, utan å opprette den.
+     */
+    String beskrivTeneste() {
+        return registrering == this ? String.valueOf(tjeneste) : registrering.beskrivTeneste();
+    }
+
+    private static int parseRanking(final String verdi) {
+        try {
+            return Integer.parseInt(verdi);
+        } catch (final NumberFormatException e) {
+            throw new UgyldigSyntaxException(
+                    SERVICE_RANKING + "=" + verdi
+                            + " er ikkje ein gyldig ranking, "
+                            + "rankinga må vere eit heiltall."
+            );
+        }
+    }
+
+    @Override
+    public ServiceReference<T> getReference() {
+        return gjeldande();
+    }
+
+    /**
+     * Returnerer {@link #getReference()} pakka inn i ein {@link Optional} som blir gjenbrukt på tvers av oppslag,
+     * slik at oppslag ikkje treng å allokere.
+     */
+    Optional<ServiceReference<T>> referanse() {
+        final ServiceEntry<T> versjon = gjeldande();
+        Optional<ServiceReference<T>> referanse = versjon.somOptional;
+        if (referanse == null) {
+            // Optional er uforanderleg, eit kappløp fører i verste fall til at to like instansar blir oppretta
+            referanse = Optional.of(versjon);
+            versjon.somOptional = referanse;
+        }
+        return referanse;
+    }
+
+    @Override
+    public void unregister() {
+        parent.remove(this);
+    }
+
+    @Override
+    public void setProperties(final String... egenskapar) {
+        parent.endre(this, egenskapar);
+    }
+
+    @Override
+    public Optional<String> getProperty(final String name) {
+        return ofNullable(name).map(egenskapar::get);
+    }
+
+    /**
+     * Variant av {@link #getProperty(String)} for bruk ved matching, som returnerer {@code null} i staden for å
+     * allokere ein {@link Optional} når tenesta ikkje har egenskapen.
+     */
+    String property(final String name) {
+        return egenskapar.get(name);
+    }
+
+    Map<String, String> egenskapar() {
+        return egenskapar;
+    }
+
+    @Override
+    public String toString() {
+        return "tjeneste " + beskrivTeneste() + ", egenskapar: " + egenskapar;
+    }
+}
@@ -0,0 +1,57 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import no.spk.tidsserie.tjenesteregister.ServiceEvent;
+import no.spk.tidsserie.tjenesteregister.ServiceListener;
+
+/**
+ * Styrer korleis {@link SimpleServiceRegistry} leverer {@link ServiceEvent hendingar} til
+ * {@link ServiceListener lyttarane} sine.
+ * <br>
+ * Tjenesteregisteret finn ut kva lyttarar som skal varslast medan det held skrivelåsen sin, men kallar først
+ * dispatcheren etter at låsen er sleppt. Lyttarane kan dermed trygt gjere nye oppslag eller registreringar i
+ * tjenesteregisteret.
+ *
+ * @see #synchronous()
+ * @see #batched(Executor)
+ * @since 3.1.0
+ */
+public interface ServiceEventDispatcher {
+    /**
+     * Leverer hendingane til lyttaren.
+     *
+     * @param <T> tjenestetypen lyttaren følgjer med på
+     * @param listener lyttaren som skal varslast
+     * @param events hendingane som skal leverast, i den rekkefølga dei oppstod
+     */
+    <T> void dispatch(ServiceListener<T> listener, List<ServiceEvent<T>> events);
+
+    /**
+     * Returnerer ein dispatcher som leverer hendingane synkront på tråden som gjorde endringa i tjenesteregisteret.
+     *
+     * @return ein synkron dispatcher
+     */
+    static ServiceEventDispatcher synchronous() {
+        return SynchronousEventDispatcher.INSTANS;
+    }
+
+    /**
+     * Returnerer ein dispatcher som samlar opp hendingane og leverer dei i bolkar via {@code executor}.
+     * <br>
+     * Tråden som gjer endringa i tjenesteregisteret legg berre hendingane i ein kø. Alle hendingar som har hopa seg
+     * opp i køen før leveringa startar blir slått saman til éin bolk per lyttar, som blir levert via
+     * {@link ServiceListener#servicesChanged(List)}. Ei registrering av 500 tenester fører dermed til langt færre
+     * kall til kvar lyttar enn 500, og ingen av kalla skjer på tråden som registrerte tenestene.
+     * <br>
+     * Hendingane blir levert i den rekkefølga dei vart lagt i køen, og det er aldri meir enn ei levering i gang om
+     * gongen.
+     *
+     * @param executor executoren som hendingane skal leverast via
+     * @return ein dispatcher som leverer hendingane i bolkar
+     */
+    static ServiceEventDispatcher batched(final Executor executor) {
+        return new BatchingEventDispatcher(executor);
+    }
+}
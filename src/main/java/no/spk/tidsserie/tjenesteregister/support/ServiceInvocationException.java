@@ -0,0 +1,33 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import java.util.List;
+
+import no.spk.tidsserie.tjenesteregister.ServiceReference;
+
+/**
+ * Blir kasta av {@link ServiceInvoker} dersom eitt eller fleire av kalla til tenestene feila.
+ * <br>
+ * Feila frå kvart enkelt kall ligg vedlagt som {@link #getSuppressed() undertrykte} feil, i samme rekkefølge som
+ * {@link #getFailedReferences() referansane} til tenestene som feila.
+ *
+ * @since 3.1.0
+ */
+public class ServiceInvocationException extends RuntimeException {
+    private final static long serialVersionUID = 1;
+
+    private final transient List<ServiceReference<?>> feila;
+
+    public ServiceInvocationException(final String message, final List<? extends ServiceReference<?>> feila) {
+        super(message);
+        this.feila = List.copyOf(feila);
+    }
+
+    /**
+     * Returnerer referansar til tenestene der kallet feila.
+     *
+     * @return referansane til tenestene som feila, i rankingrekkefølge
+     */
+    public List<ServiceReference<?>> getFailedReferences() {
+        return feila;
+    }
+}
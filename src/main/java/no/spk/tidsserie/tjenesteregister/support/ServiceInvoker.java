@@ -0,0 +1,237 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.joining;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import no.spk.tidsserie.tjenesteregister.ServiceFilter;
+import no.spk.tidsserie.tjenesteregister.ServiceReference;
+import no.spk.tidsserie.tjenesteregister.ServiceRegistry;
+
+/**
+ * Kallar alle tenester av ei bestemt tenestetype som matchar eit filter, for eksempel for å varsle alle registrerte
+ * utvidingar om ei hending.
+ * <br>
+ * Tenestene blir slått opp via {@link ServiceRegistry#getServiceReferences(Class, ServiceFilter)} og kalla anten
+ * sekvensielt i rankingrekkefølge, parallelt via ein {@link ForkJoinPool}, eller parallelt på kvar sin virtuelle
+ * tråd. Den siste varianten er mest eigna for tenester som brukar mesteparten av tida si på å vente på I/O, sidan
+ * trege tenester då overlappar i staden for å vente på kvarandre.
+ * <br>
+ * Uavhengig av køyremodus blir alle tenestene kalla sjølv om ei eller fleire av dei feilar. Feila blir samla opp og
+ * kasta samla via {@link ServiceInvocationException} etter at alle kalla er ferdige. {@link Error}-ar blir ikkje
+ * samla opp, men kasta vidare med ein gong. Resultata frå
+ * {@link #collectAll(ServiceRegistry, Class, ServiceFilter, Function)} kjem alltid i rankingrekkefølge.
+ * <br>
+ * Instansar er uforanderlege og trådsikre.
+ *
+ * @since 3.1.0
+ */
+public final class ServiceInvoker {
+    private enum Modus {
+        SEKVENSIELL,
+        PARALLELL
+    }
+
+    private static final Executor VIRTUELLE_TRAADAR = r -> Thread.ofVirtual().name("tjenesteregister-invoker").start(r);
+
+    private final Modus modus;
+    private final Executor executor;
+    private final Duration timeout;
+
+    private ServiceInvoker(final Modus modus, final Executor executor, final Duration timeout) {
+        this.modus = modus;
+        this.executor = executor;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Kallar tenestene ein etter ein i rankingrekkefølge, på tråden som startar kallet.
+     * <br>
+     * Dersom det er angitt ein {@link #withTimeout(Duration) timeout} blir kvart kall i staden for gjort på ein
+     * eigen virtuell tråd, slik at trege kall kan avbrytast. Kalla blir framleis gjort ein etter ein.
+     *
+     * @return ein invoker som kallar tenestene sekvensielt
+     */
+    public static ServiceInvoker sequential() {
+        return new ServiceInvoker(Modus.SEKVENSIELL, VIRTUELLE_TRAADAR, null);
+    }
+
+    /**
+     * Kallar tenestene parallelt via {@link ForkJoinPool#commonPool()}.
+     *
+     * @return ein invoker som kallar tenestene parallelt
+     */
+    public static ServiceInvoker forkJoin() {
+        return forkJoin(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Kallar tenestene parallelt via {@code pool}.
+     *
+     * @param pool trådpoolen som tenestene skal kallast via
+     * @return ein invoker som kallar tenestene parallelt
+     */
+    public static ServiceInvoker forkJoin(final ForkJoinPool pool) {
+        return new ServiceInvoker(Modus.PARALLELL, requireNonNull(pool, "pool er påkrevd, men manglar"), null);
+    }
+
+    /**
+     * Kallar kvar teneste parallelt på sin eigen virtuelle tråd.
+     *
+     * @return ein invoker som kallar tenestene parallelt på virtuelle trådar
+     */
+    public static ServiceInvoker virtualThreads() {
+        return new ServiceInvoker(Modus.PARALLELL, VIRTUELLE_TRAADAR, null);
+    }
+
+    /**
+     * Returnerer ein ny invoker som lar kvart enkelt kall ta maksimalt {@code timeout} før det blir rekna som feila.
+     * <br>
+     * Tida blir målt frå kallet blir sendt til køyring. Kall som går ut på tid blir rapportert som feila med ein
+     * {@link java.util.concurrent.TimeoutException}, men sjølve tenesta blir ikkje avbroten og kan framleis køyre
+     * ferdig i bakgrunnen.
+     *
+     * @param timeout maksimal tid kvart kall kan ta
+     * @return ein ny invoker med den angitte timeouten
+     */
+    public ServiceInvoker withTimeout(final Duration timeout) {
+        requireNonNull(timeout, "timeout er påkrevd, men manglar");
+        if (timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("timeout må vere positiv, var " + timeout);
+        }
+        return new ServiceInvoker(modus, executor, timeout);
+    }
+
+    /**
+     * Kallar {@code action} for alle tenester av typen som matchar filteret.
+     *
+     * @param <T> tenestetypen
+     * @param registry tenesteregisteret tenestene skal slåast opp frå
+     * @param tjenestetype tenestetypen som skal kallast
+     * @param filter filteret tenestene må matche
+     * @param action kallet som skal gjerast mot kvar teneste
+     * @throws ServiceInvocationException dersom eitt eller fleire av kalla feila
+     */
+    public <T> void invokeAll(final ServiceRegistry registry, final Class<T> tjenestetype, final ServiceFilter filter,
+                              final Consumer<? super T> action) {
+        collectAll(registry, tjenestetype, filter, t -> {
+            action.accept(t);
+            return null;
+        });
+    }
+
+    /**
+     * Kallar {@code function} for alle tenester av typen som matchar filteret og returnerer resultata.
+     *
+     * @param <T> tenestetypen
+     * @param <R> resultattypen
+     * @param registry tenesteregisteret tenestene skal slåast opp frå
+     * @param tjenestetype tenestetypen som skal kallast
+     * @param filter filteret tenestene må matche
+     * @param function kallet som skal gjerast mot kvar teneste
+     * @return resultatet frå kvart kall, i rankingrekkefølge
+     * @throws ServiceInvocationException dersom eitt eller fleire av kalla feila
+     */
+    public <T, R> List<R> collectAll(final ServiceRegistry registry, final Class<T> tjenestetype, final ServiceFilter filter,
+                                     final Function<? super T, ? extends R> function) {
+        final List<ServiceReference<T>> referansar = registry.getServiceReferences(tjenestetype, filter);
+        final List<Kall<T, R>> alle = new ArrayList<>(referansar.size());
+        for (final ServiceReference<T> referanse : referansar) {
+            final Kall<T, R> k = new Kall<>(registry, referanse);
+            alle.add(k);
+            if (modus == Modus.PARALLELL) {
+                k.start(function);
+            } else {
+                k.start(function).vent();
+            }
+        }
+        alle.forEach(Kall::vent);
+
+        // Tenester som vart avregistrert før kallet kom i gang blir hoppa over
+        final List<Kall<T, R>> kall = alle.stream().filter(k -> !k.avregistrert).toList();
+        final List<Kall<T, R>> feila = kall.stream().filter(k -> k.feil != null).toList();
+        if (!feila.isEmpty()) {
+            final ServiceInvocationException e = new ServiceInvocationException(
+                    feila.size() + " av " + kall.size() + " kall til tenester av type " + tjenestetype.getName() + " feila:\n"
+                            + feila.stream().map(k -> "\t- " + k.referanse + ": " + k.feil).collect(joining("\n")),
+                    feila.stream().map(k -> k.referanse).toList()
+            );
+            feila.forEach(k -> e.addSuppressed(k.feil));
+            throw e;
+        }
+        return kall.stream().<R>map(k -> k.resultat).toList();
+    }
+
+    private final class Kall<T, R> {
+        private final ServiceRegistry registry;
+        private final ServiceReference<T> referanse;
+
+        private CompletableFuture<R> future;
+        private R resultat;
+        private Throwable feil;
+        private boolean ferdig;
+        private boolean avregistrert;
+
+        Kall(final ServiceRegistry registry, final ServiceReference<T> referanse) {
+            this.registry = registry;
+            this.referanse = referanse;
+        }
+
+        Kall<T, R> start(final Function<? super T, ? extends R> function) {
+            if (modus == Modus.SEKVENSIELL && timeout == null) {
+                try {
+                    future = CompletableFuture.completedFuture(kall(function));
+                } catch (final RuntimeException e) {
+                    future = CompletableFuture.failedFuture(e);
+                }
+                return this;
+            }
+            future = CompletableFuture.supplyAsync(() -> kall(function), executor);
+            if (timeout != null) {
+                future = future.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            }
+            return this;
+        }
+
+        /**
+         * Slår opp tenesteinstansen og kallar den, på tråden som køyrer kallet slik at også dyre oppslag, for
+         * eksempel lat oppretting av tenesta, blir gjort parallelt.
+         */
+        private R kall(final Function<? super T, ? extends R> function) {
+            final Optional<T> tjeneste = registry.getService(referanse);
+            if (tjeneste.isEmpty()) {
+                avregistrert = true;
+                return null;
+            }
+            return function.apply(tjeneste.get());
+        }
+
+        void vent() {
+            if (ferdig) {
+                return;
+            }
+            ferdig = true;
+            try {
+                resultat = future.join();
+            } catch (final CompletionException e) {
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                feil = e.getCause() != null ? e.getCause() : e;
+            } catch (final RuntimeException e) {
+                feil = e;
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Samlar {@link ServiceTypeMetrics} per tenestetype for eit {@link InstrumentedServiceRegistry}.
+ * <br>
+ * Teljarane kan lesast direkte via {@link #forType(Class)} og {@link #snapshot()}, eller publiserast som MBeans via
+ * {@link #exportTo(MBeanServer, String)}. Når teljarane er eksportert blir nye tenestetyper eksportert automatisk
+ * første gang dei blir slått opp eller registrert.
+ *
+ * @since 3.1.0
+ */
+public final class ServiceMetrics {
+    /**
+     * JMX-domenet MBeans for tenesteregisteret blir registrert under.
+     */
+    public static final String JMX_DOMAIN = "no.spk.tidsserie.tjenesteregister";
+
+    /**
+     * Teljarane per tenestetype. Teljarane ligg lagra i sjølve tenestetypen og held berre svakt på den, slik at
+     * teljarane ikkje held tenestetypar frå avregistrerte pluginar i live.
+     */
+    private final ClassValue<ServiceTypeMetrics> pertype = new ClassValue<>() {
+        @Override
+        protected ServiceTypeMetrics computeValue(final Class<?> type) {
+            return new ServiceTypeMetrics(type);
+        }
+    };
+
+    /**
+     * Alle teljarane som har vore i bruk, for {@link #snapshot()} og eksport. Blir rydda for teljarar der
+     * tenestetypen har blitt rydda bort.
+     */
+    private final Set<ServiceTypeMetrics> alle = ConcurrentHashMap.newKeySet();
+
+    private volatile Eksport eksport;
+
+    ServiceMetrics() {
+    }
+
+    ServiceTypeMetrics metrics(final Class<?> tjenestetype) {
+        final ServiceTypeMetrics metrics = pertype.get(tjenestetype);
+        if (!metrics.kjent) {
+            kjenn(metrics);
+        }
+        return metrics;
+    }
+
+    /**
+     * Tar i bruk teljarane første gang tenestetypen blir slått opp eller registrert, og eksporterer dei dersom
+     * teljarane er eksportert. Skjer utanfor {@link ClassValue#computeValue(Class)} sidan eksporten kallar ut til
+     * MBean-serveren.
+     */
+    private synchronized void kjenn(final ServiceTypeMetrics metrics) {
+        if (metrics.kjent) {
+            return;
+        }
+        rydd();
+        alle.add(metrics);
+        metrics.kjent = true;
+        final Eksport e = eksport;
+        if (e != null) {
+            e.registrer(metrics);
+        }
+    }
+
+    /**
+     * Fjernar teljarane, og MBeanane deira, for tenestetypar som har blitt rydda bort.
+     */
+    private synchronized void rydd() {
+        alle.removeIf(metrics -> {
+            if (metrics.tjenestetype() != null) {
+                return false;
+            }
+            final Eksport e = eksport;
+            if (e != null) {
+                e.avregistrer(metrics);
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Hentar teljarane for tenestetypa.
+     *
+     * @param tjenestetype tenestetypa ein ønskjer teljarane for
+     * @return teljarane for tenestetypa, tomme dersom tenestetypa aldri har blitt slått opp eller registrert
+     */
+    public ServiceTypeMetrics forType(final Class<?> tjenestetype) {
+        return metrics(requireNonNull(tjenestetype, "tjenestetype er påkrevd, men manglar"));
+    }
+
+    /**
+     * Hentar teljarane for alle tenestetyper som har blitt slått opp eller registrert.
+     *
+     * @return ei uforanderleg oversikt over teljarane per tenestetype
+     */
+    public Map<Class<?>, ServiceTypeMetrics> snapshot() {
+        rydd();
+        final Map<Class<?>, ServiceTypeMetrics> kopi = new HashMap<>();
+        alle.forEach(metrics -> {
+            final Class<?> type = metrics.tjenestetype();
+            if (type != null) {
+                kopi.put(type, metrics);
+            }
+        });
+        return Map.copyOf(kopi);
+    }
+
+    /**
+     * Registrerer ei MBean per tenestetype i {@code server}.
+     * <br>
+     * MBeanane får namn på forma
+     * {@code no.spk.tidsserie.tjenesteregister:type=ServiceTypeMetrics,registry=<registryName>,name=<tenestetype>}.
+     *
+     * @param server       MBean-serveren teljarane skal eksporterast til
+     * @param registryName namnet som skil dette registeret frå andre register i samme MBean-server
+     * @throws IllegalStateException dersom teljarane allereie er eksportert, eller ei MBean ikkje kan registrerast
+     */
+    public synchronized void exportTo(final MBeanServer server, final String registryName) {
+        requireNonNull(server, "server er påkrevd, men manglar");
+        requireNonNull(registryName, "registryName er påkrevd, men manglar");
+        if (eksport != null) {
+            throw new IllegalStateException("teljarane er allereie eksportert som " + eksport.registryName);
+        }
+        rydd();
+        final Eksport ny = new Eksport(server, registryName);
+        eksport = ny;
+        alle.forEach(ny::registrer);
+    }
+
+    /**
+     * Fjernar alle MBeans som har blitt registrert via {@link #exportTo(MBeanServer, String)}.
+     * <br>
+     * Dersom teljarane ikkje er eksportert blir kallet ignorert.
+     */
+    public synchronized void unexport() {
+        final Eksport gammal = eksport;
+        eksport = null;
+        if (gammal != null) {
+            alle.forEach(gammal::avregistrer);
+        }
+    }
+
+    private static final class Eksport {
+        private final MBeanServer server;
+        private final String registryName;
+
+        private Eksport(final MBeanServer server, final String registryName) {
+            this.server = server;
+            this.registryName = registryName;
+        }
+
+        private void registrer(final ServiceTypeMetrics metrics) {
+            try {
+                server.registerMBean(metrics, navn(metrics));
+            } catch (final InstanceAlreadyExistsException e) {
+                // Ei tenestetype med samme namn frå ein annan klasselastar kan allereie vere eksportert
+            } catch (final JMException e) {
+                throw new IllegalStateException("klarte ikkje å eksportere " + metrics.getServiceType(), e);
+            }
+        }
+
+        private void avregistrer(final ServiceTypeMetrics metrics) {
+            try {
+                server.unregisterMBean(navn(metrics));
+            } catch (final InstanceNotFoundException e) {
+                // Allereie fjerna
+            } catch (final JMException e) {
+                throw new IllegalStateException("klarte ikkje å fjerne " + metrics.getServiceType(), e);
+            }
+        }
+
+        private ObjectName navn(final ServiceTypeMetrics metrics) throws JMException {
+            return new ObjectName(JMX_DOMAIN
+                    + ":type=ServiceTypeMetrics"
+                    + ",registry=" + ObjectName.quote(registryName)
+                    + ",name=" + ObjectName.quote(metrics.getServiceType())
+            );
+        }
+    }
+}
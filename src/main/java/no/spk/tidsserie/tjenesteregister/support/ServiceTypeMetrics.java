@@ -0,0 +1,163 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Teljarar og latenshistogram for oppslag og registreringar under ei bestemt tenestetype.
+ * <br>
+ * Alle teljarane er {@link LongAdder}-baserte slik at oppdateringar frå mange samtidige trådar ikkje blir eit
+ * flaskehals. Avlesing summerer opp alle delteljarane og er dermed dyrare enn oppdatering, men er framleis låsfri.
+ *
+ * @see InstrumentedServiceRegistry
+ * @since 3.1.0
+ */
+public final class ServiceTypeMetrics implements ServiceTypeMetricsMBean {
+    private final WeakReference<Class<?>> tjenestetype;
+    private final String navn;
+    private final String kortnavn;
+
+    /**
+     * Om teljarane er tatt i bruk av {@link ServiceMetrics}, det vil seie lagt til i oversikta og eventuelt
+     * eksportert.
+     */
+    volatile boolean kjent;
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder filteredLookups = new LongAdder();
+    private final LongAdder registrations = new LongAdder();
+    private final LongAdder unregistrations = new LongAdder();
+
+    private final LatencyHistogram lookupLatency = new LatencyHistogram();
+    private final LatencyHistogram filteredLookupLatency = new LatencyHistogram();
+
+    ServiceTypeMetrics(final Class<?> tjenestetype) {
+        this.tjenestetype = new WeakReference<>(tjenestetype);
+        this.navn = tjenestetype.getName();
+        this.kortnavn = tjenestetype.getSimpleName();
+    }
+
+    void lookup(final boolean filtrert, final boolean treff, final long nanos) {
+        lookups.increment();
+        (treff ? hits : misses).increment();
+        lookupLatency.record(nanos);
+        if (filtrert) {
+            filteredLookups.increment();
+            filteredLookupLatency.record(nanos);
+        }
+    }
+
+    void registrert(final int antall) {
+        registrations.add(antall);
+    }
+
+    void avregistrert(final int antall) {
+        unregistrations.add(antall);
+    }
+
+    /**
+     * Teljarane held berre svakt på tenestetypen, slik at dei ikkje held tenestetypar frå avregistrerte pluginar i
+     * live.
+     *
+     * @return tenestetypen teljarane gjeld for, eller {@code null} dersom tenestetypen har blitt rydda bort
+     */
+    public Class<?> tjenestetype() {
+        return tjenestetype.get();
+    }
+
+    /**
+     * @return latenshistogrammet for alle oppslag under tenestetypen
+     */
+    public LatencyHistogram lookupLatency() {
+        return lookupLatency;
+    }
+
+    /**
+     * @return latenshistogrammet for filtrerte oppslag under tenestetypen
+     */
+    public LatencyHistogram filteredLookupLatency() {
+        return filteredLookupLatency;
+    }
+
+    @Override
+    public String getServiceType() {
+        return navn;
+    }
+
+    @Override
+    public long getLookups() {
+        return lookups.sum();
+    }
+
+    @Override
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public long getFilteredLookups() {
+        return filteredLookups.sum();
+    }
+
+    @Override
+    public long getRegistrations() {
+        return registrations.sum();
+    }
+
+    @Override
+    public long getUnregistrations() {
+        return unregistrations.sum();
+    }
+
+    @Override
+    public long getRegisteredServices() {
+        return getRegistrations() - getUnregistrations();
+    }
+
+    @Override
+    public double getLookupLatencyMeanNanos() {
+        return lookupLatency.meanNanos();
+    }
+
+    @Override
+    public long getLookupLatencyP50Nanos() {
+        return lookupLatency.percentileNanos(0.5);
+    }
+
+    @Override
+    public long getLookupLatencyP99Nanos() {
+        return lookupLatency.percentileNanos(0.99);
+    }
+
+    @Override
+    public long getLookupLatencyMaxNanos() {
+        return lookupLatency.maxNanos();
+    }
+
+    @Override
+    public double getFilteredLookupLatencyMeanNanos() {
+        return filteredLookupLatency.meanNanos();
+    }
+
+    @Override
+    public long getFilteredLookupLatencyP99Nanos() {
+        return filteredLookupLatency.percentileNanos(0.99);
+    }
+
+    @Override
+    public String toString() {
+        return kortnavn
+                + ": oppslag=" + getLookups()
+                + ", treff=" + getHits()
+                + ", bom=" + getMisses()
+                + ", filtrerte=" + getFilteredLookups()
+                + ", registrerte=" + getRegisteredServices();
+    }
+}
@@ -0,0 +1,79 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+/**
+ * JMX-grensesnittet for {@link ServiceTypeMetrics}.
+ *
+ * @see ServiceMetrics#exportTo(javax.management.MBeanServer, String)
+ * @since 3.1.0
+ */
+public interface ServiceTypeMetricsMBean {
+    /**
+     * @return det fulle klassenavnet til tenestetypen
+     */
+    String getServiceType();
+
+    /**
+     * @return antall oppslag av tenester under tenestetypen, med og utan filter
+     */
+    long getLookups();
+
+    /**
+     * @return antall oppslag som fann minst ei teneste
+     */
+    long getHits();
+
+    /**
+     * @return antall oppslag som ikkje fann nokon tenester
+     */
+    long getMisses();
+
+    /**
+     * @return antall oppslag som filtrerte tenestene på egenskapar
+     */
+    long getFilteredLookups();
+
+    /**
+     * @return antall tenester som har blitt registrert under tenestetypen
+     */
+    long getRegistrations();
+
+    /**
+     * @return antall tenester som har blitt avregistrert frå tenestetypen
+     */
+    long getUnregistrations();
+
+    /**
+     * @return antall tenester som er registrert under tenestetypen no
+     */
+    long getRegisteredServices();
+
+    /**
+     * @return gjennomsnittleg varigheit for oppslag, i nanosekund
+     */
+    double getLookupLatencyMeanNanos();
+
+    /**
+     * @return estimert median varigheit for oppslag, i nanosekund
+     */
+    long getLookupLatencyP50Nanos();
+
+    /**
+     * @return estimert 99-persentil for varigheita til oppslag, i nanosekund
+     */
+    long getLookupLatencyP99Nanos();
+
+    /**
+     * @return den lengste målte varigheita for eit oppslag, i nanosekund
+     */
+    long getLookupLatencyMaxNanos();
+
+    /**
+     * @return gjennomsnittleg varigheit for filtrerte oppslag, i nanosekund
+     */
+    double getFilteredLookupLatencyMeanNanos();
+
+    /**
+     * @return estimert 99-persentil for varigheita til filtrerte oppslag, i nanosekund
+     */
+    long getFilteredLookupLatencyP99Nanos();
+}
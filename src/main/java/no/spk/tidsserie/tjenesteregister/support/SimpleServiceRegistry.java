@@ -1,55 +1,519 @@
 package no.spk.tidsserie.tjenesteregister.support;
 
 import static java.util.Arrays.asList;
-import static java.util.Optional.of;
+import static java.util.Collections.synchronizedMap;
+import static java.util.Objects.requireNonNull;
 import static java.util.Optional.ofNullable;
-import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
-import static no.spk.tidsserie.tjenesteregister.Constants.SERVICE_RANKING;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Properties;
-import java.util.function.Predicate;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
+import no.spk.tidsserie.tjenesteregister.Constants;
+import no.spk.tidsserie.tjenesteregister.LookupMode;
+import no.spk.tidsserie.tjenesteregister.RegistrationBatch;
+import no.spk.tidsserie.tjenesteregister.RegistrationGroup;
+import no.spk.tidsserie.tjenesteregister.ServiceEvent;
+import no.spk.tidsserie.tjenesteregister.ServiceFilter;
+import no.spk.tidsserie.tjenesteregister.ServiceListener;
 import no.spk.tidsserie.tjenesteregister.ServiceReference;
 import no.spk.tidsserie.tjenesteregister.ServiceRegistration;
 import no.spk.tidsserie.tjenesteregister.ServiceRegistry;
-import no.spk.tidsserie.tjenesteregister.UgyldigSyntaxException;
+import no.spk.tidsserie.tjenesteregister.ServiceScope;
+import no.spk.tidsserie.tjenesteregister.ServiceTracker;
 
+/**
+ * Standardimplementasjonen av {@link ServiceRegistry}.
+ * <br>
+ * Tenestene for kvar tenestetype ligg lagra som eit uforanderleg, ferdig sortert øyeblikksbilde. Ved registrering
+ * og avregistrering blir det bygd eit nytt øyeblikksbilde som erstattar det gamle atomisk. Oppslag les berre det
+ * gjeldande øyeblikksbildet og tar dermed aldri nokon lås, samtidig som dei aldri kan observere ei halvveis
+ * oppdatert liste med tenester.
+ * <br>
+ * Rankinga til kvar teneste blir parsa ein gong ved registrering. Sidan øyeblikksbildet alltid er sortert kan
+ * standardtenesta for ei tenestetype hentast ut direkte frå toppen av øyeblikksbildet utan nokon sortering.
+ * <br>
+ * Skrivingar blir serialisert via ein skrivelås slik at samtidige registreringar under samme tenestetype ikkje
+ * overskriv kvarandre sine endringar. Som standard er skrivelåsen felles for alle tenestetypar, med
+ * {@link WriteConcurrency#STRIPED} blir kvar tenestetype i staden låst for seg. Medan låsen er halden blir og alle {@link ServiceTracker trackerar} for
+ * tenestetypen oppdatert inkrementelt med den nye eller fjerna tenesta, og det blir avgjort kva
+ * {@link ServiceListener lyttarar} som skal varslast. Sjølve varslinga skjer via registeret sin
+ * {@link ServiceEventDispatcher} etter at låsen er sleppt.
+ * <br>
+ * Registreringar, avregistreringar og oppslag blir rapportert som JDK Flight Recorder-hendingar under kategorien
+ * {@code Tjenesteregister} når dei er slått på via innstillingsprofilen
+ * {@code no/spk/tidsserie/tjenesteregister/tjenesteregister.jfc}.
+ * <br>
+ * Via {@link #createChild()} kan ein opprette underregister som ser tenestene til registeret over seg i tillegg til
+ * sine eigne. Underregisteret lagrar berre sine eigne tenester, dei samanslåtte øyeblikksbilda blir bygd ved første
+ * oppslag og deretter gjenbrukt heilt til anten underregisteret eller eit av registera over blir endra.
+ */
 public class SimpleServiceRegistry implements ServiceRegistry {
-    private static final String[] MATCH_ANY = new String[0];
+    /**
+     * Standard maksimalt antall resultat i oppslagsbufferet til eit register.
+     *
+     * @see #SimpleServiceRegistry(ServiceEventDispatcher, int)
+     * @since 3.1.0
+     */
+    public static final int DEFAULT_LOOKUP_CACHE_SIZE = 256;
 
-    private static final int DEFAULT_RANKING = 0;
+    private final Typeslottar services;
 
-    private final Map<Class<?>, List<ServiceEntry<?>>> services = new HashMap<>();
+    private final TypeSlotStorage slotlagring;
+
+    /**
+     * Trackerane per tenestetype. Både tenestetypen og trackerane blir halde svakt, slik at trackerar som klientane
+     * har sleppt utan å lukke ikkje held tenestetypen i live.
+     */
+    private final Map<Class<?>, List<WeakReference<SimpleServiceTracker<?>>>> trackers = synchronizedMap(new WeakHashMap<>());
+
+    private final Map<Class<?>, Lyttarar> lyttarar = new ConcurrentHashMap<>();
+
+    private final WriteConcurrency skrivemodus;
+
+    private final Skrivelaasar skrivelaasar;
+
+    private final ServiceEventDispatcher dispatcher;
+
+    private final SimpleServiceRegistry forelder;
+
+    private final int nivaa;
+
+    private final ConcurrentMap<Class<?>, Samanslaatt> samanslaatte;
+
+    /**
+     * Underregister som har trackerar eller lyttarar og dermed må varslast om endringar i dette registeret.
+     * <br>
+     * Underregistera blir berre halde svakt slik at dei kan kastast utan å bli lukka.
+     */
+    private final List<WeakReference<SimpleServiceRegistry>> barn = new CopyOnWriteArrayList<>();
+
+    private volatile boolean abonnerer;
+
+    private final Oppslagsbuffer oppslagsbuffer;
+
+    private static final Class<?>[] INGEN_TYPAR = new Class<?>[0];
+
+    /**
+     * Alle tenestetypane det er registrert tenester under i dette registeret, per supertype.
+     * <br>
+     * Blir bygd ved første oppslag med {@link LookupMode#ASSIGNABLE} etter at ei tenestetype har fått sine første
+     * tenester eller mista sine siste, slik at registreringar og avregistreringar aldri treng oppdatere noko felles
+     * for alle supertypane. Blir fjerna når ei tenestetype mistar sine siste tenester, slik at tenestetypar utan
+     * tenester ikkje blir halde i live herifrå.
+     */
+    private volatile Typeindeks typeindeks;
+
+    private final ConcurrentMap<Class<?>, Tilordnbare> tilordnbare = new ConcurrentHashMap<>();
+
+    /**
+     * Opprettar eit nytt, tomt tenesteregister som leverer hendingar synkront til lyttarane sine.
+     *
+     * @see ServiceEventDispatcher#synchronous()
+     */
+    public SimpleServiceRegistry() {
+        this(ServiceEventDispatcher.synchronous());
+    }
+
+    /**
+     * Opprettar eit nytt, tomt tenesteregister som leverer hendingar til lyttarane sine via {@code dispatcher}.
+     *
+     * @param dispatcher styrer korleis hendingar blir levert til lyttarane
+     * @since 3.1.0
+     */
+    public SimpleServiceRegistry(final ServiceEventDispatcher dispatcher) {
+        this(dispatcher, DEFAULT_LOOKUP_CACHE_SIZE);
+    }
+
+    /**
+     * Opprettar eit nytt, tomt tenesteregister som leverer hendingar til lyttarane sine via {@code dispatcher} og
+     * bufrar opptil {@code lookupCacheSize} resultat av filtrerte oppslag.
+     * <br>
+     * Resultata blir bufra per tenestetype og kompilert filter, og resultata for ei tenestetype blir forkasta så
+     * snart tenestetypen blir endra. Gjentekne oppslag med samme filter mellom endringar returnerer dermed samme
+     * uforanderlege liste i staden for å byggje ho på nytt. Underregister oppretta via {@link #createChild()} får
+     * kvart sitt buffer med samme storleik.
+     *
+     * @param dispatcher      styrer korleis hendingar blir levert til lyttarane
+     * @param lookupCacheSize maksimalt antall resultat i oppslagsbufferet, 0 slår av bufferet
+     * @throws IllegalArgumentException dersom {@code lookupCacheSize} er negativ
+     * @see #lookupCacheStats()
+     * @since 3.1.0
+     */
+    public SimpleServiceRegistry(final ServiceEventDispatcher dispatcher, final int lookupCacheSize) {
+        this(dispatcher, lookupCacheSize, TypeSlotStorage.MAP);
+    }
+
+    /**
+     * Opprettar eit nytt, tomt tenesteregister som leverer hendingar til lyttarane sine via {@code dispatcher},
+     * bufrar opptil {@code lookupCacheSize} resultat av filtrerte oppslag og finn tenestene for kvar tenestetype via
+     * {@code typeSlotStorage}.
+     * <br>
+     * Underregister oppretta via {@link #createChild()} brukar samme {@link TypeSlotStorage}.
+     *
+     * @param dispatcher      styrer korleis hendingar blir levert til lyttarane
+     * @param lookupCacheSize maksimalt antall resultat i oppslagsbufferet, 0 slår av bufferet
+     * @param typeSlotStorage styrer korleis tenestene for kvar tenestetype blir lagra og slått opp
+     * @throws IllegalArgumentException dersom {@code lookupCacheSize} er negativ
+     * @see #SimpleServiceRegistry(ServiceEventDispatcher, int)
+     * @since 3.1.0
+     */
+    public SimpleServiceRegistry(final ServiceEventDispatcher dispatcher, final int lookupCacheSize,
+                                 final TypeSlotStorage typeSlotStorage) {
+        this(dispatcher, lookupCacheSize, typeSlotStorage, WriteConcurrency.SINGLE_LOCK);
+    }
+
+    /**
+     * Opprettar eit nytt, tomt tenesteregister som leverer hendingar til lyttarane sine via {@code dispatcher},
+     * bufrar opptil {@code lookupCacheSize} resultat av filtrerte oppslag, finn tenestene for kvar tenestetype via
+     * {@code typeSlotStorage} og serialiserer skrivingar etter {@code writeConcurrency}.
+     * <br>
+     * Med {@link WriteConcurrency#STRIPED} kan registreringar og avregistreringar under ulike tenestetypar skje
+     * parallelt. Det passar for register med mykje samtidig registrering og avregistrering frå mange trådar, til
+     * dømes per førespurnad eller per tidsserieperiode. Underregister oppretta via {@link #createChild()} brukar
+     * samme {@link WriteConcurrency}.
+     *
+     * @param dispatcher       styrer korleis hendingar blir levert til lyttarane
+     * @param lookupCacheSize  maksimalt antall resultat i oppslagsbufferet, 0 slår av bufferet
+     * @param typeSlotStorage  styrer korleis tenestene for kvar tenestetype blir lagra og slått opp
+     * @param writeConcurrency styrer kor mykje samtidige skrivingar blokkerer kvarandre
+     * @throws IllegalArgumentException dersom {@code lookupCacheSize} er negativ
+     * @see #SimpleServiceRegistry(ServiceEventDispatcher, int, TypeSlotStorage)
+     * @since 3.1.0
+     */
+    public SimpleServiceRegistry(final ServiceEventDispatcher dispatcher, final int lookupCacheSize,
+                                 final TypeSlotStorage typeSlotStorage, final WriteConcurrency writeConcurrency) {
+        this(
+                requireNonNull(dispatcher, "dispatcher er påkrevd, men manglar"),
+                null,
+                0,
+                new Oppslagsbuffer(lookupCacheSize),
+                requireNonNull(typeSlotStorage, "typeSlotStorage er påkrevd, men manglar"),
+                requireNonNull(writeConcurrency, "writeConcurrency er påkrevd, men manglar")
+        );
+    }
+
+    private SimpleServiceRegistry(final ServiceEventDispatcher dispatcher, final SimpleServiceRegistry forelder, final int nivaa,
+                                  final Oppslagsbuffer oppslagsbuffer, final TypeSlotStorage slotlagring,
+                                  final WriteConcurrency skrivemodus) {
+        this.services = Typeslottar.av(slotlagring);
+        this.slotlagring = slotlagring;
+        this.skrivemodus = skrivemodus;
+        this.skrivelaasar = Skrivelaasar.av(skrivemodus);
+        this.dispatcher = dispatcher;
+        this.forelder = forelder;
+        this.nivaa = nivaa;
+        this.samanslaatte = forelder != null ? new ConcurrentHashMap<>() : null;
+        this.oppslagsbuffer = oppslagsbuffer;
+    }
+
+    /**
+     * Opprettar eit nytt underregister som ser alle tenestene i dette registeret i tillegg til sine eigne.
+     * <br>
+     * Oppslag i underregisteret slår saman tenestene frå begge registera etter {@link Constants#SERVICE_RANKING}.
+     * Ved lik ranking vinn tenesta som er registrert i underregisteret. Tenester som blir registrert i
+     * underregisteret er ikkje synlege i dette registeret.
+     * <br>
+     * Underregisteret er billig å opprette og kaste, det inneheld ingen kopi av tenestene i dette registeret og
+     * treng ikkje lukkast. Trackerar og lyttarar i underregisteret blir og oppdatert ved endringar i dette registeret.
+     * Underregisteret leverer hendingar via samme {@link ServiceEventDispatcher} som dette registeret.
+     *
+     * @return eit nytt, tomt underregister
+     * @since 3.1.0
+     */
+    public SimpleServiceRegistry createChild() {
+        return new SimpleServiceRegistry(
+                dispatcher,
+                this,
+                nivaa + 1,
+                new Oppslagsbuffer(oppslagsbuffer.maksimum()),
+                slotlagring,
+                skrivemodus
+        );
+    }
+
+    /**
+     * Frys innhaldet i registeret til eit uforanderleg, leseoptimalisert register der registrering av nye tenester
+     * feilar.
+     *
+     * @return eit fryst register med alle tenestene som er synlege i dette registeret no
+     * @see #freeze(FrozenServiceRegistry.WriteMode)
+     * @since 3.1.0
+     */
+    public FrozenServiceRegistry freeze() {
+        return freeze(FrozenServiceRegistry.WriteMode.REJECT);
+    }
+
+    /**
+     * Frys innhaldet i registeret til eit uforanderleg, leseoptimalisert register.
+     * <br>
+     * Det fryste registeret inneheld alle tenestene som er synlege i dette registeret på frysetidspunktet, inkludert
+     * tenester arva frå registera over. Seinare endringar i dette registeret blir ikkje synlege i det fryste
+     * registeret.
+     *
+     * @param writeMode styrer kva som skjer ved registrering av nye tenester i det fryste registeret
+     * @return eit fryst register med alle tenestene som er synlege i dette registeret no
+     * @throws NullPointerException dersom {@code writeMode} er {@code null}
+     * @since 3.1.0
+     */
+    public FrozenServiceRegistry freeze(final FrozenServiceRegistry.WriteMode writeMode) {
+        requireNonNull(writeMode, "writeMode er påkrevd, men manglar");
+        final Map<Class<?>, ServiceEntries> tenester = new HashMap<>();
+        skrivelaasar.medAlle(() -> {
+            for (SimpleServiceRegistry r = this; r != null; r = r.forelder) {
+                r.services.typar().forEach(type -> tenester.computeIfAbsent(type, this::entriesFor));
+            }
+        });
+        tenester.values().removeIf(ServiceEntries::isEmpty);
+        final SimpleServiceRegistry grunnlag = new SimpleServiceRegistry(
+                dispatcher,
+                null,
+                nivaa,
+                new Oppslagsbuffer(0),
+                slotlagring,
+                skrivemodus
+        );
+        tenester.forEach((type, entries) -> {
+            grunnlag.services.put(type, entries);
+        });
+        return new FrozenServiceRegistry(grunnlag, tenester, writeMode);
+    }
 
     @Override
     public <T> Optional<ServiceReference<T>> getServiceReference(final Class<T> tjenestetype) {
-        return getServiceReference(tjenestetype, MATCH_ANY);
+        final Oppslagshending hending = Oppslagshending.start();
+        final ServiceEntries entries = entriesFor(tjenestetype);
+        final Optional<ServiceReference<T>> resultat = entries.isEmpty()
+                ? Optional.empty()
+                : entries.<T>get(0).referanse();
+        if (hending != null && hending.shouldCommit()) {
+            hending.serviceType = tjenestetype;
+            hending.candidatesScanned = Math.min(1, entries.size());
+            hending.matches = resultat.isPresent() ? 1 : 0;
+            hending.commit();
+        }
+        return resultat;
     }
 
     @Override
     public <T> Optional<ServiceReference<T>> getServiceReference(final Class<T> tjenestetype, final String... filter) {
-        return getServiceReferences(tjenestetype, filter)
-                .stream()
-                .findFirst();
+        return getServiceReference(tjenestetype, compileFilter(filter));
+    }
+
+    @Override
+    public <T> Optional<ServiceReference<T>> getServiceReference(final Class<T> tjenestetype, final ServiceFilter filter) {
+        if (EgenskapFilter.ALLE.equals(filter)) {
+            return getServiceReference(tjenestetype);
+        }
+        final FiltrertOppslagshending hending = FiltrertOppslagshending.start();
+        final ServiceEntry<T> entry = oppslagsbuffer.finnFoerste(tjenestetype, entriesFor(tjenestetype), filter, hending);
+        if (hending != null && hending.shouldCommit()) {
+            hending.serviceType = tjenestetype;
+            hending.filterCount = Tjenesteregisterhending.antallFilter(filter);
+            hending.matches = entry != null ? 1 : 0;
+            hending.commit();
+        }
+        return entry != null ? entry.referanse() : Optional.empty();
     }
 
     @Override
     public <T> List<ServiceReference<T>> getServiceReferences(final Class<T> tjenestetype) {
-        return getServiceReferences(tjenestetype, MATCH_ANY);
+        final Oppslagshending hending = Oppslagshending.start();
+        final ServiceEntries entries = entriesFor(tjenestetype);
+        if (hending != null && hending.shouldCommit()) {
+            hending.serviceType = tjenestetype;
+            hending.candidatesScanned = entries.size();
+            hending.matches = entries.size();
+            hending.commit();
+        }
+        return entries.references();
     }
 
     @Override
     public <T> List<ServiceReference<T>> getServiceReferences(final Class<T> tjenestetype, final String... filter) {
-        return referencesFor(tjenestetype)
-                .filter(r -> matchAll(r, asList(filter)))
-                .collect(toList());
+        return getServiceReferences(tjenestetype, compileFilter(filter));
+    }
+
+    @Override
+    public <T> List<ServiceReference<T>> getServiceReferences(final Class<T> tjenestetype, final ServiceFilter filter) {
+        if (EgenskapFilter.ALLE.equals(filter)) {
+            return getServiceReferences(tjenestetype);
+        }
+        final FiltrertOppslagshending hending = FiltrertOppslagshending.start();
+        final List<ServiceReference<T>> treff = oppslagsbuffer.finn(tjenestetype, entriesFor(tjenestetype), filter, hending);
+        if (hending != null && hending.shouldCommit()) {
+            hending.serviceType = tjenestetype;
+            hending.filterCount = Tjenesteregisterhending.antallFilter(filter);
+            hending.matches = treff.size();
+            hending.commit();
+        }
+        return treff;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br>
+     * Allokerer ingenting når tenestene under tjenestetypen ikkje har endra seg sidan førre oppslag. Oppslaget blir
+     * ikkje rapportert som JFR-hending.
+     */
+    @Override
+    public <T> T getServiceOrNull(final Class<T> tjenestetype) {
+        final ServiceEntries entries = entriesFor(tjenestetype);
+        return entries.isEmpty() ? null : entries.<T>get(0).service();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br>
+     * Allokerer ingenting når tenestene under tjenestetypen ikkje har endra seg sidan førre oppslag, så lenge
+     * filteret er kompilert på førehand og ikkje er eit samansett filteruttrykk. Oppslaget går utanom
+     * oppslagsbufferet og blir ikkje rapportert som JFR-hending.
+     */
+    @Override
+    public <T> void forEachService(final Class<T> tjenestetype, final ServiceFilter filter, final Consumer<? super T> handling) {
+        requireNonNull(handling, "handling er påkrevd, men manglar");
+        entriesFor(tjenestetype).forEach(filter, handling);
+    }
+
+    @Override
+    public int countServices(final Class<?> tjenestetype) {
+        return entriesFor(tjenestetype).size();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br>
+     * Støttar alle oppslagsmodusar.
+     */
+    @Override
+    public boolean supports(final LookupMode modus) {
+        requireNonNull(modus, "modus er påkrevd, men manglar");
+        return true;
+    }
+
+    @Override
+    public <T> Optional<ServiceReference<T>> getServiceReference(final Class<T> tjenestetype, final LookupMode modus,
+                                                                 final ServiceFilter filter) {
+        requireNonNull(modus, "modus er påkrevd, men manglar");
+        if (modus == LookupMode.EXACT) {
+            return getServiceReference(tjenestetype, filter);
+        }
+        final FiltrertOppslagshending hending = FiltrertOppslagshending.start();
+        final ServiceEntries entries = tilordnbareFor(tjenestetype);
+        final ServiceEntry<T> entry;
+        if (EgenskapFilter.ALLE.equals(filter)) {
+            entry = entries.isEmpty() ? null : entries.get(0);
+        } else {
+            entry = entries.finnFoerste(filter, hending);
+        }
+        if (hending != null && hending.shouldCommit()) {
+            hending.serviceType = tjenestetype;
+            hending.filterCount = Tjenesteregisterhending.antallFilter(filter);
+            hending.matches = entry != null ? 1 : 0;
+            hending.commit();
+        }
+        return entry != null ? entry.referanse() : Optional.empty();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br>
+     * Tenestetypane som kan tilordnast til {@code tjenestetype} blir halde oppdatert ved registrering, og dei
+     * samanslåtte tenestene blir mellomlagra per tjenestetype til nokon av tenestetypane endrar seg. Oppslaget
+     * kostar dermed det samme som eit vanleg oppslag så lenge ingen av tenestetypane endrar seg.
+     */
+    @Override
+    public <T> List<ServiceReference<T>> getServiceReferences(final Class<T> tjenestetype, final LookupMode modus,
+                                                              final ServiceFilter filter) {
+        requireNonNull(modus, "modus er påkrevd, men manglar");
+        if (modus == LookupMode.EXACT) {
+            return getServiceReferences(tjenestetype, filter);
+        }
+        final FiltrertOppslagshending hending = FiltrertOppslagshending.start();
+        final ServiceEntries entries = tilordnbareFor(tjenestetype);
+        final List<ServiceReference<T>> treff = EgenskapFilter.ALLE.equals(filter)
+                ? entries.references()
+                : entries.finn(filter, hending);
+        if (hending != null && hending.shouldCommit()) {
+            hending.serviceType = tjenestetype;
+            hending.filterCount = Tjenesteregisterhending.antallFilter(filter);
+            hending.matches = treff.size();
+            hending.commit();
+        }
+        return treff;
+    }
+
+    @Override
+    public ServiceFilter compileFilter(final String... filter) {
+        if (filter.length == 0) {
+            return EgenskapFilter.ALLE;
+        }
+        return oppslagsbuffer.kompiler(filter, () -> {
+            if (Uttrykksfilter.inneheldUttrykk(filter)) {
+                return Uttrykksfilter.kompiler(filter);
+            }
+            return EgenskapFilter.kompiler(filter);
+        });
+    }
+
+    /**
+     * Hentar statistikk for oppslagsbufferet til registeret.
+     *
+     * @return eit øyeblikksbilde av statistikken for oppslagsbufferet
+     * @see #SimpleServiceRegistry(ServiceEventDispatcher, int)
+     * @since 3.1.0
+     */
+    public LookupCacheStats lookupCacheStats() {
+        return oppslagsbuffer.stats();
+    }
+
+    @Override
+    public <T> ServiceTracker<T> track(final Class<T> tjenestetype, final ServiceFilter filter) {
+        abonner();
+        synchronized (skrivelaasar.laas(tjenestetype)) {
+            final SimpleServiceTracker<T> tracker = new SimpleServiceTracker<>(this, tjenestetype, filter, entriesFor(tjenestetype));
+            trackers.computeIfAbsent(tjenestetype, type -> new ArrayList<>()).add(new WeakReference<>(tracker));
+            return tracker;
+        }
+    }
+
+    @Override
+    public <T> void addServiceListener(final Class<T> tjenestetype, final ServiceFilter filter, final ServiceListener<T> listener) {
+        requireNonNull(filter, "filter er påkrevd, men manglar");
+        requireNonNull(listener, "listener er påkrevd, men manglar");
+        abonner();
+        synchronized (skrivelaasar.laas(tjenestetype)) {
+            lyttarar.computeIfAbsent(tjenestetype, type -> new Lyttarar()).leggTil(filter, listener);
+        }
+    }
+
+    @Override
+    public void removeServiceListener(final ServiceListener<?> listener) {
+        lyttarar.keySet().forEach(tjenestetype -> {
+            synchronized (skrivelaasar.laas(tjenestetype)) {
+                lyttarar.computeIfPresent(tjenestetype, (type, l) -> {
+                    l.fjern(listener);
+                    return l.isEmpty() ? null : l;
+                });
+            }
+        });
     }
 
     @Override
@@ -59,47 +523,108 @@ public class SimpleServiceRegistry implements ServiceRegistry {
 
     @Override
     public <T> ServiceRegistration<T> registerService(final Class<T> tjenestetype, final T tjeneste, final String... egenskapar) {
-        return newEntry(
+        final ServiceEntry<T> entry = newEntry(tjenestetype, tjeneste, egenskapar);
+        publiser(List.of(entry));
+        return entry;
+    }
+
+    @Override
+    public <T> ServiceRegistration<T> registerFactory(final Class<T> tjenestetype, final Supplier<? extends T> fabrikk,
+                                                      final String... egenskapar) {
+        requireNonNull(fabrikk, "fabrikk er påkrevd, men manglar");
+        final ServiceEntry<T> entry = new LatServiceEntry<>(
+                this,
                 tjenestetype,
-                tjeneste,
-                konverter(asList(egenskapar))
-                        .reduce(
-                                Egenskapar.TOM,
-                                Egenskapar::plus,
-                                Egenskapar::kombiner
-                        )
-                        .toProperties()
-        )
-                .registerWith(
-                        services.computeIfAbsent(
-                                tjenestetype,
-                                type -> new ArrayList<>()
-                        )
-                );
+                fabrikk,
+                egenskapar(egenskapar),
+                skrivelaasar.nesteSekvens(tjenestetype)
+        );
+        publiser(List.of(entry));
+        return entry;
     }
 
-    private <T> boolean matchAll(final ServiceReference<T> reference, final List<String> filters) {
-        final Predicate<String> erGyldig = Egenskap::erGyldig;
-        final List<String> ugyldig = filters
-                .stream()
-                .filter(erGyldig.negate())
-                .collect(toList());
-        if (!ugyldig.isEmpty()) {
-            throw new UgyldigSyntaxException(
-                    ugyldig
-                            + " filter er ikkje syntaktisk gyldige, "
-                            + "kvart filter må vere på formatet egenskap=verdi.\n"
-                            + "Ugyldige filter:\n"
-                            + ugyldig
-                            .stream()
-                            .map(filter -> "\t- " + filter)
-                            .collect(joining("\n"))
-            );
-        }
-
-        return konverter(filters)
-                .map(filter -> filter.match(reference))
-                .reduce(true, (a, b) -> a && b);
+    @Override
+    public <T> ServiceRegistration<T> registerFactory(final Class<T> tjenestetype, final ServiceScope scope,
+                                                      final Supplier<? extends T> fabrikk, final String... egenskapar) {
+        requireNonNull(scope, "scope er påkrevd, men manglar");
+        requireNonNull(fabrikk, "fabrikk er påkrevd, men manglar");
+        final String[] medScope = Arrays.copyOf(egenskapar, egenskapar.length + 1);
+        medScope[egenskapar.length] = Constants.SERVICE_SCOPE + "=" + scope.propertyValue();
+        final ServiceEntry<T> entry = scope == ServiceScope.SINGLETON
+                ? new LatServiceEntry<>(this, tjenestetype, fabrikk, egenskapar(medScope), skrivelaasar.nesteSekvens(tjenestetype))
+                : new ScopedServiceEntry<>(this, tjenestetype, scope, fabrikk, egenskapar(medScope), skrivelaasar.nesteSekvens(tjenestetype));
+        publiser(List.of(entry));
+        return entry;
+    }
+
+    /**
+     * Opprettar alle tenester registrert via {@link #registerFactory(Class, Supplier, String...)} i dette registeret
+     * som ikkje allereie er oppretta, i bakgrunnen via {@code executor}.
+     * <br>
+     * Tenestene blir framleis oppretta maksimalt éin gong, sjølv om nokon ber om dei medan førehandsopprettinga
+     * pågår.
+     *
+     * @param executor køyrer opprettinga av tenestene
+     * @return ein future som blir fullført når alle tenestene er oppretta, eller feilar dersom ein av fabrikkane
+     * feilar
+     * @since 3.1.0
+     */
+    public CompletableFuture<Void> prewarm(final Executor executor) {
+        requireNonNull(executor, "executor er påkrevd, men manglar");
+        return CompletableFuture.allOf(
+                services.typar()
+                        .stream()
+                        .flatMap(type -> egneFor(type).stream())
+                        .map(ServiceEntry::registrering)
+                        .filter(entry -> entry instanceof LatServiceEntry<?> lat && !lat.oppretta())
+                        .map(entry -> CompletableFuture.runAsync(entry::service, executor))
+                        .toArray(CompletableFuture<?>[]::new)
+        );
+    }
+
+    /**
+     * Finn tenestetilbydarane for {@code tjenestetypar} via {@link java.util.ServiceLoader} og
+     * {@link Thread#getContextClassLoader() kontekstklasselastaren} til tråden, og registrerer dei i éin bolk.
+     *
+     * @param tjenestetypar tenestetypane det skal leitast etter tilbydarar for
+     * @return registreringane og tidsbruken for kvar tilbydar
+     * @throws java.util.ServiceConfigurationError dersom ein eller fleire av tilbydarane ikkje kunne lastast eller
+     * opprettast, ingen av tenestene blir då registrert
+     * @see #discover(ClassLoader, Class[])
+     * @since 3.1.0
+     */
+    public DiscoveryResult discover(final Class<?>... tjenestetypar) {
+        return discover(Thread.currentThread().getContextClassLoader(), tjenestetypar);
+    }
+
+    /**
+     * Finn tenestetilbydarane for {@code tjenestetypar} via {@link java.util.ServiceLoader} og registrerer dei i éin
+     * bolk.
+     * <br>
+     * Tilbydarane blir oppretta parallelt på virtuelle trådar, slik at tilbydarar med treg oppstart ikkje blir
+     * oppretta etter kvarandre. Rankinga og egenskapane til tenestene blir lest frå {@link
+     * no.spk.tidsserie.tjenesteregister.TjenesteProvider} dersom tilbydarklassa er annotert med den. Tenestene blir
+     * registrert i den rekkefølga {@link java.util.ServiceLoader} fann dei, og blir først synlege når alle er
+     * oppretta.
+     *
+     * @param lastar klasselastaren tilbydarane skal lastast frå
+     * @param tjenestetypar tenestetypane det skal leitast etter tilbydarar for
+     * @return registreringane og tidsbruken for kvar tilbydar
+     * @throws java.util.ServiceConfigurationError dersom ein eller fleire av tilbydarane ikkje kunne lastast eller
+     * opprettast, ingen av tenestene blir då registrert
+     * @since 3.1.0
+     */
+    public DiscoveryResult discover(final ClassLoader lastar, final Class<?>... tjenestetypar) {
+        return Oppdaging.oppdag(this, lastar, tjenestetypar);
+    }
+
+    @Override
+    public RegistrationGroup batch(final Consumer<RegistrationBatch> registreringar) {
+        final Registreringsbolk bolk = new Registreringsbolk(this);
+        registreringar.accept(bolk);
+        final List<ServiceEntry<?>> entries = bolk.avslutt();
+        publiser(entries);
+        return new Registreringsgruppe(this, entries);
     }
 
     private static Stream<Egenskap> konverter(final List<String> filters) {
@@ -108,26 +633,167 @@ public class SimpleServiceRegistry implements ServiceRegistry {
                 .map(Egenskap::parse);
     }
 
-    private <T> ServiceEntry<T> newEntry(final Class<T> tjenestetype, final T tjeneste, final Properties egenskapar) {
+    <T> ServiceEntry<T> newEntry(final Class<T> tjenestetype, final T tjeneste, final String... egenskapar) {
         return new ServiceEntry<>(
                 this,
                 tjenestetype,
                 tjeneste,
-                egenskapar
+                egenskapar(egenskapar),
+                skrivelaasar.nesteSekvens(tjenestetype)
         );
     }
 
-    @SuppressWarnings("unchecked")
-    private <T> Stream<ServiceReference<T>> referencesFor(final Class<T> tjenestetype) {
-        if (!services.containsKey(tjenestetype)) {
-            return Stream.empty();
+    private static Map<String, String> egenskapar(final String... egenskapar) {
+        return konverter(asList(egenskapar))
+                .reduce(
+                        Egenskapar.TOM,
+                        Egenskapar::plus,
+                        Egenskapar::kombiner
+                )
+                .toMap();
+    }
+
+    int nivaa() {
+        return nivaa;
+    }
+
+    /**
+     * Returnerer alle tenestene som er synlege for oppslag under tenestetypen, inkludert tenestene som er arva frå
+     * registera over.
+     */
+    private ServiceEntries entriesFor(final Class<?> tjenestetype) {
+        final ServiceEntries egne = egneFor(tjenestetype);
+        if (forelder == null) {
+            return egne;
         }
-        return services
-                .get(tjenestetype)
-                .stream()
-                .map(e -> (ServiceEntry<T>) e)
-                .sorted()
-                .map(ServiceEntry::getReference);
+        final ServiceEntries arva = forelder.entriesFor(tjenestetype);
+        if (arva.isEmpty() || egne.isEmpty()) {
+            // Held ikkje tenestetypar utan tenester i live, for eksempel etter at ein plugin er avregistrert
+            if (!samanslaatte.isEmpty()) {
+                samanslaatte.remove(tjenestetype);
+            }
+            return arva.isEmpty() ? egne : arva;
+        }
+        final Samanslaatt gjeldande = samanslaatte.get(tjenestetype);
+        if (gjeldande != null && gjeldande.egne() == egne && gjeldande.arva() == arva) {
+            return gjeldande.samla();
+        }
+        final Samanslaatt ny = new Samanslaatt(egne, arva, ServiceEntries.flett(egne, arva));
+        samanslaatte.put(tjenestetype, ny);
+        return ny.samla();
+    }
+
+    /**
+     * Returnerer alle tenestene som er registrert under tenestetypen eller ein av subtypane dens, i dette registeret
+     * og registera over, sortert etter ranking.
+     * <br>
+     * Resultatet blir mellomlagra og gjenbrukt så lenge det ikkje har kome til nye tenestetypar og ingen av
+     * tenestetypane har endra seg.
+     */
+    private ServiceEntries tilordnbareFor(final Class<?> tjenestetype) {
+        final long versjon = typeversjon();
+        final Tilordnbare gjeldande = tilordnbare.get(tjenestetype);
+        if (gjeldande != null && gjeldande.versjon() == versjon && gjeldande.erGyldig(this)) {
+            return gjeldande.samla();
+        }
+        final Class<?>[] typar = gjeldande != null && gjeldande.versjon() == versjon
+                ? gjeldande.typar()
+                : subtyparFor(tjenestetype);
+        final ServiceEntries[] kjelder = new ServiceEntries[typar.length];
+        ServiceEntries samla = ServiceEntries.TOM;
+        for (int i = 0; i < typar.length; i++) {
+            kjelder[i] = entriesFor(typar[i]);
+            samla = ServiceEntries.flett(samla, kjelder[i]);
+        }
+        if (samla.isEmpty()) {
+            // Held ikkje tenestetypar utan tenester i live, for eksempel etter at ein plugin er avregistrert
+            tilordnbare.remove(tjenestetype);
+            return samla;
+        }
+        tilordnbare.put(tjenestetype, new Tilordnbare(versjon, typar, kjelder, samla));
+        return samla;
+    }
+
+    private Class<?>[] subtyparFor(final Class<?> tjenestetype) {
+        final Class<?>[] egne = typeindeks().subtypar().getOrDefault(tjenestetype, INGEN_TYPAR);
+        if (forelder == null) {
+            return egne;
+        }
+        final Class<?>[] arva = forelder.subtyparFor(tjenestetype);
+        if (arva.length == 0) {
+            return egne;
+        }
+        final Set<Class<?>> alle = new LinkedHashSet<>(asList(arva));
+        alle.addAll(asList(egne));
+        return alle.toArray(INGEN_TYPAR);
+    }
+
+    private long typeversjon() {
+        final long egen = skrivelaasar.typeversjon();
+        return forelder == null ? egen : egen + forelder.typeversjon();
+    }
+
+    /**
+     * Returnerer tenestetypane i dette registeret per supertype, bygd på nytt dersom ei tenestetype har fått sine
+     * første tenester eller mista sine siste sidan sist.
+     */
+    private Typeindeks typeindeks() {
+        final long versjon = skrivelaasar.typeversjon();
+        final Typeindeks gjeldande = typeindeks;
+        if (gjeldande != null && gjeldande.versjon() == versjon) {
+            return gjeldande;
+        }
+        final Map<Class<?>, List<Class<?>>> perSupertype = new HashMap<>();
+        for (final Class<?> type : services.typar()) {
+            if (egneFor(type).isEmpty()) {
+                continue;
+            }
+            for (final Class<?> supertype : Supertypar.av(type)) {
+                perSupertype.computeIfAbsent(supertype, t -> new ArrayList<>()).add(type);
+            }
+        }
+        final Map<Class<?>, Class<?>[]> subtypar = new HashMap<>();
+        perSupertype.forEach((supertype, typar) -> subtypar.put(supertype, typar.toArray(INGEN_TYPAR)));
+        final Typeindeks ny = new Typeindeks(versjon, subtypar);
+        typeindeks = ny;
+        return ny;
+    }
+
+    /**
+     * Registrerer at tenestetypen har fått sine første tenester. Må kallast med skrivelåsen for tenestetypen.
+     */
+    private void nyType(final Class<?> tjenestetype) {
+        skrivelaasar.typarEndra(tjenestetype);
+    }
+
+    /**
+     * Registrerer at den siste tenesta under tenestetypen er avregistrert. Må kallast med skrivelåsen for
+     * tenestetypen.
+     * <br>
+     * Indeksen over tenestetypar, dei mellomlagra oppslaga med {@link LookupMode#ASSIGNABLE} og den samanslåtte
+     * lista med arva tenester blir fjerna slik at dei ikkje held tenestetypen i live. Alle blir berre skrivne til
+     * dersom dei er i bruk, slik at register som aldri blir slått opp i med {@link LookupMode#ASSIGNABLE} ikkje skriv
+     * til noko felles.
+     */
+    private void fjernType(final Class<?> tjenestetype) {
+        skrivelaasar.typarEndra(tjenestetype);
+        if (typeindeks != null) {
+            typeindeks = null;
+        }
+        if (!tilordnbare.isEmpty()) {
+            tilordnbare.clear();
+        }
+        if (samanslaatte != null && !samanslaatte.isEmpty()) {
+            samanslaatte.remove(tjenestetype);
+        }
+    }
+
+    /**
+     * Returnerer tenestene som er registrert under tenestetypen i dette registeret.
+     */
+    private ServiceEntries egneFor(final Class<?> tjenestetype) {
+        final ServiceEntries entries = services.get(tjenestetype);
+        return entries != null ? entries : ServiceEntries.TOM;
     }
 
     private <T> Optional<ServiceEntry<T>> entryFor(final ServiceReference<T> reference) {
@@ -136,64 +802,261 @@ public class SimpleServiceRegistry implements ServiceRegistry {
                 .map(r -> (ServiceEntry<T>) r);
     }
 
-    private void remove(final ServiceEntry<?> entry) {
-        services.computeIfPresent(entry.tjenestetype, (type, entries) -> {
-            entries.remove(entry);
-            return entries;
-        });
+    /**
+     * Returnerer om versjonen av tenesta er den som er registrert i dette registeret no.
+     */
+    boolean erGjeldande(final ServiceEntry<?> entry) {
+        return egneFor(entry.tjenestetype()).inneheld(entry);
     }
 
-    private static class ServiceEntry<T> implements ServiceRegistration<T>, ServiceReference<T>, Comparable<ServiceEntry<T>> {
-        private final Properties egenskapar = new Properties();
-        private final SimpleServiceRegistry parent;
-        private final Class<T> tjenestetype;
-        private final T tjeneste;
+    void remove(final ServiceEntry<?> entry) {
+        remove(List.of(entry));
+    }
 
-        ServiceEntry(final SimpleServiceRegistry parent, final Class<T> tjenestetype, final T tjeneste, final Properties egenskapar) {
-            this.parent = parent;
-            this.tjenestetype = tjenestetype;
-            this.tjeneste = tjeneste;
-            this.egenskapar.putAll(egenskapar);
+    void remove(final List<ServiceEntry<?>> entries) {
+        final Utboks utboks = new Utboks();
+        final Map<Class<?>, List<ServiceEntry<?>>> perType = perType(entries);
+        skrivelaasar.medLaasar(perType.keySet(), () -> {
+            perType.forEach((tjenestetype, kandidatar) -> {
+                final ServiceEntries gjeldande = egneFor(tjenestetype);
+                final List<ServiceEntry<?>> fjerna = kandidatar
+                        .stream()
+                        .map(ServiceEntry::gjeldande)
+                        .filter(gjeldande::inneheld)
+                        .collect(toList());
+                if (fjerna.isEmpty()) {
+                    return;
+                }
+                final Avregistreringshending hending = new Avregistreringshending();
+                hending.begin();
+                final ServiceEntries gjenverande = gjeldande.minusAlle(fjerna);
+                services.put(tjenestetype, gjenverande);
+                if (gjenverande.isEmpty()) {
+                    fjernType(tjenestetype);
+                }
+                oppslagsbuffer.invalider(tjenestetype);
+                trackersFor(tjenestetype).forEach(t -> t.avregistrert(fjerna));
+                varsle(ServiceEvent.Type.UNREGISTERED, fjerna, utboks);
+                varsleBarn(underregister -> underregister.arvaEndring(ServiceEvent.Type.UNREGISTERED, fjerna, utboks));
+                if (hending.shouldCommit()) {
+                    hending.serviceType = tjenestetype;
+                    hending.candidatesScanned = gjeldande.size();
+                    hending.matches = fjerna.size();
+                    hending.commit();
+                }
+            });
+        });
+        utboks.send(dispatcher);
+    }
 
-            if (!egenskapar.containsKey(SERVICE_RANKING)) {
-                this.egenskapar.setProperty(SERVICE_RANKING, Integer.toString(DEFAULT_RANKING));
+    /**
+     * Publiserer dei nye tenestene med éi oppdatering per tenestetype.
+     */
+    private void publiser(final List<ServiceEntry<?>> entries) {
+        final Utboks utboks = new Utboks();
+        final Map<Class<?>, List<ServiceEntry<?>>> perType = perType(entries);
+        skrivelaasar.medLaasar(perType.keySet(), () -> {
+            perType.forEach((tjenestetype, nye) -> {
+                final Registreringshending hending = new Registreringshending();
+                hending.begin();
+                final ServiceEntries gjeldande = egneFor(tjenestetype);
+                services.put(tjenestetype, gjeldande.plusAlle(nye));
+                if (gjeldande.isEmpty()) {
+                    nyType(tjenestetype);
+                }
+                oppslagsbuffer.invalider(tjenestetype);
+                trackersFor(tjenestetype).forEach(t -> t.registrert(nye));
+                varsle(ServiceEvent.Type.REGISTERED, nye, utboks);
+                varsleBarn(underregister -> underregister.arvaEndring(ServiceEvent.Type.REGISTERED, nye, utboks));
+                if (hending.shouldCommit()) {
+                    hending.serviceType = tjenestetype;
+                    hending.candidatesScanned = gjeldande.size();
+                    hending.matches = nye.size();
+                    hending.commit();
+                }
+            });
+        });
+        utboks.send(dispatcher);
+    }
+
+    /**
+     * Erstattar egenskapane til tenesta med ein ny versjon av tenesta, publisert med éi oppdatering av
+     * tenestetypen.
+     */
+    <T> void endre(final ServiceEntry<T> registrering, final String... egenskapar) {
+        final Map<String, String> nye = egenskapar(egenskapar);
+        final Class<T> tjenestetype = registrering.tjenestetype();
+        final Utboks utboks = new Utboks();
+        synchronized (skrivelaasar.laas(tjenestetype)) {
+            final ServiceEntry<T> gammal = registrering.gjeldande();
+            final ServiceEntries gjeldande = egneFor(tjenestetype);
+            if (!gjeldande.inneheld(gammal)) {
+                throw new IllegalStateException(
+                        "egenskapane kan ikkje endrast sidan tenesta er avregistrert, " + gammal
+                );
+            }
+            final Endringshending hending = new Endringshending();
+            hending.begin();
+            final ServiceEntry<T> ny = gammal.medEgenskapar(medScope(gammal, nye));
+            services.put(tjenestetype, gjeldande.erstatt(gammal, ny));
+            registrering.erstatt(ny);
+            oppslagsbuffer.invalider(tjenestetype);
+            arvaEndring(gammal, ny, utboks);
+            if (hending.shouldCommit()) {
+                hending.serviceType = tjenestetype;
+                hending.candidatesScanned = gjeldande.size();
+                hending.matches = 1;
+                hending.commit();
             }
         }
+        utboks.send(dispatcher);
+    }
+
+    /**
+     * Tek vare på {@link Constants#SERVICE_SCOPE scopet} til tenesta, sidan det er satt av registeret og ikkje av
+     * tenestetilbydaren.
+     */
+    private static Map<String, String> medScope(final ServiceEntry<?> entry, final Map<String, String> egenskapar) {
+        final String scope = entry.property(Constants.SERVICE_SCOPE);
+        if (scope == null || egenskapar.containsKey(Constants.SERVICE_SCOPE)) {
+            return egenskapar;
+        }
+        final Map<String, String> medScope = new HashMap<>(egenskapar);
+        medScope.put(Constants.SERVICE_SCOPE, scope);
+        return medScope;
+    }
+
+    private static Map<Class<?>, List<ServiceEntry<?>>> perType(final List<ServiceEntry<?>> entries) {
+        if (entries.size() == 1) {
+            final ServiceEntry<?> entry = entries.get(0);
+            return Map.of(entry.tjenestetype(), entries);
+        }
+        final Map<Class<?>, List<ServiceEntry<?>>> perType = new LinkedHashMap<>();
+        entries.forEach(e -> perType.computeIfAbsent(e.tjenestetype(), type -> new ArrayList<>()).add(e));
+        return perType;
+    }
 
-        ServiceRegistration<T> registerWith(final List<ServiceEntry<?>> entries) {
-            entries.add(this);
-            return this;
+    private void varsle(final ServiceEvent.Type type, final List<ServiceEntry<?>> entries, final Utboks utboks) {
+        final Lyttarar l = lyttarar.get(entries.get(0).tjenestetype());
+        if (l != null) {
+            entries.forEach(entry -> l.varsle(new ServiceEvent<>(type, entry.getReference()), entry, utboks));
         }
+    }
 
-        T service() {
-            return tjeneste;
+    /**
+     * Sørgjer for at dette registeret blir varsla om endringar i alle registera over seg.
+     * <br>
+     * Må kallast før skrivelåsane til dette registeret blir teke, låsane blir alltid teke ovanfrå og ned.
+     */
+    private void abonner() {
+        if (forelder == null || abonnerer) {
+            return;
+        }
+        forelder.abonner();
+        synchronized (forelder.barn) {
+            if (!abonnerer) {
+                forelder.barn.add(new WeakReference<>(this));
+                abonnerer = true;
+            }
         }
+    }
 
-        @Override
-        public int compareTo(ServiceEntry<T> o) {
-            final Integer b = o.getProperty(SERVICE_RANKING).map(Integer::parseInt).get();
-            final Integer a = getProperty(SERVICE_RANKING).map(Integer::parseInt).get();
-            return b.compareTo(a);
+    private void varsleBarn(final Consumer<SimpleServiceRegistry> endring) {
+        if (barn.isEmpty()) {
+            return;
+        }
+        for (final WeakReference<SimpleServiceRegistry> referanse : barn) {
+            final SimpleServiceRegistry underregister = referanse.get();
+            if (underregister == null) {
+                barn.remove(referanse);
+            } else {
+                endring.accept(underregister);
+            }
         }
+    }
 
-        @Override
-        public ServiceReference<T> getReference() {
-            return this;
+    /**
+     * Oppdaterer trackerar og varslar lyttarar om at tenester arva frå eit register over har blitt registrert eller
+     * avregistrert.
+     */
+    private void arvaEndring(final ServiceEvent.Type type, final List<ServiceEntry<?>> entries, final Utboks utboks) {
+        final Class<?> tjenestetype = entries.get(0).tjenestetype();
+        synchronized (skrivelaasar.laas(tjenestetype)) {
+            trackersFor(tjenestetype).forEach(t -> {
+                if (type == ServiceEvent.Type.REGISTERED) {
+                    t.registrert(entries);
+                } else {
+                    t.avregistrert(entries);
+                }
+            });
+            varsle(type, entries, utboks);
+            varsleBarn(underregister -> underregister.arvaEndring(type, entries, utboks));
         }
+    }
 
-        @Override
-        public void unregister() {
-            parent.remove(this);
+    /**
+     * Oppdaterer trackerar og varslar lyttarar om at egenskapane til ei teneste i dette registeret eller eit
+     * register over har blitt endra.
+     */
+    private void arvaEndring(final ServiceEntry<?> gammal, final ServiceEntry<?> ny, final Utboks utboks) {
+        final Class<?> tjenestetype = ny.tjenestetype();
+        synchronized (skrivelaasar.laas(tjenestetype)) {
+            trackersFor(tjenestetype).forEach(t -> t.endra(gammal, ny));
+            final Lyttarar l = lyttarar.get(tjenestetype);
+            if (l != null) {
+                l.varsleEndring(new ServiceEvent<>(ServiceEvent.Type.MODIFIED, ny), gammal, ny, utboks);
+            }
+            varsleBarn(underregister -> underregister.arvaEndring(gammal, ny, utboks));
         }
+    }
 
-        @Override
-        public Optional<String> getProperty(final String name) {
-            return of(name).map(egenskapar::getProperty);
+    void lukk(final SimpleServiceTracker<?> tracker) {
+        synchronized (skrivelaasar.laas(tracker.tjenestetype())) {
+            trackers.computeIfPresent(tracker.tjenestetype(), (type, trackere) -> {
+                trackere.removeIf(referanse -> referanse.get() == tracker || referanse.get() == null);
+                return trackere.isEmpty() ? null : trackere;
+            });
         }
+    }
 
-        @Override
-        public String toString() {
-            return "tjeneste " + tjeneste + ", egenskapar: " + egenskapar;
+    /**
+     * Returnerer trackerane som framleis er i bruk for tenestetypen. Trackerar som klientane har sleppt utan å lukke
+     * blir fjerna, slik at dei ikkje held tenestetypen i live. Må kallast med skrivelåsen for tenestetypen.
+     */
+    private List<SimpleServiceTracker<?>> trackersFor(final Class<?> tjenestetype) {
+        final List<WeakReference<SimpleServiceTracker<?>>> referansar = trackers.get(tjenestetype);
+        if (referansar == null) {
+            return List.of();
+        }
+        final List<SimpleServiceTracker<?>> levande = new ArrayList<>(referansar.size());
+        referansar.removeIf(referanse -> {
+            final SimpleServiceTracker<?> tracker = referanse.get();
+            if (tracker == null) {
+                return true;
+            }
+            levande.add(tracker);
+            return false;
+        });
+        if (referansar.isEmpty()) {
+            trackers.remove(tjenestetype);
+        }
+        return levande;
+    }
+
+    private record Samanslaatt(ServiceEntries egne, ServiceEntries arva, ServiceEntries samla) {
+    }
+
+    private record Typeindeks(long versjon, Map<Class<?>, Class<?>[]> subtypar) {
+    }
+
+    private record Tilordnbare(long versjon, Class<?>[] typar, ServiceEntries[] kjelder, ServiceEntries samla) {
+        boolean erGyldig(final SimpleServiceRegistry registry) {
+            for (int i = 0; i < typar.length; i++) {
+                if (registry.entriesFor(typar[i]) != kjelder[i]) {
+                    return false;
+                }
+            }
+            return true;
         }
     }
 }
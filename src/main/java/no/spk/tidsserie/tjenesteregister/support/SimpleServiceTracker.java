@@ -0,0 +1,138 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import static java.util.stream.Collectors.toList;
+
+import java.util.List;
+import java.util.Optional;
+
+import no.spk.tidsserie.tjenesteregister.ServiceFilter;
+import no.spk.tidsserie.tjenesteregister.ServiceReference;
+import no.spk.tidsserie.tjenesteregister.ServiceTracker;
+
+/**
+ * Tracker som blir halde oppdatert inkrementelt av {@link SimpleServiceRegistry}.
+ * <br>
+ * Tenestene som matchar filteret ligg lagra i eit eige {@link ServiceEntries øyeblikksbilde}. Ved kvar endring blir
+ * det bygd eit nytt, ferdig materialisert {@link Utval} som blir publisert via eit enkelt volatile felt. Lesarar
+ * betalar dermed berre for ei volatile lesing, medan all kopiering og sortering skjer på skrivesida.
+ * <br>
+ * Alle endringar av trackeren skjer medan registeret held skrivelåsen for tenestetypen til trackeren.
+ */
+final class SimpleServiceTracker<T> implements ServiceTracker<T> {
+    private final SimpleServiceRegistry parent;
+    private final Class<T> tjenestetype;
+    private final ServiceFilter filter;
+
+    private volatile Utval<T> utval;
+
+    SimpleServiceTracker(final SimpleServiceRegistry parent, final Class<T> tjenestetype, final ServiceFilter filter,
+                         final ServiceEntries entries) {
+        this.parent = parent;
+        this.tjenestetype = tjenestetype;
+        this.filter = filter;
+        this.utval = new Utval<>(entries.utval(filter));
+    }
+
+    Class<T> tjenestetype() {
+        return tjenestetype;
+    }
+
+    void registrert(final List<? extends ServiceEntry<?>> entries) {
+        final List<ServiceEntry<?>> matchande = entries
+                .stream()
+                .filter(filter::matches)
+                .collect(toList());
+        if (!matchande.isEmpty()) {
+            utval = new Utval<>(utval.treff.plusAlle(matchande));
+        }
+    }
+
+    void avregistrert(final List<? extends ServiceEntry<?>> entries) {
+        final Utval<T> gjeldande = utval;
+        final ServiceEntries treff = gjeldande.treff.minusAlle(entries);
+        if (treff != gjeldande.treff) {
+            utval = new Utval<>(treff);
+        }
+    }
+
+    void endra(final ServiceEntry<?> gammal, final ServiceEntry<?> ny) {
+        final Utval<T> gjeldande = utval;
+        final ServiceEntries utan = gjeldande.treff.minus(gammal);
+        final ServiceEntries treff = filter.matches(ny) ? utan.plus(ny) : utan;
+        if (treff != gjeldande.treff) {
+            utval = new Utval<>(treff);
+        }
+    }
+
+    @Override
+    public Optional<T> getService() {
+        return utval.beste();
+    }
+
+    @Override
+    public List<T> getServices() {
+        return utval.tenester();
+    }
+
+    @Override
+    public List<ServiceReference<T>> getServiceReferences() {
+        return utval.referansar;
+    }
+
+    @Override
+    public void close() {
+        parent.lukk(this);
+        utval = new Utval<>(ServiceEntries.TOM);
+    }
+
+    @Override
+    public String toString() {
+        return "tracker for " + tjenestetype.getSimpleName() + " med filter " + filter + ": " + utval.referansar;
+    }
+
+    /**
+     * Tenestene i utvalet blir først henta ut når nokon ber om dei, slik at tenester registrert via
+     * {@link SimpleServiceRegistry#registerFactory(Class, java.util.function.Supplier, String...) fabrikkar} ikkje
+     * blir oppretta berre fordi ein tracker følgjer med på dei.
+     * <br>
+     * Utval med tenester som ikkje er {@link ServiceEntry#delbar() delbare} blir aldri mellomlagra, slik at kvar tråd
+     * får instansen som høyrer til scopet til tenesta.
+     */
+    private static final class Utval<T> {
+        private final ServiceEntries treff;
+        private final List<ServiceReference<T>> referansar;
+
+        private volatile List<T> tenester;
+        private volatile Optional<T> beste;
+
+        private final boolean delbar;
+
+        Utval(final ServiceEntries treff) {
+            this.treff = treff;
+            this.referansar = treff.references();
+            this.delbar = treff.stream().allMatch(ServiceEntry::delbar);
+        }
+
+        List<T> tenester() {
+            List<T> t = tenester;
+            if (t == null) {
+                t = treff.<T>stream().map(ServiceEntry::service).toList();
+                if (delbar) {
+                    tenester = t;
+                }
+            }
+            return t;
+        }
+
+        Optional<T> beste() {
+            Optional<T> b = beste;
+            if (b == null) {
+                b = treff.isEmpty() ? Optional.empty() : Optional.ofNullable(treff.<T>get(0).service());
+                if (delbar) {
+                    beste = b;
+                }
+            }
+            return b;
+        }
+    }
+}
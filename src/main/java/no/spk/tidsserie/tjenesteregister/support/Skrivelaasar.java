@@ -0,0 +1,126 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * Låsane som serialiserer skrivingar i eit {@link SimpleServiceRegistry}, anten éin felles lås eller eit fast antall
+ * låsar fordelt etter tenestetype.
+ * <br>
+ * Når fleire låsar må takast blir dei alltid tatt i stigande rekkefølge, slik at to skrivarar aldri kan vente på
+ * kvarandre i ring.
+ * <br>
+ * Kvar lås har i tillegg sitt eige løpenummer for nye tenester og sin eigen versjon av kva tenestetypar som har
+ * tenester, slik at skrivarar som endrar tenestetypar under ulike låsar ikkje skriv til noko felles.
+ *
+ * @see WriteConcurrency
+ */
+final class Skrivelaasar {
+    private static final int STRIPER = 64;
+
+    private final Stripe[] laasar;
+
+    private final int maske;
+
+    private Skrivelaasar(final int antall) {
+        this.laasar = IntStream.range(0, antall).mapToObj(i -> new Stripe()).toArray(Stripe[]::new);
+        this.maske = antall - 1;
+    }
+
+    static Skrivelaasar av(final WriteConcurrency modus) {
+        return new Skrivelaasar(modus == WriteConcurrency.STRIPED ? STRIPER : 1);
+    }
+
+    /**
+     * Returnerer låsen som må haldast ved endringar av tenestene, trackerane eller lyttarane for tenestetypen.
+     */
+    Object laas(final Class<?> tjenestetype) {
+        return laasar[indeks(tjenestetype)];
+    }
+
+    /**
+     * Returnerer eit nytt løpenummer for ei teneste under tenestetypen.
+     * <br>
+     * Løpenummera er unike i registeret og aukande per lås, og dermed per tenestetype. Med éin felles lås aukar dei
+     * i den rekkefølga tenestene blir registrert, uavhengig av tenestetype.
+     */
+    long nesteSekvens(final Class<?> tjenestetype) {
+        final int indeks = indeks(tjenestetype);
+        return laasar[indeks].sekvens.incrementAndGet() * laasar.length + indeks;
+    }
+
+    /**
+     * Registrerer at tenestetypen har fått sine første tenester eller mista sine siste. Må kallast med låsen for
+     * tenestetypen.
+     */
+    void typarEndra(final Class<?> tjenestetype) {
+        laasar[indeks(tjenestetype)].typeversjon++;
+    }
+
+    /**
+     * Returnerer ein versjon som endrar seg kvar gong ei tenestetype får sine første tenester eller mistar sine
+     * siste.
+     */
+    long typeversjon() {
+        if (laasar.length == 1) {
+            return laasar[0].typeversjon;
+        }
+        long sum = 0;
+        for (final Stripe stripe : laasar) {
+            sum += stripe.typeversjon;
+        }
+        return sum;
+    }
+
+    /**
+     * Køyrer {@code handling} med låsane for alle tenestetypane haldne. Utan tenestetypar blir ikkje
+     * {@code handling} køyrt.
+     */
+    void medLaasar(final Collection<Class<?>> tjenestetypar, final Runnable handling) {
+        if (tjenestetypar.isEmpty()) {
+            return;
+        }
+        if (laasar.length == 1 || tjenestetypar.size() == 1) {
+            synchronized (laas(tjenestetypar.iterator().next())) {
+                handling.run();
+            }
+            return;
+        }
+        medLaasar(tjenestetypar.stream().mapToInt(this::indeks).distinct().sorted().toArray(), 0, handling);
+    }
+
+    /**
+     * Køyrer {@code handling} med alle låsane haldne, slik at ingen andre kan skrive til registeret imens.
+     */
+    void medAlle(final Runnable handling) {
+        medLaasar(IntStream.range(0, laasar.length).toArray(), 0, handling);
+    }
+
+    private void medLaasar(final int[] indeksar, final int i, final Runnable handling) {
+        if (i == indeksar.length) {
+            handling.run();
+            return;
+        }
+        synchronized (laasar[indeksar[i]]) {
+            medLaasar(indeksar, i + 1, handling);
+        }
+    }
+
+    private int indeks(final Class<?> tjenestetype) {
+        final int hash = System.identityHashCode(tjenestetype);
+        return (hash ^ (hash >>> 16)) & maske;
+    }
+
+    /**
+     * Ein lås, med løpenummer og typeversjon for tenestetypane under låsen.
+     */
+    private static final class Stripe {
+        private final AtomicLong sekvens = new AtomicLong();
+
+        /**
+         * Blir berre skriven med låsen halden.
+         */
+        private volatile long typeversjon;
+    }
+}
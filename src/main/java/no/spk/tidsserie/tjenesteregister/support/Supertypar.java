@@ -0,0 +1,42 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Slår opp alle supertypane til ein klasse, det vil seie klassa sjølv, alle superklassene og alle grensesnitta
+ * klassa implementerer direkte eller indirekte.
+ * <br>
+ * Supertypane blir rekna ut via refleksjon første gang dei blir bedt om for ei klasse og blir deretter halde i ein
+ * {@link ClassValue}, slik at dei følgjer livssyklusen til klassa og ikkje held klasselastarar i live.
+ */
+final class Supertypar {
+    private static final ClassValue<Class<?>[]> SUPERTYPAR = new ClassValue<>() {
+        @Override
+        protected Class<?>[] computeValue(final Class<?> type) {
+            final Set<Class<?>> alle = new LinkedHashSet<>();
+            samle(type, alle);
+            if (!type.isPrimitive()) {
+                alle.add(Object.class);
+            }
+            return alle.toArray(Class<?>[]::new);
+        }
+    };
+
+    private Supertypar() {
+    }
+
+    static Class<?>[] av(final Class<?> type) {
+        return SUPERTYPAR.get(type);
+    }
+
+    private static void samle(final Class<?> type, final Set<Class<?>> alle) {
+        if (type == null || !alle.add(type)) {
+            return;
+        }
+        samle(type.getSuperclass(), alle);
+        for (final Class<?> grensesnitt : type.getInterfaces()) {
+            samle(grensesnitt, alle);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import java.util.List;
+
+import no.spk.tidsserie.tjenesteregister.ServiceEvent;
+import no.spk.tidsserie.tjenesteregister.ServiceListener;
+
+final class SynchronousEventDispatcher implements ServiceEventDispatcher {
+    static final SynchronousEventDispatcher INSTANS = new SynchronousEventDispatcher();
+
+    private SynchronousEventDispatcher() {
+    }
+
+    @Override
+    public <T> void dispatch(final ServiceListener<T> listener, final List<ServiceEvent<T>> events) {
+        if (events.size() == 1) {
+            listener.serviceChanged(events.get(0));
+        } else {
+            listener.servicesChanged(events);
+        }
+    }
+}
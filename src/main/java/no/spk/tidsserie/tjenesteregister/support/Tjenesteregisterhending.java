@@ -0,0 +1,43 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+import no.spk.tidsserie.tjenesteregister.ServiceFilter;
+
+/**
+ * Felles grunnlag for JDK Flight Recorder-hendingane til {@link SimpleServiceRegistry}.
+ * <br>
+ * Hendingane er slått av som standard og blir slått på via innstillingsprofilen
+ * {@code no/spk/tidsserie/tjenesteregister/tjenesteregister.jfc}. Når dei er slått av kostar dei berre ein sjekk av
+ * {@link #shouldCommit()}, sidan feltverdiane først blir rekna ut når hendinga faktisk skal lagrast. Hendingane for
+ * oppslag blir i tillegg berre oppretta når dei er slått på, slik at oppslag ikkje allokerer noko for dei.
+ */
+@Category({"SPK", "Tjenesteregister"})
+@Enabled(false)
+@StackTrace(false)
+abstract class Tjenesteregisterhending extends Event {
+    @Label("Service Type")
+    @Description("Tenestetypa operasjonen gjaldt")
+    Class<?> serviceType;
+
+    @Label("Filter Count")
+    @Description("Antall enkeltkrav i filteret operasjonen brukte")
+    int filterCount;
+
+    @Label("Candidates Scanned")
+    @Description("Antall tenester som vart sjekka eller kopiert av operasjonen")
+    int candidatesScanned;
+
+    @Label("Matches")
+    @Description("Antall tenester operasjonen fann, registrerte, endra eller avregistrerte")
+    int matches;
+
+    static int antallFilter(final ServiceFilter filter) {
+        return filter instanceof IndeksertFilter indeksert ? indeksert.antallKrav() : 1;
+    }
+}
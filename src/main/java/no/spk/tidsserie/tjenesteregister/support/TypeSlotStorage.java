@@ -0,0 +1,25 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+/**
+ * Styrer korleis eit {@link SimpleServiceRegistry} finn tenestene for ei tenestetype.
+ *
+ * @see SimpleServiceRegistry#SimpleServiceRegistry(ServiceEventDispatcher, int, TypeSlotStorage)
+ * @since 3.1.0
+ */
+public enum TypeSlotStorage {
+    /**
+     * Tenestene blir slått opp i ein {@link java.util.concurrent.ConcurrentHashMap} med tenestetypen som nøkkel.
+     * <br>
+     * Registeret held på alle tenestetypar det nokon gong har vore registrert tenester under, og dermed og på
+     * klasselastarane deira, så lenge registeret lever.
+     */
+    MAP,
+    /**
+     * Tenestene ligg i ein slot knytt til sjølve tenestetypen via {@link ClassValue}, slik at oppslag ikkje går via
+     * nokon felles hashtabell.
+     * <br>
+     * Registeret held berre svakt på tenestetypane. Når alle tenestene under ei tenestetype frå ein plugin er
+     * avregistrert kan klasselastaren til pluginen dermed bli rydda bort, sjølv om registeret lever vidare.
+     */
+    CLASS_VALUE
+}
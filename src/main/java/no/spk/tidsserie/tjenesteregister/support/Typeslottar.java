@@ -0,0 +1,110 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Held på det gjeldande øyeblikksbildet av tenestene for kvar tenestetype i eit {@link SimpleServiceRegistry}.
+ * <br>
+ * Skriving skjer alltid under skrivelåsen for tenestetypen, medan lesing skjer utan nokon form for låsing.
+ *
+ * @see TypeSlotStorage
+ */
+abstract class Typeslottar {
+    static Typeslottar av(final TypeSlotStorage lagring) {
+        return switch (lagring) {
+            case MAP -> new Tabell();
+            case CLASS_VALUE -> new Klasseverdiar();
+        };
+    }
+
+    /**
+     * Returnerer øyeblikksbildet for tenestetypen, eller {@code null} dersom det aldri har vore registrert tenester
+     * under tenestetypen.
+     */
+    abstract ServiceEntries get(Class<?> tjenestetype);
+
+    abstract void put(Class<?> tjenestetype, ServiceEntries entries);
+
+    /**
+     * Returnerer ein kopi av alle tenestetypane det har vore registrert tenester under.
+     */
+    abstract List<Class<?>> typar();
+
+    private static final class Tabell extends Typeslottar {
+        private final Map<Class<?>, ServiceEntries> tenester = new ConcurrentHashMap<>();
+
+        @Override
+        ServiceEntries get(final Class<?> tjenestetype) {
+            return tenester.get(tjenestetype);
+        }
+
+        @Override
+        void put(final Class<?> tjenestetype, final ServiceEntries entries) {
+            tenester.put(tjenestetype, entries);
+        }
+
+        @Override
+        List<Class<?>> typar() {
+            return List.copyOf(tenester.keySet());
+        }
+    }
+
+    /**
+     * Slår opp øyeblikksbildet via ein {@link ClassValue} som er eigd av registeret.
+     * <br>
+     * Slotten ligg lagra i sjølve tenestetypen og held berre svakt på øyeblikksbildet, sidan øyeblikksbildet
+     * refererer både til tenestetypen og til registeret som eig {@link ClassValue}-en. Ein sterk referanse frå slotten
+     * ville dermed halde registeret, og alle tenestene i det, i live så lenge tenestetypen lever, sjølv etter at
+     * registeret er kasta. Øyeblikksbilda blir i staden halde i live av {@link #levande}, som berre inneheld
+     * tenestetypar med tenester, slik at tenestetypar utan tenester og kasta register kan ryddast bort. Oppslag på
+     * tenestetypar utan tenester opprettar ein tom slot første gang.
+     */
+    private static final class Klasseverdiar extends Typeslottar {
+        private final ClassValue<Slot> slottar = new ClassValue<>() {
+            @Override
+            protected Slot computeValue(final Class<?> tjenestetype) {
+                return new Slot();
+            }
+        };
+
+        /**
+         * Dei gjeldande øyeblikksbilda for tenestetypane som har tenester, per slot.
+         */
+        private final ConcurrentMap<Slot, ServiceEntries> levande = new ConcurrentHashMap<>();
+
+        @Override
+        ServiceEntries get(final Class<?> tjenestetype) {
+            final WeakReference<ServiceEntries> entries = slottar.get(tjenestetype).entries;
+            return entries != null ? entries.get() : null;
+        }
+
+        @Override
+        void put(final Class<?> tjenestetype, final ServiceEntries entries) {
+            final Slot slot = slottar.get(tjenestetype);
+            if (entries.isEmpty()) {
+                slot.entries = null;
+                levande.remove(slot);
+            } else {
+                levande.put(slot, entries);
+                slot.entries = new WeakReference<>(entries);
+            }
+        }
+
+        @Override
+        List<Class<?>> typar() {
+            return levande
+                    .values()
+                    .stream()
+                    .<Class<?>>map(entries -> entries.get(0).tjenestetype())
+                    .toList();
+        }
+    }
+
+    private static final class Slot {
+        private volatile WeakReference<ServiceEntries> entries;
+    }
+}
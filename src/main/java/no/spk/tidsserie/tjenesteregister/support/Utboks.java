@@ -0,0 +1,34 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import no.spk.tidsserie.tjenesteregister.ServiceEvent;
+import no.spk.tidsserie.tjenesteregister.ServiceListener;
+
+/**
+ * Samlar opp hendingane som skal leverast til kvar lyttar som følgje av ei endring i tenesteregisteret.
+ * <br>
+ * Utboksen blir fylt medan tenesteregisteret held skrivelåsen sin og tømt via {@link ServiceEventDispatcher}
+ * etter at låsen er sleppt.
+ */
+final class Utboks {
+    private final Map<ServiceListener<?>, List<ServiceEvent<?>>> hendingar = new LinkedHashMap<>();
+
+    void leggTil(final ServiceListener<?> listener, final ServiceEvent<?> event) {
+        final List<ServiceEvent<?>> events = hendingar.computeIfAbsent(listener, l -> new ArrayList<>());
+        if (events.isEmpty() || events.get(events.size() - 1) != event) {
+            events.add(event);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void send(final ServiceEventDispatcher dispatcher) {
+        Leveringar.leverAlle(
+                hendingar.entrySet(),
+                e -> dispatcher.dispatch((ServiceListener) e.getKey(), (List) e.getValue())
+        );
+    }
+}
@@ -0,0 +1,402 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import no.spk.tidsserie.tjenesteregister.ServiceReference;
+
+/**
+ * Ein node i predikattreet til eit {@link Uttrykksfilter}.
+ * <br>
+ * Kvar node kjenner sin eigen {@link #kostnad() relative kostnad}, slik at {@link Og} og {@link Eller} kan sjekke
+ * dei billigaste krava først og kortslutte før dei dyre krava blir evaluert. Noder som kan avgrensast via ein
+ * {@link Egenskapsindeks} returnerer kandidatane sine frå {@link #kandidatar(Egenskapsindeks)}.
+ */
+sealed interface Uttrykk {
+    Comparator<Uttrykk> BILLIGAST_FOERST = Comparator.comparingInt(Uttrykk::kostnad);
+
+    boolean match(ServiceReference<?> reference);
+
+    int kostnad();
+
+    int antallKrav();
+
+    /**
+     * Returnerer posisjonane til tenestene som kan matche uttrykket, eller {@code null} dersom uttrykket ikkje kan
+     * avgrensast via indeksen.
+     */
+    default int[] kandidatar(final Egenskapsindeks indeks) {
+        return null;
+    }
+
+    static String verdi(final ServiceReference<?> reference, final String navn) {
+        if (reference instanceof ServiceEntry<?> entry) {
+            return entry.property(navn);
+        }
+        return reference.getProperty(navn).orElse(null);
+    }
+
+    record Og(List<Uttrykk> krav) implements Uttrykk {
+        public Og {
+            krav = krav.stream().sorted(BILLIGAST_FOERST).toList();
+        }
+
+        @Override
+        public boolean match(final ServiceReference<?> reference) {
+            for (final Uttrykk k : krav) {
+                if (!k.match(reference)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int kostnad() {
+            return krav.stream().mapToInt(Uttrykk::kostnad).sum();
+        }
+
+        @Override
+        public int antallKrav() {
+            return krav.stream().mapToInt(Uttrykk::antallKrav).sum();
+        }
+
+        /**
+         * Alle krava må vere oppfylt, det holder dermed å sjekke kandidatane for det mest selektive kravet som kan
+         * slåast opp i indeksen.
+         */
+        @Override
+        public int[] kandidatar(final Egenskapsindeks indeks) {
+            int[] kortaste = null;
+            for (final Uttrykk k : krav) {
+                final int[] kandidatar = k.kandidatar(indeks);
+                if (kandidatar != null && (kortaste == null || kandidatar.length < kortaste.length)) {
+                    kortaste = kandidatar;
+                    if (kortaste.length == 0) {
+                        break;
+                    }
+                }
+            }
+            return kortaste;
+        }
+
+        @Override
+        public String toString() {
+            return "(&" + String.join("", krav.stream().map(Uttrykk::toString).toList()) + ")";
+        }
+    }
+
+    record Eller(List<Uttrykk> krav) implements Uttrykk {
+        public Eller {
+            krav = krav.stream().sorted(BILLIGAST_FOERST).toList();
+        }
+
+        @Override
+        public boolean match(final ServiceReference<?> reference) {
+            for (final Uttrykk k : krav) {
+                if (k.match(reference)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public int kostnad() {
+            return krav.stream().mapToInt(Uttrykk::kostnad).sum();
+        }
+
+        @Override
+        public int antallKrav() {
+            return krav.stream().mapToInt(Uttrykk::antallKrav).sum();
+        }
+
+        /**
+         * Berre eitt av krava må vere oppfylt, indeksen kan dermed berre brukast dersom alle krava kan slåast opp i
+         * den. Kandidatane blir då unionen av kandidatane for kvart krav.
+         */
+        @Override
+        public int[] kandidatar(final Egenskapsindeks indeks) {
+            int[] union = Egenskapsindeks.INGEN;
+            for (final Uttrykk k : krav) {
+                final int[] kandidatar = k.kandidatar(indeks);
+                if (kandidatar == null) {
+                    return null;
+                }
+                union = Egenskapsindeks.union(union, kandidatar);
+            }
+            return union;
+        }
+
+        @Override
+        public String toString() {
+            return "(|" + String.join("", krav.stream().map(Uttrykk::toString).toList()) + ")";
+        }
+    }
+
+    record Ikkje(Uttrykk krav) implements Uttrykk {
+        @Override
+        public boolean match(final ServiceReference<?> reference) {
+            return !krav.match(reference);
+        }
+
+        @Override
+        public int kostnad() {
+            return krav.kostnad() + 1;
+        }
+
+        @Override
+        public int antallKrav() {
+            return krav.antallKrav();
+        }
+
+        @Override
+        public String toString() {
+            return "(!" + krav + ")";
+        }
+    }
+
+    record Lik(String navn, String verdi) implements Uttrykk {
+        @Override
+        public boolean match(final ServiceReference<?> reference) {
+            return verdi.equals(Uttrykk.verdi(reference, navn));
+        }
+
+        @Override
+        public int kostnad() {
+            return 2;
+        }
+
+        @Override
+        public int antallKrav() {
+            return 1;
+        }
+
+        @Override
+        public int[] kandidatar(final Egenskapsindeks indeks) {
+            return indeks.postering(navn, verdi);
+        }
+
+        @Override
+        public String toString() {
+            return "(" + navn + "=" + Uttrykksparser.escape(verdi) + ")";
+        }
+    }
+
+    record OmtrentLik(String navn, String verdi) implements Uttrykk {
+        @Override
+        public boolean match(final ServiceReference<?> reference) {
+            return verdi.equalsIgnoreCase(Uttrykk.verdi(reference, navn));
+        }
+
+        @Override
+        public int kostnad() {
+            return 3;
+        }
+
+        @Override
+        public int antallKrav() {
+            return 1;
+        }
+
+        @Override
+        public String toString() {
+            return "(" + navn + "~=" + Uttrykksparser.escape(verdi) + ")";
+        }
+    }
+
+    record Finst(String navn) implements Uttrykk {
+        @Override
+        public boolean match(final ServiceReference<?> reference) {
+            return Uttrykk.verdi(reference, navn) != null;
+        }
+
+        @Override
+        public int kostnad() {
+            return 1;
+        }
+
+        @Override
+        public int antallKrav() {
+            return 1;
+        }
+
+        @Override
+        public int[] kandidatar(final Egenskapsindeks indeks) {
+            return indeks.alle(navn);
+        }
+
+        @Override
+        public String toString() {
+            return "(" + navn + "=*)";
+        }
+    }
+
+    /**
+     * Krev at verdien matchar eit mønster der {@code *} står for null eller fleire vilkårlege teikn.
+     * <br>
+     * {@code delar} inneheld teksten mellom kvar {@code *}, første del må stå først i verdien og siste del sist.
+     */
+    record Moenster(String navn, String[] delar) implements Uttrykk {
+        @Override
+        public boolean match(final ServiceReference<?> reference) {
+            final String verdi = Uttrykk.verdi(reference, navn);
+            if (verdi == null) {
+                return false;
+            }
+            final String foerste = delar[0];
+            final String siste = delar[delar.length - 1];
+            if (!verdi.startsWith(foerste) || verdi.length() - foerste.length() < siste.length()) {
+                return false;
+            }
+            int fra = foerste.length();
+            for (int i = 1; i < delar.length - 1; i++) {
+                final int treff = verdi.indexOf(delar[i], fra);
+                if (treff < 0) {
+                    return false;
+                }
+                fra = treff + delar[i].length();
+            }
+            return verdi.length() - fra >= siste.length() && verdi.endsWith(siste);
+        }
+
+        @Override
+        public int kostnad() {
+            return 8;
+        }
+
+        @Override
+        public int antallKrav() {
+            return 1;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof Moenster other && navn.equals(other.navn) && Arrays.equals(delar, other.delar);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * navn.hashCode() + Arrays.hashCode(delar);
+        }
+
+        @Override
+        public String toString() {
+            return "(" + navn + "=" + String.join("*", Arrays.stream(delar).map(Uttrykksparser::escape).toList()) + ")";
+        }
+    }
+
+    /**
+     * Krev at verdien er større enn eller lik, eventuelt mindre enn eller lik, ein grenseverdi.
+     * <br>
+     * Dersom både verdien og grenseverdien er tal blir dei samanlikna numerisk, elles blir dei samanlikna som tekst.
+     * <br>
+     * Grenseverdien blir parsa ein gong når uttrykket blir oppretta. Verdiar som er heiltal blir samanlikna med ei
+     * grense som også er eit heiltal utan å opprette nokon {@link BigDecimal}, andre tal blir parsa ved kvar
+     * samanlikning.
+     */
+    record Samanlikning(String navn, boolean stoerreEnn, String grense, BigDecimal talgrense) implements Uttrykk {
+        private static final int MAKS_SIFFER_I_LONG = 18;
+
+        /**
+         * Parsar grenseverdien dersom {@code talgrense} ikkje er angitt.
+         */
+        public Samanlikning {
+            if (talgrense == null) {
+                talgrense = tal(grense);
+            }
+        }
+
+        Samanlikning(final String navn, final boolean stoerreEnn, final String grense) {
+            this(navn, stoerreEnn, grense, null);
+        }
+
+        @Override
+        public boolean match(final ServiceReference<?> reference) {
+            final String verdi = Uttrykk.verdi(reference, navn);
+            if (verdi == null) {
+                return false;
+            }
+            final int samanlikning = talgrense != null ? samanliknTal(verdi) : verdi.compareTo(grense);
+            return stoerreEnn ? samanlikning >= 0 : samanlikning <= 0;
+        }
+
+        /**
+         * Samanliknar verdien numerisk med grenseverdien dersom verdien er eit tal, elles som tekst.
+         */
+        private int samanliknTal(final String verdi) {
+            if (talgrense.scale() <= 0 && talgrense.precision() - talgrense.scale() <= MAKS_SIFFER_I_LONG) {
+                final int lengde = verdi.length();
+                final int start = lengde > 0 && (verdi.charAt(0) == '-' || verdi.charAt(0) == '+') ? 1 : 0;
+                if (lengde > start && lengde - start <= MAKS_SIFFER_I_LONG) {
+                    long heiltal = 0;
+                    int i = start;
+                    for (; i < lengde; i++) {
+                        final char c = verdi.charAt(i);
+                        if (c < '0' || c > '9') {
+                            break;
+                        }
+                        heiltal = heiltal * 10 + (c - '0');
+                    }
+                    if (i == lengde) {
+                        return Long.compare(verdi.charAt(0) == '-' ? -heiltal : heiltal, talgrense.longValue());
+                    }
+                }
+            }
+            final BigDecimal tal = tal(verdi);
+            return tal != null ? tal.compareTo(talgrense) : verdi.compareTo(grense);
+        }
+
+        @Override
+        public int kostnad() {
+            return 4;
+        }
+
+        @Override
+        public int antallKrav() {
+            return 1;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof Samanlikning other
+                    && navn.equals(other.navn)
+                    && stoerreEnn == other.stoerreEnn
+                    && grense.equals(other.grense);
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * navn.hashCode() + grense.hashCode()) * 2 + (stoerreEnn ? 1 : 0);
+        }
+
+        @Override
+        public String toString() {
+            return "(" + navn + (stoerreEnn ? ">=" : "<=") + Uttrykksparser.escape(grense) + ")";
+        }
+
+        /**
+         * Parsar teksten som eit desimaltal, eller returnerer {@code null} utan å kaste dersom teksten ikkje er eit
+         * tal.
+         */
+        static BigDecimal tal(final String tekst) {
+            final int lengde = tekst.length();
+            int i = lengde > 0 && (tekst.charAt(0) == '-' || tekst.charAt(0) == '+') ? 1 : 0;
+            boolean siffer = false;
+            boolean punktum = false;
+            for (; i < lengde; i++) {
+                final char c = tekst.charAt(i);
+                if (c >= '0' && c <= '9') {
+                    siffer = true;
+                } else if (c == '.' && !punktum) {
+                    punktum = true;
+                } else {
+                    return null;
+                }
+            }
+            return siffer ? new BigDecimal(tekst) : null;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import java.util.Arrays;
+import java.util.List;
+
+import no.spk.tidsserie.tjenesteregister.ServiceReference;
+
+/**
+ * Eit kompilert filter i LDAP-stil, parsa ein gong til eit {@link Uttrykk predikattre}.
+ * <br>
+ * Kvart nivå i treet sjekkar dei billigaste krava først. Ved oppslag i store øyeblikksbilde blir kandidatane i
+ * tillegg avgrensa via {@link Egenskapsindeks indeksen} så langt uttrykket tillet det, det vil seie for likskapskrav
+ * og krav om at ein egenskap finst, kombinert med og og eller.
+ *
+ * @see Uttrykksparser
+ */
+final class Uttrykksfilter implements IndeksertFilter {
+    private final Uttrykk rot;
+
+    private Uttrykksfilter(final Uttrykk rot) {
+        this.rot = rot;
+    }
+
+    /**
+     * Kompilerer filtera til eitt filter som krev at alle filtra er oppfylt.
+     * <br>
+     * Filter som startar med {@code (} blir parsa som LDAP-uttrykk, dei andre må vere på formatet
+     * <code>navn=verdi</code>.
+     */
+    static Uttrykksfilter kompiler(final String... filters) {
+        final List<Uttrykk> krav = Arrays.stream(filters)
+                .map(filter -> Uttrykksparser.erUttrykk(filter) ? Uttrykksparser.parse(filter) : lik(filter))
+                .distinct()
+                .toList();
+        return new Uttrykksfilter(krav.size() == 1 ? krav.get(0) : new Uttrykk.Og(krav));
+    }
+
+    static boolean inneheldUttrykk(final String... filters) {
+        for (final String filter : filters) {
+            if (filter != null && Uttrykksparser.erUttrykk(filter)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Uttrykk lik(final String filter) {
+        final Egenskap egenskap = Egenskap.parse(filter);
+        return new Uttrykk.Lik(egenskap.name(), egenskap.value());
+    }
+
+    @Override
+    public boolean matches(final ServiceReference<?> reference) {
+        return rot.match(reference);
+    }
+
+    @Override
+    public int[] kandidatar(final Egenskapsindeks indeks) {
+        return rot.kandidatar(indeks);
+    }
+
+    @Override
+    public int antallKrav() {
+        return rot.antallKrav();
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        return o instanceof Uttrykksfilter other && rot.equals(other.rot);
+    }
+
+    @Override
+    public int hashCode() {
+        return rot.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return rot.toString();
+    }
+}
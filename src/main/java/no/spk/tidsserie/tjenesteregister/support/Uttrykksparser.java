@@ -0,0 +1,197 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import no.spk.tidsserie.tjenesteregister.UgyldigSyntaxException;
+
+/**
+ * Parsar filteruttrykk i LDAP-stil, som definert i RFC 1960 og brukt av OSGi, til eit {@link Uttrykk predikattre}.
+ * <br>
+ * Støtta syntaks:
+ * <ul>
+ * <li><code>(&amp;(a=1)(b=2))</code> - alle krava må vere oppfylt</li>
+ * <li><code>(|(a=1)(b=2))</code> - minst eitt av krava må vere oppfylt</li>
+ * <li><code>(!(a=1))</code> - kravet må ikkje vere oppfylt</li>
+ * <li><code>(a=1)</code> - egenskapen må ha verdien</li>
+ * <li><code>(a~=abc)</code> - egenskapen må ha verdien, uavhengig av store og små bokstavar</li>
+ * <li><code>(a=*)</code> - egenskapen må finnast</li>
+ * <li><code>(a=ab*c*)</code> - egenskapen må matche mønsteret, der <code>*</code> står for vilkårleg tekst</li>
+ * <li><code>(a&gt;=2020)</code> og <code>(a&lt;=2020)</code> - egenskapen må vere større eller mindre enn eller lik
+ * verdien, numerisk dersom begge er tal og elles alfabetisk</li>
+ * </ul>
+ * Teikna <code>(</code>, <code>)</code>, <code>*</code> og <code>\</code> må escapast med <code>\</code> når dei
+ * skal inngå i ein verdi.
+ */
+final class Uttrykksparser {
+    private final String tekst;
+
+    private int posisjon;
+
+    private Uttrykksparser(final String tekst) {
+        this.tekst = tekst;
+    }
+
+    static boolean erUttrykk(final String filter) {
+        return filter.startsWith("(");
+    }
+
+    static Uttrykk parse(final String tekst) {
+        final Uttrykksparser parser = new Uttrykksparser(tekst);
+        final Uttrykk uttrykk = parser.filter();
+        parser.hoppOverMellomrom();
+        if (parser.posisjon != tekst.length()) {
+            throw parser.feil("uventa tekst etter slutten av filteret");
+        }
+        return uttrykk;
+    }
+
+    static String escape(final String verdi) {
+        final StringBuilder builder = new StringBuilder(verdi.length());
+        for (int i = 0; i < verdi.length(); i++) {
+            final char c = verdi.charAt(i);
+            if (c == '(' || c == ')' || c == '*' || c == '\\') {
+                builder.append('\\');
+            }
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+
+    private Uttrykk filter() {
+        hoppOverMellomrom();
+        forvent('(');
+        hoppOverMellomrom();
+        final Uttrykk uttrykk = switch (gjeldande()) {
+            case '&' -> {
+                posisjon++;
+                yield new Uttrykk.Og(liste());
+            }
+            case '|' -> {
+                posisjon++;
+                yield new Uttrykk.Eller(liste());
+            }
+            case '!' -> {
+                posisjon++;
+                yield new Uttrykk.Ikkje(filter());
+            }
+            default -> krav();
+        };
+        hoppOverMellomrom();
+        forvent(')');
+        return uttrykk;
+    }
+
+    private List<Uttrykk> liste() {
+        final List<Uttrykk> krav = new ArrayList<>();
+        hoppOverMellomrom();
+        while (posisjon < tekst.length() && tekst.charAt(posisjon) == '(') {
+            krav.add(filter());
+            hoppOverMellomrom();
+        }
+        if (krav.isEmpty()) {
+            throw feil("forventa eitt eller fleire filter");
+        }
+        return krav;
+    }
+
+    private Uttrykk krav() {
+        final int start = posisjon;
+        while (posisjon < tekst.length() && "=<>~()".indexOf(tekst.charAt(posisjon)) < 0) {
+            posisjon++;
+        }
+        final String navn = tekst.substring(start, posisjon).trim();
+        if (navn.isEmpty()) {
+            throw feil("forventa namnet på ein egenskap");
+        }
+        final char operator = gjeldande();
+        posisjon++;
+        if (operator != '=') {
+            forvent('=');
+        }
+        final List<String> delar = verdi();
+        return switch (operator) {
+            case '=' -> {
+                if (delar.size() == 1) {
+                    yield new Uttrykk.Lik(navn, delar.get(0));
+                }
+                if (delar.size() == 2 && delar.get(0).isEmpty() && delar.get(1).isEmpty()) {
+                    yield new Uttrykk.Finst(navn);
+                }
+                yield new Uttrykk.Moenster(navn, delar.toArray(String[]::new));
+            }
+            case '~' -> new Uttrykk.OmtrentLik(navn, utanMoenster(delar));
+            case '>' -> new Uttrykk.Samanlikning(navn, true, utanMoenster(delar));
+            case '<' -> new Uttrykk.Samanlikning(navn, false, utanMoenster(delar));
+            default -> throw feil("ukjent operator " + operator);
+        };
+    }
+
+    /**
+     * Les verdien fram til avsluttande parentes, delt opp på kvar uescapa {@code *}.
+     */
+    private List<String> verdi() {
+        final List<String> delar = new ArrayList<>();
+        StringBuilder del = new StringBuilder();
+        while (posisjon < tekst.length()) {
+            final char c = tekst.charAt(posisjon);
+            if (c == ')') {
+                break;
+            }
+            if (c == '(') {
+                throw feil("uescapa ( i verdien");
+            }
+            if (c == '\\') {
+                posisjon++;
+                if (posisjon == tekst.length()) {
+                    throw feil("\\ på slutten av filteret");
+                }
+                del.append(tekst.charAt(posisjon));
+            } else if (c == '*') {
+                delar.add(del.toString());
+                del = new StringBuilder();
+            } else {
+                del.append(c);
+            }
+            posisjon++;
+        }
+        delar.add(del.toString());
+        if (delar.size() == 1 && delar.get(0).isEmpty()) {
+            throw feil("forventa ein verdi");
+        }
+        return delar;
+    }
+
+    private String utanMoenster(final List<String> delar) {
+        if (delar.size() > 1) {
+            throw feil("* er berre tillate saman med =");
+        }
+        return delar.get(0);
+    }
+
+    private char gjeldande() {
+        if (posisjon >= tekst.length()) {
+            throw feil("uventa slutt på filteret");
+        }
+        return tekst.charAt(posisjon);
+    }
+
+    private void forvent(final char teikn) {
+        if (gjeldande() != teikn) {
+            throw feil("forventa " + teikn + ", fann " + tekst.charAt(posisjon));
+        }
+        posisjon++;
+    }
+
+    private void hoppOverMellomrom() {
+        while (posisjon < tekst.length() && Character.isWhitespace(tekst.charAt(posisjon))) {
+            posisjon++;
+        }
+    }
+
+    private UgyldigSyntaxException feil(final String melding) {
+        return new UgyldigSyntaxException(
+                tekst + " er ikkje eit syntaktisk gyldig filter, " + melding + " på posisjon " + posisjon + "."
+        );
+    }
+}
@@ -0,0 +1,31 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+/**
+ * Styrer kor mykje samtidige registreringar og avregistreringar i eit {@link SimpleServiceRegistry} blokkerer
+ * kvarandre.
+ * <br>
+ * Oppslag tar aldri nokon lås, uavhengig av modus.
+ *
+ * @see SimpleServiceRegistry#SimpleServiceRegistry(ServiceEventDispatcher, int, TypeSlotStorage, WriteConcurrency)
+ * @since 3.1.0
+ */
+public enum WriteConcurrency {
+    /**
+     * Alle skrivingar går via éin felles lås, uavhengig av tenestetype.
+     */
+    SINGLE_LOCK,
+    /**
+     * Skrivingar tar berre låsen for tenestetypane dei endrar, fordelt på eit fast antall låsar etter hashkoden til
+     * tenestetypen. Kvar lås har sitt eige løpenummer og si eiga oversikt over endringar i kva tenestetypar som har
+     * tenester, slik at skrivarar som endrar tenestetypar under ulike låsar ikkje skriv til noko felles.
+     * <br>
+     * Trackerar blir framleis oppdatert i samme rekkefølge som skrivingane per tenestetype, men ikkje på tvers av
+     * tenestetypar. Tenester med lik ranking under ulike tenestetypar blir ikkje nødvendigvis sortert etter
+     * registreringsrekkefølge i oppslag med {@link no.spk.tidsserie.tjenesteregister.LookupMode#ASSIGNABLE}.
+     * <br>
+     * Uavhengig av modus blir hendingar levert til lyttarane etter at låsane er sleppt, slik at hendingar frå
+     * samtidige skrivingar, også under samme tenestetype, kan bli levert i ei anna rekkefølge enn skrivingane skjedde
+     * i.
+     */
+    STRIPED
+}
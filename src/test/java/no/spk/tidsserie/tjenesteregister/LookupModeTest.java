@@ -0,0 +1,96 @@
+package no.spk.tidsserie.tjenesteregister;
+
+import static no.spk.tidsserie.tjenesteregister.Constants.SERVICE_RANKING;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import no.spk.tidsserie.tjenesteregister.support.InstrumentedServiceRegistry;
+import no.spk.tidsserie.tjenesteregister.support.SimpleServiceRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class LookupModeTest {
+    private SimpleServiceRegistry registry;
+
+    @BeforeEach
+    void _before() {
+        registry = new SimpleServiceRegistry();
+    }
+
+    @Test
+    void skal_slaa_saman_tenester_registrert_under_subtypar_etter_ranking() {
+        registry.registerService(CharSequence.class, "sekvens", SERVICE_RANKING + "=1");
+        registry.registerService(String.class, "streng", SERVICE_RANKING + "=2");
+        registry.registerService(StringBuilder.class, new StringBuilder("byggar"), SERVICE_RANKING + "=3");
+        registry.registerService(Integer.class, 1);
+
+        assertThat(tenester(registry, CharSequence.class, LookupMode.ASSIGNABLE))
+                .containsExactly("byggar", "streng", "sekvens");
+        assertThat(tenester(registry, CharSequence.class, LookupMode.EXACT))
+                .containsExactly("sekvens");
+        assertThat(registry.getServiceReference(Number.class, LookupMode.ASSIGNABLE, registry.compileFilter())
+                .flatMap(registry::getService))
+                .contains(1);
+    }
+
+    @Test
+    void skal_stoette_alle_oppslagsmodusar() {
+        for (final LookupMode modus : LookupMode.values()) {
+            assertThat(registry.supports(modus)).as(modus.name()).isTrue();
+            assertThat(registry.freeze().supports(modus)).as(modus.name()).isTrue();
+            assertThat(new InstrumentedServiceRegistry(registry).supports(modus)).as(modus.name()).isTrue();
+        }
+    }
+
+    @Test
+    void skal_finne_tenestetypar_som_blir_registrert_etter_foerste_oppslag() {
+        registry.registerService(String.class, "streng");
+        assertThat(tenester(registry, CharSequence.class, LookupMode.ASSIGNABLE)).containsExactly("streng");
+
+        final ServiceRegistration<StringBuilder> byggar = registry.registerService(
+                StringBuilder.class, new StringBuilder("byggar"), SERVICE_RANKING + "=1"
+        );
+        assertThat(tenester(registry, CharSequence.class, LookupMode.ASSIGNABLE)).containsExactly("byggar", "streng");
+
+        byggar.unregister();
+        registry.registerService(String.class, "streng2");
+        assertThat(tenester(registry, CharSequence.class, LookupMode.ASSIGNABLE)).containsExactly("streng", "streng2");
+    }
+
+    @Test
+    void skal_filtrere_tenestene_fraa_alle_subtypane() {
+        registry.registerService(String.class, "streng", "type=a");
+        registry.registerService(StringBuilder.class, new StringBuilder("byggar"), "type=b");
+
+        assertThat(registry.getServiceReferences(CharSequence.class, LookupMode.ASSIGNABLE, "type=b"))
+                .extracting(r -> registry.getService(r).map(Object::toString).orElseThrow())
+                .containsExactly("byggar");
+    }
+
+    @Test
+    void skal_finne_subtypar_fraa_registera_over_i_underregister_og_fryste_register() {
+        registry.registerService(String.class, "forelder");
+        final SimpleServiceRegistry barn = registry.createChild();
+        barn.registerService(StringBuilder.class, new StringBuilder("barn"));
+
+        assertThat(tenester(barn, CharSequence.class, LookupMode.ASSIGNABLE)).containsExactly("barn", "forelder");
+        assertThat(tenester(registry, CharSequence.class, LookupMode.ASSIGNABLE)).containsExactly("forelder");
+        assertThat(tenester(barn.freeze(), CharSequence.class, LookupMode.ASSIGNABLE)).containsExactly("barn", "forelder");
+
+        registry.registerService(StringBuffer.class, new StringBuffer("forelder2"));
+        assertThat(tenester(barn, CharSequence.class, LookupMode.ASSIGNABLE))
+                .containsExactly("barn", "forelder", "forelder2");
+    }
+
+    private static List<String> tenester(final ServiceRegistry registry, final Class<?> tjenestetype, final LookupMode modus) {
+        return registry.getServiceReferences(tjenestetype, modus)
+                .stream()
+                .map(r -> registry.getService(r).map(Object::toString).orElseThrow())
+                .toList();
+    }
+}
@@ -0,0 +1,140 @@
+package no.spk.tidsserie.tjenesteregister;
+
+import static no.spk.tidsserie.tjenesteregister.Constants.SERVICE_RANKING;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import no.spk.tidsserie.tjenesteregister.support.SimpleServiceRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class RegisterFactoryTest {
+    private SimpleServiceRegistry registry;
+
+    private AtomicInteger oppretta;
+
+    @BeforeEach
+    void _before() {
+        registry = new SimpleServiceRegistry();
+        oppretta = new AtomicInteger();
+    }
+
+    @Test
+    void skal_gjere_egenskapar_og_ranking_synlege_utan_aa_opprette_tenesta() {
+        registry.registerService(String.class, "EAGER", SERVICE_RANKING + "=1");
+        registry.registerFactory(String.class, this::opprett, SERVICE_RANKING + "=2", "type=lat");
+
+        final ServiceReference<String> beste = registry.getServiceReference(String.class).orElseThrow();
+
+        assertThat(beste.getProperty("type")).contains("lat");
+        assertThat(registry.getServiceReferences(String.class, "type=lat")).hasSize(1);
+        assertThat(oppretta).hasValue(0);
+
+        assertThat(registry.getService(beste)).contains("LAT");
+        assertThat(registry.getService(beste)).contains("LAT");
+        assertThat(oppretta).hasValue(1);
+    }
+
+    @Test
+    void skal_ikkje_opprette_tenesta_for_at_trackeren_blir_bedt_om_ho() {
+        final ServiceTracker<String> tracker = registry.track(String.class);
+        registry.registerFactory(String.class, this::opprett);
+
+        assertThat(tracker.getServiceReferences()).hasSize(1);
+        assertThat(oppretta).hasValue(0);
+
+        assertThat(tracker.getService()).contains("LAT");
+        assertThat(tracker.getServices()).containsExactly("LAT");
+        assertThat(oppretta).hasValue(1);
+    }
+
+    @Test
+    void skal_opprette_tenesta_maksimalt_ein_gong_ved_samtidige_kall() throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        registry.registerFactory(String.class, () -> {
+            oppretta.incrementAndGet();
+            try {
+                TimeUnit.MILLISECONDS.sleep(20);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "LAT";
+        });
+        final ServiceReference<String> referanse = registry.getServiceReference(String.class).orElseThrow();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<String>> resultat = IntStream.range(0, 8)
+                    .mapToObj(i -> executor.submit(() -> {
+                        start.await();
+                        return registry.getService(referanse).orElseThrow();
+                    }))
+                    .toList();
+            start.countDown();
+            for (final Future<String> r : resultat) {
+                assertThat(r.get(5, TimeUnit.SECONDS)).isEqualTo("LAT");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(oppretta).hasValue(1);
+    }
+
+    @Test
+    void skal_proeve_paa_nytt_dersom_fabrikken_feilar() {
+        registry.registerFactory(String.class, () -> {
+            if (oppretta.incrementAndGet() == 1) {
+                throw new IllegalStateException("første forsøk feilar");
+            }
+            return "LAT";
+        });
+        final ServiceReference<String> referanse = registry.getServiceReference(String.class).orElseThrow();
+
+        assertThatThrownBy(() -> registry.getService(referanse)).hasMessage("første forsøk feilar");
+        assertThat(registry.getService(referanse)).contains("LAT");
+    }
+
+    @Test
+    void skal_feile_dersom_fabrikken_returnerer_null() {
+        registry.registerFactory(String.class, () -> null);
+        final ServiceReference<String> referanse = registry.getServiceReference(String.class).orElseThrow();
+
+        assertThatThrownBy(() -> registry.getService(referanse)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void skal_opprette_tenestene_i_bakgrunnen_ved_foerehandsoppretting() throws Exception {
+        registry.registerFactory(String.class, this::opprett);
+        registry.registerFactory(String.class, this::opprett);
+        registry.registerService(String.class, "EAGER");
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            registry.prewarm(executor).get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(oppretta).hasValue(2);
+        registry.getServiceReferences(String.class).forEach(registry::getService);
+        assertThat(oppretta).hasValue(2);
+    }
+
+    private String opprett() {
+        oppretta.incrementAndGet();
+        return "LAT";
+    }
+}
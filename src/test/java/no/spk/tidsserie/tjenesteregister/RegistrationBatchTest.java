@@ -0,0 +1,125 @@
+package no.spk.tidsserie.tjenesteregister;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import no.spk.tidsserie.tjenesteregister.support.SimpleServiceRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class RegistrationBatchTest {
+    private SimpleServiceRegistry registry;
+
+    @BeforeEach
+    void _before() {
+        registry = new SimpleServiceRegistry();
+    }
+
+    @Test
+    void skal_registrere_alle_tenestene_i_bolken_sortert_etter_ranking() {
+        registry.registerService(Integer.class, 0, ranking(5));
+
+        final RegistrationGroup group = registry.batch(b -> {
+            b.register(Integer.class, 1, ranking(1));
+            b.register(Integer.class, 10, ranking(10));
+            b.register(String.class, "A");
+            b.register(Integer.class, 5, ranking(5));
+        });
+
+        assertThat(group.getRegistrations()).hasSize(4);
+        assertThat(tenester(Integer.class)).containsExactly(10, 0, 5, 1);
+        assertThat(tenester(String.class)).containsExactly("A");
+    }
+
+    @Test
+    void skal_avregistrere_alle_tenestene_i_gruppa() {
+        final ServiceRegistration<Integer> utanfor = registry.registerService(Integer.class, 0);
+        final RegistrationGroup group = registry.batch(b -> IntStream.range(1, 50).forEach(i -> b.register(Integer.class, i)));
+        group.getRegistrations().get(0).unregister();
+
+        group.unregisterAll();
+        group.unregisterAll();
+
+        assertThat(registry.getServiceReferences(Integer.class)).containsExactly(utanfor.getReference());
+    }
+
+    @Test
+    void skal_ikkje_registrere_nokon_tenester_dersom_bolken_feilar() {
+        assertThatThrownBy(
+                () -> registry.batch(b -> {
+                    b.register(String.class, "A");
+                    b.register(String.class, "B", "ugyldig egenskap");
+                })
+        )
+                .isInstanceOf(UgyldigSyntaxException.class);
+
+        assertThat(registry.getServiceReferences(String.class)).isEmpty();
+    }
+
+    @Test
+    void skal_varsle_kvar_lyttar_med_ein_bolk_per_tenestetype() {
+        final List<List<ServiceEvent<Integer>>> bolkar = new ArrayList<>();
+        registry.addServiceListener(Integer.class, registry.compileFilter(), new ServiceListener<>() {
+            @Override
+            public void serviceChanged(final ServiceEvent<Integer> event) {
+                bolkar.add(List.of(event));
+            }
+
+            @Override
+            public void servicesChanged(final List<ServiceEvent<Integer>> events) {
+                bolkar.add(List.copyOf(events));
+            }
+        });
+
+        final RegistrationGroup group = registry.batch(b -> IntStream.range(0, 500).forEach(i -> b.register(Integer.class, i)));
+        group.unregisterAll();
+
+        assertThat(bolkar).hasSize(2);
+        assertThat(bolkar.get(0)).hasSize(500).allMatch(e -> e.getType() == ServiceEvent.Type.REGISTERED);
+        assertThat(bolkar.get(1)).hasSize(500).allMatch(e -> e.getType() == ServiceEvent.Type.UNREGISTERED);
+    }
+
+    @Test
+    void skal_oppdatere_trackerar_med_heile_bolken() {
+        try (final ServiceTracker<Integer> tracker = registry.track(Integer.class, "paritet=par")) {
+            final RegistrationGroup group = registry.batch(
+                    b -> IntStream.range(0, 10).forEach(i -> b.register(Integer.class, i, "paritet=" + (i % 2 == 0 ? "par" : "odde")))
+            );
+            assertThat(tracker.getServices()).containsExactly(0, 2, 4, 6, 8);
+
+            group.unregisterAll();
+            assertThat(tracker.getServices()).isEmpty();
+        }
+    }
+
+    @Test
+    void skal_ikkje_godta_nye_registreringar_etter_at_bolken_er_publisert() {
+        final AtomicReference<RegistrationBatch> bolk = new AtomicReference<>();
+        registry.batch(bolk::set);
+
+        assertThatThrownBy(() -> bolk.get().register(String.class, "A"))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private <T> List<T> tenester(final Class<T> type) {
+        return registry
+                .getServiceReferences(type)
+                .stream()
+                .map(registry::getService)
+                .map(o -> o.orElseThrow())
+                .toList();
+    }
+
+    private static String ranking(final int ranking) {
+        return Constants.SERVICE_RANKING + "=" + ranking;
+    }
+}
@@ -0,0 +1,127 @@
+package no.spk.tidsserie.tjenesteregister;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import no.spk.tidsserie.tjenesteregister.support.ServiceEventDispatcher;
+import no.spk.tidsserie.tjenesteregister.support.SimpleServiceRegistry;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class ServiceListenerTest {
+    private final List<Runnable> ventande = new ArrayList<>();
+
+    @Test
+    void skal_varsle_lyttarar_om_registrering_og_avregistrering() {
+        final SimpleServiceRegistry registry = new SimpleServiceRegistry();
+        final List<String> hendingar = new ArrayList<>();
+        registry.addServiceListener(String.class, registry.compileFilter(), e -> hendingar.add(e.getType() + " " + e.getReference().getProperty("navn").orElse("?")));
+
+        final ServiceRegistration<String> registration = registry.registerService(String.class, "A", "navn=a");
+        registration.unregister();
+        registration.unregister();
+
+        assertThat(hendingar).containsExactly("REGISTERED a", "UNREGISTERED a");
+    }
+
+    @Test
+    void skal_kun_varsle_lyttarar_med_filter_som_matchar_tenesta() {
+        final SimpleServiceRegistry registry = new SimpleServiceRegistry();
+        final List<ServiceEvent<String>> premie = new ArrayList<>();
+        final List<ServiceEvent<String>> faktura = new ArrayList<>();
+        registry.addServiceListener(String.class, registry.compileFilter("type=premie"), premie::add);
+        registry.addServiceListener(String.class, registry.compileFilter("type=faktura"), faktura::add);
+
+        registry.registerService(String.class, "P", "type=premie");
+        registry.registerService(Object.class, "P", "type=premie");
+
+        assertThat(premie).hasSize(1);
+        assertThat(faktura).isEmpty();
+    }
+
+    @Test
+    void skal_kun_varsle_lyttarar_med_filter_som_matchar_blant_mange_filter() {
+        final SimpleServiceRegistry registry = new SimpleServiceRegistry();
+        final List<String> hendingar = new ArrayList<>();
+        IntStream.range(0, 100).forEach(i -> registry.addServiceListener(
+                String.class,
+                registry.compileFilter("partisjon=" + i),
+                e -> hendingar.add("partisjon " + i)
+        ));
+        registry.addServiceListener(String.class, registry.compileFilter("partisjon=7", "type=premie"), e -> hendingar.add("premie 7"));
+        registry.addServiceListener(String.class, registry.compileFilter("(partisjon=*)"), e -> hendingar.add("uttrykk"));
+        final ServiceListener<String> fjerna = e -> hendingar.add("fjerna");
+        registry.addServiceListener(String.class, registry.compileFilter("partisjon=7"), fjerna);
+        registry.removeServiceListener(fjerna);
+
+        final ServiceRegistration<String> registrering = registry.registerService(String.class, "A", "partisjon=7", "type=premie");
+        assertThat(hendingar).containsExactlyInAnyOrder("partisjon 7", "premie 7", "uttrykk");
+
+        hendingar.clear();
+        registrering.setProperties("partisjon=8");
+        assertThat(hendingar).containsExactlyInAnyOrder("partisjon 7", "partisjon 8", "premie 7", "uttrykk");
+    }
+
+    @Test
+    void skal_ikkje_varsle_lyttarar_som_er_fjerna() {
+        final SimpleServiceRegistry registry = new SimpleServiceRegistry();
+        final List<ServiceEvent<String>> hendingar = new ArrayList<>();
+        final ServiceListener<String> listener = hendingar::add;
+        registry.addServiceListener(String.class, registry.compileFilter(), listener);
+        registry.removeServiceListener(listener);
+
+        registry.registerService(String.class, "A");
+
+        assertThat(hendingar).isEmpty();
+    }
+
+    @Test
+    void skal_varsle_alle_lyttarar_sjoelv_om_ein_av_dei_feilar() {
+        final SimpleServiceRegistry registry = new SimpleServiceRegistry();
+        final List<ServiceEvent<String>> hendingar = new ArrayList<>();
+        registry.addServiceListener(String.class, registry.compileFilter(), e -> {
+            throw new IllegalStateException("BOOM");
+        });
+        registry.addServiceListener(String.class, registry.compileFilter(), hendingar::add);
+
+        assertThatThrownBy(() -> registry.registerService(String.class, "A"))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(hendingar).hasSize(1);
+        assertThat(registry.getServiceReferences(String.class)).hasSize(1);
+    }
+
+    @Test
+    void skal_slaa_saman_hendingar_til_bolkar_ved_levering_via_executor() {
+        final SimpleServiceRegistry registry = new SimpleServiceRegistry(ServiceEventDispatcher.batched(ventande::add));
+        final List<List<ServiceEvent<Integer>>> bolkar = new ArrayList<>();
+        registry.addServiceListener(Integer.class, registry.compileFilter(), new ServiceListener<>() {
+            @Override
+            public void serviceChanged(final ServiceEvent<Integer> event) {
+                bolkar.add(List.of(event));
+            }
+
+            @Override
+            public void servicesChanged(final List<ServiceEvent<Integer>> events) {
+                bolkar.add(List.copyOf(events));
+            }
+        });
+
+        IntStream.range(0, 500).forEach(i -> registry.registerService(Integer.class, i));
+
+        assertThat(bolkar).as("ingen hendingar skal leverast på tråden som registrerer tenestene").isEmpty();
+        assertThat(ventande).hasSize(1);
+
+        ventande.remove(0).run();
+
+        assertThat(bolkar).hasSize(1);
+        assertThat(bolkar.get(0)).hasSize(500);
+        assertThat(ventande).isEmpty();
+    }
+}
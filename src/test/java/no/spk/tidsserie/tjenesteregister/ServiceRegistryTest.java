@@ -9,6 +9,7 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
@@ -95,6 +96,62 @@ class ServiceRegistryTest {
         }
     }
 
+    /**
+     * Verifiserer at oppslag som køyrer samtidig med registreringar og avregistreringar under samme tenestetype
+     * aldri feilar og aldri observerer ei halvveis oppdatert eller usortert liste med tenester.
+     */
+    @Test
+    void skal_ikkje_feile_ved_samtidige_oppslag_og_registreringar_under_samme_tjenestetype() throws InterruptedException {
+        final int availableProcessors = Math.max(2, Runtime.getRuntime().availableProcessors());
+        final ExecutorService executor = Executors.newFixedThreadPool(availableProcessors);
+
+        try {
+            final long maximumTime = 200;
+
+            final CountDownLatch ready = new CountDownLatch(1);
+            final Callable<Long> writer = () -> {
+                long antall = 0L;
+                ready.await();
+                final long start = System.currentTimeMillis();
+                while (System.currentTimeMillis() - start < maximumTime) {
+                    registry.registerService(Integer.class, (int) antall % 100, ranking((int) antall % 100)).unregister();
+                    antall++;
+                }
+                return antall;
+            };
+            final Callable<Long> reader = () -> {
+                long verdi = 0L;
+                ready.await();
+                final long start = System.currentTimeMillis();
+                while (System.currentTimeMillis() - start < maximumTime) {
+                    final List<Integer> rankingar = registry
+                            .getServiceReferences(Integer.class)
+                            .stream()
+                            .map(r -> r.getProperty(Constants.SERVICE_RANKING).map(Integer::parseInt).orElseThrow())
+                            .collect(toList());
+                    assertThat(rankingar).isSortedAccordingTo(Comparator.reverseOrder());
+                    verdi += rankingar.size();
+                }
+                return verdi;
+            };
+            final List<Future<Long>> futures = IntStream
+                    .rangeClosed(1, availableProcessors)
+                    .mapToObj(i -> i % 2 == 0 ? writer : reader)
+                    .map(executor::submit)
+                    .collect(toList());
+            ready.countDown();
+
+            for (final Future<?> future : futures) {
+                assertThatCode(future::get)
+                        .as("bakgrunnstrådane skal aldri feile på samtidige oppslag og registreringar")
+                        .doesNotThrowAnyException();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(registry.getServiceReferences(Integer.class)).isEmpty();
+    }
+
     @Test
     void skal_faa_tilbake_samme_instans_som_vart_registrert() {
         final String expected = "I AM afa";
@@ -202,6 +259,31 @@ class ServiceRegistryTest {
                 );
     }
 
+    @Test
+    void skal_lokalisere_den_foerst_registrerte_tenesta_som_standardteneste_ved_lik_ranking() {
+        registry.registerService(String.class, "FIRST", ranking(5));
+        registry.registerService(String.class, "SECOND", ranking(5));
+        registry.registerService(String.class, "LOWER", ranking(-1));
+        registry.registerService(String.class, "THIRD", ranking(5));
+
+        assertStandardtenesteForType(String.class).isEqualTo(of("FIRST"));
+        assertThat(
+                registry
+                        .getServiceReferences(String.class)
+                        .stream()
+                        .map(registry::getService)
+                        .flatMap(Optionals::stream)
+                        .collect(toList())
+        )
+                .containsExactly("FIRST", "SECOND", "THIRD", "LOWER");
+    }
+
+    @Test
+    void skal_ikkje_godta_ranking_som_ikkje_er_eit_heiltall_ved_registrering() {
+        assertThrows(UgyldigSyntaxException.class,
+                () -> registry.registerService(String.class, "NaN", Constants.SERVICE_RANKING + "=høg"));
+    }
+
     @Test
     void skal_faa_ut_alle_tenester_for_typen_viss_fleire_er_registrert() {
         registry.registerService(String.class, "1");
@@ -287,6 +369,73 @@ class ServiceRegistryTest {
         assertThat(registry.getServiceReference(Integer.class, new String[0])).isPresent();
     }
 
+    @Test
+    void skal_kunne_gjenbruke_kompilerte_filter_ved_oppslag() {
+        final String expected = "I AM HEROES";
+        registry.registerService(String.class, "I'M NO HERO", "a=b", "c=x", ranking(100));
+        registry.registerService(String.class, expected, "a=b", "c=d");
+        registry.registerService(String.class, "HEROES, WHERE?", "a=y", "c=d");
+
+        final ServiceFilter filter = registry.compileFilter("a=b", "c=d");
+
+        assertThat(registry.getServiceReferences(String.class, filter)).hasSize(1);
+        assertThat(registry.getServiceReference(String.class, filter).flatMap(registry::getService))
+                .isEqualTo(of(expected));
+    }
+
+    @Test
+    void skal_behandle_kompilerte_filter_med_samme_krav_som_like() {
+        assertThat(registry.compileFilter("a=b", "c=d", "a=b"))
+                .isEqualTo(registry.compileFilter("c=d", "a=b"))
+                .hasSameHashCodeAs(registry.compileFilter("c=d", "a=b"))
+                .isNotEqualTo(registry.compileFilter("c=d"));
+    }
+
+    @Test
+    void skal_feile_paa_ugyldige_filter_ved_kompilering() {
+        assertThrows(UgyldigSyntaxException.class,
+                () -> registry.compileFilter("a=b", "yada yada"));
+    }
+
+    @Test
+    void skal_stoette_eigendefinerte_filter_ved_oppslag() {
+        registry.registerService(Integer.class, 1, "paritet=odde");
+        registry.registerService(Integer.class, 2, "paritet=par");
+
+        final ServiceFilter filter = r -> r.getProperty("paritet").filter("par"::equals).isPresent();
+
+        assertThat(registry.getServiceReference(Integer.class, filter).flatMap(registry::getService))
+                .isEqualTo(of(2));
+    }
+
+    @Test
+    void skal_finne_alle_tenester_som_matchar_filter_i_rankingrekkefoelge_blant_mange_registrerte_tenester() {
+        IntStream.range(0, 500).forEach(
+                i -> registry.registerService(
+                        Integer.class,
+                        i,
+                        "rest=" + i % 7,
+                        "paritet=" + (i % 2 == 0 ? "par" : "odde"),
+                        ranking(i % 13)
+                )
+        );
+
+        final List<ServiceReference<Integer>> forventa = registry
+                .getServiceReferences(Integer.class)
+                .stream()
+                .filter(r -> r.getProperty("rest").filter("3"::equals).isPresent())
+                .filter(r -> r.getProperty("paritet").filter("odde"::equals).isPresent())
+                .collect(toList());
+
+        assertThat(registry.getServiceReferences(Integer.class, "paritet=odde", "rest=3"))
+                .isNotEmpty()
+                .containsExactlyElementsOf(forventa);
+        assertThat(registry.getServiceReference(Integer.class, "rest=3", "paritet=odde"))
+                .isEqualTo(of(forventa.get(0)));
+        assertThat(registry.getServiceReferences(Integer.class, "rest=7")).isEmpty();
+        assertThat(registry.getServiceReferences(Integer.class, "ukjent=3")).isEmpty();
+    }
+
     private static String ranking(final int ranking) {
         return Constants.SERVICE_RANKING + "=" + ranking;
     }
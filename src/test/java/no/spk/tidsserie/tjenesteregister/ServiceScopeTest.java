@@ -0,0 +1,101 @@
+package no.spk.tidsserie.tjenesteregister;
+
+import static no.spk.tidsserie.tjenesteregister.Constants.SERVICE_SCOPE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import no.spk.tidsserie.tjenesteregister.support.SimpleServiceRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class ServiceScopeTest {
+    private SimpleServiceRegistry registry;
+
+    private AtomicInteger oppretta;
+
+    @BeforeEach
+    void _before() {
+        registry = new SimpleServiceRegistry();
+        oppretta = new AtomicInteger();
+    }
+
+    @Test
+    void skal_registrere_scopet_som_egenskap() {
+        registry.registerFactory(Teljar.class, ServiceScope.PER_THREAD, this::opprett, "type=traad");
+        registry.registerFactory(Teljar.class, ServiceScope.PROTOTYPE, this::opprett, "type=prototype");
+        registry.registerFactory(Teljar.class, ServiceScope.SINGLETON, this::opprett, "type=singleton");
+
+        assertThat(registry.getServiceReferences(Teljar.class, SERVICE_SCOPE + "=thread")).hasSize(1);
+        assertThat(registry.getServiceReferences(Teljar.class, SERVICE_SCOPE + "=prototype")).hasSize(1);
+        assertThat(registry.getServiceReferences(Teljar.class, SERVICE_SCOPE + "=singleton")).hasSize(1);
+        assertThat(oppretta).hasValue(0);
+    }
+
+    @Test
+    void skal_gi_kvar_traad_sin_eigen_instans_ved_per_traad_scope() throws Exception {
+        registry.registerFactory(Teljar.class, ServiceScope.PER_THREAD, this::opprett);
+        final ServiceReference<Teljar> referanse = registry.getServiceReference(Teljar.class).orElseThrow();
+
+        final Teljar denne = registry.getService(referanse).orElseThrow();
+        assertThat(registry.getService(referanse)).containsSame(denne);
+
+        try (final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            final Teljar annan = executor.submit(() -> registry.getService(referanse).orElseThrow()).get();
+            assertThat(annan).isNotSameAs(denne);
+        }
+        assertThat(oppretta).hasValue(2);
+    }
+
+    @Test
+    void skal_opprette_ny_instans_for_kvart_oppslag_ved_prototype_scope() {
+        registry.registerFactory(Teljar.class, ServiceScope.PROTOTYPE, this::opprett);
+        final ServiceReference<Teljar> referanse = registry.getServiceReference(Teljar.class).orElseThrow();
+
+        final Teljar foerste = registry.getService(referanse).orElseThrow();
+        final Teljar andre = registry.getService(referanse).orElseThrow();
+
+        assertThat(andre).isNotSameAs(foerste);
+        assertThat(oppretta).hasValue(2);
+    }
+
+    @Test
+    void skal_ikkje_dele_instansar_mellom_traadar_via_trackeren() throws Exception {
+        final ServiceTracker<Teljar> tracker = registry.track(Teljar.class);
+        registry.registerFactory(Teljar.class, ServiceScope.PER_THREAD, this::opprett);
+
+        final Teljar denne = tracker.getService().orElseThrow();
+        assertThat(tracker.getService()).containsSame(denne);
+        assertThat(tracker.getServices()).containsExactly(denne);
+
+        try (final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            final Teljar annan = executor.submit(() -> tracker.getService().orElseThrow()).get();
+            assertThat(annan).isNotSameAs(denne);
+        }
+    }
+
+    @Test
+    void skal_feile_dersom_fabrikken_returnerer_null() {
+        registry.registerFactory(Teljar.class, ServiceScope.PROTOTYPE, () -> null);
+        final ServiceReference<Teljar> referanse = registry.getServiceReference(Teljar.class).orElseThrow();
+
+        assertThatThrownBy(() -> registry.getService(referanse))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("returnerte null");
+    }
+
+    private Teljar opprett() {
+        oppretta.incrementAndGet();
+        return new Teljar();
+    }
+
+    static final class Teljar {
+    }
+}
@@ -0,0 +1,85 @@
+package no.spk.tidsserie.tjenesteregister;
+
+import static java.util.Optional.of;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import no.spk.tidsserie.tjenesteregister.support.SimpleServiceRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class ServiceTrackerTest {
+    private SimpleServiceRegistry registry;
+
+    @BeforeEach
+    void _before() {
+        registry = new SimpleServiceRegistry();
+    }
+
+    @Test
+    void skal_inkludere_tenester_som_var_registrert_foer_trackeren_vart_oppretta() {
+        registry.registerService(String.class, "A", "type=premie");
+        registry.registerService(String.class, "B", "type=faktura");
+
+        try (final ServiceTracker<String> tracker = registry.track(String.class, "type=premie")) {
+            assertThat(tracker.getServices()).containsExactly("A");
+            assertThat(tracker.getService()).isEqualTo(of("A"));
+            assertThat(tracker.getServiceReferences()).hasSize(1);
+        }
+    }
+
+    @Test
+    void skal_oppdatere_trackeren_ved_registrering_og_avregistrering() {
+        try (final ServiceTracker<String> tracker = registry.track(String.class)) {
+            assertThat(tracker.getService()).isEmpty();
+
+            final ServiceRegistration<String> lav = registry.registerService(String.class, "LAV", ranking(1));
+            final ServiceRegistration<String> hoeg = registry.registerService(String.class, "HØG", ranking(10));
+            assertThat(tracker.getServices()).containsExactly("HØG", "LAV");
+            assertThat(tracker.getService()).isEqualTo(of("HØG"));
+
+            hoeg.unregister();
+            assertThat(tracker.getServices()).containsExactly("LAV");
+
+            lav.unregister();
+            assertThat(tracker.getServices()).isEmpty();
+            assertThat(tracker.getService()).isEmpty();
+        }
+    }
+
+    @Test
+    void skal_ignorere_tenester_som_ikkje_matchar_filteret() {
+        try (final ServiceTracker<String> tracker = registry.track(String.class, "type=premie")) {
+            registry.registerService(String.class, "FAKTURA", "type=faktura");
+            registry.registerService(Object.class, "PREMIE", "type=premie");
+
+            assertThat(tracker.getServices()).isEmpty();
+        }
+    }
+
+    @Test
+    void skal_ikkje_oppdatere_trackeren_etter_at_den_er_lukka() {
+        final ServiceTracker<String> tracker = registry.track(String.class);
+        registry.registerService(String.class, "A");
+        tracker.close();
+
+        registry.registerService(String.class, "B");
+
+        assertThat(tracker.getServices()).isEmpty();
+    }
+
+    @Test
+    void skal_returnere_samme_liste_mellom_endringar() {
+        registry.registerService(String.class, "A");
+        try (final ServiceTracker<String> tracker = registry.track(String.class)) {
+            assertThat(tracker.getServices()).isSameAs(tracker.getServices());
+        }
+    }
+
+    private static String ranking(final int ranking) {
+        return Constants.SERVICE_RANKING + "=" + ranking;
+    }
+}
@@ -0,0 +1,164 @@
+package no.spk.tidsserie.tjenesteregister;
+
+import static no.spk.tidsserie.tjenesteregister.Constants.SERVICE_RANKING;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import no.spk.tidsserie.tjenesteregister.support.FrozenServiceRegistry;
+import no.spk.tidsserie.tjenesteregister.support.SimpleServiceRegistry;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class SetPropertiesTest {
+    private final SimpleServiceRegistry registry = new SimpleServiceRegistry();
+
+    @Test
+    void skal_rangere_tenesta_paa_nytt_utan_aa_avregistrere_den() {
+        final ServiceRegistration<String> a = registry.registerService(String.class, "A", SERVICE_RANKING + "=1");
+        registry.registerService(String.class, "B", SERVICE_RANKING + "=2");
+        final ServiceReference<String> foer = a.getReference();
+
+        a.setProperties(SERVICE_RANKING + "=3", "navn=a");
+
+        assertThat(registry.getServiceOrNull(String.class)).isEqualTo("A");
+        assertThat(registry.getServiceReferences(String.class)).extracting(r -> registry.getService(r).orElseThrow()).containsExactly("A", "B");
+        assertThat(a.getReference().getProperty("navn")).hasValue("a");
+        assertThat(registry.getService(foer)).hasValue("A");
+        assertThat(foer.getProperty("navn")).isEmpty();
+    }
+
+    @Test
+    void skal_flytte_tenesta_forbi_fleire_andre_i_begge_retningar() {
+        final List<ServiceRegistration<String>> registreringar = new ArrayList<>();
+        for (final String navn : List.of("A", "B", "C", "D", "E")) {
+            registreringar.add(registry.registerService(String.class, navn, SERVICE_RANKING + "=" + (10 - registreringar.size())));
+        }
+
+        registreringar.get(1).setProperties(SERVICE_RANKING + "=5");
+        assertThat(alleStrengar()).containsExactly("A", "C", "D", "E", "B");
+
+        registreringar.get(1).setProperties(SERVICE_RANKING + "=11");
+        assertThat(alleStrengar()).containsExactly("B", "A", "C", "D", "E");
+
+        registreringar.get(3).setProperties(SERVICE_RANKING + "=7", "navn=d");
+        assertThat(alleStrengar()).containsExactly("B", "A", "C", "D", "E");
+
+        registreringar.get(4).setProperties(SERVICE_RANKING + "=9");
+        assertThat(alleStrengar()).containsExactly("B", "A", "E", "C", "D");
+    }
+
+    @Test
+    void skal_oppdatere_egenskapsindeksen() {
+        final List<ServiceRegistration<Integer>> registreringar = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            registreringar.add(registry.registerService(Integer.class, i, "gruppe=" + i % 2));
+        }
+        assertThat(registry.getServiceReferences(Integer.class, "gruppe=0")).hasSize(10);
+
+        registreringar.get(0).setProperties("gruppe=1");
+
+        assertThat(registry.getServiceReferences(Integer.class, "gruppe=0")).hasSize(9);
+        assertThat(registry.getServiceReferences(Integer.class, "gruppe=1")).hasSize(11);
+        assertThat(registry.countServices(Integer.class)).isEqualTo(20);
+    }
+
+    @Test
+    void skal_varsle_lyttarar_og_trackerar_om_endringa() {
+        final List<String> hendingar = new ArrayList<>();
+        registry.addServiceListener(
+                String.class,
+                registry.compileFilter("type=premie"),
+                e -> hendingar.add(e.getType() + " " + e.getReference().getProperty("type").orElse("?"))
+        );
+        final ServiceTracker<String> premie = registry.track(String.class, "type=premie");
+        final ServiceTracker<String> alle = registry.track(String.class);
+        final ServiceRegistration<String> a = registry.registerService(String.class, "A", "type=premie");
+
+        a.setProperties("type=faktura");
+        assertThat(premie.getServices()).isEmpty();
+        assertThat(alle.getServices()).containsExactly("A");
+
+        a.setProperties("type=premie", SERVICE_RANKING + "=5");
+        assertThat(premie.getServices()).containsExactly("A");
+        assertThat(premie.getServiceReferences().get(0).getProperty(SERVICE_RANKING)).hasValue("5");
+
+        a.unregister();
+        assertThat(alle.getServices()).isEmpty();
+        assertThat(hendingar).containsExactly("REGISTERED premie", "MODIFIED faktura", "MODIFIED premie", "UNREGISTERED premie");
+    }
+
+    @Test
+    void skal_synast_i_underregister_men_ikkje_i_fryste_register() {
+        final ServiceRegistration<String> a = registry.registerService(String.class, "A", "navn=gammal");
+        final SimpleServiceRegistry barn = registry.createChild();
+        final ServiceTracker<String> tracker = barn.track(String.class, "navn=ny");
+        final FrozenServiceRegistry fryst = registry.freeze();
+
+        a.setProperties("navn=ny");
+
+        assertThat(barn.getServiceReferences(String.class, "navn=ny")).hasSize(1);
+        assertThat(tracker.getServices()).containsExactly("A");
+        assertThat(fryst.getServiceReferences(String.class, "navn=gammal")).hasSize(1);
+    }
+
+    @Test
+    void skal_behalde_instansen_til_tenester_fraa_fabrikkar() {
+        final AtomicInteger oppretta = new AtomicInteger();
+        final ServiceRegistration<String> a = registry.registerFactory(
+                String.class,
+                () -> "A" + oppretta.incrementAndGet()
+        );
+        final ServiceReference<String> foer = a.getReference();
+        assertThat(registry.getService(foer)).hasValue("A1");
+
+        a.setProperties("navn=a");
+
+        assertThat(registry.getServiceOrNull(String.class)).isEqualTo("A1");
+        assertThat(oppretta).hasValue(1);
+    }
+
+    @Test
+    void skal_behalde_scopet_til_tenesta() {
+        final ServiceRegistration<Object> a = registry.registerFactory(Object.class, ServiceScope.PROTOTYPE, Object::new);
+
+        a.setProperties("navn=a");
+
+        assertThat(a.getReference().getProperty(Constants.SERVICE_SCOPE)).hasValue("prototype");
+        assertThat(registry.getServiceOrNull(Object.class)).isNotSameAs(registry.getServiceOrNull(Object.class));
+    }
+
+    @Test
+    void skal_feile_utan_endringar_dersom_egenskapane_er_ugyldige() {
+        final ServiceRegistration<String> a = registry.registerService(String.class, "A", "navn=a");
+
+        assertThatThrownBy(() -> a.setProperties(SERVICE_RANKING + "=hoeg"))
+                .isInstanceOf(UgyldigSyntaxException.class);
+        assertThatThrownBy(() -> a.setProperties("utan-verdi"))
+                .isInstanceOf(UgyldigSyntaxException.class);
+
+        assertThat(a.getReference().getProperty("navn")).hasValue("a");
+    }
+
+    @Test
+    void skal_avregistrere_den_gjeldande_versjonen_og_ikkje_godta_endringar_etterpaa() {
+        final ServiceRegistration<String> a = registry.registerService(String.class, "A");
+        a.setProperties("navn=a");
+
+        a.unregister();
+
+        assertThat(registry.countServices(String.class)).isZero();
+        assertThatThrownBy(() -> a.setProperties("navn=b"))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private List<String> alleStrengar() {
+        return registry.getServiceReferences(String.class).stream().map(r -> registry.getService(r).orElseThrow()).toList();
+    }
+}
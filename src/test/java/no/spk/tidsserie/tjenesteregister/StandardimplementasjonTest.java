@@ -0,0 +1,244 @@
+package no.spk.tidsserie.tjenesteregister;
+
+import static no.spk.tidsserie.tjenesteregister.Constants.SERVICE_RANKING;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import no.spk.tidsserie.tjenesteregister.support.SimpleServiceRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Verifiserer standardimplementasjonane i {@link ServiceRegistry} mot eit tenesteregister som berre implementerer
+ * dei abstrakte metodane.
+ */
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class StandardimplementasjonTest {
+    private ServiceRegistry registry;
+
+    @BeforeEach
+    void _before() {
+        registry = new Minimalregister(new SimpleServiceRegistry());
+    }
+
+    @Test
+    void skal_kompilere_filter_som_matchar_alle_egenskapane() {
+        registry.registerService(String.class, "A", "type=premie", "aar=2020", SERVICE_RANKING + "=1");
+        registry.registerService(String.class, "B", "type=premie", "aar=2021");
+        registry.registerService(String.class, "C", "type=faktura", "aar=2020");
+
+        final ServiceFilter filter = registry.compileFilter("type=premie");
+
+        assertThat(registry.getServiceReferences(String.class, filter))
+                .extracting(r -> registry.getService(r).orElseThrow())
+                .containsExactly("A", "B");
+        assertThat(registry.getServiceReference(String.class, filter).flatMap(registry::getService)).contains("A");
+        assertThat(registry.getServiceReferences(String.class, registry.compileFilter("type=premie", "aar=2021")))
+                .extracting(r -> registry.getService(r).orElseThrow())
+                .containsExactly("B");
+        assertThat(registry.getServiceReferences(String.class, registry.compileFilter())).hasSize(3);
+    }
+
+    @Test
+    void skal_matche_referansar_direkte_mot_det_kompilerte_filteret() {
+        final ServiceReference<String> referanse = registry
+                .registerService(String.class, "A", "type=premie", "aar=2020")
+                .getReference();
+
+        assertThat(registry.compileFilter("aar=2020", "type=premie").matches(referanse)).isTrue();
+        assertThat(registry.compileFilter("type=faktura").matches(referanse)).isFalse();
+        assertThat(registry.compileFilter("type=premie", "aar=2020"))
+                .isEqualTo(registry.compileFilter("aar=2020", "type=premie"));
+    }
+
+    @Test
+    void skal_godta_og_avvise_dei_samme_filtera_som_tenesteregisteret() {
+        final SimpleServiceRegistry simple = new SimpleServiceRegistry();
+        final ServiceReference<String> referanse = registry
+                .registerService(String.class, "A", "uttrykk=a=b")
+                .getReference();
+
+        assertThat(registry.compileFilter("uttrykk=a=b").matches(referanse)).isTrue();
+        assertThat(simple.compileFilter("uttrykk=a=b").matches(referanse)).isTrue();
+        assertThat(registry.compileFilter("uttrykk=a").matches(referanse)).isFalse();
+        assertThatCode(() -> registry.compileFilter("type=premie", "=premie", "type="))
+                .isInstanceOf(UgyldigSyntaxException.class)
+                .hasMessage(catchThrowable(() -> simple.compileFilter("type=premie", "=premie", "type=")).getMessage());
+    }
+
+    @Test
+    void skal_avvise_ugyldige_filter_og_uttrykk_ved_kompilering() {
+        assertThatCode(() -> registry.compileFilter("type"))
+                .isInstanceOf(UgyldigSyntaxException.class)
+                .hasMessageContaining("type");
+        assertThatCode(() -> registry.compileFilter("(type=premie)"))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void skal_tracke_tenester_via_nye_oppslag() {
+        registry.registerService(String.class, "A", "type=premie", SERVICE_RANKING + "=1");
+
+        final ServiceTracker<String> tracker = registry.track(String.class, "type=premie");
+        assertThat(tracker.getServices()).containsExactly("A");
+
+        final ServiceRegistration<String> b = registry.registerService(
+                String.class, "B", "type=premie", SERVICE_RANKING + "=2"
+        );
+        registry.registerService(String.class, "C", "type=faktura", SERVICE_RANKING + "=3");
+        assertThat(tracker.getService()).contains("B");
+        assertThat(tracker.getServices()).containsExactly("B", "A");
+
+        b.unregister();
+        assertThat(tracker.getServices()).containsExactly("A");
+        assertThat(tracker.getServiceReferences()).hasSize(1);
+
+        tracker.close();
+        assertThat(tracker.getServices()).isEmpty();
+        assertThat(tracker.getService()).isEmpty();
+    }
+
+    @Test
+    void skal_avvise_lyttarar() {
+        final ServiceListener<String> lyttar = event -> {
+        };
+        assertThatCode(() -> registry.addServiceListener(String.class, registry.compileFilter(), lyttar))
+                .isInstanceOf(UnsupportedOperationException.class)
+                .hasMessageContaining("lyttarar");
+        assertThatCode(() -> registry.removeServiceListener(lyttar))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void skal_registrere_bolkar_ei_teneste_om_gongen() {
+        final RegistrationGroup gruppe = registry.batch(bolk -> {
+            bolk.register(String.class, "A");
+            bolk.register(Integer.class, 1);
+        });
+
+        assertThat(gruppe.getRegistrations()).hasSize(2);
+        assertThat(registry.countServices(String.class)).isEqualTo(1);
+        assertThat(registry.countServices(Integer.class)).isEqualTo(1);
+
+        gruppe.unregisterAll();
+        assertThat(registry.countServices(String.class)).isZero();
+        assertThat(registry.countServices(Integer.class)).isZero();
+    }
+
+    @Test
+    void skal_avregistrere_tenestene_i_bolken_dersom_fyllinga_feilar() {
+        final RegistrationBatch[] utlekt = new RegistrationBatch[1];
+        assertThatCode(() -> registry.batch(bolk -> {
+            utlekt[0] = bolk;
+            bolk.register(String.class, "A");
+            throw new IllegalStateException("BOOM");
+        })).hasMessage("BOOM");
+
+        assertThat(registry.countServices(String.class)).isZero();
+        assertThatCode(() -> utlekt[0].register(String.class, "B"))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void skal_gi_kvar_traad_sin_eigen_instans_for_scopa_tenester() throws Exception {
+        final AtomicInteger oppretta = new AtomicInteger();
+        for (final ServiceScope scope : List.of(ServiceScope.PER_THREAD, ServiceScope.PROTOTYPE)) {
+            final ServiceRegistration<Teljar> registrering = registry.registerFactory(Teljar.class, scope, () -> {
+                oppretta.incrementAndGet();
+                return new Teljar() {
+                    private int verdi;
+
+                    @Override
+                    public int neste() {
+                        return ++verdi;
+                    }
+                };
+            });
+            assertThat(registrering.getReference().getProperty(Constants.SERVICE_SCOPE)).contains(scope.propertyValue());
+
+            final Teljar teljar = registry.getService(registrering.getReference()).orElseThrow();
+            oppretta.set(0);
+            assertThat(teljar.neste()).isEqualTo(1);
+            assertThat(teljar.neste()).isEqualTo(2);
+
+            final AtomicInteger fraAnnanTraad = new AtomicInteger();
+            Thread.ofVirtual().start(() -> fraAnnanTraad.set(teljar.neste())).join();
+            assertThat(fraAnnanTraad).hasValue(1);
+            assertThat(oppretta).hasValue(2);
+            registrering.unregister();
+        }
+    }
+
+    @Test
+    void skal_avvise_scopa_tenester_som_ikkje_er_grensesnitt() {
+        assertThatCode(() -> registry.registerFactory(StringBuilder.class, ServiceScope.PER_THREAD, StringBuilder::new))
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThat(registry.countServices(StringBuilder.class)).isZero();
+    }
+
+    @Test
+    void skal_berre_stoette_eksakte_oppslag() {
+        registry.registerService(String.class, "A");
+
+        assertThat(registry.supports(LookupMode.EXACT)).isTrue();
+        assertThat(registry.supports(LookupMode.ASSIGNABLE)).isFalse();
+        assertThat(registry.getServiceReferences(String.class, LookupMode.EXACT, registry.compileFilter())).hasSize(1);
+        assertThatCode(() -> registry.getServiceReferences(CharSequence.class, LookupMode.ASSIGNABLE, registry.compileFilter()))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    /**
+     * Implementerer berre dei abstrakte metodane i {@link ServiceRegistry}, alt anna går via
+     * standardimplementasjonane.
+     */
+    private static final class Minimalregister implements ServiceRegistry {
+        private final ServiceRegistry delegat;
+
+        private Minimalregister(final ServiceRegistry delegat) {
+            this.delegat = delegat;
+        }
+
+        @Override
+        public <T> Optional<ServiceReference<T>> getServiceReference(final Class<T> tjenestetype) {
+            return delegat.getServiceReference(tjenestetype);
+        }
+
+        @Override
+        public <T> Optional<ServiceReference<T>> getServiceReference(final Class<T> tjenestetype, final String... filter) {
+            return delegat.getServiceReference(tjenestetype, filter);
+        }
+
+        @Override
+        public <T> List<ServiceReference<T>> getServiceReferences(final Class<T> tjenestetype) {
+            return delegat.getServiceReferences(tjenestetype);
+        }
+
+        @Override
+        public <T> List<ServiceReference<T>> getServiceReferences(final Class<T> tjenestetype, final String... filter) {
+            return delegat.getServiceReferences(tjenestetype, filter);
+        }
+
+        @Override
+        public <T> ServiceRegistration<T> registerService(final Class<T> tjenestetype, final T tjeneste,
+                                                          final String... egenskapar) {
+            return delegat.registerService(tjenestetype, tjeneste, egenskapar);
+        }
+
+        @Override
+        public <T> Optional<T> getService(final ServiceReference<T> reference) {
+            return delegat.getService(reference);
+        }
+    }
+
+    interface Teljar {
+        int neste();
+    }
+}
@@ -0,0 +1,189 @@
+package no.spk.tidsserie.tjenesteregister.processor;
+
+import static no.spk.tidsserie.tjenesteregister.Constants.SERVICE_RANKING;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import no.spk.tidsserie.tjenesteregister.ServiceIndex;
+import no.spk.tidsserie.tjenesteregister.ServiceReference;
+import no.spk.tidsserie.tjenesteregister.support.SimpleServiceRegistry;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class TjenesteProviderProcessorTest {
+    private static final String HELSING = """
+            package eksempel;
+
+            public interface Helsing {
+                String hils();
+            }
+            """;
+
+    @TempDir
+    Path utdata;
+
+    @Test
+    void skal_generere_indeks_som_registrerer_alle_tilbydarane_i_pakka() throws Exception {
+        final DiagnosticCollector<JavaFileObject> diagnostikk = kompiler(Map.of(
+                "eksempel/Helsing.java", HELSING,
+                "eksempel/Nynorsk.java", """
+                        package eksempel;
+
+                        import no.spk.tidsserie.tjenesteregister.TjenesteProvider;
+
+                        @TjenesteProvider(type = Helsing.class, ranking = 5, egenskapar = {"sprak=nn", "sitat=\\"hei\\""})
+                        class Nynorsk implements Helsing {
+                            public String hils() {
+                                return "hei";
+                            }
+                        }
+                        """,
+                "eksempel/Bokmaal.java", """
+                        package eksempel;
+
+                        import no.spk.tidsserie.tjenesteregister.TjenesteProvider;
+
+                        @TjenesteProvider(type = Helsing.class, egenskapar = "sprak=nb")
+                        public class Bokmaal implements Helsing {
+                            public String hils() {
+                                return "hei";
+                            }
+                        }
+                        """
+        ));
+        assertThat(feil(diagnostikk)).isEmpty();
+
+        try (final URLClassLoader lastar = new URLClassLoader(new URL[]{utdata.toUri().toURL()}, getClass().getClassLoader())) {
+            final Class<?> helsing = lastar.loadClass("eksempel.Helsing");
+            final ServiceIndex indeks = (ServiceIndex) lastar.loadClass("eksempel." + TjenesteProviderProcessor.INDEKS)
+                    .getConstructor()
+                    .newInstance();
+
+            final SimpleServiceRegistry registry = new SimpleServiceRegistry();
+            assertThat(registry.registerAllFrom(indeks).getRegistrations()).hasSize(2);
+
+            final ServiceReference<?> beste = registry.getServiceReference(helsing).orElseThrow();
+            assertThat(beste.getProperty("sprak")).contains("nn");
+            assertThat(beste.getProperty("sitat")).contains("\"hei\"");
+            assertThat(beste.getProperty(SERVICE_RANKING)).contains("5");
+            assertThat(registry.getServiceReferences(helsing, "sprak=nb")).hasSize(1);
+
+            assertThat(ServiceLoader.load(ServiceIndex.class, lastar))
+                    .extracting(i -> i.getClass().getName())
+                    .contains("eksempel." + TjenesteProviderProcessor.INDEKS);
+        }
+    }
+
+    @Test
+    void skal_feile_dersom_tilbydaren_ikkje_kan_tilordnast_til_tjenestetypen() {
+        final DiagnosticCollector<JavaFileObject> diagnostikk = kompiler(Map.of(
+                "eksempel/Helsing.java", HELSING,
+                "eksempel/Feil.java", """
+                        package eksempel;
+
+                        @no.spk.tidsserie.tjenesteregister.TjenesteProvider(type = Helsing.class)
+                        public class Feil {
+                        }
+                        """
+        ));
+
+        assertThat(feil(diagnostikk)).anyMatch(m -> m.contains("kan ikkje tilordnast til tjenestetypen"));
+    }
+
+    @Test
+    void skal_feile_dersom_tilbydaren_manglar_konstruktoer_utan_parameter() {
+        final DiagnosticCollector<JavaFileObject> diagnostikk = kompiler(Map.of(
+                "eksempel/Helsing.java", HELSING,
+                "eksempel/Feil.java", """
+                        package eksempel;
+
+                        @no.spk.tidsserie.tjenesteregister.TjenesteProvider(type = Helsing.class)
+                        public class Feil implements Helsing {
+                            public Feil(final String helsing) {
+                            }
+
+                            public String hils() {
+                                return "hei";
+                            }
+                        }
+                        """
+        ));
+
+        assertThat(feil(diagnostikk)).anyMatch(m -> m.contains("manglar ein ikkje-privat konstruktør utan parameter"));
+    }
+
+    @Test
+    void skal_feile_dersom_egenskapane_har_ugyldig_syntax() {
+        final DiagnosticCollector<JavaFileObject> diagnostikk = kompiler(Map.of(
+                "eksempel/Helsing.java", HELSING,
+                "eksempel/Feil.java", """
+                        package eksempel;
+
+                        @no.spk.tidsserie.tjenesteregister.TjenesteProvider(type = Helsing.class, egenskapar = "sprak")
+                        public class Feil implements Helsing {
+                            public String hils() {
+                                return "hei";
+                            }
+                        }
+                        """
+        ));
+
+        assertThat(feil(diagnostikk)).anyMatch(m -> m.contains("er ikkje på formatet egenskap=verdi"));
+    }
+
+    private DiagnosticCollector<JavaFileObject> kompiler(final Map<String, String> kjelder) {
+        final JavaCompiler kompilator = ToolProvider.getSystemJavaCompiler();
+        final DiagnosticCollector<JavaFileObject> diagnostikk = new DiagnosticCollector<>();
+        final JavaCompiler.CompilationTask oppgaave = kompilator.getTask(
+                null,
+                null,
+                diagnostikk,
+                List.of(
+                        "-d", utdata.toString(),
+                        "-s", utdata.toString(),
+                        "-classpath", System.getProperty("java.class.path") + File.pathSeparator + utdata
+                ),
+                null,
+                kjelder.entrySet().stream().map(k -> kjelde(k.getKey(), k.getValue())).toList()
+        );
+        oppgaave.setProcessors(List.of(new TjenesteProviderProcessor()));
+        oppgaave.call();
+        return diagnostikk;
+    }
+
+    private static List<String> feil(final DiagnosticCollector<JavaFileObject> diagnostikk) {
+        return diagnostikk.getDiagnostics()
+                .stream()
+                .filter(d -> d.getKind() == Diagnostic.Kind.ERROR)
+                .map(d -> d.getMessage(null))
+                .toList();
+    }
+
+    private static JavaFileObject kjelde(final String fil, final String innhald) {
+        return new SimpleJavaFileObject(URI.create("string:///" + fil), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+                return innhald;
+            }
+        };
+    }
+}
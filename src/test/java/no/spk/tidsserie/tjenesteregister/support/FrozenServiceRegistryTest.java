@@ -0,0 +1,110 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import static no.spk.tidsserie.tjenesteregister.Constants.SERVICE_RANKING;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import no.spk.tidsserie.tjenesteregister.ServiceRegistry;
+import no.spk.tidsserie.tjenesteregister.ServiceTracker;
+import no.spk.tidsserie.tjenesteregister.support.FrozenServiceRegistry.WriteMode;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class FrozenServiceRegistryTest {
+    private SimpleServiceRegistry registry;
+
+    @BeforeEach
+    void _before() {
+        registry = new SimpleServiceRegistry();
+    }
+
+    @Test
+    void skal_innehalde_tenestene_som_var_registrert_ved_frysing() {
+        registry.registerService(String.class, "LAV", ranking(1));
+        registry.registerService(String.class, "HØG", ranking(10));
+        registry.registerService(Integer.class, 1);
+
+        final FrozenServiceRegistry frosen = registry.freeze();
+        registry.registerService(String.class, "SEIN", ranking(100));
+
+        assertThat(tenester(frosen, String.class)).containsExactly("HØG", "LAV");
+        assertThat(tenester(frosen, Integer.class)).containsExactly(1);
+        assertThat(frosen.getServiceReference(String.class).flatMap(frosen::getService)).contains("HØG");
+        assertThat(frosen.getServiceReference(Long.class)).isEmpty();
+        assertThat(frosen.getServiceReferences(Long.class)).isEmpty();
+    }
+
+    @Test
+    void skal_ikkje_allokere_nye_resultat_for_oppslag_utan_filter() {
+        registry.registerService(String.class, "A");
+
+        final FrozenServiceRegistry frosen = registry.freeze();
+
+        assertThat(frosen.getServiceReferences(String.class)).isSameAs(frosen.getServiceReferences(String.class));
+        assertThat(frosen.getServiceReference(String.class)).isSameAs(frosen.getServiceReference(String.class));
+    }
+
+    @Test
+    void skal_filtrere_paa_egenskapar() {
+        IntStream.range(0, 20).forEach(i -> registry.registerService(String.class, "T" + i, "gruppe=" + i % 4));
+
+        final FrozenServiceRegistry frosen = registry.freeze();
+
+        assertThat(frosen.getServiceReferences(String.class, "gruppe=1"))
+                .extracting(r -> frosen.getService(r).orElseThrow())
+                .containsExactly("T1", "T5", "T9", "T13", "T17");
+        assertThat(frosen.getServiceReference(String.class, "gruppe=3").flatMap(frosen::getService)).contains("T3");
+        assertThat(frosen.getServiceReference(String.class, "gruppe=4")).isEmpty();
+    }
+
+    @Test
+    void skal_feile_ved_registrering_som_standard() {
+        final FrozenServiceRegistry frosen = registry.freeze();
+
+        assertThatThrownBy(() -> frosen.registerService(String.class, "A"))
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> frosen.batch(bolk -> bolk.register(String.class, "A")))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void skal_registrere_nye_tenester_i_overlegget() {
+        registry.registerService(String.class, "GLOBAL", ranking(1));
+        final FrozenServiceRegistry frosen = registry.freeze(WriteMode.OVERLAY);
+        final ServiceTracker<String> tracker = frosen.track(String.class);
+
+        frosen.registerService(String.class, "OVERLEGG", ranking(1)).unregister();
+        frosen.registerService(String.class, "OVERLEGG2", ranking(1));
+
+        assertThat(tenester(frosen, String.class)).containsExactly("OVERLEGG2", "GLOBAL");
+        assertThat(tracker.getServices()).containsExactly("OVERLEGG2", "GLOBAL");
+        assertThat(tenester(registry, String.class)).containsExactly("GLOBAL");
+    }
+
+    @Test
+    void skal_fryse_tenestene_eit_underregister_arvar() {
+        registry.registerService(String.class, "GLOBAL");
+        final SimpleServiceRegistry barn = registry.createChild();
+        barn.registerService(String.class, "LOKAL");
+
+        assertThat(tenester(barn.freeze(), String.class)).containsExactly("LOKAL", "GLOBAL");
+    }
+
+    private static <T> List<T> tenester(final ServiceRegistry registry, final Class<T> tjenestetype) {
+        return registry.getServiceReferences(tjenestetype)
+                .stream()
+                .map(r -> registry.getService(r).orElseThrow())
+                .toList();
+    }
+
+    private static String ranking(final int ranking) {
+        return SERVICE_RANKING + "=" + ranking;
+    }
+}
@@ -0,0 +1,114 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import static no.spk.tidsserie.tjenesteregister.Constants.SERVICE_RANKING;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import no.spk.tidsserie.tjenesteregister.LookupMode;
+import no.spk.tidsserie.tjenesteregister.ServiceFilter;
+import no.spk.tidsserie.tjenesteregister.ServiceRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class HotLookupTest {
+    private static final int OPPSLAG = 10_000;
+
+    private SimpleServiceRegistry registry;
+
+    private long sum;
+
+    @BeforeEach
+    void _before() {
+        registry = new SimpleServiceRegistry();
+        for (int i = 0; i < 20; i++) {
+            registry.registerService(Integer.class, i, "gruppe=" + i % 2, SERVICE_RANKING + "=" + i);
+        }
+    }
+
+    @Test
+    void skal_returnere_hoegast_ranka_teneste_eller_null() {
+        assertThat(registry.getServiceOrNull(Integer.class)).isEqualTo(19);
+        assertThat(registry.getServiceOrNull(String.class)).isNull();
+        assertThat(registry.freeze().getServiceOrNull(Integer.class)).isEqualTo(19);
+        assertThat(registry.freeze().getServiceOrNull(String.class)).isNull();
+    }
+
+    @Test
+    void skal_gaa_gjennom_tenestene_som_matchar_filteret_i_rankingrekkefoelge() {
+        final ServiceFilter filter = registry.compileFilter("gruppe=1");
+
+        for (final ServiceRegistry r : List.of(registry, registry.freeze(), registry.createChild())) {
+            final List<Integer> tenester = new ArrayList<>();
+            r.forEachService(Integer.class, filter, tenester::add);
+            assertThat(tenester).containsExactly(19, 17, 15, 13, 11, 9, 7, 5, 3, 1);
+        }
+    }
+
+    @Test
+    void skal_telje_tenestene_under_tenestetypen() {
+        assertThat(registry.countServices(Integer.class)).isEqualTo(20);
+        assertThat(registry.countServices(String.class)).isZero();
+        assertThat(registry.freeze().countServices(Integer.class)).isEqualTo(20);
+        assertThat(registry.createChild().countServices(Integer.class)).isEqualTo(20);
+    }
+
+    @Test
+    void skal_ikkje_allokere_ved_gjentatte_oppslag() {
+        final ServiceFilter filter = registry.compileFilter("gruppe=1");
+        final Consumer<Integer> summer = i -> sum += i;
+
+        final long allokert = allokert(() -> {
+            for (int i = 0; i < OPPSLAG; i++) {
+                sum += registry.getServiceOrNull(Integer.class);
+                sum += registry.countServices(Integer.class);
+                registry.forEachService(Integer.class, filter, summer);
+            }
+        });
+
+        assertThat(allokert / OPPSLAG)
+                .as("bytes allokert per oppslag")
+                .isZero();
+    }
+
+    @Test
+    void skal_ikkje_allokere_ved_gjentatte_vanlege_oppslag_naar_jfr_er_slaatt_av() {
+        final ServiceFilter filter = registry.compileFilter("gruppe=1");
+        final ServiceFilter alle = registry.compileFilter();
+
+        final long allokert = allokert(() -> {
+            for (int i = 0; i < OPPSLAG; i++) {
+                sum += registry.getServiceReference(Integer.class).isPresent() ? 1 : 0;
+                sum += registry.getServiceReference(Integer.class, filter).isPresent() ? 1 : 0;
+                sum += registry.getServiceReferences(Integer.class).size();
+                sum += registry.getServiceReferences(Integer.class, filter).size();
+                sum += registry.getServiceReferences(Integer.class, LookupMode.ASSIGNABLE, alle).size();
+                sum += registry.getServiceReference(Integer.class, LookupMode.ASSIGNABLE, alle).isPresent() ? 1 : 0;
+            }
+        });
+
+        assertThat(allokert / OPPSLAG)
+                .as("bytes allokert per oppslag")
+                .isZero();
+    }
+
+    /**
+     * Måler kor mykje tråden allokerer under {@code oppgaave}, etter éi oppvarmingsrunde som byggjer indeksar og
+     * liknande.
+     */
+    private static long allokert(final Runnable oppgaave) {
+        final com.sun.management.ThreadMXBean traadar = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long id = Thread.currentThread().threadId();
+        oppgaave.run();
+        final long foer = traadar.getThreadAllocatedBytes(id);
+        oppgaave.run();
+        return traadar.getThreadAllocatedBytes(id) - foer;
+    }
+}
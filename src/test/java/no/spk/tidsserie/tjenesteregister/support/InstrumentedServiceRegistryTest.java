@@ -0,0 +1,160 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import no.spk.tidsserie.tjenesteregister.LookupMode;
+import no.spk.tidsserie.tjenesteregister.RegistrationGroup;
+import no.spk.tidsserie.tjenesteregister.ServiceRegistration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class InstrumentedServiceRegistryTest {
+    private InstrumentedServiceRegistry registry;
+
+    @BeforeEach
+    void _before() {
+        registry = new InstrumentedServiceRegistry(new SimpleServiceRegistry());
+    }
+
+    @AfterEach
+    void _after() {
+        registry.metrics().unexport();
+    }
+
+    @Test
+    void skal_telje_oppslag_treff_bom_og_filtrerte_oppslag_per_tenestetype() {
+        registry.registerService(String.class, "A", "kategori=a");
+
+        registry.getServiceReference(String.class);
+        registry.getServiceReferences(String.class, "kategori=a");
+        registry.getServiceReference(String.class, "kategori=b");
+        registry.getServiceReference(Integer.class);
+
+        final ServiceTypeMetrics strengar = registry.metrics().forType(String.class);
+        assertThat(strengar.getLookups()).isEqualTo(3);
+        assertThat(strengar.getHits()).isEqualTo(2);
+        assertThat(strengar.getMisses()).isEqualTo(1);
+        assertThat(strengar.getFilteredLookups()).isEqualTo(2);
+        assertThat(strengar.lookupLatency().count()).isEqualTo(3);
+        assertThat(strengar.filteredLookupLatency().count()).isEqualTo(2);
+
+        assertThat(registry.metrics().forType(Integer.class).getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    void skal_ikkje_telje_oppslag_med_filter_utan_krav_som_filtrerte() {
+        registry.registerService(String.class, "A", "kategori=a");
+
+        registry.getServiceReference(String.class, registry.compileFilter());
+        registry.getServiceReferences(String.class, registry.compileFilter());
+        registry.getServiceReferences(CharSequence.class, LookupMode.ASSIGNABLE, registry.compileFilter());
+        registry.getServiceReferences(String.class, registry.compileFilter("kategori=a"));
+
+        assertThat(registry.metrics().forType(String.class).getFilteredLookups()).isEqualTo(1);
+        assertThat(registry.metrics().forType(CharSequence.class).getFilteredLookups()).isZero();
+        assertThat(registry.metrics().forType(CharSequence.class).getHits()).isEqualTo(1);
+    }
+
+    @Test
+    void skal_telje_snarvegane_for_oppslag() {
+        registry.registerService(String.class, "A", "kategori=a");
+
+        assertThat(registry.getServiceOrNull(String.class)).isEqualTo("A");
+        assertThat(registry.getServiceOrNull(Integer.class)).isNull();
+        assertThat(registry.countServices(String.class)).isEqualTo(1);
+        final List<String> handterte = new ArrayList<>();
+        registry.forEachService(String.class, registry.compileFilter("kategori=a"), handterte::add);
+        registry.forEachService(String.class, registry.compileFilter("kategori=b"), handterte::add);
+
+        assertThat(handterte).containsExactly("A");
+        final ServiceTypeMetrics strengar = registry.metrics().forType(String.class);
+        assertThat(strengar.getLookups()).isEqualTo(4);
+        assertThat(strengar.getHits()).isEqualTo(3);
+        assertThat(strengar.getMisses()).isEqualTo(1);
+        assertThat(strengar.getFilteredLookups()).isEqualTo(2);
+        assertThat(registry.metrics().forType(Integer.class).getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    void skal_telje_kvar_avregistrering_berre_ein_gong() {
+        final ServiceRegistration<String> a = registry.registerService(String.class, "A");
+        registry.registerService(String.class, "B");
+
+        a.unregister();
+        a.unregister();
+
+        final ServiceTypeMetrics strengar = registry.metrics().forType(String.class);
+        assertThat(strengar.getRegistrations()).isEqualTo(2);
+        assertThat(strengar.getUnregistrations()).isEqualTo(1);
+        assertThat(strengar.getRegisteredServices()).isEqualTo(1);
+        assertThat(registry.getServiceReferences(String.class)).hasSize(1);
+    }
+
+    @Test
+    void skal_telje_registreringar_og_avregistreringar_i_bolkar() {
+        final RegistrationGroup gruppe = registry.batch(bolk -> {
+            bolk.register(String.class, "A");
+            bolk.register(String.class, "B");
+            bolk.register(Integer.class, 1);
+        });
+        gruppe.getRegistrations().get(0).unregister();
+
+        assertThat(registry.metrics().forType(String.class).getRegistrations()).isEqualTo(2);
+        assertThat(registry.metrics().forType(String.class).getUnregistrations()).isEqualTo(1);
+
+        gruppe.unregisterAll();
+
+        assertThat(registry.metrics().forType(String.class).getUnregistrations()).isEqualTo(2);
+        assertThat(registry.metrics().forType(Integer.class).getUnregistrations()).isEqualTo(1);
+        assertThat(registry.getServiceReferences(String.class)).isEmpty();
+    }
+
+    @Test
+    void skal_eksportere_teljarane_som_mbeans() throws Exception {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        registry.registerService(String.class, "A");
+        registry.metrics().exportTo(server, "test");
+
+        registry.getServiceReference(String.class);
+        registry.getServiceReference(Integer.class);
+
+        final ObjectName strengar = navn(String.class);
+        assertThat(server.getAttribute(strengar, "Lookups")).isEqualTo(1L);
+        assertThat(server.getAttribute(strengar, "RegisteredServices")).isEqualTo(1L);
+        assertThat(server.getAttribute(navn(Integer.class), "Misses")).isEqualTo(1L);
+
+        registry.metrics().unexport();
+
+        assertThat(server.isRegistered(strengar)).isFalse();
+    }
+
+    @Test
+    void skal_estimere_persentilar_innanfor_ein_faktor_to() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        List.of(100L, 200L, 300L, 400L, 10_000L).forEach(histogram::record);
+
+        assertThat(histogram.count()).isEqualTo(5);
+        assertThat(histogram.maxNanos()).isEqualTo(10_000L);
+        assertThat(histogram.percentileNanos(0.5)).isBetween(200L, 600L);
+        assertThat(histogram.percentileNanos(1)).isEqualTo(10_000L);
+        assertThat(histogram.meanNanos()).isEqualTo(2_200.0);
+    }
+
+    private static ObjectName navn(final Class<?> tjenestetype) throws Exception {
+        return new ObjectName(ServiceMetrics.JMX_DOMAIN
+                + ":type=ServiceTypeMetrics,registry=" + ObjectName.quote("test")
+                + ",name=" + ObjectName.quote(tjenestetype.getName()));
+    }
+}
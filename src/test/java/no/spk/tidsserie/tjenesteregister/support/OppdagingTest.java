@@ -0,0 +1,115 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import static no.spk.tidsserie.tjenesteregister.Constants.SERVICE_RANKING;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ServiceConfigurationError;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import no.spk.tidsserie.tjenesteregister.ServiceReference;
+import no.spk.tidsserie.tjenesteregister.TjenesteProvider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class OppdagingTest {
+    /**
+     * Begge tilbydarane av {@link Plugin} ventar på kvarandre, oppdaginga heng derfor dersom dei ikkje blir oppretta
+     * parallelt.
+     */
+    private static volatile CountDownLatch samtidig;
+
+    private SimpleServiceRegistry registry;
+
+    @BeforeEach
+    void _before() {
+        registry = new SimpleServiceRegistry();
+        samtidig = new CountDownLatch(2);
+    }
+
+    @Test
+    void skal_opprette_tilbydarane_parallelt_og_registrere_dei_i_ein_bolk() {
+        final DiscoveryResult resultat = registry.discover(Plugin.class);
+
+        assertThat(resultat.registrations().getRegistrations()).hasSize(2);
+        assertThat(registry.getServiceReferences(Plugin.class)).hasSize(2);
+        assertThat(resultat.providerTimings()).containsOnlyKeys(Treg.class, Rask.class);
+        assertThat(resultat.elapsed()).isPositive();
+
+        assertThat(registry.getServiceReference(Plugin.class).flatMap(registry::getService))
+                .get()
+                .satisfies(p -> assertThat(p.virtuell()).isTrue())
+                .isInstanceOf(Treg.class);
+    }
+
+    @Test
+    void skal_lese_ranking_og_egenskapar_fraa_annotasjonen() {
+        registry.discover(Plugin.class);
+
+        final ServiceReference<Plugin> treg = registry.getServiceReference(Plugin.class, "namn=treg").orElseThrow();
+        assertThat(treg.getProperty(SERVICE_RANKING)).contains("10");
+
+        final ServiceReference<Plugin> rask = registry.getServiceReference(Plugin.class, "namn=rask").orElseThrow();
+        assertThat(rask.getProperty(SERVICE_RANKING)).contains("0");
+    }
+
+    @Test
+    void skal_ikkje_registrere_nokon_tenester_dersom_ein_tilbydar_feilar() {
+        assertThatThrownBy(() -> registry.discover(Plugin.class, Oedelagd.class))
+                .isInstanceOf(ServiceConfigurationError.class)
+                .hasMessageContaining("1 av 4");
+
+        assertThat(registry.getServiceReferences(Plugin.class)).isEmpty();
+        assertThat(registry.getServiceReferences(Oedelagd.class)).isEmpty();
+    }
+
+    public interface Plugin {
+        boolean virtuell();
+    }
+
+    public interface Oedelagd {
+    }
+
+    abstract static class Samtidig implements Plugin {
+        private final boolean virtuell = Thread.currentThread().isVirtual();
+
+        Samtidig() {
+            samtidig.countDown();
+            try {
+                if (!samtidig.await(10, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("tilbydarane vart ikkje oppretta parallelt");
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public boolean virtuell() {
+            return virtuell;
+        }
+    }
+
+    @TjenesteProvider(type = Plugin.class, ranking = 10, egenskapar = "namn=treg")
+    public static class Treg extends Samtidig {
+    }
+
+    @TjenesteProvider(type = Plugin.class, egenskapar = "namn=rask")
+    public static class Rask extends Samtidig {
+    }
+
+    public static class Rask2 implements Oedelagd {
+    }
+
+    public static class Feilande implements Oedelagd {
+        public Feilande() {
+            throw new IllegalStateException("feilar med vilje");
+        }
+    }
+}
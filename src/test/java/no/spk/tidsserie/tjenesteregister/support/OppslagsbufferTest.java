@@ -0,0 +1,148 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import no.spk.tidsserie.tjenesteregister.ServiceReference;
+import no.spk.tidsserie.tjenesteregister.ServiceRegistration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class OppslagsbufferTest {
+    private SimpleServiceRegistry registry;
+
+    @BeforeEach
+    void _before() {
+        registry = new SimpleServiceRegistry(ServiceEventDispatcher.synchronous(), 4);
+    }
+
+    @Test
+    void skal_returnere_samme_liste_for_gjentekne_oppslag() {
+        registry.registerService(String.class, "A", "kategori=a");
+
+        final List<ServiceReference<String>> foerste = registry.getServiceReferences(String.class, "kategori=a");
+        final List<ServiceReference<String>> andre = registry.getServiceReferences(String.class, "kategori=a");
+
+        assertThat(andre).isSameAs(foerste).hasSize(1);
+        assertThat(registry.lookupCacheStats().hitCount()).isEqualTo(1);
+        assertThat(registry.lookupCacheStats().missCount()).isEqualTo(1);
+        assertThat(registry.lookupCacheStats().hitRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    void skal_gjenbruke_alle_treff_for_oppslag_av_beste_teneste() {
+        registry.registerService(String.class, "A", "kategori=a");
+        registry.getServiceReferences(String.class, "kategori=a");
+
+        assertThat(registry.getServiceReference(String.class, "kategori=a").flatMap(registry::getService)).contains("A");
+        assertThat(registry.getServiceReference(String.class, "kategori=a").flatMap(registry::getService)).contains("A");
+        assertThat(registry.lookupCacheStats().hitCount()).isEqualTo(2);
+    }
+
+    @Test
+    void skal_forkaste_resultata_for_tenestetypen_som_blir_endra() {
+        final ServiceRegistration<String> a = registry.registerService(String.class, "A", "kategori=a");
+        registry.registerService(Integer.class, 1, "kategori=a");
+
+        final List<ServiceReference<String>> foer = registry.getServiceReferences(String.class, "kategori=a");
+        final List<ServiceReference<Integer>> tal = registry.getServiceReferences(Integer.class, "kategori=a");
+        registry.registerService(String.class, "B", "kategori=a");
+
+        assertThat(registry.getServiceReferences(String.class, "kategori=a")).isNotSameAs(foer).hasSize(2);
+        assertThat(registry.getServiceReferences(Integer.class, "kategori=a")).isSameAs(tal);
+
+        a.unregister();
+
+        assertThat(registry.getServiceReferences(String.class, "kategori=a")).hasSize(1);
+        assertThat(registry.getServiceReference(String.class, "kategori=a").flatMap(registry::getService)).contains("B");
+    }
+
+    @Test
+    void skal_forkaste_resultata_i_underregister_naar_forelderen_blir_endra() {
+        final SimpleServiceRegistry barn = registry.createChild();
+        barn.registerService(String.class, "LOKAL", "kategori=a");
+        assertThat(barn.getServiceReferences(String.class, "kategori=a")).hasSize(1);
+
+        registry.registerService(String.class, "GLOBAL", "kategori=a");
+
+        assertThat(barn.getServiceReferences(String.class, "kategori=a")).hasSize(2);
+    }
+
+    @Test
+    void skal_kaste_ut_resultat_naar_bufferet_er_fullt() {
+        registry.registerService(String.class, "A", "kategori=a");
+
+        IntStream.range(0, 10).forEach(i -> registry.getServiceReferences(String.class, "kategori=" + i));
+
+        assertThat(registry.lookupCacheStats().size()).isLessThanOrEqualTo(4);
+        assertThat(registry.lookupCacheStats().evictionCount()).isGreaterThan(0);
+        assertThat(registry.lookupCacheStats().maximumSize()).isEqualTo(4);
+    }
+
+    @Test
+    void skal_kaste_ut_noeyaktig_ein_tidel_sjoelv_om_resultata_har_samme_tidsstempel() {
+        final SimpleServiceRegistry stort = new SimpleServiceRegistry(ServiceEventDispatcher.synchronous(), 20);
+        stort.registerService(String.class, "A", "kategori=a");
+        IntStream.range(0, 20).forEach(i -> stort.getServiceReferences(String.class, "kategori=" + i));
+        IntStream.range(0, 20).forEach(i -> stort.getServiceReferences(String.class, "kategori=" + i));
+        assertThat(stort.lookupCacheStats().hitCount()).isEqualTo(20);
+
+        stort.getServiceReferences(String.class, "kategori=20");
+
+        assertThat(stort.lookupCacheStats().evictionCount()).isEqualTo(3);
+        assertThat(stort.lookupCacheStats().size()).isEqualTo(18);
+    }
+
+    @Test
+    void skal_ikkje_la_storleiken_drive_ved_samtidige_oppslag_og_endringar() throws Exception {
+        final SimpleServiceRegistry stort = new SimpleServiceRegistry(ServiceEventDispatcher.synchronous(), 1_000);
+        stort.registerService(String.class, "A", "kategori=1");
+        final List<Thread> lesarar = IntStream.range(0, 4)
+                .mapToObj(t -> Thread.ofPlatform().start(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        stort.getServiceReferences(String.class, "kategori=" + (i % 50));
+                    }
+                }))
+                .toList();
+        final Thread skrivar = Thread.ofPlatform().start(() -> {
+            for (int i = 0; i < 2_000; i++) {
+                stort.registerService(String.class, "B", "kategori=" + (i % 50)).unregister();
+            }
+        });
+        for (final Thread lesar : lesarar) {
+            lesar.join();
+        }
+        skrivar.join();
+
+        IntStream.range(0, 50).forEach(i -> stort.getServiceReferences(String.class, "kategori=" + i));
+        assertThat(stort.lookupCacheStats().size()).isEqualTo(50);
+        stort.registerService(String.class, "C");
+        assertThat(stort.lookupCacheStats().size()).isZero();
+        stort.getServiceReferences(String.class, "kategori=1");
+        assertThat(stort.lookupCacheStats().size()).isEqualTo(1);
+    }
+
+    @Test
+    void skal_kunne_slaa_av_bufferet() {
+        final SimpleServiceRegistry utan = new SimpleServiceRegistry(ServiceEventDispatcher.synchronous(), 0);
+        utan.registerService(String.class, "A", "kategori=a");
+
+        assertThat(utan.getServiceReferences(String.class, "kategori=a"))
+                .isNotSameAs(utan.getServiceReferences(String.class, "kategori=a"));
+        assertThat(utan.lookupCacheStats().hitCount()).isZero();
+        assertThat(utan.lookupCacheStats().missCount()).isZero();
+    }
+
+    @Test
+    void skal_avvise_negativ_storleik() {
+        assertThatThrownBy(() -> new SimpleServiceRegistry(ServiceEventDispatcher.synchronous(), -1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
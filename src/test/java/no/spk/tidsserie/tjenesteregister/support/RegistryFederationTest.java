@@ -0,0 +1,314 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import static no.spk.tidsserie.tjenesteregister.Constants.SERVICE_NODE;
+import static no.spk.tidsserie.tjenesteregister.Constants.SERVICE_RANKING;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import no.spk.tidsserie.tjenesteregister.ServiceEvent;
+import no.spk.tidsserie.tjenesteregister.ServiceListener;
+import no.spk.tidsserie.tjenesteregister.ServiceRegistration;
+import no.spk.tidsserie.tjenesteregister.ServiceTracker;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class RegistryFederationTest {
+    private final Opptak transport = new Opptak();
+
+    private final SimpleServiceRegistry a = new SimpleServiceRegistry();
+
+    private final SimpleServiceRegistry b = new SimpleServiceRegistry();
+
+    @Test
+    void skal_registrere_proxyar_for_tenester_eksportert_fraa_andre_nodar() {
+        final RegistryFederation fraA = eksporterFraA();
+        final RegistryFederation tilB = importerTilB();
+        fraA.start();
+        tilB.start();
+
+        a.registerService(Kalkulator.class, new Lokal("premie"), SERVICE_RANKING + "=1", "type=premie");
+        a.registerService(Kalkulator.class, new Lokal("faktura"), SERVICE_RANKING + "=2", "type=faktura");
+        assertThat(b.countServices(Kalkulator.class)).isZero();
+
+        fraA.flush();
+
+        assertThat(b.getServiceReferences(Kalkulator.class))
+                .extracting(r -> r.getProperty("type").orElse("?") + "@" + r.getProperty(SERVICE_NODE).orElse("?"))
+                .containsExactly("faktura@a", "premie@a");
+        assertThat(b.getServiceOrNull(Kalkulator.class).namn()).isEqualTo("proxy for faktura");
+        assertThat(a.getServiceReferences(Kalkulator.class))
+                .allSatisfy(r -> assertThat(r.getProperty(SERVICE_NODE)).isEmpty());
+    }
+
+    @Test
+    void skal_sende_endringar_som_deltaer_i_bolkar() {
+        final RegistryFederation fraA = eksporterFraA();
+        final RegistryFederation tilB = importerTilB();
+        fraA.start();
+        tilB.start();
+        fraA.flush();
+        final ServiceTracker<Kalkulator> tracker = b.track(Kalkulator.class);
+
+        final ServiceRegistration<Kalkulator> premie = a.registerService(Kalkulator.class, new Lokal("premie"), "type=premie");
+        a.registerService(Kalkulator.class, new Lokal("faktura"), "type=faktura");
+        a.registerService(Kalkulator.class, new Lokal("kortliva"), "type=kortliva").unregister();
+        transport.sendt.clear();
+        fraA.flush();
+
+        assertThat(transport.sendt).hasSize(1);
+        assertThat(transport.sendt.get(0).type()).isEqualTo(FederationUpdate.Type.DELTA);
+        assertThat(transport.sendt.get(0).registered()).hasSize(2);
+        assertThat(tracker.getServices()).extracting(Kalkulator::namn)
+                .containsExactlyInAnyOrder("proxy for premie", "proxy for faktura");
+
+        premie.unregister();
+        fraA.flush();
+        fraA.flush();
+
+        assertThat(transport.sendt).hasSize(2);
+        assertThat(transport.sendt.get(1).unregistered()).hasSize(1);
+        assertThat(tracker.getServices()).extracting(Kalkulator::namn).containsExactly("proxy for faktura");
+    }
+
+    @Test
+    void skal_endre_egenskapane_til_importerte_tenester_utan_aa_avregistrere_dei() {
+        final RegistryFederation fraA = eksporterFraA();
+        final RegistryFederation tilB = importerTilB();
+        fraA.start();
+        tilB.start();
+        final ServiceRegistration<Kalkulator> premie = a.registerService(Kalkulator.class, new Lokal("premie"), "type=premie");
+        fraA.flush();
+        final List<ServiceEvent.Type> hendingar = new ArrayList<>();
+        b.addServiceListener(Kalkulator.class, b.compileFilter(), e -> hendingar.add(e.getType()));
+
+        premie.setProperties("type=premie", SERVICE_RANKING + "=7");
+        fraA.flush();
+
+        assertThat(hendingar).containsExactly(ServiceEvent.Type.MODIFIED);
+        assertThat(b.getServiceReferences(Kalkulator.class, SERVICE_RANKING + "=7", SERVICE_NODE + "=a")).hasSize(1);
+    }
+
+    @Test
+    void skal_sende_alle_tenestene_til_nodar_som_dukkar_opp_seinare() {
+        final RegistryFederation fraA = eksporterFraA();
+        a.registerService(Kalkulator.class, new Lokal("premie"));
+        fraA.start();
+
+        importerTilB().start();
+        assertThat(b.countServices(Kalkulator.class)).isZero();
+
+        fraA.flush();
+
+        assertThat(transport.sendt.get(transport.sendt.size() - 1).type()).isEqualTo(FederationUpdate.Type.SNAPSHOT);
+        assertThat(b.countServices(Kalkulator.class)).isEqualTo(1);
+    }
+
+    @Test
+    void skal_fjerne_tenestene_fraa_ein_node_som_forlet_foederasjonen() {
+        final RegistryFederation fraA = eksporterFraA();
+        final RegistryFederation tilB = importerTilB();
+        fraA.start();
+        tilB.start();
+        a.registerService(Kalkulator.class, new Lokal("premie"));
+        fraA.flush();
+        assertThat(b.countServices(Kalkulator.class)).isEqualTo(1);
+
+        fraA.close();
+
+        assertThat(b.countServices(Kalkulator.class)).isZero();
+        assertThat(a.countServices(Kalkulator.class)).isEqualTo(1);
+
+        tilB.close();
+        assertThat(b.countServices(Kalkulator.class)).isZero();
+    }
+
+    @Test
+    void skal_ikkje_eksportere_importerte_tenester_vidare() {
+        final RegistryFederation fraA = eksporterFraA().importType(Kalkulator.class, r -> new Lokal("proxy for " + r.id()));
+        final RegistryFederation fraB = importerTilB().exportType(Kalkulator.class);
+        fraA.start();
+        fraB.start();
+
+        a.registerService(Kalkulator.class, new Lokal("premie"));
+        fraA.flush();
+        fraB.flush();
+
+        assertThat(b.countServices(Kalkulator.class)).isEqualTo(1);
+        assertThat(a.countServices(Kalkulator.class)).isEqualTo(1);
+    }
+
+    @Test
+    void skal_forkaste_deltaer_og_be_om_nytt_snapshot_ved_hol_i_loepenummera() {
+        final RegistryFederation fraA = eksporterFraA();
+        final RegistryFederation tilB = importerTilB();
+        fraA.start();
+        tilB.start();
+        a.registerService(Kalkulator.class, new Lokal("premie"), "type=premie");
+        fraA.flush();
+        tilB.flush();
+        final FederatedRegistration tapt = new FederatedRegistration("a/99", "a", Kalkulator.class.getName(), Map.of());
+
+        transport.publish(new FederationUpdate(FederationUpdate.Type.DELTA, "a", sistFraA() + 2, List.of(tapt), List.of()));
+        a.registerService(Kalkulator.class, new Lokal("faktura"), "type=faktura");
+        fraA.flush();
+
+        assertThat(b.getServiceReferences(Kalkulator.class)).extracting(r -> r.getProperty("type").orElse("?"))
+                .containsExactly("premie");
+
+        tilB.flush();
+        assertThat(sisteFra("b").type()).isEqualTo(FederationUpdate.Type.RESYNC);
+
+        fraA.flush();
+        assertThat(sisteFra("a").type()).isEqualTo(FederationUpdate.Type.SNAPSHOT);
+        assertThat(b.getServiceReferences(Kalkulator.class)).extracting(r -> r.getProperty("type").orElse("?"))
+                .containsExactlyInAnyOrder("premie", "faktura");
+
+        a.registerService(Kalkulator.class, new Lokal("kortliva"), "type=kortliva");
+        fraA.flush();
+        assertThat(sisteFra("a").type()).isEqualTo(FederationUpdate.Type.DELTA);
+        assertThat(b.countServices(Kalkulator.class)).isEqualTo(3);
+    }
+
+    @Test
+    void skal_erstatte_tenestene_fraa_ein_node_som_startar_paa_nytt_utan_aa_forlate_foederasjonen() {
+        final RegistryFederation fraA = eksporterFraA();
+        final RegistryFederation tilB = importerTilB();
+        fraA.start();
+        tilB.start();
+        a.registerService(Kalkulator.class, new Lokal("premie"), "type=premie");
+        fraA.flush();
+        fraA.flush();
+        assertThat(b.countServices(Kalkulator.class)).isEqualTo(1);
+
+        final SimpleServiceRegistry omstarta = new SimpleServiceRegistry();
+        omstarta.registerService(Kalkulator.class, new Lokal("faktura"), "type=faktura");
+        final RegistryFederation fraOmstarta = new RegistryFederation(omstarta, transport, "a").exportType(Kalkulator.class);
+        fraOmstarta.start();
+
+        assertThat(sisteFra("a").sequence()).isEqualTo(1);
+        assertThat(b.getServiceReferences(Kalkulator.class)).extracting(r -> r.getProperty("type").orElse("?"))
+                .containsExactly("faktura");
+
+        tilB.flush();
+        assertThat(sisteFra("b").type()).isEqualTo(FederationUpdate.Type.SNAPSHOT);
+
+        omstarta.registerService(Kalkulator.class, new Lokal("premie"), "type=premie");
+        fraOmstarta.flush();
+        assertThat(b.getServiceReferences(Kalkulator.class)).extracting(r -> r.getProperty("type").orElse("?"))
+                .containsExactlyInAnyOrder("faktura", "premie");
+    }
+
+    @Test
+    void skal_fjerne_tenestene_fraa_ein_node_som_sender_deltaer_med_lavare_loepenummer() {
+        final RegistryFederation fraA = eksporterFraA();
+        final RegistryFederation tilB = importerTilB();
+        fraA.start();
+        tilB.start();
+        a.registerService(Kalkulator.class, new Lokal("premie"), "type=premie");
+        fraA.flush();
+        tilB.flush();
+        final FederatedRegistration faktura = new FederatedRegistration(
+                "a/1", "a", Kalkulator.class.getName(), Map.of("type", "faktura")
+        );
+
+        transport.publish(new FederationUpdate(FederationUpdate.Type.DELTA, "a", 1, List.of(faktura), List.of()));
+
+        assertThat(b.countServices(Kalkulator.class)).isZero();
+
+        tilB.flush();
+        assertThat(sisteFra("b").type()).isEqualTo(FederationUpdate.Type.RESYNC);
+        fraA.flush();
+        assertThat(b.getServiceReferences(Kalkulator.class)).extracting(r -> r.getProperty("type").orElse("?"))
+                .containsExactly("premie");
+    }
+
+    @Test
+    void skal_eksportere_gjeldande_versjon_sjoelv_om_hendingane_kjem_i_feil_rekkefoelge() {
+        final List<Runnable> venter = new ArrayList<>();
+        final SimpleServiceRegistry forseinka = new SimpleServiceRegistry(new ServiceEventDispatcher() {
+            @Override
+            public <T> void dispatch(final ServiceListener<T> listener, final List<ServiceEvent<T>> events) {
+                venter.add(() -> listener.servicesChanged(events));
+            }
+        });
+        final RegistryFederation fraA = new RegistryFederation(forseinka, transport, "a").exportType(Kalkulator.class);
+        final RegistryFederation tilB = importerTilB();
+        fraA.start();
+        tilB.start();
+
+        final ServiceRegistration<Kalkulator> premie = forseinka.registerService(Kalkulator.class, new Lokal("premie"), "type=premie");
+        premie.setProperties("type=premie", SERVICE_RANKING + "=7");
+        forseinka.registerService(Kalkulator.class, new Lokal("faktura"), "type=faktura").unregister();
+        venter.reversed().forEach(Runnable::run);
+        fraA.flush();
+
+        assertThat(b.getServiceReferences(Kalkulator.class))
+                .extracting(r -> r.getProperty("type").orElse("?") + "/" + r.getProperty(SERVICE_RANKING).orElse("?"))
+                .containsExactly("premie/7");
+    }
+
+    @Test
+    void skal_ikkje_godta_konfigurasjon_etter_start() {
+        final RegistryFederation fraA = eksporterFraA();
+        fraA.start();
+
+        assertThatThrownBy(() -> fraA.exportType(String.class))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private long sistFraA() {
+        return sisteFra("a").sequence();
+    }
+
+    private FederationUpdate sisteFra(final String node) {
+        return transport.sendt
+                .stream()
+                .filter(update -> update.node().equals(node))
+                .reduce((foerste, andre) -> andre)
+                .orElseThrow();
+    }
+
+    private RegistryFederation eksporterFraA() {
+        return new RegistryFederation(a, transport, "a").exportType(Kalkulator.class);
+    }
+
+    private RegistryFederation importerTilB() {
+        return new RegistryFederation(b, transport, "b")
+                .importType(Kalkulator.class, r -> new Lokal("proxy for " + r.properties().getOrDefault("type", r.id())));
+    }
+
+    interface Kalkulator {
+        String namn();
+    }
+
+    record Lokal(String namn) implements Kalkulator {
+    }
+
+    /**
+     * Tek opp alle oppdateringane som blir sendt via transporten.
+     */
+    private static final class Opptak implements FederationTransport {
+        private final LoopbackTransport loopback = new LoopbackTransport();
+
+        private final List<FederationUpdate> sendt = new ArrayList<>();
+
+        @Override
+        public void publish(final FederationUpdate update) {
+            sendt.add(update);
+            loopback.publish(update);
+        }
+
+        @Override
+        public Subscription subscribe(final Consumer<FederationUpdate> receiver) {
+            return loopback.subscribe(receiver);
+        }
+    }
+}
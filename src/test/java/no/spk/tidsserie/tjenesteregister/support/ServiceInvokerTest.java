@@ -0,0 +1,160 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import no.spk.tidsserie.tjenesteregister.Constants;
+import no.spk.tidsserie.tjenesteregister.ServiceFilter;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class ServiceInvokerTest {
+    private SimpleServiceRegistry registry;
+
+    private ServiceFilter alle;
+
+    @BeforeEach
+    void _before() {
+        registry = new SimpleServiceRegistry();
+        alle = registry.compileFilter();
+    }
+
+    @Test
+    void skal_kalle_tenestene_sekvensielt_i_rankingrekkefoelge() {
+        registrer("LAV", 1);
+        registrer("HØG", 10);
+        registrer("MIDT", 5);
+
+        final List<Object> kall = new CopyOnWriteArrayList<>();
+        ServiceInvoker.sequential().invokeAll(registry, Verdi.class, alle, v -> kall.add(v.verdi()));
+
+        assertThat(kall).containsExactly("HØG", "MIDT", "LAV");
+    }
+
+    @Test
+    void skal_returnere_resultata_i_rankingrekkefoelge_uavhengig_av_koeyremodus() {
+        registrer("LAV", 1);
+        registrer("HØG", 10);
+        registrer("MIDT", 5);
+
+        for (final ServiceInvoker invoker : List.of(ServiceInvoker.sequential(), ServiceInvoker.forkJoin(), ServiceInvoker.virtualThreads())) {
+            assertThat(invoker.collectAll(registry, Verdi.class, alle, Verdi::verdi))
+                    .containsExactly("HØG", "MIDT", "LAV");
+        }
+    }
+
+    @Test
+    void skal_kalle_tenestene_parallelt_paa_virtuelle_traadar() {
+        final int antall = 20;
+        final CountDownLatch alleStarta = new CountDownLatch(antall);
+        for (int i = 0; i < antall; i++) {
+            registry.registerService(Runnable.class, () -> {
+                alleStarta.countDown();
+                try {
+                    assertThat(alleStarta.await(5, TimeUnit.SECONDS)).isTrue();
+                } catch (final InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+
+        ServiceInvoker.virtualThreads().invokeAll(registry, Runnable.class, alle, Runnable::run);
+
+        assertThat(alleStarta.getCount()).isZero();
+    }
+
+    @Test
+    void skal_kalle_alle_tenestene_og_samle_opp_feila() {
+        registrer("OK", 3);
+        registry.registerService(Verdi.class, () -> {
+            throw new IllegalStateException("FEIL 1");
+        }, ranking(2));
+        registry.registerService(Verdi.class, () -> {
+            throw new IllegalArgumentException("FEIL 2");
+        }, ranking(1));
+
+        final List<Object> kall = new CopyOnWriteArrayList<>();
+        assertThatThrownBy(() -> ServiceInvoker.forkJoin().invokeAll(registry, Verdi.class, alle, v -> kall.add(v.verdi())))
+                .isInstanceOfSatisfying(ServiceInvocationException.class, e -> {
+                    assertThat(e.getFailedReferences()).hasSize(2);
+                    assertThat(e.getSuppressed())
+                            .extracting(Throwable::getMessage)
+                            .containsExactly("FEIL 1", "FEIL 2");
+                });
+        assertThat(kall).containsExactly("OK");
+    }
+
+    @Test
+    void skal_slaa_opp_tenestene_paa_traaden_som_kallar_dei() {
+        final List<Thread> oppretta = new CopyOnWriteArrayList<>();
+        registry.registerFactory(Verdi.class, () -> {
+            oppretta.add(Thread.currentThread());
+            return () -> "LAT";
+        });
+
+        assertThat(ServiceInvoker.virtualThreads().collectAll(registry, Verdi.class, alle, Verdi::verdi))
+                .containsExactly("LAT");
+        assertThat(oppretta).hasSize(1).allMatch(Thread::isVirtual);
+    }
+
+    @Test
+    void skal_kaste_errors_vidare_i_staden_for_aa_samle_dei_opp() {
+        registry.registerService(Verdi.class, () -> {
+            throw new LinkageError("BOOM");
+        });
+
+        for (final ServiceInvoker invoker : List.of(ServiceInvoker.sequential(), ServiceInvoker.forkJoin(), ServiceInvoker.virtualThreads())) {
+            assertThatThrownBy(() -> invoker.collectAll(registry, Verdi.class, alle, Verdi::verdi))
+                    .isInstanceOf(LinkageError.class)
+                    .hasMessage("BOOM");
+        }
+    }
+
+    @Test
+    void skal_rapportere_kall_som_tar_for_lang_tid_som_feila() {
+        final CountDownLatch slepp = new CountDownLatch(1);
+        registry.registerService(Runnable.class, () -> {
+            try {
+                slepp.await();
+            } catch (final InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        try {
+            assertThatThrownBy(
+                    () -> ServiceInvoker.sequential()
+                            .withTimeout(Duration.ofMillis(50))
+                            .invokeAll(registry, Runnable.class, alle, Runnable::run)
+            )
+                    .isInstanceOfSatisfying(ServiceInvocationException.class,
+                            e -> assertThat(e.getSuppressed()).hasOnlyElementsOfType(TimeoutException.class));
+        } finally {
+            slepp.countDown();
+        }
+    }
+
+    private void registrer(final String verdi, final int ranking) {
+        registry.registerService(Verdi.class, () -> verdi, ranking(ranking));
+    }
+
+    private static String ranking(final int ranking) {
+        return Constants.SERVICE_RANKING + "=" + ranking;
+    }
+
+    @FunctionalInterface
+    interface Verdi {
+        Object verdi();
+    }
+}
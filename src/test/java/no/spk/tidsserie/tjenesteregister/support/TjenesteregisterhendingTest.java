@@ -0,0 +1,103 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import no.spk.tidsserie.tjenesteregister.ServiceRegistration;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class TjenesteregisterhendingTest {
+    private static final String PREFIKS = "no.spk.tidsserie.tjenesteregister.";
+
+    @Test
+    void skal_rapportere_registrering_avregistrering_og_oppslag_til_flight_recorder(@TempDir final Path mappe) throws Exception {
+        final SimpleServiceRegistry registry = new SimpleServiceRegistry();
+        final Path fil = mappe.resolve("tjenesteregister.jfr");
+        try (final Recording recording = new Recording(alleOppslag(profil()))) {
+            recording.start();
+
+            final ServiceRegistration<String> a = registry.registerService(String.class, "A", "kategori=a");
+            registry.registerService(String.class, "B", "kategori=b");
+            registry.getServiceReference(String.class);
+            registry.getServiceReferences(String.class, "kategori=b");
+            a.setProperties("kategori=c");
+            a.unregister();
+
+            recording.stop();
+            recording.dump(fil);
+        }
+
+        final List<RecordedEvent> hendingar = RecordingFile.readAllEvents(fil)
+                .stream()
+                .filter(e -> e.getEventType().getName().startsWith(PREFIKS))
+                .toList();
+
+        assertThat(hendingar)
+                .extracting(e -> e.getEventType().getName().substring(PREFIKS.length()))
+                .containsExactly("Register", "Register", "Lookup", "FilteredLookup", "Modify", "Unregister");
+        assertThat(hendingar).allSatisfy(e ->
+                assertThat(e.getClass("serviceType").getName()).isEqualTo(String.class.getName())
+        );
+
+        final RecordedEvent filtrert = hendingar.get(3);
+        assertThat(filtrert.getInt("filterCount")).isEqualTo(1);
+        assertThat(filtrert.getInt("candidatesScanned")).isEqualTo(2);
+        assertThat(filtrert.getInt("matches")).isEqualTo(1);
+
+        final RecordedEvent endring = hendingar.get(4);
+        assertThat(endring.getInt("candidatesScanned")).isEqualTo(2);
+        assertThat(endring.getInt("matches")).isEqualTo(1);
+
+        final RecordedEvent avregistrering = hendingar.get(5);
+        assertThat(avregistrering.getInt("candidatesScanned")).isEqualTo(2);
+        assertThat(avregistrering.getInt("matches")).isEqualTo(1);
+    }
+
+    @Test
+    void skal_ikkje_rapportere_hendingar_utan_innstillingsprofilen(@TempDir final Path mappe) throws Exception {
+        final SimpleServiceRegistry registry = new SimpleServiceRegistry();
+        final Path fil = mappe.resolve("standard.jfr");
+        try (final Recording recording = new Recording(Configuration.getConfiguration("default"))) {
+            recording.start();
+            registry.registerService(String.class, "A");
+            registry.getServiceReference(String.class);
+            recording.stop();
+            recording.dump(fil);
+        }
+
+        assertThat(RecordingFile.readAllEvents(fil))
+                .noneMatch(e -> e.getEventType().getName().startsWith(PREFIKS));
+    }
+
+    private static Configuration profil() throws Exception {
+        try (final Reader reader = new InputStreamReader(
+                SimpleServiceRegistry.class.getResourceAsStream("/no/spk/tidsserie/tjenesteregister/tjenesteregister.jfc"),
+                StandardCharsets.UTF_8
+        )) {
+            return Configuration.create(reader);
+        }
+    }
+
+    private static Map<String, String> alleOppslag(final Configuration profil) {
+        final Map<String, String> innstillingar = new HashMap<>(profil.getSettings());
+        innstillingar.replaceAll((navn, verdi) -> navn.endsWith("#threshold") ? "0 ms" : verdi);
+        return innstillingar;
+    }
+}
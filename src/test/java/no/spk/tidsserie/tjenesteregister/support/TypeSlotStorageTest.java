@@ -0,0 +1,183 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import static no.spk.tidsserie.tjenesteregister.Constants.SERVICE_RANKING;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+
+import no.spk.tidsserie.tjenesteregister.LookupMode;
+import no.spk.tidsserie.tjenesteregister.ServiceRegistration;
+import no.spk.tidsserie.tjenesteregister.ServiceTracker;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class TypeSlotStorageTest {
+    @Test
+    void skal_slaa_opp_tenester_via_class_value_paa_samme_maate_som_via_map() {
+        for (final TypeSlotStorage lagring : TypeSlotStorage.values()) {
+            final SimpleServiceRegistry registry = registry(lagring);
+            registry.registerService(String.class, "A", SERVICE_RANKING + "=1");
+            final ServiceRegistration<String> b = registry.registerService(String.class, "B", SERVICE_RANKING + "=2");
+            final SimpleServiceRegistry barn = registry.createChild();
+            barn.registerService(String.class, "C");
+
+            assertThat(registry.getServiceOrNull(String.class)).as(lagring.name()).isEqualTo("B");
+            assertThat(registry.getServiceOrNull(Integer.class)).as(lagring.name()).isNull();
+            assertThat(barn.countServices(String.class)).as(lagring.name()).isEqualTo(3);
+            assertThat(barn.freeze().countServices(String.class)).as(lagring.name()).isEqualTo(3);
+
+            b.unregister();
+            assertThat(registry.getServiceOrNull(String.class)).as(lagring.name()).isEqualTo("A");
+        }
+    }
+
+    @Test
+    void skal_sleppe_tenestetypar_fraa_ein_plugin_naar_tenestene_er_avregistrert() throws Exception {
+        final SimpleServiceRegistry registry = registry(TypeSlotStorage.CLASS_VALUE);
+        final WeakReference<ClassLoader> plugin = registrerOgAvregistrerPlugin(registry);
+
+        for (int i = 0; i < 50 && plugin.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+
+        assertThat(plugin.get()).as("klasselastaren til pluginen").isNull();
+        assertThat(registry.getServiceOrNull(String.class)).isEqualTo("vert");
+    }
+
+    @Test
+    void skal_sleppe_kasta_underregister_med_registrerte_tenester() throws Exception {
+        final SimpleServiceRegistry registry = registry(TypeSlotStorage.CLASS_VALUE);
+        registry.registerService(String.class, "vert");
+        final WeakReference<SimpleServiceRegistry> barn = kastaUnderregister(registry);
+
+        for (int i = 0; i < 50 && barn.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+
+        assertThat(barn.get()).as("det kasta underregisteret").isNull();
+        registry.registerService(String.class, "etterpaa");
+        assertThat(registry.countServices(String.class)).isEqualTo(2);
+    }
+
+    @Test
+    void skal_sleppe_tenestetypar_fraa_ein_plugin_som_er_registrert_baade_i_underregister_og_registeret_over()
+            throws Exception {
+        final SimpleServiceRegistry registry = registry(TypeSlotStorage.CLASS_VALUE);
+        final SimpleServiceRegistry barn = registry.createChild();
+        final WeakReference<ClassLoader> plugin = registrerOgAvregistrerPlugin(registry, barn);
+
+        for (int i = 0; i < 50 && plugin.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+
+        assertThat(plugin.get()).as("klasselastaren til pluginen").isNull();
+        assertThat(barn.countServices(String.class)).isEqualTo(1);
+    }
+
+    private static WeakReference<ClassLoader> registrerOgAvregistrerPlugin(final SimpleServiceRegistry registry,
+            final SimpleServiceRegistry barn) throws Exception {
+        registry.registerService(String.class, "vert");
+        final Pluginlastar lastar = new Pluginlastar();
+        final Class<?> type = lastar.loadClass(Plugin.class.getName());
+
+        final ServiceRegistration<?> iRegisteret = registrer(registry, type);
+        final ServiceRegistration<?> iBarnet = registrer(barn, type);
+        assertThat(barn.countServices(type)).isEqualTo(2);
+        iBarnet.unregister();
+        assertThat(barn.countServices(type)).isEqualTo(1);
+
+        final ServiceRegistration<?> iBarnetIgjen = registrer(barn, type);
+        assertThat(barn.countServices(type)).isEqualTo(2);
+        iRegisteret.unregister();
+        assertThat(barn.countServices(type)).isEqualTo(1);
+        iBarnetIgjen.unregister();
+        return new WeakReference<>(lastar);
+    }
+
+    private static WeakReference<SimpleServiceRegistry> kastaUnderregister(final SimpleServiceRegistry registry) {
+        final SimpleServiceRegistry barn = registry.createChild();
+        barn.registerService(String.class, "barn");
+        barn.registerService(Runnable.class, () -> {
+        });
+        final ServiceTracker<String> tracker = barn.track(String.class);
+        assertThat(tracker.getServices()).hasSize(2);
+        assertThat(barn.getServiceReferences(CharSequence.class, LookupMode.ASSIGNABLE)).hasSize(2);
+        return new WeakReference<>(barn);
+    }
+
+    private static WeakReference<ClassLoader> registrerOgAvregistrerPlugin(final SimpleServiceRegistry registry)
+            throws Exception {
+        registry.registerService(String.class, "vert");
+        final Pluginlastar lastar = new Pluginlastar();
+        final Class<?> type = lastar.loadClass(Plugin.class.getName());
+        assertThat(type.getClassLoader()).isSameAs(lastar);
+
+        final ServiceRegistration<?> registrering = registrer(registry, type);
+        assertThat(registry.countServices(type)).isEqualTo(1);
+        assertThat(registry.getServiceReferences(Object.class, LookupMode.ASSIGNABLE)).hasSize(2);
+        assertThat(registry.getServiceReferences(type, "namn=plugin")).hasSize(1);
+        final ServiceTracker<?> ulukka = registry.track(type, "namn=plugin");
+        assertThat(ulukka.getServices()).hasSize(1);
+        registrering.unregister();
+        assertThat(registry.getServiceReferences(Object.class, LookupMode.ASSIGNABLE)).hasSize(1);
+
+        // Oppslag etter avregistreringa skal ikkje legge tenestetypen til pluginen tilbake i nokon av buffera
+        assertThat(registry.getServiceReferences(type, "namn=plugin")).isEmpty();
+        assertThat(registry.getServiceReference(type, registry.compileFilter("namn=plugin"))).isEmpty();
+        assertThat(registry.getServiceReferences(type, LookupMode.ASSIGNABLE)).isEmpty();
+        assertThat(registry.getServiceReference(type, LookupMode.ASSIGNABLE, registry.compileFilter("namn=plugin"))).isEmpty();
+        return new WeakReference<>(lastar);
+    }
+
+    private static <T> ServiceRegistration<T> registrer(final SimpleServiceRegistry registry, final Class<T> type)
+            throws ReflectiveOperationException {
+        return registry.registerService(type, type.getConstructor().newInstance(), "namn=plugin");
+    }
+
+    private static SimpleServiceRegistry registry(final TypeSlotStorage lagring) {
+        return new SimpleServiceRegistry(
+                ServiceEventDispatcher.synchronous(),
+                SimpleServiceRegistry.DEFAULT_LOOKUP_CACHE_SIZE,
+                lagring
+        );
+    }
+
+    public static class Plugin {
+    }
+
+    /**
+     * Lastar {@link Plugin} på nytt i ein eigen klasselastar, slik ein plugin som blir redeploya ville blitt lasta.
+     */
+    private static final class Pluginlastar extends ClassLoader {
+        Pluginlastar() {
+            super(TypeSlotStorageTest.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> loadClass(final String namn, final boolean resolve) throws ClassNotFoundException {
+            if (!Plugin.class.getName().equals(namn)) {
+                return super.loadClass(namn, resolve);
+            }
+            synchronized (getClassLoadingLock(namn)) {
+                final Class<?> lasta = findLoadedClass(namn);
+                if (lasta != null) {
+                    return lasta;
+                }
+                try (final InputStream klassefil = getParent().getResourceAsStream(namn.replace('.', '/') + ".class")) {
+                    final byte[] bytes = klassefil.readAllBytes();
+                    return defineClass(namn, bytes, 0, bytes.length);
+                } catch (final IOException e) {
+                    throw new ClassNotFoundException(namn, e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import static no.spk.tidsserie.tjenesteregister.Constants.SERVICE_RANKING;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import no.spk.tidsserie.tjenesteregister.ServiceEvent;
+import no.spk.tidsserie.tjenesteregister.ServiceReference;
+import no.spk.tidsserie.tjenesteregister.ServiceRegistration;
+import no.spk.tidsserie.tjenesteregister.ServiceTracker;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class UnderregisterTest {
+    private SimpleServiceRegistry forelder;
+
+    private SimpleServiceRegistry barn;
+
+    @BeforeEach
+    void _before() {
+        forelder = new SimpleServiceRegistry();
+        barn = forelder.createChild();
+    }
+
+    @Test
+    void skal_sjaa_tenestene_til_forelderen_i_tillegg_til_sine_eigne() {
+        forelder.registerService(String.class, "GLOBAL", ranking(1));
+        barn.registerService(String.class, "LOKAL", ranking(2));
+
+        assertThat(tenester(barn)).containsExactly("LOKAL", "GLOBAL");
+        assertThat(tenester(forelder)).containsExactly("GLOBAL");
+    }
+
+    @Test
+    void skal_la_tenester_i_underregisteret_vinne_ved_lik_ranking() {
+        forelder.registerService(String.class, "GLOBAL");
+        barn.registerService(String.class, "LOKAL");
+        forelder.registerService(String.class, "GLOBAL2");
+
+        assertThat(barn.getServiceReference(String.class).flatMap(barn::getService)).contains("LOKAL");
+        assertThat(tenester(barn)).containsExactly("LOKAL", "GLOBAL", "GLOBAL2");
+    }
+
+    @Test
+    void skal_la_forelderen_vinne_ved_hoegare_ranking() {
+        forelder.registerService(String.class, "GLOBAL", ranking(10));
+        barn.registerService(String.class, "LOKAL", ranking(5));
+
+        assertThat(barn.getServiceReference(String.class).flatMap(barn::getService)).contains("GLOBAL");
+    }
+
+    @Test
+    void skal_oppdatere_samanslaatte_oppslag_naar_eit_av_registera_blir_endra() {
+        forelder.registerService(String.class, "GLOBAL");
+        barn.registerService(String.class, "LOKAL");
+
+        final List<ServiceReference<String>> foerste = barn.getServiceReferences(String.class);
+        assertThat(barn.getServiceReferences(String.class)).isEqualTo(foerste);
+
+        final ServiceRegistration<String> ny = forelder.registerService(String.class, "NY", ranking(3));
+        assertThat(tenester(barn)).containsExactly("NY", "LOKAL", "GLOBAL");
+
+        ny.unregister();
+        barn.registerService(String.class, "LOKAL2", ranking(-1));
+        assertThat(tenester(barn)).containsExactly("LOKAL", "GLOBAL", "LOKAL2");
+    }
+
+    @Test
+    void skal_filtrere_paa_tvers_av_registera() {
+        forelder.registerService(String.class, "GLOBAL_A", "kategori=a");
+        forelder.registerService(String.class, "GLOBAL_B", "kategori=b");
+        barn.registerService(String.class, "LOKAL_A", "kategori=a");
+
+        assertThat(barn.getServiceReferences(String.class, "kategori=a"))
+                .extracting(r -> barn.getService(r).orElseThrow())
+                .containsExactly("LOKAL_A", "GLOBAL_A");
+    }
+
+    @Test
+    void skal_arve_fraa_alle_nivaa_over() {
+        final SimpleServiceRegistry barnebarn = barn.createChild();
+        forelder.registerService(String.class, "GLOBAL");
+        barn.registerService(String.class, "BARN");
+        barnebarn.registerService(String.class, "BARNEBARN");
+
+        assertThat(tenester(barnebarn)).containsExactly("BARNEBARN", "BARN", "GLOBAL");
+    }
+
+    @Test
+    void skal_oppdatere_trackerar_og_lyttarar_i_underregisteret_ved_endringar_i_forelderen() {
+        final SimpleServiceRegistry barnebarn = barn.createChild();
+        final ServiceTracker<String> tracker = barnebarn.track(String.class);
+        final List<ServiceEvent<String>> hendingar = new CopyOnWriteArrayList<>();
+        barn.addServiceListener(String.class, barn.compileFilter(), hendingar::add);
+
+        barnebarn.registerService(String.class, "LOKAL");
+        final ServiceRegistration<String> global = forelder.registerService(String.class, "GLOBAL", ranking(1));
+
+        assertThat(tracker.getServices()).containsExactly("GLOBAL", "LOKAL");
+
+        global.unregister();
+
+        assertThat(tracker.getServices()).containsExactly("LOKAL");
+        assertThat(hendingar)
+                .extracting(ServiceEvent::getType)
+                .containsExactly(ServiceEvent.Type.REGISTERED, ServiceEvent.Type.UNREGISTERED);
+    }
+
+    @Test
+    void skal_ikkje_sjaa_tenester_registrert_i_eit_soeskenregister() {
+        final SimpleServiceRegistry soesken = forelder.createChild();
+        soesken.registerService(String.class, "SØSKEN");
+
+        assertThat(barn.getServiceReferences(String.class)).isEmpty();
+    }
+
+    private static List<String> tenester(final SimpleServiceRegistry registry) {
+        return registry.getServiceReferences(String.class)
+                .stream()
+                .map(r -> registry.getService(r).orElseThrow())
+                .toList();
+    }
+
+    private static String ranking(final int ranking) {
+        return SERVICE_RANKING + "=" + ranking;
+    }
+}
@@ -0,0 +1,141 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import no.spk.tidsserie.tjenesteregister.ServiceFilter;
+import no.spk.tidsserie.tjenesteregister.UgyldigSyntaxException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class UttrykksfilterTest {
+    private SimpleServiceRegistry registry;
+
+    @BeforeEach
+    void _before() {
+        registry = new SimpleServiceRegistry();
+        registry.registerService(String.class, "PREMIE_2019", "type=premie", "aar=2019");
+        registry.registerService(String.class, "PREMIE_2021", "type=premie", "aar=2021");
+        registry.registerService(String.class, "PREMIE_REGION", "type=premie", "aar=2018", "region=vest");
+        registry.registerService(String.class, "REGULERING", "type=regulering", "aar=2022");
+    }
+
+    @Test
+    void skal_kombinere_og_eller_samanlikning_og_eksistens() {
+        assertThat(finn("(&(type=premie)(|(aar>=2020)(region=*)))"))
+                .containsExactly("PREMIE_2021", "PREMIE_REGION");
+    }
+
+    @Test
+    void skal_negere_krav() {
+        assertThat(finn("(!(type=premie))")).containsExactly("REGULERING");
+        assertThat(finn("(&(type=premie)(!(region=*)))")).containsExactly("PREMIE_2019", "PREMIE_2021");
+    }
+
+    @Test
+    void skal_samanlikne_numerisk_naar_begge_verdiane_er_tal() {
+        registry.registerService(String.class, "STOR", "aar=10000");
+
+        assertThat(finn("(aar<=2019)")).containsExactly("PREMIE_2019", "PREMIE_REGION");
+        assertThat(finn("(aar>=9999.5)")).containsExactly("STOR");
+    }
+
+    @Test
+    void skal_samanlikne_heiltal_numerisk_uavhengig_av_forteikn_og_innleiande_nullar() {
+        registry.registerService(String.class, "NEGATIV", "aar=-5");
+        registry.registerService(String.class, "NULLAR", "aar=+02020");
+        registry.registerService(String.class, "DESIMAL", "aar=2019.5");
+        registry.registerService(String.class, "ENORM", "aar=12345678901234567890");
+
+        assertThat(finn("(aar<=-1)")).containsExactly("NEGATIV");
+        assertThat(finn("(&(aar>=2019.5)(aar<=2020))")).containsExactly("NULLAR", "DESIMAL");
+        assertThat(finn("(&(aar>=2020)(aar<=02020))")).containsExactly("NULLAR");
+        assertThat(finn("(aar>=999999999999999999)")).containsExactly("ENORM");
+    }
+
+    @Test
+    void skal_samanlikne_alfabetisk_naar_ein_av_verdiane_ikkje_er_tal() {
+        assertThat(finn("(type>=q)")).containsExactly("REGULERING");
+    }
+
+    @Test
+    void skal_matche_moenster_med_jokerteikn() {
+        assertThat(finn("(type=pre*)")).containsExactly("PREMIE_2019", "PREMIE_2021", "PREMIE_REGION");
+        assertThat(finn("(type=*ering)")).containsExactly("REGULERING");
+        assertThat(finn("(type=r*g*r*g)")).containsExactly("REGULERING");
+        assertThat(finn("(type=p*mi*e)")).containsExactly("PREMIE_2019", "PREMIE_2021", "PREMIE_REGION");
+        assertThat(finn("(aar=20*1)")).containsExactly("PREMIE_2021");
+    }
+
+    @Test
+    void skal_matche_omtrentleg_likskap_uavhengig_av_store_og_smaa_bokstavar() {
+        assertThat(finn("(region~=VEST)")).containsExactly("PREMIE_REGION");
+    }
+
+    @Test
+    void skal_stoette_escapa_spesialteikn_i_verdiar() {
+        registry.registerService(String.class, "SPESIAL", "navn=a(b)*c\\d");
+
+        assertThat(finn("(navn=a\\(b\\)\\*c\\\\d)")).containsExactly("SPESIAL");
+    }
+
+    @Test
+    void skal_kombinere_uttrykk_og_enkle_filter_med_og() {
+        assertThat(finn("type=premie", "(aar>=2019)")).containsExactly("PREMIE_2019", "PREMIE_2021");
+    }
+
+    @Test
+    void skal_gi_samme_resultat_med_og_utan_indeks() {
+        IntStream.range(0, 50).forEach(i -> registry.registerService(
+                String.class, "T" + i, "gruppe=" + i % 5, "nummer=" + i
+        ));
+
+        final List<String> forventa = IntStream.range(0, 50)
+                .filter(i -> i % 5 == 1 || i % 5 == 3 && i >= 40)
+                .mapToObj(i -> "T" + i)
+                .toList();
+
+        final String filter = "(|(gruppe=1)(&(gruppe=3)(nummer>=40)))";
+        assertThat(finn(filter)).containsExactlyElementsOf(forventa);
+        assertThat(finn("(nummer=*)")).hasSize(50);
+        assertThat(registry.getServiceReference(String.class, filter).flatMap(registry::getService)).contains("T1");
+    }
+
+    @Test
+    void skal_normalisere_kompilerte_uttrykk() {
+        final ServiceFilter a = registry.compileFilter("(&(a=1)(b>=2))");
+        final ServiceFilter b = registry.compileFilter("( & (b>=2) (a=1) )");
+
+        assertThat(a).isEqualTo(b).hasSameHashCodeAs(b);
+    }
+
+    @Test
+    void skal_avvise_ugyldige_uttrykk() {
+        List.of("(", "(a=1", "(a=1))", "(&)", "(=1)", "(a)", "(a>=1*)", "(a=b(c)", "(!(a=1)(b=2))", "(a=)", "(a)=1")
+                .forEach(filter -> assertThatThrownBy(() -> registry.compileFilter(filter))
+                        .as(filter)
+                        .isInstanceOf(UgyldigSyntaxException.class)
+                );
+    }
+
+    @Test
+    void skal_tolke_filter_med_parentesar_berre_i_verdien_som_navn_verdi_filter() {
+        registry.registerService(String.class, "PARENTES", "type=(premie)");
+
+        assertThat(finn("type=(premie)")).containsExactly("PARENTES");
+    }
+
+    private List<String> finn(final String... filter) {
+        return registry.getServiceReferences(String.class, filter)
+                .stream()
+                .map(r -> registry.getService(r).orElseThrow())
+                .toList();
+    }
+}
@@ -0,0 +1,141 @@
+package no.spk.tidsserie.tjenesteregister.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import no.spk.tidsserie.tjenesteregister.ServiceRegistration;
+import no.spk.tidsserie.tjenesteregister.ServiceTracker;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class WriteConcurrencyTest {
+    private static final List<Class<?>> TYPAR = List.of(
+            Long.class, Double.class, Float.class, Short.class, Byte.class, Character.class, Boolean.class,
+            BigInteger.class, BigDecimal.class, StringBuilder.class, StringBuffer.class
+    );
+
+    @Test
+    void skal_halde_registeret_konsistent_ved_samtidige_registreringar_og_avregistreringar() throws Exception {
+        for (final WriteConcurrency modus : WriteConcurrency.values()) {
+            final SimpleServiceRegistry registry = registry(modus);
+            final SimpleServiceRegistry barn = registry.createChild();
+            final ServiceTracker<String> tracker = barn.track(String.class);
+            final ServiceTracker<Integer> heiltal = registry.track(Integer.class);
+            final AtomicInteger hendingar = new AtomicInteger();
+            registry.addServiceListener(String.class, registry.compileFilter(), event -> hendingar.incrementAndGet());
+
+            final int traadar = 8;
+            final int runder = 500;
+            try (final ExecutorService executor = Executors.newFixedThreadPool(traadar)) {
+                final CountDownLatch start = new CountDownLatch(1);
+                final List<CompletableFuture<Void>> arbeid = IntStream.range(0, traadar)
+                        .mapToObj(t -> CompletableFuture.runAsync(() -> {
+                            await(start);
+                            for (int i = 0; i < runder; i++) {
+                                final ServiceRegistration<String> streng = registry.registerService(String.class, t + ":" + i);
+                                final ServiceRegistration<Integer> tal = registry.registerService(Integer.class, i);
+                                streng.unregister();
+                                if (i % 2 == 0) {
+                                    tal.unregister();
+                                }
+                            }
+                        }, executor))
+                        .toList();
+                start.countDown();
+                CompletableFuture.allOf(arbeid.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+            }
+
+            assertThat(registry.countServices(String.class)).as(modus.name()).isZero();
+            assertThat(tracker.getServices()).as(modus.name()).isEmpty();
+            assertThat(registry.countServices(Integer.class)).as(modus.name()).isEqualTo(traadar * runder / 2);
+            assertThat(heiltal.getServices()).as(modus.name()).hasSize(traadar * runder / 2);
+            assertThat(hendingar).as(modus.name()).hasValue(traadar * runder * 2);
+            assertThat(registry.freeze().countServices(Integer.class)).as(modus.name()).isEqualTo(traadar * runder / 2);
+        }
+    }
+
+    @Test
+    void skal_ikkje_blokkere_registreringar_under_andre_tenestetypar_naar_skrivingane_er_stripa() throws Exception {
+        final SimpleServiceRegistry registry = registry(WriteConcurrency.STRIPED);
+        final Class<?> annan = annanStripe(String.class);
+        final CountDownLatch inne = new CountDownLatch(1);
+        final CountDownLatch slepp = new CountDownLatch(1);
+        registry.addServiceListener(String.class, reference -> {
+            inne.countDown();
+            await(slepp);
+            return false;
+        }, event -> {
+        });
+
+        final Thread blokkert = Thread.ofVirtual().start(() -> registry.registerService(String.class, "A"));
+        try {
+            assertThat(inne.await(10, TimeUnit.SECONDS)).isTrue();
+
+            final CompletableFuture<Integer> registrering = CompletableFuture.supplyAsync(() -> {
+                registrer(registry, annan);
+                return registry.countServices(annan);
+            });
+            assertThat(registrering.get(10, TimeUnit.SECONDS)).isEqualTo(1);
+        } finally {
+            slepp.countDown();
+            blokkert.join();
+        }
+        assertThat(registry.countServices(String.class)).isEqualTo(1);
+    }
+
+    private static Class<?> annanStripe(final Class<?> type) {
+        final Skrivelaasar laasar = Skrivelaasar.av(WriteConcurrency.STRIPED);
+        return TYPAR
+                .stream()
+                .filter(kandidat -> laasar.laas(kandidat) != laasar.laas(type))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static <T> void registrer(final SimpleServiceRegistry registry, final Class<T> type) {
+        registry.registerService(type, type.cast(switch (type.getSimpleName()) {
+            case "Long" -> 1L;
+            case "Double" -> 1d;
+            case "Float" -> 1f;
+            case "Short" -> (short) 1;
+            case "Byte" -> (byte) 1;
+            case "Character" -> 'a';
+            case "Boolean" -> true;
+            case "BigInteger" -> BigInteger.ONE;
+            case "BigDecimal" -> BigDecimal.ONE;
+            case "StringBuilder" -> new StringBuilder();
+            default -> new StringBuffer();
+        }));
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static SimpleServiceRegistry registry(final WriteConcurrency modus) {
+        return new SimpleServiceRegistry(
+                ServiceEventDispatcher.synchronous(),
+                SimpleServiceRegistry.DEFAULT_LOOKUP_CACHE_SIZE,
+                TypeSlotStorage.MAP,
+                modus
+        );
+    }
+}